@@ -0,0 +1,40 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.model.Accessor;
+
+/**
+ * Interface of accessor which can read several records of the data source
+ * at once, to be consumed by a {@link BatchResolver}.
+ */
+public interface BatchAccessor extends Accessor {
+
+    /**
+     * Reads the next batch of records. The data of the returned row is
+     * opaque to the bridge and is handed over as is to
+     * {@link BatchResolver#resolveBatch}.
+     *
+     * @param maxRecords maximum number of records the batch can contain
+     * @return the batch of records, or null if there are no more records
+     * @throws Exception if reading from the resource failed
+     */
+    OneRow readNextBatch(int maxRecords) throws Exception;
+}
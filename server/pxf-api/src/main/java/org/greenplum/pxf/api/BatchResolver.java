@@ -0,0 +1,45 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.model.Resolver;
+
+/**
+ * Interface of resolver which deserializes records straight into
+ * column vectors, without creating a {@link OneField} per value.
+ */
+public interface BatchResolver extends Resolver {
+
+    /**
+     * Resolves the records contained in the given row and appends them to
+     * the batch, starting at index {@link ColumnBatch#size()}, and updates
+     * the size of the batch accordingly. The row was returned either by
+     * {@link org.greenplum.pxf.api.model.Accessor#readNextObject()} or, when
+     * the accessor is a {@link BatchAccessor}, by
+     * {@link BatchAccessor#readNextBatch(int)}, and never holds more
+     * records than {@link ColumnBatch#remaining()}.
+     *
+     * @param row   the row holding one or more records
+     * @param batch the batch to append the records to
+     * @throws Exception if decomposing the records into fields failed
+     */
+    void resolveBatch(OneRow row, ColumnBatch batch) throws Exception;
+}
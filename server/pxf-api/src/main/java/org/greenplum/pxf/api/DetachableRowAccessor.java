@@ -0,0 +1,39 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.model.Accessor;
+
+/**
+ * Interface of accessor whose rows can be resolved on another thread than
+ * the one reading them, which lets the bridge resolve the rows in parallel.
+ */
+public interface DetachableRowAccessor extends Accessor {
+
+    /**
+     * Returns a row that stays valid once the next row was read. Accessors
+     * that reuse the objects of a row between reads return a copy, the others
+     * return the row itself.
+     *
+     * @param row the row last returned by {@link #readNextObject()}
+     * @return a row that is not modified by the next reads
+     */
+    OneRow detach(OneRow row);
+}
@@ -0,0 +1,38 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+/**
+ * Interface of accessors which can report statistics about the data they
+ * read from the external system, such as the number of bytes read from
+ * local replicas.
+ */
+public interface ReadStatisticsProvider {
+
+    /**
+     * Returns the statistics of the data read so far. Called before the
+     * accessor is closed.
+     *
+     * @return the statistics by name, empty if none are available
+     */
+    Map<String, Long> getReadStatistics();
+}
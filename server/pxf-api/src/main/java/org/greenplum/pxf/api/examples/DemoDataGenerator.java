@@ -0,0 +1,437 @@
+package org.greenplum.pxf.api.examples;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.UnsupportedTypeException;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnVector;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic values for the columns of the tuple description.
+ * <p>
+ * Every value is a pure function of the row number, the column index and
+ * the seed, so that rows can be generated in any order, by several threads,
+ * and the same query always returns the same data. Values of text-form and
+ * BYTEA columns are picked from a pool of {@value #POOL_SIZE} values built
+ * once per request, so generating a row never formats or allocates strings.
+ * <p>
+ * The generator is configured by the following options:
+ * <ul>
+ * <li>ROWS - total number of rows of the table, default {@value #DEFAULT_ROWS}</li>
+ * <li>FRAGMENTS - number of fragments the rows are split into, default 1</li>
+ * <li>DISTRIBUTION - one of uniform (default), sequential, skewed or constant</li>
+ * <li>NULL_RATIO - ratio of null values in every column, between 0 (default) and 1</li>
+ * <li>STRING_WIDTH - width of text and BYTEA values, either a fixed width
+ * or a min-max range, default {@value #DEFAULT_STRING_WIDTH}</li>
+ * <li>SEED - seed of the generated values, default 0</li>
+ * </ul>
+ */
+public class DemoDataGenerator {
+
+    public static final String ROWS_OPTION = "ROWS";
+    public static final String FRAGMENTS_OPTION = "FRAGMENTS";
+    public static final String DISTRIBUTION_OPTION = "DISTRIBUTION";
+    public static final String NULL_RATIO_OPTION = "NULL_RATIO";
+    public static final String STRING_WIDTH_OPTION = "STRING_WIDTH";
+    public static final String SEED_OPTION = "SEED";
+
+    static final long DEFAULT_ROWS = 1_000_000L;
+    static final int DEFAULT_STRING_WIDTH = 16;
+    static final int POOL_SIZE = 1024;
+
+    private static final long SKEWED_RANGE = 1_000_000L;
+    private static final double UNIFORM_DOUBLE_RANGE = 1_000_000d;
+    private static final char[] ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Distribution of the generated values.
+     */
+    public enum Distribution {
+        /**
+         * Values are spread evenly over the range of the type
+         */
+        UNIFORM,
+        /**
+         * Values follow the row number
+         */
+        SEQUENTIAL,
+        /**
+         * Most values are small, few are large
+         */
+        SKEWED,
+        /**
+         * All values of a column are the same
+         */
+        CONSTANT
+    }
+
+    private final DataType[] types;
+    private final Object[][] pools;
+    private final Distribution distribution;
+    private final long nullThreshold;
+    private final long seed;
+
+    /**
+     * Constructs a generator for the tuple description and the options of
+     * the given request.
+     *
+     * @param context the request context
+     */
+    public DemoDataGenerator(RequestContext context) {
+        this.distribution = getDistribution(context);
+        this.seed = getLongOption(context, SEED_OPTION, 0L);
+
+        String nullRatioValue = context.getOption(NULL_RATIO_OPTION, "0");
+        double nullRatio;
+        try {
+            nullRatio = Double.parseDouble(nullRatioValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be a number between 0 and 1", NULL_RATIO_OPTION, nullRatioValue), e);
+        }
+        if (!(nullRatio >= 0 && nullRatio <= 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be a number between 0 and 1", NULL_RATIO_OPTION, nullRatioValue));
+        }
+        // compared against 53 random bits, a ratio of 1 makes every value null
+        this.nullThreshold = (long) (nullRatio * (1L << 53));
+
+        int[] widths = getStringWidths(context);
+        List<ColumnDescriptor> columns = context.getTupleDescription();
+        this.types = new DataType[columns.size()];
+        this.pools = new Object[columns.size()][];
+        for (int i = 0; i < types.length; i++) {
+            ColumnDescriptor column = columns.get(i);
+            types[i] = DataType.get(column.columnTypeCode());
+            pools[i] = buildPool(column, types[i], widths[0], widths[1], new Random(seed * 31 + i));
+        }
+    }
+
+    /**
+     * @return the number of columns generated
+     */
+    public int getNumColumns() {
+        return types.length;
+    }
+
+    /**
+     * Generates the fields of the given row.
+     *
+     * @param row the row number
+     * @return the fields of the row
+     */
+    public List<OneField> getFields(long row) {
+        List<OneField> fields = new ArrayList<>(types.length);
+        for (int col = 0; col < types.length; col++) {
+            long hash = hash(row, col);
+            Object value = isNull(hash) ? null : getValue(col, row, hash);
+            fields.add(new OneField(types[col].getOID(), value));
+        }
+        return fields;
+    }
+
+    /**
+     * Generates the given rows and appends them to the batch, starting at
+     * index {@link ColumnBatch#size()}, and updates the size of the batch.
+     *
+     * @param firstRow the number of the first row
+     * @param count    the number of rows, at most {@link ColumnBatch#remaining()}
+     * @param batch    the batch to append the rows to
+     */
+    public void fill(long firstRow, int count, ColumnBatch batch) {
+        int start = batch.size();
+        for (int col = 0; col < types.length; col++) {
+            ColumnVector vector = batch.getColumn(col);
+            for (int i = 0; i < count; i++) {
+                long row = firstRow + i;
+                long hash = hash(row, col);
+                int index = start + i;
+                if (isNull(hash)) {
+                    vector.setNull(index);
+                    continue;
+                }
+                switch (types[col]) {
+                    case BIGINT:
+                        vector.setLong(index, longValue(row, hash));
+                        break;
+                    case INTEGER:
+                        vector.setInt(index, (int) longValue(row, hash));
+                        break;
+                    case SMALLINT:
+                        vector.setShort(index, (short) longValue(row, hash));
+                        break;
+                    case FLOAT8:
+                        vector.setDouble(index, doubleValue(row, hash));
+                        break;
+                    case REAL:
+                        vector.setFloat(index, (float) doubleValue(row, hash));
+                        break;
+                    case BOOLEAN:
+                        vector.setBoolean(index, (longValue(row, hash) & 1) == 0);
+                        break;
+                    case BYTEA:
+                        vector.setBytes(index, (byte[]) pools[col][poolIndex(row, hash)]);
+                        break;
+                    default:
+                        vector.setString(index, (String) pools[col][poolIndex(row, hash)]);
+                }
+            }
+        }
+        batch.setSize(start + count);
+    }
+
+    /**
+     * Returns the total number of rows of the table.
+     *
+     * @param context the request context
+     * @return the value of the ROWS option
+     */
+    public static long getRowCount(RequestContext context) {
+        long rows = getLongOption(context, ROWS_OPTION, DEFAULT_ROWS);
+        if (rows < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %d : must be a non-negative integer", ROWS_OPTION, rows));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the number of fragments the table is split into.
+     *
+     * @param context the request context
+     * @return the value of the FRAGMENTS option
+     */
+    public static int getFragmentCount(RequestContext context) {
+        int fragments = context.getOption(FRAGMENTS_OPTION, 1, true);
+        if (fragments == 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value 0 : must be a positive integer", FRAGMENTS_OPTION));
+        }
+        return fragments;
+    }
+
+    private Object getValue(int col, long row, long hash) {
+        switch (types[col]) {
+            case BIGINT:
+                return longValue(row, hash);
+            case INTEGER:
+                return (int) longValue(row, hash);
+            case SMALLINT:
+                return (short) longValue(row, hash);
+            case FLOAT8:
+                return doubleValue(row, hash);
+            case REAL:
+                return (float) doubleValue(row, hash);
+            case BOOLEAN:
+                return (longValue(row, hash) & 1) == 0;
+            default:
+                return pools[col][poolIndex(row, hash)];
+        }
+    }
+
+    private long longValue(long row, long hash) {
+        switch (distribution) {
+            case SEQUENTIAL:
+                return row;
+            case SKEWED:
+                return (long) (skew(hash) * SKEWED_RANGE);
+            case CONSTANT:
+                return 0;
+            default:
+                return hash;
+        }
+    }
+
+    private double doubleValue(long row, long hash) {
+        switch (distribution) {
+            case SEQUENTIAL:
+                return row;
+            case SKEWED:
+                return skew(hash) * SKEWED_RANGE;
+            case CONSTANT:
+                return 0;
+            default:
+                return unit(hash) * UNIFORM_DOUBLE_RANGE;
+        }
+    }
+
+    private int poolIndex(long row, long hash) {
+        switch (distribution) {
+            case SEQUENTIAL:
+                return (int) (row & (POOL_SIZE - 1));
+            case SKEWED:
+                return (int) (skew(hash) * POOL_SIZE);
+            case CONSTANT:
+                return 0;
+            default:
+                return (int) (hash & (POOL_SIZE - 1));
+        }
+    }
+
+    private boolean isNull(long hash) {
+        // mixed once more so that nullness does not depend on the value
+        return nullThreshold > 0 && (mix(hash ^ 0xD6E8FEB86659FD93L) >>> 11) < nullThreshold;
+    }
+
+    private long hash(long row, int col) {
+        return mix(seed + row * 0x9E3779B97F4A7C15L + col * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    /*
+     * Finalizer of the SplitMix64 generator, a cheap bijection with good
+     * avalanche properties.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double unit(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private static double skew(long hash) {
+        double x = unit(hash);
+        return x * x * x * x;
+    }
+
+    private static Object[] buildPool(ColumnDescriptor column, DataType type, int minWidth, int maxWidth, Random random) {
+        switch (type) {
+            case BIGINT:
+            case INTEGER:
+            case SMALLINT:
+            case FLOAT8:
+            case REAL:
+            case BOOLEAN:
+                // generated from the hash, no pool needed
+                return null;
+        }
+        Object[] pool = new Object[POOL_SIZE];
+        // char(n) and varchar(n) values must fit the declared length
+        Integer[] modifiers = column.columnTypeModifiers();
+        if ((type == DataType.BPCHAR || type == DataType.VARCHAR) && modifiers != null && modifiers.length > 0) {
+            maxWidth = Math.min(maxWidth, modifiers[0]);
+            minWidth = Math.min(minWidth, maxWidth);
+        }
+        for (int i = 0; i < POOL_SIZE; i++) {
+            switch (type) {
+                case TEXT:
+                case VARCHAR:
+                case BPCHAR:
+                    pool[i] = randomString(random, width(random, minWidth, maxWidth));
+                    break;
+                case BYTEA:
+                    byte[] bytes = new byte[width(random, minWidth, maxWidth)];
+                    random.nextBytes(bytes);
+                    pool[i] = bytes;
+                    break;
+                case NUMERIC:
+                    pool[i] = String.format(Locale.ROOT, "%d.%02d", random.nextInt(1_000_000), random.nextInt(100));
+                    break;
+                case DATE:
+                    pool[i] = LocalDate.ofEpochDay(EPOCH.toLocalDate().toEpochDay() + random.nextInt(10_000)).toString();
+                    break;
+                case TIME:
+                    pool[i] = LocalTime.ofSecondOfDay(random.nextInt(86_400)).toString();
+                    break;
+                case TIMESTAMP:
+                    pool[i] = EPOCH.plusSeconds(random.nextInt(Integer.MAX_VALUE) & 0x3FFFFFFF).format(TIMESTAMP_FORMAT);
+                    break;
+                case TIMESTAMP_WITH_TIME_ZONE:
+                    pool[i] = EPOCH.plusSeconds(random.nextInt(Integer.MAX_VALUE) & 0x3FFFFFFF).format(TIMESTAMP_FORMAT) + "+00";
+                    break;
+                default:
+                    throw new UnsupportedTypeException(String.format(
+                            "Column %s of type %s is not supported by the data generator",
+                            column.columnName(), column.columnTypeName()));
+            }
+        }
+        return pool;
+    }
+
+    private static int width(Random random, int minWidth, int maxWidth) {
+        return minWidth == maxWidth ? minWidth : minWidth + random.nextInt(maxWidth - minWidth + 1);
+    }
+
+    private static String randomString(Random random, int width) {
+        char[] chars = new char[width];
+        for (int i = 0; i < width; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    private static Distribution getDistribution(RequestContext context) {
+        String value = context.getOption(DISTRIBUTION_OPTION, Distribution.UNIFORM.name());
+        try {
+            return Distribution.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be one of uniform, sequential, skewed or constant",
+                    DISTRIBUTION_OPTION, value), e);
+        }
+    }
+
+    private static int[] getStringWidths(RequestContext context) {
+        String value = context.getOption(STRING_WIDTH_OPTION, String.valueOf(DEFAULT_STRING_WIDTH));
+        int separator = value.indexOf('-');
+        try {
+            int min = Integer.parseInt(separator < 0 ? value.trim() : value.substring(0, separator).trim());
+            int max = separator < 0 ? min : Integer.parseInt(value.substring(separator + 1).trim());
+            if (min >= 0 && max >= min) {
+                return new int[]{min, max};
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(String.format(
+                "Property %s has incorrect value %s : must be a width or a min-max range of widths", STRING_WIDTH_OPTION, value));
+    }
+
+    private static long getLongOption(RequestContext context, String option, long defaultValue) {
+        String value = context.getOption(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be an integer", option, value), e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.greenplum.pxf.api.examples;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.BatchAccessor;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.model.BasePlugin;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Accessor of the synthetic data generator. Reads nothing, it only hands
+ * out the numbers of the rows of the fragment, either one at a time or as
+ * ranges of rows, the values are generated by {@link DemoGeneratorResolver}.
+ * The key of each returned {@link OneRow} is the number of the first row
+ * as a {@link Long}, its data the number of rows as an {@link Integer}.
+ * <p>
+ * Written rows are counted and discarded, which makes the write path
+ * usable without any storage too.
+ *
+ * @see DemoDataGenerator
+ */
+public class DemoGeneratorAccessor extends BasePlugin implements BatchAccessor {
+
+    private long nextRow;
+    private long endRow;
+    private long writtenRows;
+
+    /**
+     * Determines the range of rows of the fragment. Without fragment
+     * metadata all the ROWS rows of the table are returned.
+     *
+     * @return true
+     */
+    @Override
+    public boolean openForRead() throws Exception {
+        byte[] metadata = context.getFragmentMetadata();
+        if (metadata == null) {
+            nextRow = 0;
+            endRow = DemoDataGenerator.getRowCount(context);
+        } else {
+            String range = new String(metadata, StandardCharsets.UTF_8);
+            int separator = range.indexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Fragment metadata " + range + " is not a range of rows");
+            }
+            nextRow = Long.parseLong(range.substring(0, separator));
+            endRow = nextRow + Long.parseLong(range.substring(separator + 1));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of the next row.
+     *
+     * @return one row, or null when all rows of the fragment were returned
+     */
+    @Override
+    public OneRow readNextObject() throws Exception {
+        if (nextRow >= endRow) {
+            return null;
+        }
+        return new OneRow(nextRow++, 1);
+    }
+
+    /**
+     * Returns the next range of at most maxRecords rows.
+     *
+     * @param maxRecords maximum number of records the batch can contain
+     * @return the range of rows, or null when all rows of the fragment were returned
+     */
+    @Override
+    public OneRow readNextBatch(int maxRecords) throws Exception {
+        if (nextRow >= endRow) {
+            return null;
+        }
+        int count = (int) Math.min(maxRecords, endRow - nextRow);
+        OneRow row = new OneRow(nextRow, count);
+        nextRow += count;
+        return row;
+    }
+
+    @Override
+    public void closeForRead() throws Exception {
+        /* nothing to close */
+    }
+
+    @Override
+    public boolean openForWrite() throws Exception {
+        writtenRows = 0;
+        return true;
+    }
+
+    /**
+     * Discards the row.
+     *
+     * @param onerow the object to be written
+     * @return true
+     */
+    @Override
+    public boolean writeNextObject(OneRow onerow) throws Exception {
+        writtenRows++;
+        return true;
+    }
+
+    @Override
+    public void closeForWrite() throws Exception {
+        LOG.debug("Discarded {} rows of segment {}", writtenRows, context.getSegmentId());
+    }
+
+    /**
+     * Serializes a range of rows into fragment metadata.
+     *
+     * @param firstRow the number of the first row
+     * @param count    the number of rows
+     * @return the fragment metadata
+     */
+    static byte[] toMetadata(long firstRow, long count) {
+        return (firstRow + "," + count).getBytes(StandardCharsets.UTF_8);
+    }
+}
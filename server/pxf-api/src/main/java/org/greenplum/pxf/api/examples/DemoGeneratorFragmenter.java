@@ -0,0 +1,58 @@
+package org.greenplum.pxf.api.examples;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.model.BaseFragmenter;
+import org.greenplum.pxf.api.model.Fragment;
+
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * Fragmenter of the synthetic data generator. Splits the ROWS rows of the
+ * table into FRAGMENTS fragments of nearly equal size, the metadata of each
+ * fragment holds the number of its first row and its number of rows.
+ *
+ * @see DemoDataGenerator
+ */
+public class DemoGeneratorFragmenter extends BaseFragmenter {
+
+    /**
+     * Returns FRAGMENTS fragments, all of them located on the local host.
+     *
+     * @return list of fragments
+     */
+    @Override
+    public List<Fragment> getFragments() throws Exception {
+        long rows = DemoDataGenerator.getRowCount(context);
+        int fragmentCount = DemoDataGenerator.getFragmentCount(context);
+        String[] hosts = new String[]{InetAddress.getLocalHost().getHostName()};
+
+        long firstRow = 0;
+        for (int i = 0; i < fragmentCount; i++) {
+            // the first (rows % fragmentCount) fragments get one more row
+            long count = rows / fragmentCount + (i < rows % fragmentCount ? 1 : 0);
+            byte[] metadata = DemoGeneratorAccessor.toMetadata(firstRow, count);
+            fragments.add(new Fragment(context.getDataSource() + "." + i, hosts, metadata));
+            firstRow += count;
+        }
+        return fragments;
+    }
+}
@@ -0,0 +1,81 @@
+package org.greenplum.pxf.api.examples;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.BatchResolver;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.model.BasePlugin;
+import org.greenplum.pxf.api.model.RequestContext;
+
+import java.util.List;
+
+/**
+ * Resolver of the synthetic data generator. Generates the values of the
+ * rows handed out by {@link DemoGeneratorAccessor}, either as fields or
+ * straight into a {@link ColumnBatch}. The generator is stateless, so the
+ * resolver can be used by several threads at once.
+ *
+ * @see DemoDataGenerator
+ */
+public class DemoGeneratorResolver extends BasePlugin implements BatchResolver {
+
+    private DemoDataGenerator generator;
+
+    @Override
+    public void initialize(RequestContext requestContext) {
+        super.initialize(requestContext);
+        generator = new DemoDataGenerator(requestContext);
+    }
+
+    /**
+     * Generates the fields of the first row of the given row range.
+     *
+     * @param row the range of rows
+     * @return the generated fields
+     */
+    @Override
+    public List<OneField> getFields(OneRow row) throws Exception {
+        return generator.getFields((Long) row.getKey());
+    }
+
+    /**
+     * Generates all rows of the given row range into the batch.
+     *
+     * @param row   the range of rows
+     * @param batch the batch to append the records to
+     */
+    @Override
+    public void resolveBatch(OneRow row, ColumnBatch batch) throws Exception {
+        generator.fill((Long) row.getKey(), (Integer) row.getData(), batch);
+    }
+
+    /**
+     * Wraps the fields into a row without looking at them.
+     *
+     * @param record list of {@link OneField}
+     * @return the row holding the fields
+     */
+    @Override
+    public OneRow setFields(List<OneField> record) throws Exception {
+        return new OneRow(null, record);
+    }
+}
@@ -0,0 +1,169 @@
+package org.greenplum.pxf.api.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of parsed filters and of the pushdown objects plugins compile from
+ * them. All fragments of a query send the same filter string, so the filter
+ * is parsed, pruned and compiled once per query rather than once per
+ * fragment. Entries expire shortly after the last fragment used them.
+ * <p>
+ * Entries are keyed by the filter string, the columns of the table, the
+ * class of the plugin and an optional qualifier for anything else the
+ * compiled object depends on. Cached objects are shared by concurrent
+ * requests, so they must not be modified by their users.
+ */
+public class FilterCache {
+
+    private static final int MAXIMUM_SIZE = 1000;
+    private static final long EXPIRATION_SECONDS = 60;
+
+    private static final FilterCache instance = new FilterCache();
+
+    private final Cache<Key, Optional<Object>> cache;
+
+    /**
+     * Compiles a parsed filter into a pushdown object.
+     *
+     * @param <T> type of the pushdown object
+     */
+    @FunctionalInterface
+    public interface Compiler<T> {
+
+        /**
+         * @param root the root of a freshly parsed filter tree, which the
+         *             compiler may prune or modify
+         * @return the pushdown object, may be null
+         * @throws Exception if the filter cannot be compiled
+         */
+        T compile(Node root) throws Exception;
+    }
+
+    FilterCache() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterAccess(EXPIRATION_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * @return the singleton instance of the cache
+     */
+    public static FilterCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the parsed tree of the filter string of the request. The tree
+     * is shared, it must only be read and never be pruned.
+     *
+     * @param context the request context
+     * @return the root of the parsed filter tree
+     * @throws Exception if the filter string cannot be parsed
+     */
+    public Node getParsedTree(RequestContext context) throws Exception {
+        return get(FilterParser.class, context, null, root -> root);
+    }
+
+    /**
+     * Returns the pushdown object compiled from the filter string of the
+     * request, compiling it if it is not cached yet. Failures are not
+     * cached, the next request compiles the filter again.
+     *
+     * @param owner     the class of the plugin compiling the filter
+     * @param context   the request context
+     * @param qualifier anything else the compiled object depends on, or null
+     * @param compiler  compiles the parsed filter
+     * @param <T>       type of the pushdown object
+     * @return the compiled object
+     * @throws Exception if the filter cannot be parsed or compiled
+     */
+    public <T> T get(Class<?> owner, RequestContext context, Object qualifier, Compiler<T> compiler) throws Exception {
+        String filterString = context.getFilterString();
+        Key key = new Key(owner.getName(), filterString, context.getTupleDescription(), qualifier);
+        Optional<Object> cached = cache.getIfPresent(key);
+        if (cached == null) {
+            // compiled outside of the cache, concurrent first requests may compile the same filter
+            cached = Optional.ofNullable(compiler.compile(new FilterParser().parse(filterString)));
+            cache.put(key, cached);
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T) cached.orElse(null);
+        return result;
+    }
+
+    /**
+     * Discards all cached filters.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static final class Key {
+
+        private final String owner;
+        private final String filterString;
+        private final String columns;
+        private final Object qualifier;
+        private final int hashCode;
+
+        Key(String owner, String filterString, List<ColumnDescriptor> tupleDescription, Object qualifier) {
+            this.owner = owner;
+            this.filterString = filterString;
+            StringBuilder sb = new StringBuilder();
+            for (ColumnDescriptor column : tupleDescription) {
+                sb.append(column.columnName()).append(':')
+                        .append(column.columnTypeCode()).append(':')
+                        .append(column.isProjected()).append(',');
+            }
+            this.columns = sb.toString();
+            this.qualifier = qualifier;
+            this.hashCode = Objects.hash(owner, filterString, columns, qualifier);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return hashCode == that.hashCode &&
+                    owner.equals(that.owner) &&
+                    Objects.equals(filterString, that.filterString) &&
+                    columns.equals(that.columns) &&
+                    Objects.equals(qualifier, that.qualifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
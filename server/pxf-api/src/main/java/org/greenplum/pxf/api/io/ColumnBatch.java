@@ -0,0 +1,133 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A batch of rows stored in columnar form, one {@link ColumnVector} per
+ * column of the table. The batch is allocated once per request and
+ * is refilled by the resolver for every batch of records.
+ */
+public class ColumnBatch {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final int[] columnTypes;
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private int size;
+
+    /**
+     * Constructs a batch for the given schema.
+     *
+     * @param columnTypes the OIDs of the column types
+     * @param capacity    the maximum number of rows in the batch
+     */
+    public ColumnBatch(int[] columnTypes, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive, got " + capacity);
+        }
+        this.columnTypes = columnTypes;
+        this.capacity = capacity;
+        this.columns = new ColumnVector[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columns[i] = new ColumnVector(columnTypes[i], capacity);
+        }
+    }
+
+    /**
+     * @return the OIDs of the column types
+     */
+    public int[] getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * @param index the column index
+     * @return the vector holding the values of the column
+     */
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @return the number of columns in the batch
+     */
+    public int getNumColumns() {
+        return columns.length;
+    }
+
+    /**
+     * @return the maximum number of rows in the batch
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of rows currently in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of rows currently in the batch.
+     *
+     * @param size the number of rows
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException(String.format(
+                    "Batch size %d is out of range [0, %d]", size, capacity));
+        }
+        this.size = size;
+    }
+
+    /**
+     * @return the number of rows that can still be added to the batch
+     */
+    public int remaining() {
+        return capacity - size;
+    }
+
+    /**
+     * @return true if no more rows can be added to the batch
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @return true if the batch has no rows
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the batch so that it can be refilled.
+     */
+    public void reset() {
+        size = 0;
+        for (ColumnVector column : columns) {
+            column.reset();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializes all the rows of a {@link ColumnBatch} in the {@link GPDBWritable}
+ * wire format, reading the values straight from the column vectors. The
+ * output of writing a batch of N rows is identical to writing N
+ * {@link GPDBWritable} records holding the same values.
+ */
+public class ColumnBatchWritable implements Writable {
+
+    private final ColumnBatch batch;
+    private final GPDBWritableSerializer serializer;
+
+    /**
+     * Constructs a writable for the given batch.
+     *
+     * @param batch the batch to serialize
+     */
+    public ColumnBatchWritable(ColumnBatch batch) {
+        this.batch = batch;
+        this.serializer = new GPDBWritableSerializer(batch.getColumnTypes());
+    }
+
+    /**
+     * @return the batch serialized by this writable
+     */
+    public ColumnBatch getBatch() {
+        return batch;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        int size = batch.size();
+        for (int row = 0; row < size; row++) {
+            serializer.write(batch, row, out);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) {
+        throw new UnsupportedOperationException("ColumnBatchWritable is only used for output");
+    }
+}
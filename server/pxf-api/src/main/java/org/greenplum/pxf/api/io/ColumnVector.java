@@ -0,0 +1,250 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Holds the values of a single column for a batch of rows. Values of
+ * fixed-length types are kept in primitive arrays so that they are never
+ * boxed, nullness is tracked in a bitmap. All text-form types (TEXT, VARCHAR,
+ * BPCHAR, NUMERIC, DATE, TIMESTAMP, ...) are kept as strings, BYTEA as byte
+ * arrays.
+ * <p>
+ * A vector is allocated once for a given capacity and reused across batches,
+ * see {@link #reset()}.
+ */
+public class ColumnVector {
+
+    private final int typeOid;
+    private final DataType type;
+    private final int capacity;
+    private final long[] nulls;
+    private boolean hasNulls;
+
+    private long[] longValues;
+    private int[] intValues;
+    private short[] shortValues;
+    private double[] doubleValues;
+    private float[] floatValues;
+    private boolean[] booleanValues;
+    private byte[][] bytesValues;
+    private String[] stringValues;
+
+    /**
+     * Constructs a column vector for the given GPDB type.
+     *
+     * @param typeOid  the OID of the column type
+     * @param capacity the maximum number of rows in the vector
+     */
+    public ColumnVector(int typeOid, int capacity) {
+        this.typeOid = typeOid;
+        this.type = DataType.get(typeOid);
+        this.capacity = capacity;
+        this.nulls = new long[(capacity + 63) >>> 6];
+
+        switch (type) {
+            case BIGINT:
+                longValues = new long[capacity];
+                break;
+            case INTEGER:
+                intValues = new int[capacity];
+                break;
+            case SMALLINT:
+                shortValues = new short[capacity];
+                break;
+            case FLOAT8:
+                doubleValues = new double[capacity];
+                break;
+            case REAL:
+                floatValues = new float[capacity];
+                break;
+            case BOOLEAN:
+                booleanValues = new boolean[capacity];
+                break;
+            case BYTEA:
+                bytesValues = new byte[capacity][];
+                break;
+            default:
+                stringValues = new String[capacity];
+        }
+    }
+
+    /**
+     * @return the OID of the column type
+     */
+    public int getTypeOid() {
+        return typeOid;
+    }
+
+    /**
+     * @return the data type of the column
+     */
+    public DataType getType() {
+        return type;
+    }
+
+    /**
+     * @return the maximum number of rows the vector can hold
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Clears the null bitmap and releases references to variable length
+     * values, so that the vector can be filled with a new batch.
+     */
+    public void reset() {
+        if (hasNulls) {
+            Arrays.fill(nulls, 0L);
+            hasNulls = false;
+        }
+        if (bytesValues != null) {
+            Arrays.fill(bytesValues, null);
+        }
+        if (stringValues != null) {
+            Arrays.fill(stringValues, null);
+        }
+    }
+
+    /**
+     * Marks the value at the given row as null.
+     *
+     * @param row the row index
+     */
+    public void setNull(int row) {
+        nulls[row >>> 6] |= 1L << row;
+        hasNulls = true;
+    }
+
+    /**
+     * @param row the row index
+     * @return true if the value at the given row is null
+     */
+    public boolean isNull(int row) {
+        return hasNulls && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return true if at least one value in the vector is null
+     */
+    public boolean hasNulls() {
+        return hasNulls;
+    }
+
+    public void setLong(int row, long value) {
+        longValues[row] = value;
+        clearNull(row);
+    }
+
+    public long getLong(int row) {
+        return longValues[row];
+    }
+
+    public void setInt(int row, int value) {
+        intValues[row] = value;
+        clearNull(row);
+    }
+
+    public int getInt(int row) {
+        return intValues[row];
+    }
+
+    public void setShort(int row, short value) {
+        shortValues[row] = value;
+        clearNull(row);
+    }
+
+    public short getShort(int row) {
+        return shortValues[row];
+    }
+
+    public void setDouble(int row, double value) {
+        doubleValues[row] = value;
+        clearNull(row);
+    }
+
+    public double getDouble(int row) {
+        return doubleValues[row];
+    }
+
+    public void setFloat(int row, float value) {
+        floatValues[row] = value;
+        clearNull(row);
+    }
+
+    public float getFloat(int row) {
+        return floatValues[row];
+    }
+
+    public void setBoolean(int row, boolean value) {
+        booleanValues[row] = value;
+        clearNull(row);
+    }
+
+    public boolean getBoolean(int row) {
+        return booleanValues[row];
+    }
+
+    /**
+     * Sets a BYTEA value, a null value marks the row as null.
+     *
+     * @param row   the row index
+     * @param value the value
+     */
+    public void setBytes(int row, byte[] value) {
+        if (value == null) {
+            setNull(row);
+        } else {
+            bytesValues[row] = value;
+            clearNull(row);
+        }
+    }
+
+    public byte[] getBytes(int row) {
+        return bytesValues[row];
+    }
+
+    /**
+     * Sets a value of a text-form column, a null value marks the row as null.
+     *
+     * @param row   the row index
+     * @param value the value
+     */
+    public void setString(int row, String value) {
+        if (value == null) {
+            setNull(row);
+        } else {
+            stringValues[row] = value;
+            clearNull(row);
+        }
+    }
+
+    public String getString(int row) {
+        return stringValues[row];
+    }
+
+    private void clearNull(int row) {
+        if (hasNulls) {
+            nulls[row >>> 6] &= ~(1L << row);
+        }
+    }
+}
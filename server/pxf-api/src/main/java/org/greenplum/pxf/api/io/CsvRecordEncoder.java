@@ -0,0 +1,381 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.GreenplumDateTime;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.model.GreenplumCSV;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes records of {@link OneField}s as CSV lines in the format described
+ * by a {@link GreenplumCSV}. Fields are written as UTF-8 straight into a
+ * reusable buffer: integers, booleans, dates and timestamps are formatted
+ * without going through a {@link String}, and text is quoted and escaped
+ * while it is encoded. The handler of every column is chosen once for the
+ * field types of the record and kept while the types do not change.
+ * <p>
+ * The output is the same as joining the fields formatted one by one with the
+ * delimiter, using {@link GreenplumCSV#toCsvField(String, boolean, boolean, boolean)}
+ * for text. An encoder is not thread safe.
+ */
+public class CsvRecordEncoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private enum Handler {NULL, INTEGER, BOOLEAN, BYTEA, OBJECT, TIMESTAMP, DATE, TEXT}
+
+    private final char quote;
+    private final Character escape;
+    private final Character delimiter;
+    private final String newline;
+    private final byte[] quoteBytes;
+    private final byte[] escapeBytes;
+    private final byte[] delimiterBytes;
+    private final byte[] newlineBytes;
+    private final byte[] nullBytes;
+
+    private int[] types = new int[0];
+    private Handler[] handlers = new Handler[0];
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+
+    /**
+     * Constructs an encoder for the given CSV format.
+     *
+     * @param greenplumCSV the CSV format
+     */
+    public CsvRecordEncoder(GreenplumCSV greenplumCSV) {
+        quote = greenplumCSV.getQuote();
+        escape = greenplumCSV.getEscape();
+        delimiter = greenplumCSV.getDelimiter();
+        newline = greenplumCSV.getNewline();
+        quoteBytes = utf8(String.valueOf(quote));
+        escapeBytes = escape != null ? utf8(String.valueOf(escape)) : null;
+        delimiterBytes = utf8(String.valueOf(delimiter));
+        newlineBytes = utf8(String.valueOf(newline));
+        nullBytes = utf8(greenplumCSV.getValueOfNull());
+    }
+
+    /**
+     * Encodes a record as a CSV line, including the newline.
+     *
+     * @param fields the fields of the record
+     * @return the encoded line
+     */
+    public byte[] encode(List<OneField> fields) {
+        prepareHandlers(fields);
+        position = 0;
+        int size = fields.size();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                putBytes(delimiterBytes);
+            }
+            Object val = fields.get(i).val;
+            putField(val == null ? Handler.NULL : handlers[i], val);
+        }
+        putBytes(newlineBytes);
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Encodes a line given as a single string, followed by the newline. The
+     * string is not quoted.
+     *
+     * @param line the line
+     * @return the encoded line
+     */
+    public byte[] encodeLine(String line) {
+        position = 0;
+        putString(line, false);
+        putBytes(newlineBytes);
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /*
+     * Chooses the handler of every column, unless the field types are the
+     * same as in the previous record.
+     */
+    private void prepareHandlers(List<OneField> fields) {
+        int size = fields.size();
+        boolean same = size == types.length;
+        for (int i = 0; same && i < size; i++) {
+            same = fields.get(i).type == types[i];
+        }
+        if (same) {
+            return;
+        }
+        types = new int[size];
+        handlers = new Handler[size];
+        for (int i = 0; i < size; i++) {
+            types[i] = fields.get(i).type;
+            handlers[i] = handlerFor(types[i]);
+        }
+    }
+
+    private static Handler handlerFor(int type) {
+        if (type == DataType.BYTEA.getOID()) {
+            return Handler.BYTEA;
+        } else if (type == DataType.SMALLINT.getOID() || type == DataType.INTEGER.getOID() ||
+                type == DataType.BIGINT.getOID()) {
+            return Handler.INTEGER;
+        } else if (type == DataType.BOOLEAN.getOID()) {
+            return Handler.BOOLEAN;
+        } else if (type == DataType.NUMERIC.getOID() || !DataType.isTextForm(type)) {
+            return Handler.OBJECT;
+        } else if (type == DataType.TIMESTAMP.getOID()) {
+            return Handler.TIMESTAMP;
+        } else if (type == DataType.DATE.getOID()) {
+            return Handler.DATE;
+        }
+        return Handler.TEXT;
+    }
+
+    private void putField(Handler handler, Object val) {
+        switch (handler) {
+            case NULL:
+                putBytes(nullBytes);
+                break;
+            case INTEGER:
+                if (val instanceof Long || val instanceof Integer || val instanceof Short) {
+                    putLong(((Number) val).longValue());
+                } else {
+                    putAscii(val.toString());
+                }
+                break;
+            case BOOLEAN:
+                if (val instanceof Boolean) {
+                    putBytes((Boolean) val ? TRUE : FALSE);
+                } else {
+                    putString(val.toString(), false);
+                }
+                break;
+            case BYTEA:
+                putHex((byte[]) val);
+                break;
+            case TIMESTAMP:
+                putTimestamp((Timestamp) val);
+                break;
+            case DATE:
+                putDate(val);
+                break;
+            case TEXT:
+                putString((String) val, true);
+                break;
+            default:
+                putString(val.toString(), false);
+        }
+    }
+
+    private void putHex(byte[] value) {
+        ensureCapacity(2 + value.length * 2);
+        buffer[position++] = '\\';
+        buffer[position++] = 'x';
+        for (byte b : value) {
+            buffer[position++] = HEX_DIGITS[(b >> 4) & 0xF];
+            buffer[position++] = HEX_DIGITS[b & 0xF];
+        }
+    }
+
+    /*
+     * Formats the timestamp as GreenplumDateTime.DATETIME_FORMATTER does,
+     * with up to 6 fractional digits and no trailing zeros. Years that need
+     * more than 4 digits or a sign are left to the formatter.
+     */
+    private void putTimestamp(Timestamp timestamp) {
+        LocalDateTime dateTime = timestamp.toLocalDateTime();
+        int year = dateTime.getYear();
+        if (year < 1 || year > 9999) {
+            putAscii(dateTime.format(GreenplumDateTime.DATETIME_FORMATTER));
+            return;
+        }
+        ensureCapacity(26);
+        putDigits(year, 4);
+        buffer[position++] = '-';
+        putDigits(dateTime.getMonthValue(), 2);
+        buffer[position++] = '-';
+        putDigits(dateTime.getDayOfMonth(), 2);
+        buffer[position++] = ' ';
+        putDigits(dateTime.getHour(), 2);
+        buffer[position++] = ':';
+        putDigits(dateTime.getMinute(), 2);
+        buffer[position++] = ':';
+        putDigits(dateTime.getSecond(), 2);
+        int micros = dateTime.getNano() / 1000;
+        if (micros != 0) {
+            int digits = 6;
+            while (micros % 10 == 0) {
+                micros /= 10;
+                digits--;
+            }
+            buffer[position++] = '.';
+            putDigits(micros, digits);
+        }
+    }
+
+    /*
+     * Formats dates as Date.toString does, yyyy-mm-dd.
+     */
+    @SuppressWarnings("deprecation")
+    private void putDate(Object val) {
+        if (val instanceof Date) {
+            Date date = (Date) val;
+            int year = date.getYear() + 1900;
+            if (year >= 0 && year <= 9999) {
+                ensureCapacity(10);
+                putDigits(year, 4);
+                buffer[position++] = '-';
+                putDigits(date.getMonth() + 1, 2);
+                buffer[position++] = '-';
+                putDigits(date.getDate(), 2);
+                return;
+            }
+        }
+        putString(val.toString(), false);
+    }
+
+    /*
+     * Writes a non negative number with the given number of digits, padded
+     * with zeros. The capacity must have been ensured by the caller.
+     */
+    private void putDigits(int value, int digits) {
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            putBytes(LONG_MIN_VALUE);
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void putAscii(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    /*
+     * Writes a string as UTF-8. Text fields are quoted when they contain the
+     * quote character (when an escape character is set), the delimiter or
+     * the newline, and their quote characters are escaped.
+     */
+    private void putString(String value, boolean csvField) {
+        int length = value.length();
+        boolean quoted = false;
+        boolean escapeQuotes = false;
+        if (csvField) {
+            for (int i = 0; i < length && !escapeQuotes; i++) {
+                char c = value.charAt(i);
+                if (escape != null && c == quote) {
+                    quoted = escapeQuotes = true;
+                } else if ((delimiter != null && c == delimiter) ||
+                        (newline != null && !newline.isEmpty() && value.startsWith(newline, i))) {
+                    quoted = true;
+                }
+            }
+        }
+
+        if (quoted) {
+            putBytes(quoteBytes);
+        }
+        // a char never takes more than 3 bytes in UTF-8, a surrogate pair takes 4
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (escapeQuotes && c == quote) {
+                putBytes(escapeBytes);
+                ensureCapacity((length - i) * 3);
+            }
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                char low;
+                if (Character.isHighSurrogate(c) && i + 1 < length &&
+                        Character.isLowSurrogate(low = value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, low);
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                    i++;
+                } else {
+                    buffer[position++] = (byte) '?';
+                }
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (quoted) {
+            putBytes(quoteBytes);
+        }
+    }
+
+    private void putBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (position + needed > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + needed));
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -53,7 +53,7 @@ public class GPDBWritable implements Writable {
     /*
      * Enum of the Database type
      */
-    private enum DBType {
+    enum DBType {
         BIGINT(8, 8),
         BOOLEAN(1, 1),
         FLOAT8(8, 8),
@@ -100,6 +100,7 @@ public class GPDBWritable implements Writable {
     private int alignmentOfEightBytes = 8;
     private byte errorFlag = 0;
     private int pktlen = EOF;
+    private GPDBWritableSerializer serializer;
 
     public int[] getColType() {
         return colType;
@@ -327,179 +328,35 @@ public class GPDBWritable implements Writable {
         }
     }
 
+    /**
+     * Serializes the record using the serializer set with
+     * {@link #setSerializer(GPDBWritableSerializer)}. If none was set, a
+     * serializer for the schema of this record is created on first use and
+     * kept for the following writes.
+     */
     @Override
     public void write(DataOutput out) throws IOException {
-        int numCol = colType.length;
-        boolean[] nullBits = new boolean[numCol];
-        int[] colLength = new int[numCol];
-        byte[] enumType = new byte[numCol];
-        int[] padLength = new int[numCol];
-        byte[] padbytes = new byte[8];
-
-        /*
-         * Compute the total payload and header length
-         * header = total length (4 byte), Version (2 byte), Error (1 byte), #col (2 byte)
-         * col type array = #col * 1 byte
-         * null bit array = ceil(#col/8)
-         */
-        int datlen = 4 + 2 + 1 + 2;
-        datlen += numCol;
-        datlen += getNullByteArraySize(numCol);
-
-        for (int i = 0; i < numCol; i++) {
-            /* Get the enum type */
-            DBType coldbtype;
-            switch (DataType.get(colType[i])) {
-                case BIGINT:
-                    coldbtype = DBType.BIGINT;
-                    break;
-                case BOOLEAN:
-                    coldbtype = DBType.BOOLEAN;
-                    break;
-                case FLOAT8:
-                    coldbtype = DBType.FLOAT8;
-                    break;
-                case INTEGER:
-                    coldbtype = DBType.INTEGER;
-                    break;
-                case REAL:
-                    coldbtype = DBType.REAL;
-                    break;
-                case SMALLINT:
-                    coldbtype = DBType.SMALLINT;
-                    break;
-                case BYTEA:
-                    coldbtype = DBType.BYTEA;
-                    break;
-                default:
-                    coldbtype = DBType.TEXT;
-            }
-            enumType[i] = (byte) (coldbtype.ordinal());
-
-			/* Get the actual value, and set the null bit */
-            if (colValue[i] == null) {
-                nullBits[i] = true;
-                colLength[i] = 0;
-            } else {
-                nullBits[i] = false;
-
-				/*
-                 * For fixed length type, we get the fixed length.
-				 * For var len binary format, the length is in the col value.
-				 * For text format, we must convert encoding first.
-				 */
-                if (!coldbtype.isVarLength()) {
-                    colLength[i] = coldbtype.getTypeLength();
-                } else if (!isTextForm(colType[i])) {
-                    colLength[i] = ((byte[]) colValue[i]).length;
-                } else {
-                    colLength[i] = ((String) colValue[i]).getBytes(CHARSET).length;
-                }
-
-				/* calculate and add the type alignment padding */
-                padLength[i] = roundUpAlignment(datlen, coldbtype.getAlignment()) - datlen;
-                datlen += padLength[i];
-
-				/* for variable length type, we add a 4 byte length header */
-                if (coldbtype.isVarLength()) {
-                    datlen += 4;
-                }
-            }
-            datlen += colLength[i];
-        }
-
-		/*
-		 * Add the final alignment padding for the next record
-		 */
-        int endpadding = roundUpAlignment(datlen, 8) - datlen;
-        datlen += endpadding;
-
-		/* Construct the packet header */
-        out.writeInt(datlen);
-        out.writeShort(VERSION);
-        out.writeByte(errorFlag);
-        out.writeShort(numCol);
-
-		/* Write col type */
-        for (int i = 0; i < numCol; i++) {
-            out.writeByte(enumType[i]);
-        }
-
-		/* Nullness */
-        byte[] nullBytes = boolArrayToByteArray(nullBits);
-        out.write(nullBytes);
-
-		/* Column Value */
-        for (int i = 0; i < numCol; i++) {
-            if (!nullBits[i]) {
-				/* Pad the alignment byte first */
-                if (padLength[i] > 0) {
-                    out.write(padbytes, 0, padLength[i]);
-                }
-
-				/* Now, write the actual column value */
-                switch (DataType.get(colType[i])) {
-                    case BIGINT:
-                        out.writeLong(((Long) colValue[i]));
-                        break;
-                    case BOOLEAN:
-                        out.writeBoolean(((Boolean) colValue[i]));
-                        break;
-                    case FLOAT8:
-                        out.writeDouble(((Double) colValue[i]));
-                        break;
-                    case INTEGER:
-                        out.writeInt(((Integer) colValue[i]));
-                        break;
-                    case REAL:
-                        out.writeFloat(((Float) colValue[i]));
-                        break;
-                    case SMALLINT:
-                        out.writeShort(((Short) colValue[i]));
-                        break;
-
-					/* For BYTEA format, add 4byte length header at the beginning  */
-                    case BYTEA:
-                        out.writeInt(colLength[i]);
-                        out.write((byte[]) colValue[i]);
-                        break;
-
-					/* For text format, add 4byte length header. string is already '\0' terminated */
-                    default: {
-                        out.writeInt(colLength[i]);
-                        byte[] data = ((String) colValue[i]).getBytes(CHARSET);
-                        out.write(data);
-                        break;
-                    }
-                }
-            }
+        if (serializer == null) {
+            serializer = new GPDBWritableSerializer(colType);
         }
-
-		/* End padding */
-        out.write(padbytes, 0, endpadding);
+        serializer.write(this, out);
     }
 
     /**
-     * Private helper to convert boolean array to byte array
+     * Sets the serializer used to write this record. The same serializer can
+     * be shared by all the records of a given schema, so that its buffers
+     * and type information are reused.
+     *
+     * @param serializer serializer for the schema of this record
      */
-    private static byte[] boolArrayToByteArray(boolean[] data) {
-        int len = data.length;
-        byte[] byts = new byte[getNullByteArraySize(len)];
-
-        for (int i = 0, j = 0, k = 7; i < data.length; i++) {
-            byts[j] |= (data[i] ? 1 : 0) << k--;
-            if (k < 0) {
-                j++;
-                k = 7;
-            }
-        }
-        return byts;
+    public void setSerializer(GPDBWritableSerializer serializer) {
+        this.serializer = serializer;
     }
 
     /**
-     * Private helper to determine the size of the null byte array
+     * Helper to determine the size of the null byte array
      */
-    private static int getNullByteArraySize(int colCnt) {
+    static int getNullByteArraySize(int colCnt) {
         return (colCnt / 8) + (colCnt % 8 != 0 ? 1 : 0);
     }
 
@@ -757,6 +614,15 @@ public class GPDBWritable implements Writable {
         return colValue[colIdx];
     }
 
+    /**
+     * Returns the error field.
+     *
+     * @return the error value
+     */
+    byte getErrorFlag() {
+        return errorFlag;
+    }
+
     /**
      * Sets the error field.
      *
@@ -851,6 +717,45 @@ public class GPDBWritable implements Writable {
         return type.name();
     }
 
+    /**
+     * Maps a GPDB type OID to the type used on the wire. All the types that
+     * are not explicitly supported are sent in text form.
+     *
+     * @param oid type OID
+     * @return the wire type
+     */
+    static DBType toDBType(int oid) {
+        switch (DataType.get(oid)) {
+            case BIGINT:
+                return DBType.BIGINT;
+            case BOOLEAN:
+                return DBType.BOOLEAN;
+            case FLOAT8:
+                return DBType.FLOAT8;
+            case INTEGER:
+                return DBType.INTEGER;
+            case REAL:
+                return DBType.REAL;
+            case SMALLINT:
+                return DBType.SMALLINT;
+            case BYTEA:
+                return DBType.BYTEA;
+            default:
+                return DBType.TEXT;
+        }
+    }
+
+    /**
+     * Returns the alignment used for 8-byte types, which can be overridden
+     * by the greenplum.alignment system property.
+     *
+     * @return the alignment of 8-byte types
+     */
+    static int eightByteAlignment() {
+        String alignment = System.getProperty("greenplum.alignment");
+        return (alignment == null) ? 8 : Integer.parseInt(alignment);
+    }
+
     /*
      * Get alignment from command line to match to the alignment
      * the C code uses (see gphdfs/src/protocol_formatter/common.c).
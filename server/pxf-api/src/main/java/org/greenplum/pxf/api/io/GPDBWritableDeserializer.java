@@ -0,0 +1,217 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads records in the {@link GPDBWritable} wire format straight into
+ * {@link OneField}s. Every record is read with a single bulk read into a
+ * reusable buffer and parsed from there, strings are decoded from that
+ * buffer without intermediate copies, and the column types are only decoded
+ * again when they differ from the previous record. No {@link GPDBWritable}
+ * is created.
+ * <p>
+ * The fields and their values are new for every record, as resolvers may
+ * keep or modify them. A deserializer is not thread safe.
+ */
+public class GPDBWritableDeserializer {
+
+    private static final int VERSION = 2;
+    private static final int PREV_VERSION = 1;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final GPDBWritable.DBType[] DB_TYPES = GPDBWritable.DBType.values();
+
+    private final int alignmentOfEightBytes = GPDBWritable.eightByteAlignment();
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+    private byte[] typeBytes = new byte[0];
+    private GPDBWritable.DBType[] dbTypes = new GPDBWritable.DBType[0];
+    private int[] colTypes = new int[0];
+
+    /**
+     * Reads the next record.
+     *
+     * @param in the input to read from
+     * @return the fields of the record, or null at the end of the stream
+     * @throws IOException if the record is malformed, is an error record or reading failed
+     */
+    public List<OneField> readRecord(DataInput in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length == -1) {
+            return null;
+        }
+        if (length < 4 + 2 + 2) {
+            throw new IOException("Invalid GPDBWritable record length " + length);
+        }
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        // the length is not read again, but counts for the alignment
+        in.readFully(buffer, 4, length - 4);
+        position = 4;
+
+        int version = getShort();
+        if (version != VERSION && version != PREV_VERSION) {
+            throw new IOException("Current GPDBWritable version(" + VERSION +
+                    ") does not match input version(" + version + ")");
+        }
+        int errorFlag = (version == VERSION) ? buffer[position++] : 0;
+        int numColumns = getShort();
+        readColumnTypes(numColumns);
+
+        int nullBytesOffset = position;
+        position += GPDBWritable.getNullByteArraySize(numColumns);
+        List<OneField> record = new ArrayList<>(numColumns);
+        try {
+            for (int i = 0; i < numColumns; i++) {
+                boolean isNull = (buffer[nullBytesOffset + (i >>> 3)] & (1 << (7 - (i & 7)))) != 0;
+                record.add(new OneField(colTypes[i], isNull ? null : readValue(dbTypes[i])));
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Malformed GPDBWritable record of length " + length, e);
+        }
+        if (position > length) {
+            throw new IOException("GPDBWritable record of length " + length + " ends at " + position);
+        }
+
+        if (errorFlag != 0) {
+            throw new IOException("Received error value " + errorFlag + " from format");
+        }
+        return record;
+    }
+
+    /*
+     * Decodes the column types, unless they are the same as in the previous record.
+     */
+    private void readColumnTypes(int numColumns) throws IOException {
+        if (sameColumnTypes(numColumns)) {
+            position += numColumns;
+            return;
+        }
+        typeBytes = Arrays.copyOfRange(buffer, position, position + numColumns);
+        dbTypes = new GPDBWritable.DBType[numColumns];
+        colTypes = new int[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            int ordinal = buffer[position++];
+            if (ordinal < 0 || ordinal >= DB_TYPES.length) {
+                throw new IOException("Unknown GPDBWritable.DBType ordinal value");
+            }
+            dbTypes[i] = DB_TYPES[ordinal];
+            colTypes[i] = toDataType(dbTypes[i]).getOID();
+        }
+    }
+
+    private boolean sameColumnTypes(int numColumns) {
+        if (numColumns != typeBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < numColumns; i++) {
+            if (buffer[position + i] != typeBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object readValue(GPDBWritable.DBType dbType) throws IOException {
+        int alignment = dbType.getAlignment() == 8 ? alignmentOfEightBytes : dbType.getAlignment();
+        position = (position + (alignment - 1)) & ~(alignment - 1);
+        switch (dbType) {
+            case BIGINT:
+                return getLong();
+            case BOOLEAN:
+                return buffer[position++] != 0;
+            case FLOAT8:
+                return Double.longBitsToDouble(getLong());
+            case INTEGER:
+                return getInt();
+            case REAL:
+                return Float.intBitsToFloat(getInt());
+            case SMALLINT:
+                return (short) getShort();
+            case BYTEA: {
+                int length = getInt();
+                byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+                position += length;
+                return value;
+            }
+            case TEXT: {
+                int length = getInt();
+                if (length < 1) {
+                    throw new IOException("Invalid GPDBWritable text length " + length);
+                }
+                // text is null terminated
+                String value = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+                position += length;
+                return value;
+            }
+            default:
+                throw new IOException("Unknown GPDBWritable ColType");
+        }
+    }
+
+    private static DataType toDataType(GPDBWritable.DBType dbType) {
+        switch (dbType) {
+            case BIGINT:
+                return DataType.BIGINT;
+            case BOOLEAN:
+                return DataType.BOOLEAN;
+            case FLOAT8:
+                return DataType.FLOAT8;
+            case INTEGER:
+                return DataType.INTEGER;
+            case REAL:
+                return DataType.REAL;
+            case SMALLINT:
+                return DataType.SMALLINT;
+            case BYTEA:
+                return DataType.BYTEA;
+            default:
+                return DataType.TEXT;
+        }
+    }
+
+    private int getShort() {
+        return (short) (((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF));
+    }
+
+    private int getInt() {
+        return ((buffer[position++] & 0xFF) << 24) | ((buffer[position++] & 0xFF) << 16) |
+                ((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF);
+    }
+
+    private long getLong() {
+        return ((long) getInt() << 32) | (getInt() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,291 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Serializes records of a given schema in the {@link GPDBWritable} wire
+ * format. The wire type and the header of every record are computed once
+ * when the serializer is created. Each record is assembled in a single pass
+ * into a reusable buffer, strings are UTF-8 encoded straight into that
+ * buffer, and the record is emitted with a single bulk write. The record
+ * length and the length of every variable length value are patched in once
+ * they are known.
+ * <p>
+ * A serializer can be shared by any number of records of the same schema,
+ * but is not thread safe.
+ */
+public class GPDBWritableSerializer {
+
+    private static final int VERSION = 2;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final int numColumns;
+    private final GPDBWritable.DBType[] dbTypes;
+    private final int alignmentOfEightBytes;
+    private final int nullBytesOffset;
+    private final int valuesOffset;
+    private final byte[] header;
+    private byte[] buffer;
+    private int position;
+
+    /**
+     * Constructs a serializer for the given schema.
+     *
+     * @param columnTypes the OIDs of the column types
+     */
+    public GPDBWritableSerializer(int[] columnTypes) {
+        numColumns = columnTypes.length;
+        dbTypes = new GPDBWritable.DBType[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            dbTypes[i] = GPDBWritable.toDBType(columnTypes[i]);
+        }
+        alignmentOfEightBytes = GPDBWritable.eightByteAlignment();
+
+        // header = total length (4 byte), Version (2 byte), Error (1 byte), #col (2 byte), col types
+        nullBytesOffset = 4 + 2 + 1 + 2 + numColumns;
+        valuesOffset = nullBytesOffset + GPDBWritable.getNullByteArraySize(numColumns);
+        header = new byte[nullBytesOffset];
+        header[4] = (byte) (VERSION >>> 8);
+        header[5] = (byte) VERSION;
+        header[7] = (byte) (numColumns >>> 8);
+        header[8] = (byte) numColumns;
+        for (int i = 0; i < numColumns; i++) {
+            header[9 + i] = (byte) dbTypes[i].ordinal();
+        }
+        buffer = new byte[Math.max(INITIAL_BUFFER_SIZE, valuesOffset + 8)];
+    }
+
+    /**
+     * Writes a record. String values of the record are expected to be null
+     * terminated, as set by {@link GPDBWritable#setString(int, String)}.
+     *
+     * @param record the record to write
+     * @param out    the output to write to
+     * @throws IOException if the record does not match the schema or writing failed
+     */
+    public void write(GPDBWritable record, DataOutput out) throws IOException {
+        if (record.getColType().length != numColumns) {
+            throw new IOException("Record has " + record.getColType().length +
+                    " columns but the serializer schema has " + numColumns);
+        }
+        startRecord(record.getErrorFlag());
+        for (int i = 0; i < numColumns; i++) {
+            Object value = record.getObject(i);
+            if (value == null) {
+                setNullBit(i);
+                continue;
+            }
+            GPDBWritable.DBType dbType = dbTypes[i];
+            align(dbType.getAlignment());
+            switch (dbType) {
+                case BIGINT:
+                    putLong((Long) value);
+                    break;
+                case BOOLEAN:
+                    putByte((Boolean) value ? 1 : 0);
+                    break;
+                case FLOAT8:
+                    putLong(Double.doubleToLongBits((Double) value));
+                    break;
+                case INTEGER:
+                    putInt((Integer) value);
+                    break;
+                case REAL:
+                    putInt(Float.floatToIntBits((Float) value));
+                    break;
+                case SMALLINT:
+                    putShort((Short) value);
+                    break;
+                case BYTEA:
+                    putBytes((byte[]) value);
+                    break;
+                default:
+                    putString((String) value, false);
+            }
+        }
+        endRecord(out);
+    }
+
+    /**
+     * Writes a row of a column batch. String values of the batch are not
+     * null terminated, the terminator is added here.
+     *
+     * @param batch the batch holding the row
+     * @param row   the row index
+     * @param out   the output to write to
+     * @throws IOException if writing failed
+     */
+    public void write(ColumnBatch batch, int row, DataOutput out) throws IOException {
+        startRecord((byte) 0);
+        for (int i = 0; i < numColumns; i++) {
+            ColumnVector column = batch.getColumn(i);
+            if (column.isNull(row)) {
+                setNullBit(i);
+                continue;
+            }
+            GPDBWritable.DBType dbType = dbTypes[i];
+            align(dbType.getAlignment());
+            switch (dbType) {
+                case BIGINT:
+                    putLong(column.getLong(row));
+                    break;
+                case BOOLEAN:
+                    putByte(column.getBoolean(row) ? 1 : 0);
+                    break;
+                case FLOAT8:
+                    putLong(Double.doubleToLongBits(column.getDouble(row)));
+                    break;
+                case INTEGER:
+                    putInt(column.getInt(row));
+                    break;
+                case REAL:
+                    putInt(Float.floatToIntBits(column.getFloat(row)));
+                    break;
+                case SMALLINT:
+                    putShort(column.getShort(row));
+                    break;
+                case BYTEA:
+                    putBytes(column.getBytes(row));
+                    break;
+                default:
+                    putString(column.getString(row), true);
+            }
+        }
+        endRecord(out);
+    }
+
+    private void startRecord(byte errorFlag) {
+        System.arraycopy(header, 0, buffer, 0, header.length);
+        buffer[6] = errorFlag;
+        Arrays.fill(buffer, nullBytesOffset, valuesOffset, (byte) 0);
+        position = valuesOffset;
+    }
+
+    private void endRecord(DataOutput out) throws IOException {
+        align(8);
+        int length = position;
+        position = 0;
+        putInt(length);
+        out.write(buffer, 0, length);
+    }
+
+    private void setNullBit(int column) {
+        buffer[nullBytesOffset + (column >>> 3)] |= 1 << (7 - (column & 7));
+    }
+
+    private void align(int alignment) {
+        if (alignment == 8) {
+            alignment = alignmentOfEightBytes;
+        }
+        int aligned = (position + (alignment - 1)) & ~(alignment - 1);
+        ensureCapacity(aligned - position + 8);
+        while (position < aligned) {
+            buffer[position++] = 0;
+        }
+    }
+
+    private void putByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putShort(int value) {
+        ensureCapacity(2);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void putBytes(byte[] value) {
+        putInt(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+    }
+
+    /*
+     * Encodes the string as UTF-8 after a 4 byte length header that is
+     * filled in once the encoded length is known. Unpaired surrogates are
+     * replaced with '?', like String.getBytes does.
+     */
+    private void putString(String value, boolean addTerminator) {
+        int length = value.length();
+        // a char never takes more than 3 bytes in UTF-8, a surrogate pair takes 4
+        ensureCapacity(4 + length * 3 + 1);
+        int lengthOffset = position;
+        position += 4;
+        byte[] buf = buffer;
+        int pos = position;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                char low;
+                if (Character.isHighSurrogate(c) && i + 1 < length &&
+                        Character.isLowSurrogate(low = value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, low);
+                    buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                    i++;
+                } else {
+                    buf[pos++] = (byte) '?';
+                }
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (addTerminator) {
+            buf[pos++] = 0;
+        }
+        position = lengthOffset;
+        putInt(pos - lengthOffset - 4);
+        position = pos;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (position + needed > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + needed));
+        }
+    }
+}
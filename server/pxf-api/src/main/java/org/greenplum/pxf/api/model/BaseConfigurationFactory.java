@@ -1,5 +1,7 @@
 package org.greenplum.pxf.api.model;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -13,13 +15,36 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Builds the configuration of a server from the files of its directory.
+ * <p>
+ * Parsing the site files is expensive and is needed by every request, so
+ * the parsed configurations are cached per configuration directory, server,
+ * user and additional properties. A cached configuration is reused as long
+ * as the modification times and sizes of the files it was read from, and of
+ * the directories holding them, are unchanged. Each caller gets its own
+ * copy of the cached configuration, so it can modify it freely.
+ */
 public class BaseConfigurationFactory implements ConfigurationFactory {
 
+    private static final int CACHE_MAXIMUM_SIZE = 1000;
+    private static final long CACHE_EXPIRATION_MINUTES = 10;
+
     private static final BaseConfigurationFactory instance = new BaseConfigurationFactory();
     protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
     private final File serversConfigDirectory;
+    private final Cache<ConfigurationKey, CachedConfiguration> configurationCache = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_MAXIMUM_SIZE)
+            .expireAfterAccess(CACHE_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .build();
 
     public BaseConfigurationFactory() {
         this(SERVERS_CONFIG_DIR);
@@ -40,6 +65,26 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
 
     @Override
     public Configuration initConfiguration(String configDirectory, String serverName, String userName, Map<String, String> additionalProperties) {
+        ConfigurationKey key = new ConfigurationKey(configDirectory, serverName, userName, additionalProperties);
+        CachedConfiguration cached = configurationCache.getIfPresent(key);
+        if (cached == null || cached.isStale()) {
+            LOG.debug("{} configuration for server {} and user {}",
+                    cached == null ? "Loading" : "Reloading modified", serverName, userName);
+            cached = loadConfiguration(configDirectory, serverName, userName, additionalProperties);
+            configurationCache.put(key, cached);
+        }
+        return cached.newConfiguration();
+    }
+
+    /**
+     * Discards all cached configurations, they are reloaded from the
+     * server directories on next access.
+     */
+    public void invalidateCache() {
+        configurationCache.invalidateAll();
+    }
+
+    private CachedConfiguration loadConfiguration(String configDirectory, String serverName, String userName, Map<String, String> additionalProperties) {
         // start with built-in Hadoop configuration that loads core-site.xml
         LOG.debug("Initializing configuration for server {}", serverName);
         Configuration configuration = new Configuration();
@@ -57,15 +102,20 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
         // for example in JDBC when setting session authorization from a proxy user to the end-user
         configuration.set(PXF_SESSION_USER_PROPERTY, userName);
 
+        // the files whose modification invalidates the configuration, a
+        // directory is modified when one of its entries is added or removed
+        List<File> watchedFiles = new ArrayList<>();
         File[] serverDirectories = null;
         Path p = Paths.get(configDirectory);
 
         if (p.isAbsolute()) {
             File f = p.toFile();
+            watchedFiles.add(f);
             if (f.exists() && f.isDirectory() && f.canRead()) {
                 serverDirectories = new File[]{f};
             }
         } else {
+            watchedFiles.add(serversConfigDirectory);
             serverDirectories = serversConfigDirectory
                     .listFiles(f ->
                             f.isDirectory() &&
@@ -73,6 +123,8 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
                                     StringUtils.equalsIgnoreCase(configDirectory, f.getName()));
         }
 
+        List<Path> siteFiles = new ArrayList<>();
+        Path userFile = null;
         if (ArrayUtils.isEmpty(serverDirectories)) {
             LOG.debug("Directory {}{}{} does not exist or cannot be read by PXF, no configuration resources are added for server {}",
                     serversConfigDirectory, File.separator, configDirectory, serverName);
@@ -81,9 +133,22 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
                     "Multiple directories found for server %s. Server directories are expected to be case-insensitive.", serverName
             ));
         } else {
+            File directory = serverDirectories[0];
+            watchedFiles.add(directory);
+            listSiteFiles(serverName, directory, siteFiles);
+            siteFiles.forEach(path -> watchedFiles.add(path.toFile()));
+            userFile = Paths.get(String.format("%s/%s-user.xml", directory.toPath(), userName));
+            watchedFiles.add(userFile.toFile());
+        }
+
+        // taken before the files are read, so that a modification made while
+        // reading them is detected on next access
+        FileStamp[] stamps = FileStamp.of(watchedFiles);
+
+        if (serverDirectories != null && serverDirectories.length == 1) {
             // add all site files as URL resources to the configuration, no resources will be added from the classpath
             LOG.debug("Using directory {} for server {} configuration", serverDirectories[0], serverName);
-            processServerResources(configuration, serverName, serverDirectories[0]);
+            processServerResources(configuration, serverName, serverDirectories[0], siteFiles);
         }
 
         // add additional properties, if provided
@@ -93,8 +158,8 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
         }
 
         // add user configuration
-        if (!ArrayUtils.isEmpty(serverDirectories)) {
-            processUserResource(configuration, serverName, userName, serverDirectories[0]);
+        if (userFile != null) {
+            processUserResource(configuration, serverName, userName, serverDirectories[0], userFile);
         }
 
         try {
@@ -106,13 +171,22 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
             // Expected exception for MapR
         }
 
-        return configuration;
+        return new CachedConfiguration(configuration, stamps);
     }
 
-    private void processServerResources(Configuration configuration, String serverName, File directory) {
-        // add all *-site.xml files inside the server config directory as configuration resources
+    private void listSiteFiles(String serverName, File directory, List<Path> siteFiles) {
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), "*-site.xml")) {
-            for (Path path : stream) {
+            stream.forEach(siteFiles::add);
+        } catch (Exception e) {
+            throw new RuntimeException(String.format("Unable to read configuration for server %s from %s",
+                    serverName, directory.getAbsolutePath()), e);
+        }
+    }
+
+    private void processServerResources(Configuration configuration, String serverName, File directory, List<Path> siteFiles) {
+        // add all *-site.xml files inside the server config directory as configuration resources
+        try {
+            for (Path path : siteFiles) {
                 URL resourceURL = path.toUri().toURL();
                 LOG.debug("Adding configuration resource for server {} from {}", serverName, resourceURL);
                 configuration.addResource(resourceURL);
@@ -128,10 +202,9 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
         }
     }
 
-    private void processUserResource(Configuration configuration, String serverName, String userName, File directory) {
+    private void processUserResource(Configuration configuration, String serverName, String userName, File directory, Path path) {
         // add user config file as configuration resource
         try {
-            Path path = Paths.get(String.format("%s/%s-user.xml", directory.toPath(), userName));
             if (Files.exists(path)) {
                 Configuration userConfiguration = new Configuration(false);
                 URL resourceURL = path.toUri().toURL();
@@ -145,4 +218,99 @@ public class BaseConfigurationFactory implements ConfigurationFactory {
                     userName, serverName, directory.getAbsolutePath()), e);
         }
     }
+
+    /**
+     * Identifies the configuration built for a request.
+     */
+    private static final class ConfigurationKey {
+
+        private final String configDirectory;
+        private final String serverName;
+        private final String userName;
+        private final Map<String, String> additionalProperties;
+
+        ConfigurationKey(String configDirectory, String serverName, String userName, Map<String, String> additionalProperties) {
+            this.configDirectory = configDirectory;
+            this.serverName = serverName;
+            this.userName = userName;
+            this.additionalProperties = (additionalProperties == null || additionalProperties.isEmpty()) ?
+                    Collections.emptyMap() : new HashMap<>(additionalProperties);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConfigurationKey that = (ConfigurationKey) o;
+            return Objects.equals(configDirectory, that.configDirectory) &&
+                    Objects.equals(serverName, that.serverName) &&
+                    Objects.equals(userName, that.userName) &&
+                    additionalProperties.equals(that.additionalProperties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(configDirectory, serverName, userName, additionalProperties);
+        }
+    }
+
+    /**
+     * A fully parsed configuration and the state of the files it was read from.
+     */
+    private static final class CachedConfiguration {
+
+        private final Configuration configuration;
+        private final FileStamp[] stamps;
+
+        CachedConfiguration(Configuration configuration, FileStamp[] stamps) {
+            this.configuration = configuration;
+            this.stamps = stamps;
+            // parse the resources now, copies then only clone the properties
+            configuration.size();
+        }
+
+        boolean isStale() {
+            for (FileStamp stamp : stamps) {
+                if (stamp.isModified()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Configuration newConfiguration() {
+            // adding a default resource to Hadoop makes all configurations
+            // reload their resources, reparse once here rather than in every copy
+            configuration.size();
+            return new Configuration(configuration);
+        }
+    }
+
+    /**
+     * The modification time and size of a file, both are 0 for a missing file.
+     */
+    private static final class FileStamp {
+
+        private final File file;
+        private final long lastModified;
+        private final long length;
+
+        private FileStamp(File file) {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        static FileStamp[] of(List<File> files) {
+            FileStamp[] stamps = new FileStamp[files.size()];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = new FileStamp(files.get(i));
+            }
+            return stamps;
+        }
+
+        boolean isModified() {
+            return file.lastModified() != lastModified || file.length() != length;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package org.greenplum.pxf.api.model;
+
+/**
+ * Interface of plugins whose instances can be reused by several requests,
+ * to avoid recomputing state that only depends on the profile and the
+ * schema of the table, for example parsers or column metadata.
+ * <p>
+ * Once a request is done with a reusable plugin, the plugin is kept in a
+ * pool. It is handed to a later request of the same profile and with the
+ * same columns after a successful call to {@link #reset(RequestContext)},
+ * instead of creating and initializing a new instance. A pooled plugin is
+ * never used by two requests at the same time.
+ */
+public interface ReusablePlugin extends Plugin {
+
+    /**
+     * Prepares a used plugin for a new request, in place of
+     * {@link #initialize(RequestContext)}. The columns and the profile of
+     * the new request are the same as those the plugin was initialized
+     * with, all other request state must be reset.
+     *
+     * @param requestContext data provided in the new request
+     * @return true if the plugin can serve the request, false if a new
+     * instance must be created instead
+     */
+    boolean reset(RequestContext requestContext);
+}
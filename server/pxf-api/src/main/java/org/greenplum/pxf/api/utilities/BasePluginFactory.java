@@ -1,14 +1,47 @@
 package org.greenplum.pxf.api.utilities;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.StringUtils;
 import org.greenplum.pxf.api.model.Plugin;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.ReusablePlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Base class of the plugin factories. The constructors of the plugin
+ * classes are looked up once and cached. Instances of plugins implementing
+ * {@link ReusablePlugin} that are given back with
+ * {@link #releasePlugin(RequestContext, Plugin)} are pooled per class,
+ * profile and columns, and reused by later requests.
+ *
+ * @param <T> interface that the resulting plugin should implement
+ */
 public abstract class BasePluginFactory<T extends Plugin> implements PluginFactory<T> {
 
+    static final int MAX_POOLED_INSTANCES = 64;
+    private static final int MAX_POOLS = 1000;
+    private static final long POOL_EXPIRATION_MINUTES = 10;
+
+    private static final ConcurrentMap<String, Constructor<?>> constructors = new ConcurrentHashMap<>();
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    private final Cache<String, BlockingDeque<ReusablePlugin>> pools = CacheBuilder.newBuilder()
+            .maximumSize(MAX_POOLS)
+            .expireAfterAccess(POOL_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .build();
+
     @Override
     public T getPlugin(RequestContext requestContext) {
 
@@ -18,25 +51,20 @@ public abstract class BasePluginFactory<T extends Plugin> implements PluginFacto
             throw new RuntimeException("Could not determine plugin class name");
         }
 
-        // load the class by name
-        Class<?> cls;
-        try {
-            cls = Class.forName(pluginClassName);
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(String.format("Class %s is not found", pluginClassName), e);
-        }
+        Constructor<?> con = constructors.computeIfAbsent(pluginClassName, BasePluginFactory::getConstructor);
 
-        // check if the class is a plugin
-        if (! Plugin.class.isAssignableFrom(cls)) {
-            throw new RuntimeException(String.format("Class %s does not implement Plugin interface", pluginClassName));
-        }
-
-        // get the empty constructor
-        Constructor<?> con;
-        try {
-            con = cls.getConstructor();
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(String.format("Class %s does not have an empty constructor", pluginClassName));
+        // reuse a pooled instance, if any can serve the request
+        if (ReusablePlugin.class.isAssignableFrom(con.getDeclaringClass())) {
+            BlockingDeque<ReusablePlugin> pool = pools.getIfPresent(getPoolKey(pluginClassName, requestContext));
+            ReusablePlugin pooled;
+            while (pool != null && (pooled = pool.pollFirst()) != null) {
+                if (pooled.reset(requestContext)) {
+                    LOG.debug("Reusing pooled instance of {}", pluginClassName);
+                    @SuppressWarnings("unchecked")
+                    T castInstance = (T) pooled;
+                    return castInstance;
+                }
+            }
         }
 
         // create plugin instance
@@ -60,5 +88,66 @@ public abstract class BasePluginFactory<T extends Plugin> implements PluginFacto
         return castInstance;
     }
 
+    /**
+     * Pools the plugin if it implements {@link ReusablePlugin}, unless the
+     * pool for its class, profile and columns is full.
+     *
+     * @param requestContext context of the request the plugin was obtained for
+     * @param plugin         the plugin
+     */
+    @Override
+    public void releasePlugin(RequestContext requestContext, T plugin) {
+        if (!(plugin instanceof ReusablePlugin)) {
+            return;
+        }
+        String key = getPoolKey(plugin.getClass().getName(), requestContext);
+        try {
+            pools.get(key, () -> new LinkedBlockingDeque<>(MAX_POOLED_INSTANCES))
+                    .offerFirst((ReusablePlugin) plugin);
+        } catch (ExecutionException e) {
+            // cannot happen, creating a deque does not throw
+            throw new RuntimeException(e);
+        }
+    }
+
     abstract protected String getPluginClassName(RequestContext requestContext);
+
+    /*
+     * Loads the class by name and returns its empty constructor
+     */
+    private static Constructor<?> getConstructor(String pluginClassName) {
+        // load the class by name
+        Class<?> cls;
+        try {
+            cls = Class.forName(pluginClassName);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(String.format("Class %s is not found", pluginClassName), e);
+        }
+
+        // check if the class is a plugin
+        if (! Plugin.class.isAssignableFrom(cls)) {
+            throw new RuntimeException(String.format("Class %s does not implement Plugin interface", pluginClassName));
+        }
+
+        // get the empty constructor
+        try {
+            return cls.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(String.format("Class %s does not have an empty constructor", pluginClassName));
+        }
+    }
+
+    /*
+     * Instances are only reused for requests with the same profile and columns
+     */
+    private static String getPoolKey(String pluginClassName, RequestContext requestContext) {
+        StringBuilder key = new StringBuilder(pluginClassName)
+                .append('|').append(requestContext.getProfile());
+        for (ColumnDescriptor column : requestContext.getTupleDescription()) {
+            key.append('|').append(column.columnName())
+                    .append(':').append(column.columnTypeCode())
+                    .append(':').append(column.isProjected());
+        }
+        return key.toString();
+    }
 }
@@ -19,14 +19,15 @@ package org.greenplum.pxf.api.utilities;
  * under the License.
  */
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.model.Fragment;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.StreamingOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
@@ -35,12 +36,18 @@ import java.util.List;
  * Class for serializing fragments metadata in JSON format. The class implements
  * {@link StreamingOutput} so the serialization will be done in a stream and not
  * in one bulk, this in order to avoid running out of memory when processing a
- * lot of fragments.
+ * lot of fragments. The fragments are written one by one with a Jackson
+ * generator straight to the output stream, no intermediate strings are
+ * built for them.
  */
 public class FragmentsResponse implements StreamingOutput {
 
     private static final Log Log = LogFactory.getLog(FragmentsResponse.class);
 
+    // thread-safe, shared by all responses; the stream is owned by the container
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     private List<Fragment> fragments;
 
     /**
@@ -68,21 +75,50 @@ public class FragmentsResponse implements StreamingOutput {
     @Override
     public void write(OutputStream output) throws IOException,
             WebApplicationException {
-        DataOutputStream dos = new DataOutputStream(output);
-        ObjectMapper mapper = new ObjectMapper();
-
-        dos.write("{\"PXFFragments\":[".getBytes());
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("PXFFragments");
+            for (Fragment fragment : fragments) {
+                writeFragment(generator, fragment);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
 
-        String prefix = "";
-        for (Fragment fragment : fragments) {
-            StringBuilder result = new StringBuilder();
-            /* metaData and userData are automatically converted to Base64 */
-            result.append(prefix).append(mapper.writeValueAsString(fragment));
-            prefix = ",";
-            dos.write(result.toString().getBytes());
+    /*
+     * Writes the fields of the fragment in the order and format of the
+     * Jackson bean serialization of Fragment, metadata and userData are
+     * converted to Base64
+     */
+    private static void writeFragment(JsonGenerator generator, Fragment fragment) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("sourceName", fragment.getSourceName());
+        generator.writeNumberField("index", fragment.getIndex());
+        generator.writeFieldName("replicas");
+        String[] replicas = fragment.getReplicas();
+        if (replicas == null) {
+            generator.writeNull();
+        } else {
+            generator.writeStartArray();
+            for (String replica : replicas) {
+                generator.writeString(replica);
+            }
+            generator.writeEndArray();
         }
+        writeBinaryField(generator, "metadata", fragment.getMetadata());
+        writeBinaryField(generator, "userData", fragment.getUserData());
+        generator.writeStringField("profile", fragment.getProfile());
+        generator.writeEndObject();
+    }
 
-        dos.write("]}".getBytes());
+    private static void writeBinaryField(JsonGenerator generator, String name, byte[] value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBinary(value);
+        }
     }
 
     /**
@@ -19,23 +19,46 @@ package org.greenplum.pxf.api.utilities;
  * under the License.
  */
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.greenplum.pxf.api.model.Fragment;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for converting Fragments into a {@link FragmentsResponse} that
  * will serialize them into JSON format.
+ * <p>
+ * Host names of the replicas are resolved through a cache shared by all
+ * requests, entries are kept for the number of seconds given by the
+ * pxf.service.fragmenter.dns.cache.ttl system property, 300 by default.
  */
 public class FragmentsResponseFormatter {
 
     private static final Log LOG = LogFactory.getLog(FragmentsResponseFormatter.class);
 
+    static final String PROPERTY_KEY_DNS_CACHE_TTL = "pxf.service.fragmenter.dns.cache.ttl";
+    private static final long DEFAULT_DNS_CACHE_TTL_SECONDS = 300;
+    private static final int DNS_CACHE_SIZE = 10000;
+
+    private static final LoadingCache<String, String> hostToIpCache = CacheBuilder.newBuilder()
+            .maximumSize(DNS_CACHE_SIZE)
+            .expireAfterWrite(Long.getLong(PROPERTY_KEY_DNS_CACHE_TTL, DEFAULT_DNS_CACHE_TTL_SECONDS), TimeUnit.SECONDS)
+            .build(new CacheLoader<String, String>() {
+                @Override
+                public String load(String host) throws UnknownHostException {
+                    return InetAddress.getByName(host).getHostAddress();
+                }
+            });
+
     /**
      * Converts Fragments list to FragmentsResponse after replacing host name by
      * their respective IPs.
@@ -95,34 +118,38 @@ public class FragmentsResponseFormatter {
      */
     private static void convertHostsToIPs(List<Fragment> fragments)
             throws UnknownHostException {
-        /* host converted to IP map. Used to limit network calls. */
-        HashMap<String, String> hostToIpMap = new HashMap<String, String>();
-
         for (Fragment fragment : fragments) {
             String[] hosts = fragment.getReplicas();
             if (hosts == null) {
                 continue;
             }
             String[] ips = new String[hosts.length];
-            int index = 0;
-
-            for (String host : hosts) {
-                String convertedIp = hostToIpMap.get(host);
-                if (convertedIp == null) {
-                    /* find host's IP, and add to map */
-                    InetAddress addr = InetAddress.getByName(host);
-                    convertedIp = addr.getHostAddress();
-                    hostToIpMap.put(host, convertedIp);
-                }
-
-                /* update IPs array */
-                ips[index] = convertedIp;
-                ++index;
+            for (int i = 0; i < hosts.length; i++) {
+                ips[i] = getHostAddress(hosts[i]);
             }
             fragment.setReplicas(ips);
         }
     }
 
+    /**
+     * Returns the IP address of the host from the cache, resolving it on a
+     * cache miss. Failed lookups are not cached.
+     *
+     * @param host the host name
+     * @return the IP address of the host
+     * @throws UnknownHostException if the host could not be resolved
+     */
+    static String getHostAddress(String host) throws UnknownHostException {
+        try {
+            return hostToIpCache.get(host);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof UnknownHostException) {
+                throw (UnknownHostException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     /*
      * Converts a fragments list to a readable string and prints it to the log.
      * Intended for debugging purposes only. 'datapath' is the data path part of
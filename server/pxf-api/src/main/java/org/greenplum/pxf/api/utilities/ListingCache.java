@@ -0,0 +1,327 @@
+package org.greenplum.pxf.api.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache of file listings and splits computed by the fragmenters, shared by
+ * all queries. Unlike the {@link FragmenterCacheFactory}, which only serves
+ * the segments of a single transaction, entries of this cache outlive the
+ * query that computed them and are keyed by the kind of listing, the server,
+ * the user and the path.
+ * <p>
+ * An entry is reused while it is valid: it is valid for a time to live
+ * given by the caller and, when the caller knows the modification time of
+ * the path, as on HDFS where the modification time of a directory changes
+ * whenever a file is added or removed from it, only while the modification
+ * time is unchanged. Object stores have no real directories, their entries
+ * are only validated by the time to live.
+ * <p>
+ * The cache is bounded by the total weight of the cached items, which can
+ * be set with the pxf.service.fragmenter.listing.cache.size system property.
+ * A listed file or split weighs 1, callers caching larger items, such as
+ * Hive partitions, give their approximate weight in listed files. Entries
+ * not used for an hour are discarded.
+ */
+public class ListingCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ListingCache.class);
+
+    static final String PROPERTY_KEY_MAXIMUM_ITEMS = "pxf.service.fragmenter.listing.cache.size";
+    private static final long DEFAULT_MAXIMUM_ITEMS = 500000;
+    private static final long EXPIRATION_MINUTES = 60;
+    private static final String GLOB_CHARACTERS = "*?[{\\";
+
+    /**
+     * Modification time to pass when the modification time of the path is
+     * not known, the entry is then only validated by its time to live.
+     */
+    public static final long UNKNOWN_MODIFICATION_TIME = -1;
+
+    private static final ListingCache instance = new ListingCache(
+            Long.getLong(PROPERTY_KEY_MAXIMUM_ITEMS, DEFAULT_MAXIMUM_ITEMS), Ticker.systemTicker());
+
+    private final Cache<Key, Entry> cache;
+    private final Ticker ticker;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    /**
+     * Lists the items of a path on a cache miss.
+     *
+     * @param <T> type of the listed items
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        List<T> load() throws IOException;
+    }
+
+    ListingCache(long maximumItems, Ticker ticker) {
+        this.ticker = ticker;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumItems)
+                .weigher((Weigher<Key, Entry>) (key, entry) -> entry.weight)
+                .expireAfterAccess(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the singleton instance of the cache
+     */
+    public static ListingCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cached items for the path if the entry is still valid,
+     * otherwise lists them with the loader and caches the result. Every item
+     * weighs as much as a listed file.
+     *
+     * @see #get(String, String, String, String, long, long, Loader, ToIntFunction)
+     */
+    public <T> List<T> get(String kind, String server, String user, String path,
+                           long modificationTime, long ttlMillis, Loader<T> loader) throws IOException {
+        return get(kind, server, user, path, modificationTime, ttlMillis, loader, item -> 1);
+    }
+
+    /**
+     * Returns the cached items for the path if the entry is still valid,
+     * otherwise lists them with the loader and caches the result. The
+     * returned list is read-only and shared with other requests.
+     *
+     * @param kind             the kind of listing, e.g. files or splits
+     * @param server           the name of the server
+     * @param user             the user the listing is made for
+     * @param path             the fully qualified path that is listed
+     * @param modificationTime the current modification time of the path, or
+     *                         {@link #UNKNOWN_MODIFICATION_TIME}
+     * @param ttlMillis        the time to live of the entry in milliseconds,
+     *                         zero or less if it never expires
+     * @param loader           lists the items on a cache miss
+     * @param weigher          the approximate memory of an item, in listed
+     *                         files
+     * @param <T>              type of the listed items
+     * @return the listed items
+     * @throws IOException if the items could not be listed
+     */
+    public <T> List<T> get(String kind, String server, String user, String path, long modificationTime,
+                           long ttlMillis, Loader<T> loader, ToIntFunction<? super T> weigher) throws IOException {
+        Key key = new Key(kind, server, user, path);
+        Entry entry = cache.getIfPresent(key);
+        long now = ticker.read();
+
+        if (entry != null) {
+            if (entry.isValid(modificationTime, ttlMillis, now)) {
+                hits.incrementAndGet();
+                LOG.debug("Using cached {} of {} for server {}", kind, path, server);
+                @SuppressWarnings("unchecked")
+                List<T> items = (List<T>) entry.items;
+                return items;
+            }
+            staleEntries.incrementAndGet();
+            LOG.debug("Cached {} of {} for server {} is stale", kind, path, server);
+        }
+
+        misses.incrementAndGet();
+        List<T> items = Collections.unmodifiableList(new ArrayList<>(loader.load()));
+        long weight = 1;
+        for (T item : items) {
+            weight += Math.max(weigher.applyAsInt(item), 1);
+        }
+        cache.put(key, new Entry(items, (int) Math.min(weight, Integer.MAX_VALUE), modificationTime, now));
+        return items;
+    }
+
+    /**
+     * Discards the cached entries of the paths starting with the given path,
+     * optionally only for one server. The path may be given with or without
+     * its scheme and authority.
+     *
+     * @param server the name of the server, or null for all servers
+     * @param path   the path, or null for all paths
+     * @return the number of discarded entries
+     */
+    public int invalidate(String server, String path) {
+        int count = 0;
+        for (Key key : new ArrayList<>(cache.asMap().keySet())) {
+            if ((server == null || server.equals(key.server)) &&
+                    (StringUtils.isBlank(path) || isUnder(key.path, path))) {
+                cache.invalidate(key);
+                count++;
+            }
+        }
+        LOG.info("Discarded {} cached listing{} for server {} and path {}",
+                count, count == 1 ? "" : "s", server == null ? "*" : server, path == null ? "*" : path);
+        return count;
+    }
+
+    /**
+     * Discards the cached listings of one server that may list files under
+     * the given path once it was written to: the listings of the path, of the
+     * paths under it and of the directories or wildcard patterns containing
+     * it. The path is given with its scheme and authority.
+     *
+     * @param server the name of the server
+     * @param path   the path that was written to
+     * @return the number of discarded entries
+     */
+    public int invalidateContaining(String server, String path) {
+        int count = 0;
+        for (Key key : new ArrayList<>(cache.asMap().keySet())) {
+            if (server.equals(key.server) && (isUnder(key.path, path) || isUnder(path, getStem(key.path)))) {
+                cache.invalidate(key);
+                count++;
+            }
+        }
+        LOG.debug("Discarded {} cached listing{} of server {} containing path {}",
+                count, count == 1 ? "" : "s", server, path);
+        return count;
+    }
+
+    /**
+     * Discards all cached entries.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of hits, misses, stale entries, evictions and the
+     * number of cached entries and items, and the weight of the items.
+     *
+     * @return the statistics of the cache
+     */
+    public Map<String, Long> getStats() {
+        CacheStats stats = cache.stats();
+        long items = 0;
+        long weight = 0;
+        for (Entry entry : cache.asMap().values()) {
+            items += entry.items.size();
+            weight += entry.weight;
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("hits", hits.get());
+        result.put("misses", misses.get());
+        result.put("staleEntries", staleEntries.get());
+        result.put("evictions", stats.evictionCount());
+        result.put("entries", cache.size());
+        result.put("items", items);
+        result.put("weight", weight);
+        return result;
+    }
+
+    /*
+     * Returns the part of the path before its first wildcard character
+     */
+    private static String getStem(String path) {
+        int end = StringUtils.indexOfAny(path, GLOB_CHARACTERS);
+        return end < 0 ? path : path.substring(0, end);
+    }
+
+    /*
+     * Matches the path of the entry against a prefix given with or without
+     * its scheme and authority
+     */
+    private static boolean isUnder(String entryPath, String prefix) {
+        if (entryPath.startsWith(prefix)) {
+            return true;
+        }
+        int schemeEnd = entryPath.indexOf("://");
+        if (schemeEnd < 0) {
+            return false;
+        }
+        int pathStart = entryPath.indexOf('/', schemeEnd + 3);
+        return pathStart >= 0 && entryPath.startsWith(prefix, pathStart);
+    }
+
+    private static class Entry {
+        private final List<?> items;
+        private final int weight;
+        private final long modificationTime;
+        private final long loadedNanos;
+
+        Entry(List<?> items, int weight, long modificationTime, long loadedNanos) {
+            this.items = items;
+            this.weight = weight;
+            this.modificationTime = modificationTime;
+            this.loadedNanos = loadedNanos;
+        }
+
+        boolean isValid(long currentModificationTime, long ttlMillis, long now) {
+            if (currentModificationTime != UNKNOWN_MODIFICATION_TIME &&
+                    currentModificationTime != modificationTime) {
+                return false;
+            }
+            return ttlMillis <= 0 || now - loadedNanos < TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        }
+    }
+
+    private static class Key {
+        private final String kind;
+        private final String server;
+        private final String user;
+        private final String path;
+
+        Key(String kind, String server, String user, String path) {
+            this.kind = kind;
+            this.server = server;
+            this.user = user;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(kind, key.kind) &&
+                    Objects.equals(server, key.server) &&
+                    Objects.equals(user, key.user) &&
+                    Objects.equals(path, key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, server, user, path);
+        }
+    }
+}
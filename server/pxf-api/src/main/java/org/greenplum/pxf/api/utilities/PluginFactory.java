@@ -17,4 +17,14 @@ public interface PluginFactory<T extends Plugin> {
      * @return an initialized instance of the plugin
      */
     T getPlugin(RequestContext requestContext);
+
+    /**
+     * Gives back a plugin the request is done with, so that it can be
+     * reused by another request. The plugin must not be used afterwards.
+     *
+     * @param requestContext context of the request the plugin was obtained for
+     * @param plugin         the plugin
+     */
+    default void releasePlugin(RequestContext requestContext, T plugin) {
+    }
 }
@@ -0,0 +1,188 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.greenplum.pxf.api.examples.DemoGeneratorAccessor;
+import org.greenplum.pxf.api.examples.DemoGeneratorFragmenter;
+import org.greenplum.pxf.api.examples.DemoGeneratorResolver;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DemoGeneratorTest {
+
+    private RequestContext context;
+
+    @Before
+    public void setup() {
+        context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setDataSource("generated");
+        context.getTupleDescription().add(new ColumnDescriptor("id", DataType.BIGINT.getOID(), 0, "int8", null));
+        context.getTupleDescription().add(new ColumnDescriptor("qty", DataType.INTEGER.getOID(), 1, "int4", null));
+        context.getTupleDescription().add(new ColumnDescriptor("price", DataType.FLOAT8.getOID(), 2, "float8", null));
+        context.getTupleDescription().add(new ColumnDescriptor("name", DataType.VARCHAR.getOID(), 3, "varchar", new Integer[]{4}));
+        context.getTupleDescription().add(new ColumnDescriptor("day", DataType.DATE.getOID(), 4, "date", null));
+    }
+
+    @Test
+    public void testFragmentsCoverAllRows() throws Exception {
+        context.addOption("ROWS", "10");
+        context.addOption("FRAGMENTS", "3");
+        DemoGeneratorFragmenter fragmenter = new DemoGeneratorFragmenter();
+        fragmenter.initialize(context);
+
+        List<Fragment> fragments = fragmenter.getFragments();
+        assertEquals(3, fragments.size());
+        assertEquals("4,3", new String(fragments.get(1).getMetadata()));
+
+        long rows = 0;
+        for (Fragment fragment : fragments) {
+            context.setFragmentMetadata(fragment.getMetadata());
+            DemoGeneratorAccessor accessor = new DemoGeneratorAccessor();
+            accessor.initialize(context);
+            accessor.openForRead();
+            while (accessor.readNextObject() != null) {
+                rows++;
+            }
+        }
+        assertEquals(10, rows);
+    }
+
+    @Test
+    public void testRowAndBatchFormsMatch() throws Exception {
+        context.addOption("ROWS", "100");
+        context.addOption("NULL_RATIO", "0.2");
+        DemoGeneratorResolver resolver = new DemoGeneratorResolver();
+        resolver.initialize(context);
+
+        DemoGeneratorAccessor accessor = new DemoGeneratorAccessor();
+        accessor.initialize(context);
+        accessor.openForRead();
+        List<List<OneField>> records = new ArrayList<>();
+        for (OneRow row = accessor.readNextObject(); row != null; row = accessor.readNextObject()) {
+            records.add(resolver.getFields(row));
+        }
+        assertEquals(100, records.size());
+
+        int[] types = new int[context.getColumns()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = context.getColumn(i).columnTypeCode();
+        }
+        ColumnBatch batch = new ColumnBatch(types, 64);
+        accessor.openForRead();
+        int offset = 0;
+        for (OneRow row = accessor.readNextBatch(batch.remaining()); row != null; row = accessor.readNextBatch(batch.remaining())) {
+            resolver.resolveBatch(row, batch);
+            if (batch.isFull() || offset + batch.size() == 100) {
+                for (int r = 0; r < batch.size(); r++) {
+                    List<OneField> record = records.get(offset + r);
+                    assertEquals(record.get(0).val == null, batch.getColumn(0).isNull(r));
+                    if (record.get(0).val != null) {
+                        assertEquals(record.get(0).val, batch.getColumn(0).getLong(r));
+                    }
+                    if (record.get(3).val != null) {
+                        assertEquals(record.get(3).val, batch.getColumn(3).getString(r));
+                    }
+                }
+                offset += batch.size();
+                batch.reset();
+            }
+        }
+        assertEquals(100, offset);
+    }
+
+    @Test
+    public void testOptions() throws Exception {
+        context.addOption("DISTRIBUTION", "sequential");
+        context.addOption("STRING_WIDTH", "2-8");
+        DemoGeneratorResolver resolver = new DemoGeneratorResolver();
+        resolver.initialize(context);
+
+        for (long i = 0; i < 50; i++) {
+            List<OneField> fields = resolver.getFields(new OneRow(i, 1));
+            assertEquals(5, fields.size());
+            assertEquals(i, fields.get(0).val);
+            assertEquals((int) i, fields.get(1).val);
+            String name = (String) fields.get(3).val;
+            // varchar(4) caps the width
+            assertTrue(name.length() >= 2 && name.length() <= 4);
+            assertNotNull(fields.get(4).val);
+        }
+    }
+
+    @Test
+    public void testAllNulls() throws Exception {
+        context.addOption("NULL_RATIO", "1");
+        DemoGeneratorResolver resolver = new DemoGeneratorResolver();
+        resolver.initialize(context);
+
+        for (OneField field : resolver.getFields(new OneRow(7L, 1))) {
+            assertNull(field.val);
+        }
+    }
+
+    @Test
+    public void testSameSeedSameData() throws Exception {
+        DemoGeneratorResolver first = new DemoGeneratorResolver();
+        first.initialize(context);
+        DemoGeneratorResolver second = new DemoGeneratorResolver();
+        second.initialize(context);
+
+        for (long i = 0; i < 20; i++) {
+            List<OneField> a = first.getFields(new OneRow(i, 1));
+            List<OneField> b = second.getFields(new OneRow(i, 1));
+            Object[] va = new Object[a.size()];
+            Object[] vb = new Object[b.size()];
+            for (int c = 0; c < va.length; c++) {
+                va[c] = a.get(c).val;
+                vb[c] = b.get(c).val;
+            }
+            assertArrayEquals(va, vb);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDistribution() {
+        context.addOption("DISTRIBUTION", "gaussian");
+        new DemoGeneratorResolver().initialize(context);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNullRatio() {
+        context.addOption("NULL_RATIO", "1.5");
+        new DemoGeneratorResolver().initialize(context);
+    }
+}
@@ -0,0 +1,95 @@
+package org.greenplum.pxf.api.filter;
+
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class FilterCacheTest {
+
+    private static final String FILTER = "a1c25s5dvalueo5a0c23s2d10o2l0";
+
+    private FilterCache cache;
+    private AtomicInteger compilations;
+
+    @Before
+    public void setup() {
+        cache = new FilterCache();
+        compilations = new AtomicInteger();
+    }
+
+    @Test
+    public void testCompiledOncePerFilter() throws Exception {
+        Object first = cache.get(FilterCacheTest.class, context(FILTER), null, this::compile);
+        Object second = cache.get(FilterCacheTest.class, context(FILTER), null, this::compile);
+
+        assertSame(first, second);
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    public void testKeyedByFilterColumnsOwnerAndQualifier() throws Exception {
+        cache.get(FilterCacheTest.class, context(FILTER), null, this::compile);
+        cache.get(FilterCacheTest.class, context("a0c23s2d10o2"), null, this::compile);
+        cache.get(String.class, context(FILTER), null, this::compile);
+        cache.get(FilterCacheTest.class, context(FILTER), "qualifier", this::compile);
+
+        RequestContext otherColumns = context(FILTER);
+        otherColumns.getTupleDescription().add(new ColumnDescriptor("c3", 20, 2, "int8", null));
+        cache.get(FilterCacheTest.class, otherColumns, null, this::compile);
+
+        assertEquals(5, compilations.get());
+    }
+
+    @Test
+    public void testNullResultIsCached() throws Exception {
+        assertNull(cache.get(FilterCacheTest.class, context(FILTER), null, root -> {
+            compilations.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get(FilterCacheTest.class, context(FILTER), null, this::compile));
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+        try {
+            cache.get(FilterCacheTest.class, context(FILTER), null, root -> {
+                throw new IllegalStateException("cannot compile");
+            });
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("cannot compile", e.getMessage());
+        }
+        cache.get(FilterCacheTest.class, context(FILTER), null, this::compile);
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    public void testParsedTree() throws Exception {
+        Node root = cache.getParsedTree(context(FILTER));
+
+        assertSame(root, cache.getParsedTree(context(FILTER)));
+        assertEquals(Operator.AND, ((OperatorNode) root).getOperator());
+    }
+
+    private Object compile(Node root) {
+        compilations.incrementAndGet();
+        return new Object();
+    }
+
+    private RequestContext context(String filter) {
+        RequestContext context = new RequestContext();
+        context.setFilterString(filter);
+        context.getTupleDescription().add(new ColumnDescriptor("c1", 23, 0, "int4", null));
+        context.getTupleDescription().add(new ColumnDescriptor("c2", 25, 1, "text", null));
+        return context;
+    }
+}
@@ -0,0 +1,142 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnBatchWritableTest {
+
+    private static final int[] SCHEMA = {
+            DataType.BOOLEAN.getOID(),
+            DataType.INTEGER.getOID(),
+            DataType.BIGINT.getOID(),
+            DataType.TEXT.getOID(),
+            DataType.SMALLINT.getOID(),
+            DataType.FLOAT8.getOID(),
+            DataType.REAL.getOID(),
+            DataType.BYTEA.getOID(),
+            DataType.NUMERIC.getOID()
+    };
+
+    @Test
+    public void testWriteMatchesGPDBWritable() throws Exception {
+        ColumnBatch batch = new ColumnBatch(SCHEMA, 4);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream expectedOut = new DataOutputStream(expected);
+
+        for (int row = 0; row < 3; row++) {
+            GPDBWritable record = new GPDBWritable(SCHEMA);
+            record.setBoolean(0, row % 2 == 0);
+            batch.getColumn(0).setBoolean(row, row % 2 == 0);
+            record.setInt(1, row * 1000);
+            batch.getColumn(1).setInt(row, row * 1000);
+            record.setLong(2, row * 1000000000000L);
+            batch.getColumn(2).setLong(row, row * 1000000000000L);
+            String text = "row é " + row;
+            record.setString(3, text);
+            batch.getColumn(3).setString(row, text);
+            record.setShort(4, (short) row);
+            batch.getColumn(4).setShort(row, (short) row);
+            if (row == 1) {
+                // nulls in the middle of the record shift the alignment
+                record.setDouble(5, null);
+                batch.getColumn(5).setNull(row);
+                record.setBytes(7, null);
+                batch.getColumn(7).setBytes(row, null);
+            } else {
+                record.setDouble(5, row + 0.5);
+                batch.getColumn(5).setDouble(row, row + 0.5);
+                record.setBytes(7, new byte[]{1, 2, (byte) row});
+                batch.getColumn(7).setBytes(row, new byte[]{1, 2, (byte) row});
+            }
+            record.setFloat(6, row + 0.25f);
+            batch.getColumn(6).setFloat(row, row + 0.25f);
+            record.setString(8, "12345.6789");
+            batch.getColumn(8).setString(row, "12345.6789");
+            record.write(expectedOut);
+        }
+        batch.setSize(3);
+
+        assertArrayEquals(expected.toByteArray(), serialize(new ColumnBatchWritable(batch)));
+    }
+
+    @Test
+    public void testBatchReuse() throws Exception {
+        int[] schema = {DataType.INTEGER.getOID(), DataType.TEXT.getOID()};
+        ColumnBatch batch = new ColumnBatch(schema, 2);
+        ColumnBatchWritable writable = new ColumnBatchWritable(batch);
+
+        batch.getColumn(0).setNull(0);
+        batch.getColumn(1).setString(0, "first");
+        batch.setSize(1);
+        assertTrue(batch.getColumn(0).isNull(0));
+        serialize(writable);
+
+        batch.reset();
+        assertTrue(batch.isEmpty());
+        assertFalse(batch.getColumn(0).isNull(0));
+
+        batch.getColumn(0).setInt(0, 7);
+        batch.getColumn(1).setString(0, "second");
+        batch.setSize(1);
+
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setInt(0, 7);
+        record.setString(1, "second");
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(expected));
+
+        assertArrayEquals(expected.toByteArray(), serialize(writable));
+    }
+
+    @Test
+    public void testNullBitmapAcrossWords() {
+        ColumnVector vector = new ColumnVector(DataType.BIGINT.getOID(), 130);
+        vector.setNull(0);
+        vector.setNull(64);
+        vector.setNull(129);
+        vector.setLong(64, 5L);
+
+        assertTrue(vector.isNull(0));
+        assertFalse(vector.isNull(1));
+        assertFalse(vector.isNull(64));
+        assertTrue(vector.isNull(129));
+        assertEquals(5L, vector.getLong(64));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeAboveCapacity() {
+        new ColumnBatch(SCHEMA, 2).setSize(3);
+    }
+
+    private byte[] serialize(Writable writable) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writable.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,136 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.model.GreenplumCSV;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvRecordEncoderTest {
+
+    @Test
+    public void testEncodeTypes() {
+        List<OneField> fields = Arrays.asList(
+                new OneField(DataType.SMALLINT.getOID(), (short) -12),
+                new OneField(DataType.INTEGER.getOID(), Integer.MAX_VALUE),
+                new OneField(DataType.BIGINT.getOID(), Long.MIN_VALUE),
+                new OneField(DataType.BOOLEAN.getOID(), false),
+                new OneField(DataType.FLOAT8.getOID(), 1.5),
+                new OneField(DataType.REAL.getOID(), -0.25f),
+                new OneField(DataType.NUMERIC.getOID(), new BigDecimal("12345.6789")),
+                new OneField(DataType.BYTEA.getOID(), new byte[]{0, 15, -1}),
+                new OneField(DataType.DATE.getOID(), Date.valueOf("2019-03-07")),
+                new OneField(DataType.TEXT.getOID(), null),
+                new OneField(DataType.VARCHAR.getOID(), "plain"));
+
+        assertEquals("-12,2147483647,-9223372036854775808,false,1.5,-0.25,12345.6789,\\x000fff,2019-03-07,,plain\n",
+                encode(new CsvRecordEncoder(new GreenplumCSV()), fields));
+    }
+
+    @Test
+    public void testEncodeTimestamps() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder(new GreenplumCSV());
+        String[] values = {
+                "2020-01-02 03:04:05",
+                "2020-01-02 03:04:05.1",
+                "2020-01-02 03:04:05.000123",
+                "0001-12-31 23:59:59.99",
+                "2020-01-02 03:04:05.123456"
+        };
+        for (String value : values) {
+            List<OneField> fields = Arrays.asList(new OneField(DataType.TIMESTAMP.getOID(), Timestamp.valueOf(value)));
+            assertEquals(value + "\n", encode(encoder, fields));
+        }
+    }
+
+    @Test
+    public void testQuotingMatchesToCsvField() {
+        GreenplumCSV csv = new GreenplumCSV();
+        CsvRecordEncoder encoder = new CsvRecordEncoder(csv);
+        String[] values = {"a,b", "say \"hi\"", "line\nbreak", "é€😀", "", "no quoting"};
+        for (String value : values) {
+            List<OneField> fields = Arrays.asList(
+                    new OneField(DataType.TEXT.getOID(), value),
+                    new OneField(DataType.INTEGER.getOID(), 1));
+            assertEquals(csv.toCsvField(value, true, true, true) + ",1\n", encode(encoder, fields));
+        }
+    }
+
+    @Test
+    public void testCustomFormat() {
+        GreenplumCSV csv = new GreenplumCSV()
+                .withDelimiter("|")
+                .withQuoteChar("'")
+                .withEscapeChar("\\")
+                .withNewline("\r\n")
+                .withValueOfNull("NULL");
+        List<OneField> fields = Arrays.asList(
+                new OneField(DataType.TEXT.getOID(), "it's"),
+                new OneField(DataType.TEXT.getOID(), "a|b"),
+                new OneField(DataType.TEXT.getOID(), "a,\"b\""),
+                new OneField(DataType.BIGINT.getOID(), null),
+                new OneField(DataType.TEXT.getOID(), "x\r\ny"));
+
+        assertEquals("'it\\'s'|'a|b'|a,\"b\"|NULL|'x\r\ny'\r\n", encode(new CsvRecordEncoder(csv), fields));
+    }
+
+    @Test
+    public void testEscapeOff() {
+        GreenplumCSV csv = new GreenplumCSV().withEscapeChar("OFF");
+        List<OneField> fields = Arrays.asList(new OneField(DataType.TEXT.getOID(), "say \"hi\""));
+
+        assertEquals("say \"hi\"\n", encode(new CsvRecordEncoder(csv), fields));
+    }
+
+    @Test
+    public void testSchemaChangeAndBufferGrowth() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder(new GreenplumCSV());
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            large.append("é");
+        }
+
+        assertEquals("1\n", encode(encoder, Arrays.asList(new OneField(DataType.INTEGER.getOID(), 1))));
+        assertEquals(large + ",2\n", encode(encoder, Arrays.asList(
+                new OneField(DataType.TEXT.getOID(), large.toString()),
+                new OneField(DataType.INTEGER.getOID(), 2))));
+        assertEquals("true\n", encode(encoder, Arrays.asList(new OneField(DataType.BOOLEAN.getOID(), true))));
+    }
+
+    @Test
+    public void testEncodeLine() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder(new GreenplumCSV().withNewline("\r"));
+
+        assertEquals("a,\"b\"\r", new String(encoder.encodeLine("a,\"b\""), StandardCharsets.UTF_8));
+    }
+
+    private String encode(CsvRecordEncoder encoder, List<OneField> fields) {
+        return new String(encoder.encode(fields), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,157 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GPDBWritableDeserializerTest {
+
+    @Test
+    public void testReadRecords() throws Exception {
+        int[] schema = {
+                DataType.BOOLEAN.getOID(),
+                DataType.SMALLINT.getOID(),
+                DataType.BIGINT.getOID(),
+                DataType.TEXT.getOID(),
+                DataType.FLOAT8.getOID(),
+                DataType.BYTEA.getOID(),
+                DataType.REAL.getOID(),
+                DataType.INTEGER.getOID()
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < 3; i++) {
+            GPDBWritable record = new GPDBWritable(schema);
+            record.setBoolean(0, i % 2 == 0);
+            record.setShort(1, (short) -i);
+            record.setLong(2, Long.MAX_VALUE - i);
+            record.setString(3, "ascii, é, €, 😀 " + i);
+            record.setDouble(4, i == 1 ? null : i + 0.5);
+            record.setBytes(5, i == 1 ? null : new byte[]{-1, 0, (byte) i});
+            record.setFloat(6, i + 1.5f);
+            record.setInt(7, i);
+            record.write(out);
+        }
+
+        DataInputStream in = input(bytes);
+        GPDBWritableDeserializer deserializer = new GPDBWritableDeserializer();
+        for (int i = 0; i < 3; i++) {
+            List<OneField> fields = deserializer.readRecord(in);
+            assertEquals(schema.length, fields.size());
+            for (int j = 0; j < schema.length; j++) {
+                assertEquals(schema[j], fields.get(j).type);
+            }
+            assertEquals(i % 2 == 0, fields.get(0).val);
+            assertEquals((short) -i, fields.get(1).val);
+            assertEquals(Long.MAX_VALUE - i, fields.get(2).val);
+            assertEquals("ascii, é, €, 😀 " + i, fields.get(3).val);
+            if (i == 1) {
+                assertNull(fields.get(4).val);
+                assertNull(fields.get(5).val);
+            } else {
+                assertEquals(i + 0.5, fields.get(4).val);
+                assertArrayEquals(new byte[]{-1, 0, (byte) i}, (byte[]) fields.get(5).val);
+            }
+            assertEquals(i + 1.5f, fields.get(6).val);
+            assertEquals(i, fields.get(7).val);
+        }
+        assertNull(deserializer.readRecord(in));
+    }
+
+    @Test
+    public void testSchemaChange() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        GPDBWritable first = new GPDBWritable(new int[]{DataType.INTEGER.getOID()});
+        first.setInt(0, 1);
+        first.write(out);
+        GPDBWritable second = new GPDBWritable(new int[]{DataType.TEXT.getOID(), DataType.INTEGER.getOID()});
+        second.setString(0, "two");
+        second.setInt(1, 2);
+        second.write(out);
+
+        DataInputStream in = input(bytes);
+        GPDBWritableDeserializer deserializer = new GPDBWritableDeserializer();
+        assertEquals(1, deserializer.readRecord(in).get(0).val);
+        List<OneField> fields = deserializer.readRecord(in);
+        assertEquals(DataType.TEXT.getOID(), fields.get(0).type);
+        assertEquals("two", fields.get(0).val);
+        assertEquals(2, fields.get(1).val);
+    }
+
+    @Test
+    public void testLargeRecord() throws Exception {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            large.append((char) ('a' + i % 26));
+        }
+        GPDBWritable record = new GPDBWritable(new int[]{DataType.TEXT.getOID()});
+        record.setString(0, large.toString());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bytes));
+
+        assertEquals(large.toString(), new GPDBWritableDeserializer().readRecord(input(bytes)).get(0).val);
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorRecord() throws Exception {
+        GPDBWritable record = new GPDBWritable(new int[]{DataType.TEXT.getOID()});
+        record.setError(true);
+        record.setString(0, "failure");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bytes));
+
+        new GPDBWritableDeserializer().readRecord(input(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedRecord() throws Exception {
+        GPDBWritable record = new GPDBWritable(new int[]{DataType.BIGINT.getOID()});
+        record.setLong(0, 1L);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bytes));
+        byte[] truncated = bytes.toByteArray();
+        truncated = Arrays.copyOf(truncated, truncated.length - 4);
+
+        new GPDBWritableDeserializer().readRecord(new DataInputStream(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    public void testEmptyStream() throws Exception {
+        assertNull(new GPDBWritableDeserializer().readRecord(input(new ByteArrayOutputStream())));
+    }
+
+    private DataInputStream input(ByteArrayOutputStream bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
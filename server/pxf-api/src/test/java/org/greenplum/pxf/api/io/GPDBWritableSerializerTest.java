@@ -0,0 +1,150 @@
+package org.greenplum.pxf.api.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GPDBWritableSerializerTest {
+
+    @Test
+    public void testWireFormat() throws Exception {
+        int[] schema = {DataType.INTEGER.getOID(), DataType.TEXT.getOID()};
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setInt(0, 7);
+        record.setString(1, "ab");
+
+        byte[] expected = {
+                0, 0, 0, 24,    // total length
+                0, 2,           // version
+                0,              // error flag
+                0, 2,           // # of columns
+                3, 7,           // INTEGER, TEXT
+                0,              // null bits
+                0, 0, 0, 7,     // int value
+                0, 0, 0, 3,     // text length
+                'a', 'b', 0,    // null terminated text
+                0               // end padding
+        };
+        assertArrayEquals(expected, write(new GPDBWritableSerializer(schema), record));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        int[] schema = {
+                DataType.BOOLEAN.getOID(),
+                DataType.SMALLINT.getOID(),
+                DataType.BIGINT.getOID(),
+                DataType.VARCHAR.getOID(),
+                DataType.FLOAT8.getOID(),
+                DataType.BYTEA.getOID(),
+                DataType.REAL.getOID(),
+                DataType.INTEGER.getOID(),
+                DataType.TIMESTAMP.getOID()
+        };
+        String text = "ascii, é, €, 😀";
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setBoolean(0, true);
+        record.setShort(1, (short) -3);
+        record.setLong(2, Long.MIN_VALUE);
+        record.setString(3, text);
+        record.setDouble(4, null);
+        record.setBytes(5, new byte[]{-1, 0, 1});
+        record.setFloat(6, 1.5f);
+        record.setInt(7, null);
+        record.setString(8, "2020-01-01 10:11:12");
+
+        byte[] bytes = write(new GPDBWritableSerializer(schema), record);
+        GPDBWritable result = new GPDBWritable(bytes);
+
+        assertEquals(0, bytes.length % 8);
+        assertEquals(true, result.getObject(0));
+        assertEquals((short) -3, result.getObject(1));
+        assertEquals(Long.MIN_VALUE, result.getObject(2));
+        assertEquals(text, result.getObject(3));
+        assertNull(result.getObject(4));
+        assertArrayEquals(new byte[]{-1, 0, 1}, (byte[]) result.getObject(5));
+        assertEquals(1.5f, result.getObject(6));
+        assertNull(result.getObject(7));
+        assertEquals("2020-01-01 10:11:12", result.getObject(8));
+    }
+
+    @Test
+    public void testUnpairedSurrogateMatchesGetBytes() throws Exception {
+        int[] schema = {DataType.TEXT.getOID()};
+        String text = "a\uD83Db\uDE00";
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setString(0, text);
+
+        byte[] bytes = write(new GPDBWritableSerializer(schema), record);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 12, bytes.length - 12));
+        byte[] expected = (text + "\0").getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, in.readInt());
+        byte[] actual = new byte[expected.length];
+        in.readFully(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testSharedSerializerGrowsBuffer() throws Exception {
+        int[] schema = {DataType.TEXT.getOID(), DataType.BIGINT.getOID()};
+        GPDBWritableSerializer serializer = new GPDBWritableSerializer(schema);
+
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            large.append('x');
+        }
+        String[] values = {"small", large.toString(), "again small"};
+        for (String value : values) {
+            GPDBWritable record = new GPDBWritable(schema);
+            record.setString(0, value);
+            record.setLong(1, (long) value.length());
+            GPDBWritable result = new GPDBWritable(write(serializer, record));
+            assertEquals(value, result.getObject(0));
+            assertEquals((long) value.length(), result.getObject(1));
+        }
+    }
+
+    @Test
+    public void testErrorRecord() throws Exception {
+        int[] schema = {DataType.TEXT.getOID()};
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setError(true);
+        record.setString(0, "failure");
+
+        byte[] bytes = write(new GPDBWritableSerializer(schema), record);
+        assertEquals(1, bytes[6]);
+    }
+
+    private byte[] write(GPDBWritableSerializer serializer, GPDBWritable record) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.write(record, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -5,12 +5,15 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,6 +21,7 @@ import static org.greenplum.pxf.api.model.ConfigurationFactory.PXF_CONFIG_RESOUR
 import static org.greenplum.pxf.api.model.ConfigurationFactory.PXF_CONFIG_SERVER_DIRECTORY_PROPERTY;
 import static org.greenplum.pxf.api.model.ConfigurationFactory.PXF_SESSION_USER_PROPERTY;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
@@ -29,6 +33,9 @@ public class BaseConfigurationFactoryTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private BaseConfigurationFactory factory;
     private Map<String, String> additionalProperties;
     private File mockServersDirectory;
@@ -205,4 +212,55 @@ public class BaseConfigurationFactoryTest {
         assertEquals("dummy", configuration.get(PXF_SESSION_USER_PROPERTY));
     }
 
+    @Test
+    public void testCachedConfigurationIsCopiedForEachRequest() {
+        Configuration configuration1 = factory.initConfiguration("default", "default", "dummy", null);
+        configuration1.set("test.blue", "changed");
+        Configuration configuration2 = factory.initConfiguration("default", "default", "dummy", null);
+
+        assertNotSame(configuration1, configuration2);
+        assertEquals("blue", configuration2.get("test.blue"));
+        assertEquals("changed", configuration1.get("test.blue"));
+    }
+
+    @Test
+    public void testCachedConfigurationDependsOnUserAndProperties() {
+        additionalProperties.put("test.red", "purple");
+        Configuration configuration1 = factory.initConfiguration("default", "default", "dummy", additionalProperties);
+        Configuration configuration2 = factory.initConfiguration("default", "default", "other", null);
+
+        assertEquals("purple", configuration1.get("test.red"));
+        assertEquals("uservalue", configuration1.get("test.user.key"));
+        assertEquals("red", configuration2.get("test.red"));
+        assertEquals("other", configuration2.get(PXF_SESSION_USER_PROPERTY));
+        assertNull(configuration2.get("test.user.key"));
+    }
+
+    @Test
+    public void testConfigurationReloadedWhenFilesAreModified() throws IOException {
+        File servers = tempFolder.newFolder("servers");
+        File server = new File(servers, "modified");
+        assertEquals(true, server.mkdir());
+        File siteFile = new File(server, "test-site.xml");
+        writeProperty(siteFile, "test.color", "blue");
+        factory = new BaseConfigurationFactory(servers);
+
+        assertEquals("blue", factory.initConfiguration("modified", "modified", "dummy", null).get("test.color"));
+
+        writeProperty(siteFile, "test.color", "yellow");
+        // make the modification visible on file systems with a coarse timestamp resolution
+        assertEquals(true, siteFile.setLastModified(siteFile.lastModified() - 10000));
+        assertEquals("yellow", factory.initConfiguration("modified", "modified", "dummy", null).get("test.color"));
+
+        // a new user file modifies the server directory
+        writeProperty(new File(server, "dummy-user.xml"), "test.user.color", "green");
+        assertEquals(true, server.setLastModified(server.lastModified() - 10000));
+        assertEquals("green", factory.initConfiguration("modified", "modified", "dummy", null).get("test.user.color"));
+    }
+
+    private void writeProperty(File file, String name, String value) throws IOException {
+        String xml = "<?xml version=\"1.0\"?><configuration><property><name>" + name +
+                "</name><value>" + value + "</value></property></configuration>";
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,164 @@
+package org.greenplum.pxf.api.utilities;
+
+import org.greenplum.pxf.api.model.Plugin;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.ReusablePlugin;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BasePluginFactoryTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private TestPluginFactory factory;
+    private RequestContext context;
+
+    @Before
+    public void setup() {
+        factory = new TestPluginFactory();
+        context = newContext("profile1");
+    }
+
+    @Test
+    public void testGetPluginCreatesNewInstances() {
+        factory.className = SimplePlugin.class.getName();
+        Plugin plugin1 = factory.getPlugin(context);
+        factory.releasePlugin(context, plugin1);
+        Plugin plugin2 = factory.getPlugin(context);
+
+        assertNotSame(plugin1, plugin2);
+        assertSame(context, ((SimplePlugin) plugin2).context);
+    }
+
+    @Test
+    public void testReleasedReusablePluginIsReset() {
+        factory.className = PooledPlugin.class.getName();
+        PooledPlugin plugin1 = (PooledPlugin) factory.getPlugin(context);
+        factory.releasePlugin(context, plugin1);
+
+        RequestContext context2 = newContext("profile1");
+        PooledPlugin plugin2 = (PooledPlugin) factory.getPlugin(context2);
+
+        assertSame(plugin1, plugin2);
+        assertSame(context2, plugin2.context);
+        assertEquals(1, plugin2.initializeCount);
+        assertEquals(1, plugin2.resetCount);
+
+        // not released, a new instance is needed
+        assertNotSame(plugin2, factory.getPlugin(context2));
+    }
+
+    @Test
+    public void testReusablePluginNotReusedForOtherProfileOrColumns() {
+        factory.className = PooledPlugin.class.getName();
+        Plugin plugin1 = factory.getPlugin(context);
+        factory.releasePlugin(context, plugin1);
+
+        assertNotSame(plugin1, factory.getPlugin(newContext("profile2")));
+
+        RequestContext context2 = newContext("profile1");
+        context2.getTupleDescription().add(new ColumnDescriptor("c2", 25, 1, "text", null));
+        assertNotSame(plugin1, factory.getPlugin(context2));
+
+        assertSame(plugin1, factory.getPlugin(newContext("profile1")));
+    }
+
+    @Test
+    public void testReusablePluginRefusingResetIsDropped() {
+        factory.className = PooledPlugin.class.getName();
+        PooledPlugin plugin1 = (PooledPlugin) factory.getPlugin(context);
+        plugin1.reusable = false;
+        factory.releasePlugin(context, plugin1);
+
+        PooledPlugin plugin2 = (PooledPlugin) factory.getPlugin(newContext("profile1"));
+        assertNotSame(plugin1, plugin2);
+        assertEquals(1, plugin1.resetCount);
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        factory.className = PooledPlugin.class.getName();
+        for (int i = 0; i < BasePluginFactory.MAX_POOLED_INSTANCES + 10; i++) {
+            factory.releasePlugin(context, new PooledPlugin());
+        }
+        int reused = 0;
+        while (((PooledPlugin) factory.getPlugin(context)).initializeCount == 0) {
+            reused++;
+        }
+        assertEquals(BasePluginFactory.MAX_POOLED_INSTANCES, reused);
+    }
+
+    @Test
+    public void testUnknownClass() {
+        thrown.expect(RuntimeException.class);
+        thrown.expectMessage("Class org.greenplum.pxf.api.utilities.NoSuchPlugin is not found");
+
+        factory.className = "org.greenplum.pxf.api.utilities.NoSuchPlugin";
+        factory.getPlugin(context);
+    }
+
+    @Test
+    public void testClassNotPlugin() {
+        thrown.expect(RuntimeException.class);
+        thrown.expectMessage("Class java.lang.String does not implement Plugin interface");
+
+        factory.className = String.class.getName();
+        factory.getPlugin(context);
+    }
+
+    private RequestContext newContext(String profile) {
+        RequestContext requestContext = new RequestContext();
+        requestContext.setProfile(profile);
+        requestContext.getTupleDescription().add(new ColumnDescriptor("c1", 23, 0, "int4", null));
+        return requestContext;
+    }
+
+    static class TestPluginFactory extends BasePluginFactory<Plugin> {
+        String className;
+
+        @Override
+        protected String getPluginClassName(RequestContext requestContext) {
+            return className;
+        }
+    }
+
+    public static class SimplePlugin implements Plugin {
+        RequestContext context;
+
+        @Override
+        public void initialize(RequestContext requestContext) {
+            context = requestContext;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+
+    public static class PooledPlugin extends SimplePlugin implements ReusablePlugin {
+        int initializeCount;
+        int resetCount;
+        boolean reusable = true;
+
+        @Override
+        public void initialize(RequestContext requestContext) {
+            super.initialize(requestContext);
+            initializeCount++;
+        }
+
+        @Override
+        public boolean reset(RequestContext requestContext) {
+            context = requestContext;
+            resetCount++;
+            return reusable;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.greenplum.pxf.api.utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greenplum.pxf.api.model.Fragment;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FragmentsResponseTest {
+
+    @Test
+    public void testWriteMatchesJacksonSerialization() throws Exception {
+        Fragment withProfile = new Fragment("x", new String[]{"h"}, null, "ud".getBytes(), "prof");
+        withProfile.setIndex(3);
+        Fragment noReplicas = new Fragment("y");
+        noReplicas.setReplicas(null);
+        List<Fragment> fragments = Arrays.asList(
+                new Fragment("a/b\"c\u00e9", new String[]{"h1", "h2"}, new byte[]{1, 2, 3, (byte) 200}),
+                withProfile,
+                noReplicas);
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder expected = new StringBuilder("{\"PXFFragments\":[");
+        for (int i = 0; i < fragments.size(); i++) {
+            expected.append(i == 0 ? "" : ",").append(mapper.writeValueAsString(fragments.get(i)));
+        }
+        expected.append("]}");
+
+        assertEquals(expected.toString(), write(fragments));
+    }
+
+    @Test
+    public void testWriteEmptyList() throws Exception {
+        assertEquals("{\"PXFFragments\":[]}", write(Collections.<Fragment>emptyList()));
+    }
+
+    @Test
+    public void testWriteDoesNotCloseStream() throws Exception {
+        final boolean[] closed = {false};
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        new FragmentsResponse(Collections.singletonList(new Fragment("a"))).write(out);
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    public void testFormatResponseResolvesHostsAndIndexes() throws Exception {
+        List<Fragment> fragments = new ArrayList<>();
+        fragments.add(new Fragment("a", new String[]{"localhost"}, null));
+        fragments.add(new Fragment("a", new String[]{"127.0.0.1", "localhost"}, null));
+        fragments.add(new Fragment("b", new String[]{"localhost"}, null));
+
+        FragmentsResponse response = FragmentsResponseFormatter.formatResponse(fragments, "path");
+
+        String ip = FragmentsResponseFormatter.getHostAddress("localhost");
+        assertEquals(fragments, response.getFragments());
+        assertArrayEquals(new String[]{ip}, fragments.get(0).getReplicas());
+        assertArrayEquals(new String[]{"127.0.0.1", ip}, fragments.get(1).getReplicas());
+        assertEquals(0, fragments.get(0).getIndex());
+        assertEquals(1, fragments.get(1).getIndex());
+        assertEquals(0, fragments.get(2).getIndex());
+    }
+
+    @Test(expected = UnknownHostException.class)
+    public void testUnknownHost() throws Exception {
+        FragmentsResponseFormatter.getHostAddress("no-such-host.invalid");
+    }
+
+    private String write(List<Fragment> fragments) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new FragmentsResponse(fragments).write(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,173 @@
+package org.greenplum.pxf.api.utilities;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ListingCacheTest {
+
+    private static final String PATH = "hdfs://namenode:8020/warehouse/sales";
+
+    private ListingCache cache;
+    private MockTicker ticker;
+    private AtomicInteger listings;
+
+    @Before
+    public void setup() {
+        ticker = new MockTicker();
+        cache = new ListingCache(100, ticker);
+        listings = new AtomicInteger();
+    }
+
+    @Test
+    public void testListedOnceWhileModificationTimeIsUnchanged() throws Exception {
+        List<String> first = cache.get("splits", "default", "alice", PATH, 1000L, 0, this::list);
+        ticker.advanceTime(10, TimeUnit.MINUTES);
+        List<String> second = cache.get("splits", "default", "alice", PATH, 1000L, 0, this::list);
+
+        assertSame(first, second);
+        assertEquals(1, listings.get());
+
+        cache.get("splits", "default", "alice", PATH, 2000L, 0, this::list);
+        assertEquals(2, listings.get());
+
+        Map<String, Long> stats = cache.getStats();
+        assertEquals(1L, (long) stats.get("hits"));
+        assertEquals(2L, (long) stats.get("misses"));
+        assertEquals(1L, (long) stats.get("staleEntries"));
+        assertEquals(1L, (long) stats.get("entries"));
+        assertEquals(2L, (long) stats.get("items"));
+    }
+
+    @Test
+    public void testListedAgainAfterTimeToLive() throws Exception {
+        long unknown = ListingCache.UNKNOWN_MODIFICATION_TIME;
+        cache.get("splits", "default", "alice", PATH, unknown, 60000, this::list);
+        ticker.advanceTime(59, TimeUnit.SECONDS);
+        cache.get("splits", "default", "alice", PATH, unknown, 60000, this::list);
+        assertEquals(1, listings.get());
+
+        ticker.advanceTime(1, TimeUnit.SECONDS);
+        cache.get("splits", "default", "alice", PATH, unknown, 60000, this::list);
+        assertEquals(2, listings.get());
+    }
+
+    @Test
+    public void testListedAgainAfterTimeToLiveWhenModificationTimeIsUnchanged() throws Exception {
+        cache.get("splits", "default", "alice", PATH, 1000L, 60000, this::list);
+        ticker.advanceTime(59, TimeUnit.SECONDS);
+        cache.get("splits", "default", "alice", PATH, 1000L, 60000, this::list);
+        assertEquals(1, listings.get());
+
+        // e.g. a file of the directory was appended to
+        ticker.advanceTime(1, TimeUnit.SECONDS);
+        cache.get("splits", "default", "alice", PATH, 1000L, 60000, this::list);
+        assertEquals(2, listings.get());
+    }
+
+    @Test
+    public void testKeyedByKindServerUserAndPath() throws Exception {
+        cache.get("splits", "default", "alice", PATH, 1000L, 0, this::list);
+        cache.get("files", "default", "alice", PATH, 1000L, 0, this::list);
+        cache.get("splits", "s3", "alice", PATH, 1000L, 0, this::list);
+        cache.get("splits", "default", "bob", PATH, 1000L, 0, this::list);
+        cache.get("splits", "default", "alice", PATH + "/2020", 1000L, 0, this::list);
+
+        assertEquals(5, listings.get());
+    }
+
+    @Test
+    public void testFailedListingIsNotCached() throws Exception {
+        try {
+            cache.get("splits", "default", "alice", PATH, 1000L, 0, () -> {
+                throw new IOException("boom");
+            });
+            fail("expected an IOException");
+        } catch (IOException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        cache.get("splits", "default", "alice", PATH, 1000L, 0, this::list);
+        assertEquals(1, listings.get());
+    }
+
+    @Test
+    public void testInvalidateByServerAndPath() throws Exception {
+        cache.get("splits", "default", "alice", PATH + "/2019", 1000L, 0, this::list);
+        cache.get("splits", "default", "alice", PATH + "/2020", 1000L, 0, this::list);
+        cache.get("splits", "default", "alice", "hdfs://namenode:8020/warehouse/orders", 1000L, 0, this::list);
+        cache.get("splits", "s3", "alice", "s3a://bucket/warehouse/sales", 1000L, 0, this::list);
+
+        // the path may be given without scheme and authority
+        assertEquals(2, cache.invalidate("default", "/warehouse/sales"));
+        assertEquals(0, cache.invalidate("other", null));
+        assertEquals(2, cache.invalidate(null, null));
+        assertEquals(0L, (long) cache.getStats().get("entries"));
+    }
+
+    @Test
+    public void testInvalidateListingsContainingWrittenPath() throws Exception {
+        cache.get("splits", "default", "alice", "hdfs://namenode:8020/warehouse/sales/2020", 1000L, 0, this::list);
+        cache.get("splits", "default", "bob", "hdfs://namenode:8020/warehouse/sales", 1000L, 0, this::list);
+        cache.get("splits", "default", "alice", "hdfs://namenode:8020/warehouse", 1000L, 0, this::list);
+        cache.get("splits", "default", "alice", "hdfs://namenode:8020/warehouse/*/2020", 1000L, 0, this::list);
+        cache.get("splits", "default", "alice", "hdfs://namenode:8020/warehouse/orders", 1000L, 0, this::list);
+        cache.get("splits", "s3", "alice", "hdfs://namenode:8020/warehouse/sales", 1000L, 0, this::list);
+
+        // the path, its subdirectories, its parents and patterns that may match it
+        assertEquals(4, cache.invalidateContaining("default", "hdfs://namenode:8020/warehouse/sales"));
+        assertEquals(2L, (long) cache.getStats().get("entries"));
+    }
+
+    @Test
+    public void testBoundedByNumberOfItems() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            cache.get("splits", "default", "alice", PATH + "/" + i, 1000L, 0, this::list);
+        }
+        assertEquals(true, cache.getStats().get("items") <= 100);
+        assertEquals(true, cache.getStats().get("evictions") > 0);
+    }
+
+    @Test
+    public void testBoundedByWeightOfItems() throws Exception {
+        cache.get("partitions", "default", "alice", PATH + "/0", 1000L, 0, this::list, item -> 5);
+        assertEquals(11L, (long) cache.getStats().get("weight"));
+        assertEquals(2L, (long) cache.getStats().get("items"));
+
+        // 20 listings of 2 items fit, unless the items are heavy
+        for (int i = 1; i < 20; i++) {
+            cache.get("partitions", "default", "alice", PATH + "/" + i, 1000L, 0, this::list, item -> 5);
+        }
+        assertEquals(true, cache.getStats().get("weight") <= 100);
+        assertEquals(true, cache.getStats().get("evictions") > 0);
+    }
+
+    private List<String> list() {
+        listings.incrementAndGet();
+        return Arrays.asList("part-0", "part-1");
+    }
+
+    static class MockTicker extends Ticker {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advanceTime(long value, TimeUnit unit) {
+            nanos.addAndGet(unit.toNanos(value));
+        }
+    }
+}
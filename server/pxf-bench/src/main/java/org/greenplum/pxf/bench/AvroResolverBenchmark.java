@@ -0,0 +1,153 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.AvroResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AvroResolver} decoding serialized Avro records into fields
+ * and building Avro records from fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AvroResolverBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"8", "64"})
+    public int columns;
+
+    private AvroResolver resolver;
+    private List<List<OneField>> records;
+    private List<OneRow> rows;
+
+    @Setup
+    public void setup() throws IOException {
+        List<ColumnDescriptor> tupleDescription = SyntheticData.tupleDescription(columns);
+        Schema schema = Schema.createRecord("bench", "", "org.greenplum.pxf.bench", false);
+        List<Schema.Field> fields = new ArrayList<>(columns);
+        for (ColumnDescriptor column : tupleDescription) {
+            Schema nullable = Schema.createUnion(Arrays.asList(
+                    Schema.create(Schema.Type.NULL), Schema.create(avroType(column.getDataType()))));
+            fields.add(new Schema.Field(column.columnName(), nullable, "", null));
+        }
+        schema.setFields(fields);
+
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("bench-user");
+        context.setAccessor("avro");
+        context.setTupleDescription(tupleDescription);
+        context.setMetadata(schema);
+        resolver = new AvroResolver();
+        resolver.initialize(context);
+
+        // timestamps are stored as strings, the way Greenplum sends them
+        records = SyntheticData.records(ROWS, columns);
+        for (List<OneField> record : records) {
+            for (OneField field : record) {
+                if (field.type == DataType.TIMESTAMP.getOID() && field.val != null) {
+                    field.val = field.val.toString();
+                }
+            }
+        }
+
+        // serialize the records the way they are stored in sequence files
+        GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(schema);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = null;
+        rows = new ArrayList<>(ROWS);
+        for (List<OneField> record : records) {
+            out.reset();
+            encoder = EncoderFactory.get().binaryEncoder(out, encoder);
+            writer.write((GenericRecord) resolver.setFields(record).getData(), encoder);
+            encoder.flush();
+            rows.add(new OneRow(null, new BytesWritable(out.toByteArray())));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void getFields(Blackhole blackhole) throws Exception {
+        for (OneRow row : rows) {
+            blackhole.consume(resolver.getFields(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void setFields(Blackhole blackhole) {
+        for (List<OneField> record : records) {
+            blackhole.consume(resolver.setFields(record));
+        }
+    }
+
+    private static Schema.Type avroType(DataType dataType) {
+        switch (dataType) {
+            case INTEGER:
+                return Schema.Type.INT;
+            case BIGINT:
+                return Schema.Type.LONG;
+            case FLOAT8:
+                return Schema.Type.DOUBLE;
+            case BOOLEAN:
+                return Schema.Type.BOOLEAN;
+            case BYTEA:
+                return Schema.Type.BYTES;
+            default:
+                return Schema.Type.STRING;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.BridgeOutputBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BridgeOutputBuilder#makeOutput(List)}, the conversion of
+ * resolved fields into the records sent to Greenplum, for both output
+ * formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BridgeOutputBuilderBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"GPDBWritable", "TEXT"})
+    public OutputFormat outputFormat;
+
+    @Param({"8", "64"})
+    public int columns;
+
+    private BridgeOutputBuilder outputBuilder;
+    private List<List<OneField>> records;
+
+    @Setup
+    public void setup() {
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("bench-user");
+        context.setOutputFormat(outputFormat);
+        context.setTupleDescription(SyntheticData.tupleDescription(columns));
+        outputBuilder = new BridgeOutputBuilder(context);
+        records = SyntheticData.records(ROWS, columns);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void makeOutput(Blackhole blackhole) throws BadRecordException {
+        for (List<OneField> record : records) {
+            for (Writable writable : outputBuilder.makeOutput(record)) {
+                blackhole.consume(writable);
+            }
+        }
+    }
+}
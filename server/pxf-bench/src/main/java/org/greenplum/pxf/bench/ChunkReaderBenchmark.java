@@ -0,0 +1,89 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.plugins.hdfs.ChunkReader;
+import org.greenplum.pxf.plugins.hdfs.ChunkWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ChunkReader} reading a whole in-memory text file, either
+ * in chunks or line by line. The score is the time to consume the file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ChunkReaderBenchmark {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    @Param({"100000"})
+    public int rows;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        data = SyntheticData.csvLines(rows, 8);
+    }
+
+    @Benchmark
+    public long readChunk() throws IOException {
+        long total = 0;
+        try (ChunkReader reader = new ChunkReader(new ByteArrayInputStream(data))) {
+            ChunkWritable chunk = new ChunkWritable();
+            int read;
+            while ((read = reader.readChunk(chunk, CHUNK_SIZE)) > 0) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long readLine() throws IOException {
+        long total = 0;
+        try (ChunkReader reader = new ChunkReader(new ByteArrayInputStream(data))) {
+            ChunkWritable line = new ChunkWritable();
+            int read;
+            while ((read = reader.readLine(line, Integer.MAX_VALUE)) > 0) {
+                total += read;
+            }
+        }
+        return total;
+    }
+}
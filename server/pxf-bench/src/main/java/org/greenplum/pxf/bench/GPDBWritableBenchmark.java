@@ -0,0 +1,103 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization and deserialization of a single
+ * {@link GPDBWritable} record, the binary format exchanged with Greenplum.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GPDBWritableBenchmark {
+
+    @Param({"8", "64"})
+    public int columns;
+
+    private GPDBWritable record;
+    private ByteArrayOutputStream bytes;
+    private DataOutputStream out;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        List<ColumnDescriptor> tupleDescription = SyntheticData.tupleDescription(columns);
+        List<OneField> fields = SyntheticData.records(1, columns).get(0);
+
+        int[] schema = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            schema[i] = tupleDescription.get(i).columnTypeCode();
+        }
+        record = new GPDBWritable(schema);
+        for (int i = 0; i < columns; i++) {
+            Object value = fields.get(i).val;
+            if (value != null && schema[i] == DataType.TIMESTAMP.getOID()) {
+                value = value.toString();
+            }
+            record.setObject(i, value);
+        }
+
+        bytes = new ByteArrayOutputStream();
+        out = new DataOutputStream(bytes);
+        record.write(out);
+        serialized = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        bytes.reset();
+        record.write(out);
+        return bytes.size();
+    }
+
+    @Benchmark
+    public GPDBWritable readFields() throws IOException {
+        GPDBWritable result = new GPDBWritable();
+        result.readFields(new DataInputStream(new ByteArrayInputStream(serialized)));
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hdfs.ParquetResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ParquetResolver} converting between Parquet groups and
+ * fields in both directions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ParquetResolverBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"8", "64"})
+    public int columns;
+
+    private ParquetResolver resolver;
+    private List<List<OneField>> records;
+    private List<OneRow> rows;
+
+    @Setup
+    public void setup() throws Exception {
+        List<ColumnDescriptor> tupleDescription = SyntheticData.tupleDescription(columns);
+        List<Type> fields = new ArrayList<>(columns);
+        for (ColumnDescriptor column : tupleDescription) {
+            fields.add(parquetType(column));
+        }
+
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("bench-user");
+        context.setTupleDescription(tupleDescription);
+        context.setMetadata(new MessageType("bench", fields));
+        resolver = new ParquetResolver();
+        resolver.initialize(context);
+
+        // the resolver writes timestamps from their string form
+        records = SyntheticData.records(ROWS, columns);
+        for (List<OneField> record : records) {
+            for (OneField field : record) {
+                if (field.type == DataType.TIMESTAMP.getOID() && field.val != null) {
+                    field.val = field.val.toString();
+                }
+            }
+        }
+
+        rows = new ArrayList<>(ROWS);
+        for (List<OneField> record : records) {
+            rows.add(resolver.setFields(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void getFields(Blackhole blackhole) {
+        for (OneRow row : rows) {
+            blackhole.consume(resolver.getFields(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void setFields(Blackhole blackhole) throws Exception {
+        for (List<OneField> record : records) {
+            blackhole.consume(resolver.setFields(record));
+        }
+    }
+
+    private static Type parquetType(ColumnDescriptor column) {
+        Type.Repetition repetition = Type.Repetition.OPTIONAL;
+        String name = column.columnName();
+        switch (column.getDataType()) {
+            case INTEGER:
+                return new PrimitiveType(repetition, PrimitiveTypeName.INT32, name);
+            case BIGINT:
+                return new PrimitiveType(repetition, PrimitiveTypeName.INT64, name);
+            case FLOAT8:
+                return new PrimitiveType(repetition, PrimitiveTypeName.DOUBLE, name);
+            case BOOLEAN:
+                return new PrimitiveType(repetition, PrimitiveTypeName.BOOLEAN, name);
+            case TIMESTAMP:
+                return new PrimitiveType(repetition, PrimitiveTypeName.INT96, name);
+            case BYTEA:
+                return new PrimitiveType(repetition, PrimitiveTypeName.BINARY, name);
+            default:
+                return new PrimitiveType(repetition, PrimitiveTypeName.BINARY, name, OriginalType.UTF8);
+        }
+    }
+}
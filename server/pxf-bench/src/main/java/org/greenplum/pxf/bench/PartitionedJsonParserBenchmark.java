@@ -0,0 +1,79 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.plugins.json.parser.PartitionedJsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PartitionedJsonParser} extracting every object that
+ * contains a given member from a multi-line JSON document, the way the
+ * JSON accessor reads files with an IDENTIFIER.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PartitionedJsonParserBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private byte[] document;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"root\":[\n");
+        String separator = "";
+        for (String object : SyntheticData.jsonObjects(rows)) {
+            sb.append(separator).append(object);
+            separator = ",\n";
+        }
+        sb.append("\n]}");
+        document = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int nextObjectContainingMember() throws IOException {
+        PartitionedJsonParser parser = new PartitionedJsonParser(new ByteArrayInputStream(document));
+        int count = 0;
+        while (parser.nextObjectContainingMember("screen_name") != null) {
+            count++;
+        }
+        return count;
+    }
+}
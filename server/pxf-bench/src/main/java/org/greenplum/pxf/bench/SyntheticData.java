@@ -0,0 +1,246 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic data for the benchmarks. Every generator
+ * uses a fixed seed so two runs of the same benchmark, on two different
+ * builds, process exactly the same bytes.
+ */
+public final class SyntheticData {
+
+    private static final long SEED = 0x5eedL;
+
+    /**
+     * The column types of the synthetic table, in column order.
+     */
+    private static final DataType[] COLUMN_TYPES = {
+            DataType.INTEGER,
+            DataType.BIGINT,
+            DataType.FLOAT8,
+            DataType.BOOLEAN,
+            DataType.TEXT,
+            DataType.TIMESTAMP,
+            DataType.VARCHAR,
+            DataType.BYTEA
+    };
+
+    private static final char[] ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ,\"".toCharArray();
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Returns a tuple description of the synthetic table, repeating the base
+     * column types until the requested number of columns is reached.
+     *
+     * @param columns number of columns
+     * @return the tuple description
+     */
+    public static List<ColumnDescriptor> tupleDescription(int columns) {
+        List<ColumnDescriptor> tupleDescription = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            DataType type = COLUMN_TYPES[i % COLUMN_TYPES.length];
+            tupleDescription.add(new ColumnDescriptor("col" + i, type.getOID(), i, type.name(), null));
+        }
+        return tupleDescription;
+    }
+
+    /**
+     * Generates records matching {@link #tupleDescription(int)}. Roughly one
+     * value in twenty is null.
+     *
+     * @param rows    number of records
+     * @param columns number of columns per record
+     * @return the records
+     */
+    public static List<List<OneField>> records(int rows, int columns) {
+        Random random = new Random(SEED);
+        List<List<OneField>> records = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            List<OneField> record = new ArrayList<>(columns);
+            for (int c = 0; c < columns; c++) {
+                DataType type = COLUMN_TYPES[c % COLUMN_TYPES.length];
+                Object value = random.nextInt(20) == 0 ? null : value(type, random);
+                record.add(new OneField(type.getOID(), value));
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Generates newline delimited text with one CSV line per record.
+     *
+     * @param rows    number of lines
+     * @param columns number of values per line
+     * @return the UTF-8 encoded text
+     */
+    public static byte[] csvLines(int rows, int columns) {
+        StringBuilder sb = new StringBuilder();
+        for (List<OneField> record : records(rows, columns)) {
+            for (int c = 0; c < record.size(); c++) {
+                if (c > 0) {
+                    sb.append(',');
+                }
+                Object value = record.get(c).val;
+                if (value != null && !(value instanceof byte[])) {
+                    sb.append(value.toString().replace('"', '\'').replace(',', ';'));
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates JSON objects, one per line, with flat members named after the
+     * columns of {@link #jsonTupleDescription()} and a nested "user" object.
+     *
+     * @param rows number of objects
+     * @return the JSON objects
+     */
+    public static List<String> jsonObjects(int rows) {
+        Random random = new Random(SEED);
+        List<String> objects = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            objects.add("{\"id\":" + r +
+                    ",\"created_at\":\"" + new Timestamp(1500000000000L + random.nextInt(Integer.MAX_VALUE)) + "\"" +
+                    ",\"text\":\"" + randomString(random, 80).replace("\"", "\\\"") + "\"" +
+                    ",\"score\":" + random.nextDouble() +
+                    ",\"retweeted\":" + random.nextBoolean() +
+                    ",\"user\":{\"id\":" + random.nextInt(100000) +
+                    ",\"screen_name\":\"" + randomString(random, 12).replace("\"", "\\\"") + "\"}" +
+                    ",\"hashtags\":[\"pxf\",\"greenplum\"]}");
+        }
+        return objects;
+    }
+
+    /**
+     * Returns the tuple description used to project the objects generated by
+     * {@link #jsonObjects(int)}.
+     *
+     * @return the tuple description
+     */
+    public static List<ColumnDescriptor> jsonTupleDescription() {
+        List<ColumnDescriptor> tupleDescription = new ArrayList<>();
+        tupleDescription.add(new ColumnDescriptor("id", DataType.BIGINT.getOID(), 0, "int8", null));
+        tupleDescription.add(new ColumnDescriptor("created_at", DataType.TEXT.getOID(), 1, "text", null));
+        tupleDescription.add(new ColumnDescriptor("text", DataType.TEXT.getOID(), 2, "text", null));
+        tupleDescription.add(new ColumnDescriptor("score", DataType.FLOAT8.getOID(), 3, "float8", null));
+        tupleDescription.add(new ColumnDescriptor("retweeted", DataType.BOOLEAN.getOID(), 4, "bool", null));
+        tupleDescription.add(new ColumnDescriptor("user.id", DataType.INTEGER.getOID(), 5, "int4", null));
+        tupleDescription.add(new ColumnDescriptor("user.screen_name", DataType.TEXT.getOID(), 6, "text", null));
+        tupleDescription.add(new ColumnDescriptor("hashtags[0]", DataType.TEXT.getOID(), 7, "text", null));
+        return tupleDescription;
+    }
+
+    /**
+     * Generates fragments shaped like the ones produced by the HDFS
+     * fragmenters: a path, three replicas and a serialized split as metadata.
+     *
+     * @param count number of fragments
+     * @return the fragments
+     */
+    public static List<Fragment> fragments(int count) {
+        Random random = new Random(SEED);
+        List<Fragment> fragments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] hosts = {
+                    "sdw" + random.nextInt(100) + ".example.com",
+                    "sdw" + random.nextInt(100) + ".example.com",
+                    "sdw" + random.nextInt(100) + ".example.com"
+            };
+            byte[] metadata = new byte[64];
+            random.nextBytes(metadata);
+            fragments.add(new Fragment("/data/warehouse/table/part-" + i + ".csv", hosts, metadata, null, "hdfs:text"));
+        }
+        return fragments;
+    }
+
+    /**
+     * Returns a serialized filter string with the given number of column
+     * predicates, all ANDed together.
+     *
+     * @param predicates number of predicates
+     * @return the filter string
+     */
+    public static String filterString(int predicates) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < predicates; i++) {
+            switch (i % 3) {
+                case 0:
+                    sb.append("a").append(i).append("c23s4d").append(1000 + i).append("o2");
+                    break;
+                case 1:
+                    sb.append("a").append(i).append("c25s10d2008-02-01o5");
+                    break;
+                default:
+                    sb.append("a").append(i).append("c1082s10d2008-12-01o1");
+                    break;
+            }
+            if (i > 0) {
+                sb.append("l0");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Object value(DataType type, Random random) {
+        switch (type) {
+            case INTEGER:
+                return random.nextInt();
+            case BIGINT:
+                return random.nextLong();
+            case FLOAT8:
+                return random.nextDouble() * 1000000;
+            case BOOLEAN:
+                return random.nextBoolean();
+            case TIMESTAMP:
+                return new Timestamp(1500000000000L + random.nextInt(Integer.MAX_VALUE));
+            case BYTEA:
+                byte[] bytes = new byte[16];
+                random.nextBytes(bytes);
+                return bytes;
+            default:
+                return randomString(random, 8 + random.nextInt(40));
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,87 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.service.SessionId;
+import org.greenplum.pxf.service.UGICache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the acquire/release cycle of {@link UGICache} performed on every
+ * request, with many threads contending on a small number of segments the
+ * way concurrent queries do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(16)
+public class UGICacheBenchmark {
+
+    @Param({"1", "8"})
+    public int segments;
+
+    @Param({"4", "64"})
+    public int transactions;
+
+    private UGICache cache;
+    private SessionId[] sessions;
+
+    @Setup
+    public void setup() throws IOException {
+        Configuration configuration = new Configuration();
+        UserGroupInformation loginUser = UserGroupInformation.getLoginUser();
+        cache = new UGICache();
+        sessions = new SessionId[segments * transactions];
+        for (int s = 0; s < segments; s++) {
+            for (int t = 0; t < transactions; t++) {
+                sessions[s * transactions + t] = new SessionId(s, "txn-" + t,
+                        "gpadmin", "default", configuration, loginUser);
+            }
+        }
+    }
+
+    @Benchmark
+    public UserGroupInformation acquireAndRelease() throws IOException {
+        SessionId session = sessions[ThreadLocalRandom.current().nextInt(sessions.length)];
+        UserGroupInformation ugi = cache.getUserGroupInformation(session, true);
+        cache.release(session, false);
+        return ugi;
+    }
+}
@@ -0,0 +1,135 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The table read and written by the macro-benchmarks. It only uses types
+ * every benchmarked profile can both write and read back, and its text values
+ * never contain a delimiter, a quote or a newline, so one row is always one
+ * line in the TEXT wire format.
+ */
+class BenchTable {
+
+    private static final String[] COLUMN_NAMES = {"id", "qty", "price", "flag", "name", "comment"};
+    private static final DataType[] COLUMN_TYPES = {
+            DataType.BIGINT, DataType.INTEGER, DataType.FLOAT8, DataType.BOOLEAN, DataType.TEXT, DataType.VARCHAR
+    };
+    private static final String[] COLUMN_TYPE_NAMES = {"int8", "int4", "float8", "bool", "text", "varchar"};
+
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ".toCharArray();
+
+    private BenchTable() {
+    }
+
+    /**
+     * @return the columns of the table, as Greenplum describes them
+     */
+    static List<ColumnDescriptor> tupleDescription() {
+        List<ColumnDescriptor> tupleDescription = new ArrayList<>(COLUMN_NAMES.length);
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            tupleDescription.add(new ColumnDescriptor(COLUMN_NAMES[i], COLUMN_TYPES[i].getOID(), i, COLUMN_TYPE_NAMES[i], null));
+        }
+        return tupleDescription;
+    }
+
+    /**
+     * Returns the DDL creating the table in a JDBC database.
+     *
+     * @param tableName the name of the table
+     * @return the CREATE TABLE statement
+     */
+    static String createTableStatement(String tableName) {
+        return "CREATE TABLE " + tableName + " (id BIGINT, qty INTEGER, price DOUBLE PRECISION, " +
+                "flag BOOLEAN, name VARCHAR(64), comment VARCHAR(128))";
+    }
+
+    /**
+     * Writes rows {@code [firstId, firstId + rows)} as delimited text lines.
+     *
+     * @param out       where to write the lines
+     * @param firstId   id of the first row
+     * @param rows      number of rows
+     * @param delimiter column delimiter
+     * @throws IOException when writing fails
+     */
+    static void writeText(Writer out, long firstId, int rows, char delimiter) throws IOException {
+        Random random = new Random(firstId);
+        StringBuilder line = new StringBuilder(256);
+        for (long id = firstId; id < firstId + rows; id++) {
+            line.setLength(0);
+            line.append(id).append(delimiter)
+                    .append(random.nextInt(1000)).append(delimiter)
+                    .append(random.nextDouble() * 10000).append(delimiter)
+                    .append(random.nextBoolean() ? 't' : 'f').append(delimiter)
+                    .append(randomString(random, 8 + random.nextInt(24))).append(delimiter)
+                    .append(randomString(random, 16 + random.nextInt(64))).append('\n');
+            out.write(line.toString());
+        }
+    }
+
+    /**
+     * Writes rows {@code [firstId, firstId + rows)} as GPDBWritable records,
+     * the binary format Greenplum uses for non-text profiles.
+     *
+     * @param out     where to write the records
+     * @param firstId id of the first row
+     * @param rows    number of rows
+     * @throws IOException when writing fails
+     */
+    static void writeGPDBWritable(OutputStream out, long firstId, int rows) throws IOException {
+        Random random = new Random(firstId);
+        int[] schema = new int[COLUMN_TYPES.length];
+        for (int i = 0; i < schema.length; i++) {
+            schema[i] = COLUMN_TYPES[i].getOID();
+        }
+        GPDBWritable record = new GPDBWritable(schema);
+        DataOutputStream dos = new DataOutputStream(out);
+        for (long id = firstId; id < firstId + rows; id++) {
+            record.setLong(0, id);
+            record.setInt(1, random.nextInt(1000));
+            record.setDouble(2, random.nextDouble() * 10000);
+            record.setBoolean(3, random.nextBoolean());
+            record.setString(4, randomString(random, 8 + random.nextInt(24)));
+            record.setString(5, randomString(random, 16 + random.nextInt(64)));
+            record.write(dos);
+        }
+        dos.flush();
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,122 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.sun.jersey.spi.container.servlet.ServletContainer;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.deploy.FilterDef;
+import org.apache.catalina.deploy.FilterMap;
+import org.apache.catalina.startup.Tomcat;
+import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.greenplum.pxf.service.servlet.SecurityServletFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the PXF webapp in-process on an embedded Tomcat bound to an ephemeral
+ * port. The servlet, its init parameters and the security filter are
+ * registered exactly as in the webapp's web.xml, so requests go through the
+ * same code as on a deployed server.
+ */
+class EmbeddedPxfServer implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedPxfServer.class);
+
+    private static final String CONTEXT_PATH = "/pxf";
+    private static final String SERVLET_NAME = "PXF REST Service";
+    private static final String FILTER_NAME = "PXF Security Filter";
+
+    private final Tomcat tomcat;
+    private final String protocolVersion;
+
+    /**
+     * Creates a server with its PXF_CONF and Tomcat work directories under
+     * the given directory. The default server configuration directory is
+     * created empty, which makes every plugin use the local file system.
+     *
+     * @param workDirectory   the directory holding the server files
+     * @param protocolVersion the PXF protocol version the resources are mapped to
+     * @throws IOException when the directories cannot be created
+     */
+    EmbeddedPxfServer(Path workDirectory, String protocolVersion) throws IOException {
+        this.protocolVersion = protocolVersion;
+
+        Path pxfConf = workDirectory.resolve("pxf-conf");
+        Files.createDirectories(pxfConf.resolve("servers").resolve("default"));
+        Files.createDirectories(pxfConf.resolve("conf"));
+        System.setProperty(ConfigurationFactory.PXF_CONF_PROPERTY, pxfConf.toString());
+
+        Path docBase = Files.createDirectories(workDirectory.resolve("webapp"));
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(workDirectory.resolve("tomcat").toString());
+        tomcat.setPort(0);
+
+        Context context = tomcat.addContext(CONTEXT_PATH, docBase.toString());
+
+        Wrapper servlet = Tomcat.addServlet(context, SERVLET_NAME, new ServletContainer());
+        servlet.addInitParameter("com.sun.jersey.config.property.packages", "org.greenplum.pxf.service.rest");
+        servlet.addInitParameter("jersey.config.server.provider.scanning.recursive", "true");
+        servlet.setLoadOnStartup(1);
+        context.addServletMapping("/*", SERVLET_NAME);
+
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName(FILTER_NAME);
+        filterDef.setFilterClass(SecurityServletFilter.class.getName());
+        context.addFilterDef(filterDef);
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName(FILTER_NAME);
+        filterMap.addURLPattern("/" + protocolVersion + "/*");
+        context.addFilterMap(filterMap);
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @throws LifecycleException when Tomcat fails to start
+     */
+    void start() throws LifecycleException {
+        tomcat.start();
+        LOG.info("PXF webapp started on {}", getBaseUrl());
+    }
+
+    /**
+     * @return the URL of the versioned PXF resources, e.g. http://localhost:1234/pxf/v15
+     */
+    String getBaseUrl() {
+        return "http://localhost:" + tomcat.getConnector().getLocalPort() + CONTEXT_PATH + "/" + protocolVersion;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            tomcat.stop();
+            tomcat.destroy();
+        } catch (LifecycleException e) {
+            throw new IOException("Unable to stop the embedded PXF server", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A workload reading and writing files in a local directory through one of
+ * the HCFS profiles, with the {@code localfile} scheme.
+ */
+class FileWorkload extends Workload {
+
+    private final Path directory;
+    private final String format;
+    private final char delimiter;
+
+    FileWorkload(String name, String profile, Path directory, String format, char delimiter) {
+        super(name, profile);
+        this.directory = directory;
+        this.format = format;
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    String getDataSource() {
+        return directory.toAbsolutePath().toString();
+    }
+
+    @Override
+    String getFormat() {
+        return format;
+    }
+
+    @Override
+    char getDelimiter() {
+        return delimiter;
+    }
+
+    @Override
+    Map<String, String> getOptions(boolean read) {
+        return FORMAT_TEXT.equals(format)
+                ? Collections.singletonMap("DELIMITER", String.valueOf(delimiter))
+                : Collections.<String, String>emptyMap();
+    }
+
+    @Override
+    void reset() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    void writeRows(OutputStream out, long firstId, int rows) throws IOException {
+        if (!FORMAT_TEXT.equals(format)) {
+            super.writeRows(out, firstId, rows);
+            return;
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        BenchTable.writeText(writer, firstId, rows, delimiter);
+        writer.flush();
+    }
+}
@@ -0,0 +1,69 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A workload using the demo:generate profile, which generates the rows in
+ * memory and discards the written ones. It measures the cost of the bridge,
+ * the serialization, Tomcat and the network stack without any storage.
+ */
+class GenerateWorkload extends Workload {
+
+    private long totalRows;
+    private int fragments = 1;
+
+    GenerateWorkload() {
+        super("generate", "demo:generate");
+    }
+
+    @Override
+    String getDataSource() {
+        return "generated";
+    }
+
+    @Override
+    String getFormat() {
+        return FORMAT_GPDB_WRITABLE;
+    }
+
+    @Override
+    Map<String, String> getOptions(boolean read) {
+        Map<String, String> options = new HashMap<>();
+        if (read) {
+            options.put("ROWS", String.valueOf(totalRows));
+            options.put("FRAGMENTS", String.valueOf(fragments));
+        }
+        return options;
+    }
+
+    @Override
+    void reset() {
+        /* written rows are discarded, nothing to reset */
+    }
+
+    @Override
+    void prepareRead(int segments, long totalRows) {
+        this.totalRows = totalRows;
+        this.fragments = segments;
+    }
+}
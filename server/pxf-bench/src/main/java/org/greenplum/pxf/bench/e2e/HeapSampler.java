@@ -0,0 +1,70 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Samples the used heap of the JVM in a background thread and keeps the
+ * highest value seen. The server and the simulated segments share the JVM,
+ * so the peak includes the client side buffers, which are the same for
+ * every build being compared.
+ */
+class HeapSampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 20;
+
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long peakBytes;
+
+    HeapSampler() {
+        thread = new Thread(this::sample, "pxf-bench-heap-sampler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void sample() {
+        while (running) {
+            peakBytes = Math.max(peakBytes, memoryMXBean.getHeapMemoryUsage().getUsed());
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the highest used heap sampled so far, in bytes
+     */
+    long getPeakBytes() {
+        return Math.max(peakBytes, memoryMXBean.getHeapMemoryUsage().getUsed());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join();
+    }
+}
@@ -0,0 +1,87 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A workload reading and writing a table of an in-memory H2 database, which
+ * lives in the same JVM as the embedded PXF server. Reads are partitioned on
+ * the id column so every simulated segment gets fragments.
+ */
+class JdbcWorkload extends Workload {
+
+    private static final String DRIVER = "org.h2.Driver";
+    private static final String URL = "jdbc:h2:mem:pxfbench;DB_CLOSE_DELAY=-1";
+    private static final String TABLE = "bench";
+
+    private long rowCount = 1;
+    private int partitions = 1;
+
+    JdbcWorkload() {
+        super("jdbc", "Jdbc");
+    }
+
+    /**
+     * Splits reads into two id ranges per segment.
+     */
+    @Override
+    void prepareRead(int segments, long totalRows) {
+        this.rowCount = Math.max(1, totalRows);
+        this.partitions = Math.max(1, segments * 2);
+    }
+
+    @Override
+    String getDataSource() {
+        return TABLE;
+    }
+
+    @Override
+    String getFormat() {
+        return FORMAT_GPDB_WRITABLE;
+    }
+
+    @Override
+    Map<String, String> getOptions(boolean read) {
+        Map<String, String> options = new HashMap<>();
+        options.put("JDBC_DRIVER", DRIVER);
+        options.put("DB_URL", URL);
+        if (read) {
+            options.put("PARTITION_BY", "id:int");
+            options.put("RANGE", "0:" + rowCount);
+            options.put("INTERVAL", String.valueOf(Math.max(1, rowCount / partitions)));
+        }
+        return options;
+    }
+
+    @Override
+    void reset() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute(BenchTable.createTableStatement(TABLE));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.io.FileUtils;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.bench.SyntheticData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A workload reading one-object-per-line JSON files. The JSON profile is
+ * read-only, so the files are generated directly on disk.
+ */
+class JsonWorkload extends Workload {
+
+    private final Path directory;
+
+    JsonWorkload(Path directory) {
+        super("json", "localfile:json");
+        this.directory = directory;
+    }
+
+    @Override
+    String getDataSource() {
+        return directory.toAbsolutePath().toString();
+    }
+
+    @Override
+    List<ColumnDescriptor> getTupleDescription() {
+        return SyntheticData.jsonTupleDescription();
+    }
+
+    @Override
+    String getFormat() {
+        return FORMAT_GPDB_WRITABLE;
+    }
+
+    @Override
+    boolean isWritable() {
+        return false;
+    }
+
+    @Override
+    void reset() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    void load(int segments, int rows) throws IOException {
+        reset();
+        List<String> objects = SyntheticData.jsonObjects(rows);
+        for (int segment = 0; segment < segments; segment++) {
+            Path file = directory.resolve("segment_" + segment + ".json");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (String object : objects) {
+                    writer.write(object);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+}
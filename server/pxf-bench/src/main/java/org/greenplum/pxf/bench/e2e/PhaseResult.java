@@ -0,0 +1,125 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the measurements of one phase (read or write) of one
+ * workload, over all the measured iterations. Request latencies are those of
+ * single fragments for reads and of whole segment uploads for writes.
+ */
+class PhaseResult {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private final String workload;
+    private final String phase;
+    private final List<Long> latencies = new ArrayList<>();
+    private long rows;
+    private long bytes;
+    private long wallNanos;
+    private long peakHeapBytes;
+
+    PhaseResult(String workload, String phase) {
+        this.workload = workload;
+        this.phase = phase;
+    }
+
+    /**
+     * Records one request. Called concurrently by the segment threads.
+     */
+    synchronized void recordRequest(long latencyNanos, long rows, long bytes) {
+        latencies.add(latencyNanos);
+        this.rows += rows;
+        this.bytes += bytes;
+    }
+
+    /**
+     * Records the end of one iteration of the phase.
+     */
+    synchronized void recordIteration(long wallNanos, long peakHeapBytes) {
+        this.wallNanos += wallNanos;
+        this.peakHeapBytes = Math.max(this.peakHeapBytes, peakHeapBytes);
+    }
+
+    synchronized double getRowsPerSecond() {
+        return wallNanos == 0 ? 0 : rows * NANOS_PER_SECOND / wallNanos;
+    }
+
+    synchronized double getMegabytesPerSecond() {
+        return wallNanos == 0 ? 0 : bytes / BYTES_PER_MB * NANOS_PER_SECOND / wallNanos;
+    }
+
+    /**
+     * Returns the given percentile of the request latencies, in milliseconds.
+     *
+     * @param percentile between 0 and 100
+     * @return the latency, or 0 if no request was recorded
+     */
+    synchronized double getLatencyMillis(double percentile) {
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    /**
+     * @return the measurements, in the order they are reported
+     */
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("workload", workload);
+        map.put("phase", phase);
+        map.put("requests", latencies.size());
+        map.put("rows", rows);
+        map.put("bytes", bytes);
+        map.put("seconds", wallNanos / NANOS_PER_SECOND);
+        map.put("rowsPerSecond", getRowsPerSecond());
+        map.put("mbPerSecond", getMegabytesPerSecond());
+        map.put("p50Millis", getLatencyMillis(50));
+        map.put("p99Millis", getLatencyMillis(99));
+        map.put("peakHeapMb", peakHeapBytes / BYTES_PER_MB);
+        return map;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%-8s %-6s %9d %12d %12.0f %9.1f %10.1f %10.1f %10.0f",
+                workload, phase, latencies.size(), rows, getRowsPerSecond(), getMegabytesPerSecond(),
+                getLatencyMillis(50), getLatencyMillis(99), peakHeapBytes / BYTES_PER_MB);
+    }
+
+    /**
+     * @return the header line matching {@link #toString()}
+     */
+    static String header() {
+        return String.format("%-8s %-6s %9s %12s %12s %9s %10s %10s %10s",
+                "WORKLOAD", "PHASE", "REQUESTS", "ROWS", "ROWS/S", "MB/S", "P50 MS", "P99 MS", "HEAP MB");
+    }
+}
@@ -0,0 +1,334 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.service.io.WireCompression;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Issues fragmenter, read and write requests with the X-GP-* headers the
+ * Greenplum extension sends, playing the role of one segment.
+ */
+class PxfClient {
+
+    private static final int STREAMING_CHUNK_SIZE = 64 * 1024;
+
+    private final String baseUrl;
+    private final String user;
+    private final String acceptEncoding;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param baseUrl        URL of the versioned PXF resources
+     * @param user           the Greenplum user sending the requests
+     * @param acceptEncoding the wire compression to request for reads, or null
+     */
+    PxfClient(String baseUrl, String user, String acceptEncoding) {
+        this.baseUrl = baseUrl;
+        this.user = user;
+        this.acceptEncoding = acceptEncoding;
+    }
+
+    /**
+     * A fragment as returned by the fragmenter.
+     */
+    static class FragmentInfo {
+        final String sourceName;
+        final int index;
+        final String metadata;
+        final String userData;
+        final String profile;
+
+        FragmentInfo(String sourceName, int index, String metadata, String userData, String profile) {
+            this.sourceName = sourceName;
+            this.index = index;
+            this.metadata = metadata;
+            this.userData = userData;
+            this.profile = profile;
+        }
+    }
+
+    /**
+     * Rows and bytes received by one read request.
+     */
+    static class ReadResult {
+        final long rows;
+        final long bytes;
+
+        ReadResult(long rows, long bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Requests the fragments of the workload's data source.
+     */
+    List<FragmentInfo> getFragments(Workload workload, String xid, int segmentId, int segmentCount) throws IOException {
+        Map<String, String> headers = headers(workload, xid, segmentId, segmentCount, true);
+        HttpURLConnection connection = open("/Fragmenter/getFragments", "GET", headers);
+        JsonNode root;
+        try (InputStream in = responseStream(connection)) {
+            root = mapper.readTree(in);
+        }
+
+        List<FragmentInfo> fragments = new ArrayList<>();
+        for (JsonNode fragment : root.path("PXFFragments")) {
+            fragments.add(new FragmentInfo(
+                    fragment.path("sourceName").asText(),
+                    fragment.path("index").asInt(),
+                    textOrNull(fragment.get("metadata")),
+                    textOrNull(fragment.get("userData")),
+                    textOrNull(fragment.get("profile"))));
+        }
+        return fragments;
+    }
+
+    /**
+     * Reads one fragment and counts the rows received.
+     */
+    ReadResult read(Workload workload, String xid, int segmentId, int segmentCount,
+                    FragmentInfo fragment, boolean lastFragment) throws IOException {
+        Map<String, String> headers = headers(workload, xid, segmentId, segmentCount, true);
+        headers.put("X-GP-DATA-DIR", fragment.sourceName);
+        headers.put("X-GP-DATA-FRAGMENT", String.valueOf(fragment.index));
+        headers.put("X-GP-FRAGMENT-INDEX", String.valueOf(fragment.index));
+        if (fragment.metadata != null) {
+            headers.put("X-GP-FRAGMENT-METADATA", fragment.metadata);
+        }
+        if (fragment.userData != null) {
+            headers.put("X-GP-FRAGMENT-USER-DATA", fragment.userData);
+        }
+        if (fragment.profile != null) {
+            headers.put("X-GP-OPTIONS-PROFILE", fragment.profile);
+        }
+        headers.put("X-GP-LAST-FRAGMENT", String.valueOf(lastFragment));
+        if (acceptEncoding != null) {
+            headers.put(WireCompression.ACCEPT_ENCODING_HEADER, acceptEncoding);
+        }
+
+        HttpURLConnection connection = open("/Bridge/", "GET", headers);
+        CountingInputStream wire = new CountingInputStream(responseStream(connection));
+        InputStream in = WireCompression.GZIP == contentEncoding(connection)
+                ? new GZIPInputStream(wire, STREAMING_CHUNK_SIZE)
+                : new BufferedInputStream(wire, STREAMING_CHUNK_SIZE);
+        try {
+            long rows = Workload.FORMAT_TEXT.equals(workload.getFormat())
+                    ? countLines(in)
+                    : countRecords(new DataInputStream(in));
+            return new ReadResult(rows, wire.getCount());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes rows {@code [firstId, firstId + rows)} in one streamed request,
+     * the way a segment inserts into a writable external table.
+     *
+     * @return the number of bytes sent
+     */
+    long write(Workload workload, String xid, int segmentId, int segmentCount,
+               long firstId, int rows) throws IOException {
+        Map<String, String> headers = headers(workload, xid, segmentId, segmentCount, false);
+        headers.put("X-GP-LAST-FRAGMENT", "true");
+        headers.put("Content-Type", "application/octet-stream");
+
+        String path = "/Writable/stream?path=" + URLEncoder.encode(workload.getDataSource(), "UTF-8");
+        HttpURLConnection connection = open(path, "POST", headers);
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(STREAMING_CHUNK_SIZE);
+        CountingOutputStream out = new CountingOutputStream(connection.getOutputStream());
+        workload.writeRows(out, firstId, rows);
+        out.close();
+        responseStream(connection).close();
+        return out.getCount();
+    }
+
+    private Map<String, String> headers(Workload workload, String xid, int segmentId, int segmentCount, boolean read) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("X-GP-USER", user);
+        headers.put("X-GP-XID", xid);
+        headers.put("X-GP-SEGMENT-ID", String.valueOf(segmentId));
+        headers.put("X-GP-SEGMENT-COUNT", String.valueOf(segmentCount));
+        headers.put("X-GP-ALIGNMENT", "8");
+        headers.put("X-GP-URL-HOST", "localhost");
+        headers.put("X-GP-URL-PORT", "5888");
+        headers.put("X-GP-DATA-DIR", workload.getDataSource());
+        headers.put("X-GP-HAS-FILTER", "0");
+        headers.put("X-GP-FORMAT", workload.getFormat());
+        headers.put("X-GP-OPTIONS-PROFILE", workload.getProfile());
+        for (Map.Entry<String, String> option : workload.getOptions(read).entrySet()) {
+            headers.put("X-GP-OPTIONS-" + option.getKey(), option.getValue());
+        }
+
+        List<ColumnDescriptor> columns = workload.getTupleDescription();
+        headers.put("X-GP-ATTRS", String.valueOf(columns.size()));
+        for (ColumnDescriptor column : columns) {
+            int i = column.columnIndex();
+            headers.put("X-GP-ATTR-NAME" + i, column.columnName());
+            headers.put("X-GP-ATTR-TYPECODE" + i, String.valueOf(column.columnTypeCode()));
+            headers.put("X-GP-ATTR-TYPENAME" + i, column.columnTypeName());
+        }
+        return headers;
+    }
+
+    private HttpURLConnection open(String path, String method, Map<String, String> headers) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        return connection;
+    }
+
+    private InputStream responseStream(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_NO_CONTENT) {
+            InputStream error = connection.getErrorStream();
+            String message = error == null ? "" : IOUtils.toString(error, StandardCharsets.UTF_8);
+            throw new IOException(String.format("%s %s failed with HTTP %d: %s",
+                    connection.getRequestMethod(), connection.getURL(), status, message));
+        }
+        return connection.getInputStream();
+    }
+
+    private static WireCompression contentEncoding(HttpURLConnection connection) {
+        return WireCompression.forContentEncoding(
+                connection.getHeaderField(WireCompression.CONTENT_ENCODING_HEADER));
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static long countLines(InputStream in) throws IOException {
+        byte[] buffer = new byte[STREAMING_CHUNK_SIZE];
+        long lines = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Counts GPDBWritable records without decoding them: each record starts
+     * with its total length, including the length itself.
+     */
+    private static long countRecords(DataInputStream in) throws IOException {
+        long records = 0;
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return records;
+            }
+            IOUtils.skipFully(in, length - 4);
+            records++;
+        }
+    }
+
+    /**
+     * Counts the bytes read from the wire.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Counts the bytes written to the wire.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
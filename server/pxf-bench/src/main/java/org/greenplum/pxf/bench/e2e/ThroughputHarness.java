@@ -0,0 +1,243 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-to-end throughput harness. Starts the PXF webapp in-process and drives
+ * it the way a Greenplum cluster does: for every profile, N concurrent
+ * "segments" each upload their share of the rows with a single streamed
+ * write request, then each fetch the fragments and read the fragments
+ * assigned to them. No Hadoop cluster is needed: files live in a local
+ * directory accessed with the {@code localfile} scheme and the JDBC profile
+ * uses an in-memory H2 database.
+ * <p>
+ * Options, all optional:
+ * <pre>
+ * --profiles=text,csv,parquet,avro,json,jdbc,generate
+ * --segments=4          concurrent simulated segments
+ * --rows=250000         rows per segment
+ * --iterations=3        measured iterations
+ * --warmup=1            warmup iterations
+ * --compression=gzip    wire compression requested for reads
+ * --work-dir=DIR        where the data files are written (default: a temp directory)
+ * --output=FILE         JSON report (default: build/reports/e2e/results.json)
+ * </pre>
+ */
+public class ThroughputHarness {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ThroughputHarness.class);
+
+    private static final String PROTOCOL_VERSION_PROPERTY = "pxf.bench.protocol.version";
+    private static final String DEFAULT_PROTOCOL_VERSION = "v15";
+    private static final String USER = "gpadmin";
+
+    private final PxfClient client;
+    private final int segments;
+    private final int rowsPerSegment;
+    private final int iterations;
+    private final int warmup;
+
+    ThroughputHarness(PxfClient client, int segments, int rowsPerSegment, int iterations, int warmup) {
+        this.client = client;
+        this.segments = segments;
+        this.rowsPerSegment = rowsPerSegment;
+        this.iterations = iterations;
+        this.warmup = warmup;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<String> profiles = Arrays.asList(options.getOrDefault("profiles", "text,csv,parquet,avro,json,jdbc,generate").split(","));
+        int segments = Integer.parseInt(options.getOrDefault("segments", "4"));
+        int rows = Integer.parseInt(options.getOrDefault("rows", "250000"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "3"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "1"));
+        String compression = options.get("compression");
+        File output = new File(options.getOrDefault("output", "build/reports/e2e/results.json"));
+        Path workDirectory = options.containsKey("work-dir")
+                ? Files.createDirectories(Paths.get(options.get("work-dir")))
+                : Files.createTempDirectory("pxf-e2e");
+        String protocolVersion = System.getProperty(PROTOCOL_VERSION_PROPERTY, DEFAULT_PROTOCOL_VERSION);
+
+        List<PhaseResult> results = new ArrayList<>();
+        try (EmbeddedPxfServer server = new EmbeddedPxfServer(workDirectory, protocolVersion)) {
+            server.start();
+            ThroughputHarness harness = new ThroughputHarness(
+                    new PxfClient(server.getBaseUrl(), USER, compression), segments, rows, iterations, warmup);
+            Path dataDirectory = Files.createDirectories(workDirectory.resolve("data"));
+            for (String profile : profiles) {
+                results.addAll(harness.run(Workload.forName(profile.trim(), dataDirectory)));
+            }
+        }
+
+        System.out.printf("%d segments, %d rows per segment, %d iteration(s)%n", segments, rows, iterations);
+        System.out.println(PhaseResult.header());
+        List<Map<String, Object>> report = new ArrayList<>();
+        for (PhaseResult result : results) {
+            System.out.println(result);
+            report.add(result.toMap());
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IllegalStateException("Unable to create directory " + parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+        System.out.println("Results written to " + output);
+    }
+
+    /**
+     * Runs the warmup and measured iterations of one workload.
+     *
+     * @param workload the workload
+     * @return the write (when the profile is writable) and read results
+     * @throws Exception when a request fails
+     */
+    List<PhaseResult> run(Workload workload) throws Exception {
+        LOG.info("Running workload {} with profile {}", workload.getName(), workload.getProfile());
+        PhaseResult writeResult = new PhaseResult(workload.getName(), "write");
+        PhaseResult readResult = new PhaseResult(workload.getName(), "read");
+        long totalRows = (long) segments * rowsPerSegment;
+
+        ExecutorService executor = Executors.newFixedThreadPool(segments);
+        try {
+            if (!workload.isWritable()) {
+                workload.load(segments, rowsPerSegment);
+            }
+            for (int i = 0; i < warmup + iterations; i++) {
+                boolean measured = i >= warmup;
+                if (workload.isWritable()) {
+                    workload.reset();
+                    runPhase(executor, writeTasks(workload, "w" + i, measured ? writeResult : null),
+                            measured ? writeResult : null);
+                }
+                workload.prepareRead(segments, totalRows);
+                runPhase(executor, readTasks(workload, "r" + i, measured ? readResult : null),
+                        measured ? readResult : null);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<PhaseResult> results = new ArrayList<>();
+        if (workload.isWritable()) {
+            results.add(writeResult);
+        }
+        results.add(readResult);
+        return results;
+    }
+
+    private void runPhase(ExecutorService executor, List<Callable<Void>> tasks, PhaseResult result)
+            throws Exception {
+        // start every phase from the same heap state so peaks are comparable
+        System.gc();
+        try (HeapSampler heapSampler = new HeapSampler()) {
+            long start = System.nanoTime();
+            List<Future<Void>> futures = executor.invokeAll(tasks);
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            if (result != null) {
+                result.recordIteration(System.nanoTime() - start, heapSampler.getPeakBytes());
+            }
+        }
+    }
+
+    private List<Callable<Void>> writeTasks(Workload workload, String iteration, PhaseResult result) {
+        String xid = "bench-" + workload.getName() + "-" + iteration;
+        List<Callable<Void>> tasks = new ArrayList<>(segments);
+        for (int segment = 0; segment < segments; segment++) {
+            final int segmentId = segment;
+            tasks.add(() -> {
+                long start = System.nanoTime();
+                long bytes = client.write(workload, xid, segmentId, segments,
+                        (long) segmentId * rowsPerSegment, rowsPerSegment);
+                if (result != null) {
+                    result.recordRequest(System.nanoTime() - start, rowsPerSegment, bytes);
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    private List<Callable<Void>> readTasks(Workload workload, String iteration, PhaseResult result) {
+        String xid = "bench-" + workload.getName() + "-" + iteration;
+        List<Callable<Void>> tasks = new ArrayList<>(segments);
+        for (int segment = 0; segment < segments; segment++) {
+            final int segmentId = segment;
+            tasks.add(() -> {
+                // like Greenplum, every segment asks for the whole list and
+                // processes the fragments assigned to it
+                List<PxfClient.FragmentInfo> fragments = client.getFragments(workload, xid, segmentId, segments);
+                List<PxfClient.FragmentInfo> assigned = new ArrayList<>();
+                for (int i = segmentId; i < fragments.size(); i += segments) {
+                    assigned.add(fragments.get(i));
+                }
+                for (int i = 0; i < assigned.size(); i++) {
+                    long start = System.nanoTime();
+                    PxfClient.ReadResult read = client.read(workload, xid, segmentId, segments,
+                            assigned.get(i), i == assigned.size() - 1);
+                    if (result != null) {
+                        result.recordRequest(System.nanoTime() - start, read.rows, read.bytes);
+                    }
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
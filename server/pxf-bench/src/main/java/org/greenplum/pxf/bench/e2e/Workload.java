@@ -0,0 +1,169 @@
+package org.greenplum.pxf.bench.e2e;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The data set and request parameters used to benchmark one profile.
+ */
+abstract class Workload {
+
+    static final String FORMAT_TEXT = "TEXT";
+    static final String FORMAT_GPDB_WRITABLE = "GPDBWritable";
+
+    private final String name;
+    private final String profile;
+
+    Workload(String name, String profile) {
+        this.name = name;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the workload for one of the benchmarked profiles.
+     *
+     * @param name          text, csv, parquet, avro, json, jdbc or generate
+     * @param dataDirectory the directory holding the files of file based profiles
+     * @return the workload
+     */
+    static Workload forName(String name, Path dataDirectory) {
+        switch (name) {
+            case "text":
+                return new FileWorkload(name, "localfile:text", dataDirectory.resolve(name), FORMAT_TEXT, '|');
+            case "csv":
+                return new FileWorkload(name, "localfile:csv", dataDirectory.resolve(name), FORMAT_TEXT, ',');
+            case "parquet":
+                return new FileWorkload(name, "localfile:parquet", dataDirectory.resolve(name), FORMAT_GPDB_WRITABLE, ',');
+            case "avro":
+                return new FileWorkload(name, "localfile:avro", dataDirectory.resolve(name), FORMAT_GPDB_WRITABLE, ',');
+            case "json":
+                return new JsonWorkload(dataDirectory.resolve(name));
+            case "jdbc":
+                return new JdbcWorkload();
+            case "generate":
+                return new GenerateWorkload();
+            default:
+                throw new IllegalArgumentException("Unknown workload " + name);
+        }
+    }
+
+    /**
+     * @return the short name of the workload, used in reports
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return the PXF profile
+     */
+    String getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return the LOCATION of the external table: a path or a table name
+     */
+    abstract String getDataSource();
+
+    /**
+     * @return the columns of the external table
+     */
+    List<ColumnDescriptor> getTupleDescription() {
+        return BenchTable.tupleDescription();
+    }
+
+    /**
+     * @return the wire format Greenplum uses with this profile
+     */
+    abstract String getFormat();
+
+    /**
+     * @return the column delimiter of TEXT requests
+     */
+    char getDelimiter() {
+        return ',';
+    }
+
+    /**
+     * Returns the external table options sent with each request.
+     *
+     * @param read true for read requests, false for write requests
+     * @return the options, without the PROFILE option
+     */
+    Map<String, String> getOptions(boolean read) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return whether the profile can be written to
+     */
+    boolean isWritable() {
+        return true;
+    }
+
+    /**
+     * Creates an empty data source, before each write phase.
+     *
+     * @throws Exception when the data source cannot be created
+     */
+    abstract void reset() throws Exception;
+
+    /**
+     * Loads the data set directly, without PXF. Used for profiles that
+     * cannot be written to.
+     *
+     * @param segments number of simulated segments
+     * @param rows     rows per segment
+     * @throws Exception when the data cannot be loaded
+     */
+    void load(int segments, int rows) throws Exception {
+        throw new UnsupportedOperationException(name + " is loaded through PXF");
+    }
+
+    /**
+     * Called before each read phase, once the data set is in place.
+     *
+     * @param segments  number of simulated segments
+     * @param totalRows number of rows in the data set
+     */
+    void prepareRead(int segments, long totalRows) {
+    }
+
+    /**
+     * Writes the body of a write request.
+     *
+     * @param out     the request body
+     * @param firstId id of the first row
+     * @param rows    number of rows
+     * @throws IOException when writing fails
+     */
+    void writeRows(OutputStream out, long firstId, int rows) throws IOException {
+        BenchTable.writeGPDBWritable(out, firstId, rows);
+    }
+}
@@ -0,0 +1,188 @@
+package org.greenplum.pxf.bench.report;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two sets of JMH results written with {@code -rf json} and reports
+ * every benchmark whose score changed by more than a threshold. A change only
+ * counts when it is also larger than the combined error margins of the two
+ * runs, so noisy benchmarks do not produce false alarms.
+ * <p>
+ * Usage: {@code BaselineReport <baseline.json> <results.json> [threshold %]}.
+ * The process exits with status 1 when at least one benchmark regressed.
+ */
+public class BaselineReport {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5.0;
+
+    /**
+     * Outcome of the comparison of one benchmark.
+     */
+    enum Verdict {
+        IMPROVED, UNCHANGED, REGRESSED, NEW, MISSING
+    }
+
+    /**
+     * The score of one benchmark in one run.
+     */
+    static class Score {
+        final double score;
+        final double error;
+        final String unit;
+        final boolean higherIsBetter;
+
+        Score(double score, double error, String unit, boolean higherIsBetter) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+
+    private final double thresholdPercent;
+
+    BaselineReport(double thresholdPercent) {
+        this.thresholdPercent = thresholdPercent;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineReport <baseline.json> <results.json> [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+        int regressions = new BaselineReport(threshold).report(baseline, current, System.out);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH JSON result file into a map from benchmark key (name and
+     * parameters) to score.
+     *
+     * @param file the JMH result file
+     * @return the scores, keyed by benchmark
+     * @throws IOException when the file cannot be read or parsed
+     */
+    static Map<String, Score> read(File file) throws IOException {
+        JsonNode results = new ObjectMapper().readTree(file);
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode result : results) {
+            JsonNode metric = result.get("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key(result), new Score(
+                    metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText(),
+                    "thrpt".equals(result.path("mode").asText())));
+        }
+        return scores;
+    }
+
+    /**
+     * Prints one line per benchmark present in either run.
+     *
+     * @param baseline the baseline scores
+     * @param current  the scores of the build under test
+     * @param out      where to print the report
+     * @return the number of regressed benchmarks
+     */
+    int report(Map<String, Score> baseline, Map<String, Score> current, PrintStream out) {
+        Map<String, Score> all = new TreeMap<>(baseline);
+        all.putAll(current);
+
+        int regressions = 0;
+        out.printf("%-10s %9s %16s %16s  %s%n", "VERDICT", "CHANGE", "BASELINE", "CURRENT", "BENCHMARK");
+        for (String key : all.keySet()) {
+            Score before = baseline.get(key);
+            Score after = current.get(key);
+            Verdict verdict = compare(before, after);
+            if (verdict == Verdict.REGRESSED) {
+                regressions++;
+            }
+            out.printf("%-10s %9s %16s %16s  %s%n", verdict,
+                    before != null && after != null ? String.format("%+.1f%%", change(before, after)) : "",
+                    format(before), format(after), key);
+        }
+        out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, thresholdPercent);
+        return regressions;
+    }
+
+    Verdict compare(Score before, Score after) {
+        if (before == null) {
+            return Verdict.NEW;
+        }
+        if (after == null) {
+            return Verdict.MISSING;
+        }
+        double change = change(before, after);
+        boolean significant = Math.abs(after.score - before.score) > before.error + after.error;
+        if (!significant || Math.abs(change) <= thresholdPercent) {
+            return Verdict.UNCHANGED;
+        }
+        // a positive change always means "faster"
+        return change > 0 ? Verdict.IMPROVED : Verdict.REGRESSED;
+    }
+
+    /**
+     * Returns the relative change from the baseline, in percent, signed so a
+     * positive value is an improvement whatever the benchmark mode.
+     */
+    private static double change(Score before, Score after) {
+        if (before.score == 0) {
+            return 0;
+        }
+        double change = (after.score - before.score) / before.score * 100;
+        return before.higherIsBetter ? change : -change;
+    }
+
+    private static String format(Score score) {
+        return score == null ? "-" : String.format("%.3f %s", score.score, score.unit);
+    }
+
+    private static String key(JsonNode result) {
+        Map<String, String> params = new LinkedHashMap<>();
+        JsonNode paramsNode = result.get("params");
+        if (paramsNode != null) {
+            Iterator<Map.Entry<String, JsonNode>> it = paramsNode.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+        }
+        String name = result.get("benchmark").asText();
+        return params.isEmpty() ? name : name + params;
+    }
+}
@@ -21,7 +21,7 @@ package org.greenplum.pxf.plugins.hbase;
 
 
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.filter.FilterParser;
+import org.greenplum.pxf.api.filter.FilterCache;
 import org.greenplum.pxf.api.filter.Node;
 import org.greenplum.pxf.api.filter.Operator;
 import org.greenplum.pxf.api.filter.SupportedOperatorPruner;
@@ -80,6 +80,7 @@ public class HBaseAccessor extends BasePlugin implements Accessor {
 
     private static final TreeVisitor PRUNER = new SupportedOperatorPruner(SUPPORTED_OPERATORS);
     private static final TreeTraverser TRAVERSER = new TreeTraverser();
+    private static final FilterCache FILTER_CACHE = FilterCache.getInstance();
 
     private HBaseTupleDescription tupleDescription;
     private Connection connection;
@@ -312,11 +313,11 @@ public class HBaseAccessor extends BasePlugin implements Accessor {
 
         // Create the builder that produces a org.apache.hadoop.hbase.filter.Filter
         HBaseFilterBuilder hBaseFilterBuilder = new HBaseFilterBuilder(tupleDescription);
-        // Parse the filter string into a expression tree Node
-        Node root = new FilterParser().parse(context.getFilterString());
-        // Prune the parsed tree with valid supported operators and then
-        // traverse the tree with the hBaseFilterBuilder to produce a filter
-        TRAVERSER.traverse(root, PRUNER, hBaseFilterBuilder);
+        // Prune the parsed tree with valid supported operators, once per query
+        Node root = FILTER_CACHE.get(HBaseAccessor.class, context, null, parsed -> TRAVERSER.traverse(parsed, PRUNER));
+        // HBase filters keep state while scanning and cannot be shared, traverse
+        // the pruned tree with the hBaseFilterBuilder to produce a filter
+        TRAVERSER.traverse(root, hBaseFilterBuilder);
 
         // Retrieve the built filter
         Filter filter = hBaseFilterBuilder.build();
@@ -38,6 +38,7 @@ import org.apache.hadoop.mapred.JobConf;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.plugins.hdfs.avro.AvroUtilities;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.IOException;
 
@@ -112,20 +113,16 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
     public OneRow readNextObject() throws IOException {
         /** Resetting datum to null, to avoid stale bytes to be padded from the previous row's datum */
         avroWrapper.datum(null);
-        if (reader.next(avroWrapper, NullWritable.get())) { // There is one more record in the current split.
-            rowsRead++;
-            return new OneRow(null, avroWrapper.datum());
-        } else if (getNextSplit()) { // The current split is exhausted. try to move to the next split.
-            rowsRead++;
-            return reader.next(avroWrapper, NullWritable.get())
-                    ? new OneRow(null, avroWrapper.datum())
-                    : null;
+        // while the current split is exhausted, try to move to the next split
+        while (!reader.next(avroWrapper, NullWritable.get())) {
+            // if there are no more splits we already read all the records in all the splits,
+            // so we return null and thus we are signaling end of records sequence
+            if (!getNextSplit()) {
+                return null;
+            }
         }
-
-        // if neither condition was met, it means we already read all the records in all the splits, and
-        // in this call record variable was not set, so we return null and thus we are signaling end of
-        // records sequence - in this case avroWrapper.datum() will be null
-        return null;
+        rowsRead++;
+        return new OneRow(null, avroWrapper.datum());
     }
 
     /**
@@ -178,8 +175,12 @@ public class AvroFileAccessor extends HdfsSplittableDataAccessor {
      */
     @Override
     public void closeForWrite() throws Exception {
-        if (writer != null) {
-            writer.close();
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } finally {
+            HdfsUtilities.invalidateListings(configuration, context);
         }
         LOG.debug("TXID [{}] Segment {}: writer closed for user {}, wrote a TOTAL of {} rows to {} on server {}",
                 context.getTransactionId(),
@@ -20,20 +20,29 @@ package org.greenplum.pxf.plugins.hdfs;
  */
 
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.util.StringUtils.TraditionalBinaryPrefix;
+import org.greenplum.pxf.api.filter.FilterCache;
 import org.greenplum.pxf.api.model.BaseFragmenter;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.FragmentStats;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ListingCache;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
+import org.greenplum.pxf.plugins.hdfs.utilities.PartitionPathFilter;
 import org.greenplum.pxf.plugins.hdfs.utilities.PxfInputFormat;
+import org.greenplum.pxf.plugins.hdfs.utilities.SplitCombiner;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Fragmenter class for HDFS data resources.
@@ -41,11 +50,55 @@ import java.util.List;
  * Given an HDFS data source (a file, directory, or wild card pattern) divide
  * the data into fragments and return a list of them along with a list of
  * host:port locations for each.
+ * <p>
+ * The splits can be kept in the {@link ListingCache} across queries by
+ * setting pxf.fragmenter.listing.cache.enabled to true for a server, the
+ * cache is turned off by default. A cached listing is reused for at most
+ * the number of seconds given by the pxf.fragmenter.listing.cache.ttl
+ * property of the server, 60 by default. On HDFS and local filesystems it is
+ * also listed again as soon as the modification time of the file or
+ * directory changes, i.e. when files are added or removed. Writes through
+ * PXF discard the cached listings of the written path. Other changes, such
+ * as appends, files overwritten under the same name, files added to
+ * subdirectories or any change on an object store, are only picked up once
+ * the time to live expires, so the cache is meant for data that is not
+ * modified outside of PXF while it is queried. Listings are cached
+ * separately for different split sizes, input path filters and recursive
+ * listing settings.
+ * <p>
+ * When the COMBINE_SIZE option is set to a size, e.g. 128m, splits smaller
+ * than that size are packed into fragments of about that size, so that
+ * directories of many small files are not read one file per request. This
+ * only applies to accessors extending {@link HdfsSplittableDataAccessor},
+ * which read all the splits of such fragments.
+ * <p>
+ * For data laid out in Hive style partition directories, e.g.
+ * /events/dt=2020-01-01/region=eu, the directories whose partition values
+ * do not match the filter of the query are not listed, see
+ * {@link PartitionPathFilter}. Partition pruning can be turned off for a
+ * server by setting pxf.fragmenter.partition.pruning.enabled to false.
  */
 public class HdfsDataFragmenter extends BaseFragmenter {
 
+    static final String LISTING_CACHE_ENABLED_PROPERTY = "pxf.fragmenter.listing.cache.enabled";
+    static final String LISTING_CACHE_TTL_PROPERTY = "pxf.fragmenter.listing.cache.ttl";
+    static final String PARTITION_PRUNING_ENABLED_PROPERTY = "pxf.fragmenter.partition.pruning.enabled";
+    private static final long DEFAULT_LISTING_CACHE_TTL_SECONDS = 60;
+    private static final String GLOB_CHARACTERS = "*?[]{}\\";
+    static final String COMBINE_SIZE_OPTION = "COMBINE_SIZE";
+    // bounds the size of the fragment user data listing the splits
+    static final int MAX_COMBINED_SPLITS = 1000;
+    // settings of the job that change the listed files or their splits
+    private static final String[] LISTING_SETTINGS = {
+            org.apache.hadoop.mapreduce.lib.input.FileInputFormat.SPLIT_MINSIZE,
+            org.apache.hadoop.mapreduce.lib.input.FileInputFormat.SPLIT_MAXSIZE,
+            org.apache.hadoop.mapreduce.lib.input.FileInputFormat.PATHFILTER_CLASS,
+            FileInputFormat.INPUT_DIR_RECURSIVE
+    };
+
     protected JobConf jobConf;
     protected HcfsType hcfsType;
+    protected PathFilter partitionFilter;
 
     @Override
     public void initialize(RequestContext context) {
@@ -54,6 +107,7 @@ public class HdfsDataFragmenter extends BaseFragmenter {
         // Check if the underlying configuration is for HDFS
         hcfsType = HcfsType.getHcfsType(configuration, context);
         jobConf = new JobConf(configuration, this.getClass());
+        partitionFilter = createPartitionFilter();
     }
 
     /**
@@ -66,24 +120,83 @@ public class HdfsDataFragmenter extends BaseFragmenter {
         Path path = new Path(hcfsType.getDataUri(jobConf, context));
         List<InputSplit> splits = getSplits(path);
 
-        LOG.debug("Total number of fragments = {}", splits.size());
-        for (InputSplit split : splits) {
-            FileSplit fsp = (FileSplit) split;
-            String filepath = fsp.getPath().toString();
-            String[] hosts = fsp.getLocations();
+        LOG.debug("Total number of splits = {}", splits.size());
+        long combineSize = getCombineSize();
+        if (combineSize > 0) {
+            List<List<FileSplit>> groups = new SplitCombiner(combineSize, MAX_COMBINED_SPLITS).combine(splits);
+            for (List<FileSplit> group : groups) {
+                fragments.add(group.size() == 1 ? toFragment(group.get(0)) : toCombinedFragment(group));
+            }
+            LOG.debug("Combined {} splits into {} fragments", splits.size(), fragments.size());
+            return fragments;
+        }
 
-            /*
-             * metadata information includes: file split's start, length and
-             * hosts (locations).
-             */
-            byte[] fragmentMetadata = HdfsUtilities.prepareFragmentMetadata(fsp);
-            Fragment fragment = new Fragment(filepath, hosts, fragmentMetadata);
-            fragments.add(fragment);
+        for (InputSplit split : splits) {
+            fragments.add(toFragment((FileSplit) split));
         }
 
         return fragments;
     }
 
+    /*
+     * metadata information includes: file split's start, length and
+     * hosts (locations).
+     */
+    private Fragment toFragment(FileSplit fsp) throws IOException {
+        byte[] fragmentMetadata = HdfsUtilities.prepareFragmentMetadata(fsp);
+        return new Fragment(fsp.getPath().toString(), fsp.getLocations(), fragmentMetadata);
+    }
+
+    /*
+     * The fragment of combined splits is named after its first split, the
+     * user data lists all of its splits
+     */
+    private Fragment toCombinedFragment(List<FileSplit> group) throws IOException {
+        FileSplit first = group.get(0);
+        String[] hosts = SplitCombiner.getCommonHosts(group);
+        byte[] fragmentMetadata = HdfsUtilities.prepareFragmentMetadata(first.getStart(), first.getLength(), hosts);
+        byte[] userData = HdfsUtilities.prepareCombinedFragmentUserData(group);
+        return new Fragment(first.getPath().toString(), hosts, fragmentMetadata, userData);
+    }
+
+    /*
+     * Returns the COMBINE_SIZE option in bytes, 0 if splits are not combined
+     */
+    private long getCombineSize() {
+        String value = context.getOption(COMBINE_SIZE_OPTION);
+        if (StringUtils.isBlank(value)) {
+            return 0;
+        }
+        long size;
+        try {
+            size = TraditionalBinaryPrefix.string2long(value.trim());
+        } catch (IllegalArgumentException e) {
+            size = -1;
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Option %s has incorrect value %s : must be a size in bytes, e.g. 134217728 or 128m",
+                    COMBINE_SIZE_OPTION, value));
+        }
+        if (size > 0 && !canReadCombinedSplits()) {
+            LOG.warn("Option {} is ignored, accessor {} cannot read combined splits",
+                    COMBINE_SIZE_OPTION, context.getAccessor());
+            return 0;
+        }
+        return size;
+    }
+
+    private boolean canReadCombinedSplits() {
+        if (StringUtils.isBlank(context.getAccessor())) {
+            return false;
+        }
+        try {
+            return HdfsSplittableDataAccessor.class.isAssignableFrom(Class.forName(context.getAccessor()));
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
     @Override
     public FragmentStats getFragmentStats() throws Exception {
         String absoluteDataPath = hcfsType.getDataUri(jobConf, context);
@@ -101,9 +214,113 @@ public class HdfsDataFragmenter extends BaseFragmenter {
     }
 
     protected List<InputSplit> getSplits(Path path) throws IOException {
+        return new ArrayList<>(getCachedListing("splits", path, () -> computeSplits(path)));
+    }
+
+    /**
+     * Returns the listing of the path from the {@link ListingCache}, or from
+     * the loader when the listing is not cached, no longer valid or the cache
+     * is not turned on for the server.
+     *
+     * @param kind   the kind of listing
+     * @param path   the path that is listed
+     * @param loader lists the path
+     * @param <T>    type of the listed items
+     * @return the listed items, which must not be modified
+     * @throws IOException if the path could not be listed
+     */
+    protected <T> List<T> getCachedListing(String kind, Path path, ListingCache.Loader<T> loader) throws IOException {
+        if (!jobConf.getBoolean(LISTING_CACHE_ENABLED_PROPERTY, false)) {
+            return loader.load();
+        }
+        if (partitionFilter != null) {
+            // pruned listings only hold the partitions matching the filter
+            kind = kind + ":" + context.getFilterString();
+        }
+        kind = kind + getListingSettings();
+        // the modification time of a directory misses appends to its files
+        long ttlMillis = jobConf.getTimeDuration(LISTING_CACHE_TTL_PROPERTY,
+                DEFAULT_LISTING_CACHE_TTL_SECONDS, TimeUnit.SECONDS) * 1000;
+        long modificationTime = getModificationTime(path);
+        return ListingCache.getInstance().get(kind, context.getServerName(), context.getUser(),
+                path.toString(), modificationTime, ttlMillis, loader);
+    }
+
+    /**
+     * Returns a {@link PxfInputFormat} for the path, which skips the
+     * partition directories not matching the filter of the query.
+     *
+     * @param path the path to list
+     * @return the input format
+     */
+    protected PxfInputFormat newInputFormat(Path path) {
         PxfInputFormat pxfInputFormat = new PxfInputFormat();
         PxfInputFormat.setInputPaths(jobConf, path);
+        pxfInputFormat.setPartitionFilter(partitionFilter);
+        return pxfInputFormat;
+    }
+
+    /*
+     * Returns the filter pruning partition directories, null when the query
+     * has no filter or pruning is turned off
+     */
+    private PathFilter createPartitionFilter() {
+        if (!context.hasFilter() || !jobConf.getBoolean(PARTITION_PRUNING_ENABLED_PROPERTY, true)) {
+            return null;
+        }
+        try {
+            return new PartitionPathFilter(FilterCache.getInstance().getParsedTree(context),
+                    context.getTupleDescription());
+        } catch (Exception e) {
+            LOG.warn("Unable to parse filter {}, partition directories are not pruned: {}",
+                    context.getFilterString(), e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * Returns the listing settings set on the job, e.g.
+     * [mapreduce.input.fileinputformat.split.minsize=134217728]
+     */
+    private String getListingSettings() {
+        StringBuilder settings = new StringBuilder();
+        for (String name : LISTING_SETTINGS) {
+            String value = jobConf.get(name);
+            if (value != null) {
+                settings.append(settings.length() == 0 ? "[" : ",").append(name).append('=').append(value);
+            }
+        }
+        return settings.length() == 0 ? "" : settings.append(']').toString();
+    }
+
+    /*
+     * Returns the modification time of the path on filesystems where it
+     * changes whenever a file is added to or removed from a directory
+     */
+    private long getModificationTime(Path path) {
+        if ((hcfsType != HcfsType.HDFS && hcfsType != HcfsType.LOCALFILE) ||
+                StringUtils.containsAny(path.toString(), GLOB_CHARACTERS) ||
+                jobConf.getBoolean(FileInputFormat.INPUT_DIR_RECURSIVE, false)) {
+            return ListingCache.UNKNOWN_MODIFICATION_TIME;
+        }
+        try {
+            return path.getFileSystem(jobConf).getFileStatus(path).getModificationTime();
+        } catch (IOException e) {
+            // listing the path reports the error, if any
+            LOG.debug("Unable to get the modification time of {}: {}", path, e.getMessage());
+            return ListingCache.UNKNOWN_MODIFICATION_TIME;
+        }
+    }
+
+    private List<InputSplit> computeSplits(Path path) throws IOException {
+        PxfInputFormat pxfInputFormat = newInputFormat(path);
+        long start = System.nanoTime();
         InputSplit[] splits = pxfInputFormat.getSplits(jobConf, 1);
+        LOG.info("Listed {} files and computed {} splits for {} in {} ms using up to {} threads",
+                jobConf.getLong(FileInputFormat.NUM_INPUT_FILES, -1),
+                splits == null ? 0 : splits.length, path,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                PxfInputFormat.getListingThreads(jobConf));
         List<InputSplit> result = new ArrayList<>();
 
         /*
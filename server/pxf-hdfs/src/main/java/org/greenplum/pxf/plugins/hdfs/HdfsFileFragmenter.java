@@ -26,11 +26,14 @@ public class HdfsFileFragmenter extends HdfsDataFragmenter {
         String fileName = hcfsType.getDataUri(jobConf, context);
         Path path = new Path(fileName);
 
-        PxfInputFormat pxfInputFormat = new PxfInputFormat();
-        PxfInputFormat.setInputPaths(jobConf, path);
+        PxfInputFormat pxfInputFormat = newInputFormat(path);
 
-        fragments = Arrays.stream(pxfInputFormat.listStatus(jobConf))
-                .map(fileStatus -> new Fragment(fileStatus.getPath().toUri().toString()))
+        List<String> files = getCachedListing("files", path, () ->
+                Arrays.stream(pxfInputFormat.listStatus(jobConf))
+                        .map(fileStatus -> fileStatus.getPath().toUri().toString())
+                        .collect(Collectors.toList()));
+        fragments = files.stream()
+                .map(Fragment::new)
                 .collect(Collectors.toList());
         LOG.debug("Total number of fragments = {}", fragments.size());
 
@@ -20,29 +20,39 @@ package org.greenplum.pxf.plugins.hdfs;
  */
 
 
+import org.apache.hadoop.hdfs.DFSInputStream.ReadStatistics;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputFormat;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RecordReader;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.ReadStatisticsProvider;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 /**
  * Accessor for accessing a splittable HDFS data sources. HDFS will divide the
  * file into splits based on an internal decision (by default, the block size is
  * also the split size).
  * <p>
+ * A fragment normally holds one split. Fragments combining several small
+ * splits list them in their user data, the splits are then read one after
+ * the other.
+ * <p>
  * Accessors that require such base functionality should extend this class.
  */
-public abstract class HdfsSplittableDataAccessor extends BasePlugin implements Accessor {
+public abstract class HdfsSplittableDataAccessor extends BasePlugin implements Accessor, ReadStatisticsProvider {
     protected RecordReader<Object, Object> reader;
     protected InputFormat<?, ?> inputFormat;
     protected JobConf jobConf;
@@ -80,8 +90,12 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
     @Override
     public boolean openForRead() throws Exception {
         LinkedList<InputSplit> requestSplits = new LinkedList<>();
-        FileSplit fileSplit = HdfsUtilities.parseFileSplit(context);
-        requestSplits.add(fileSplit);
+        List<FileSplit> combinedSplits = HdfsUtilities.parseCombinedFileSplits(context.getFragmentUserData());
+        if (combinedSplits != null) {
+            requestSplits.addAll(combinedSplits);
+        } else {
+            requestSplits.add(HdfsUtilities.parseFileSplit(context));
+        }
 
         // Initialize record reader based on current split
         iter = requestSplits.listIterator(0);
@@ -103,8 +117,8 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
             throws IOException;
 
     /**
-     * Sets the current split and initializes a RecordReader who feeds from the
-     * split
+     * Closes the reader of the current split, sets the next split and
+     * initializes a RecordReader who feeds from the split
      *
      * @return true if there is a split to read
      * @throws IOException if record reader could not be created
@@ -114,6 +128,10 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
         if (!iter.hasNext()) {
             return false;
         }
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
 
         InputSplit currSplit = iter.next();
         reader = (RecordReader<Object, Object>) getReader(jobConf, currSplit);
@@ -128,23 +146,17 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
      */
     @Override
     public OneRow readNextObject() throws IOException {
-        // if there is one more record in the current split
-        if (!reader.next(key, data)) {
-            // the current split is exhausted. try to move to the next split
-            boolean hasMoreSplits = getNextSplit();
-
-            // if there are more splits read the first record of the new split
-            if (!hasMoreSplits || !reader.next(key, data)) {
+        // while the current split is exhausted, try to move to the next split
+        while (!reader.next(key, data)) {
+            /*
+             * if there are no more splits, it means we already read all the
+             * records in all the splits, so we return null and thus we are
+             * signaling end of records sequence
+             */
+            if (!getNextSplit()) {
                 return null;
             }
         }
-
-        /*
-         * if neither condition was met, it means we already read all the
-         * records in all the splits, and in this call record variable was not
-         * set, so we return null and thus we are signaling end of records
-         * sequence
-         */
         return new OneRow(key, data);
     }
 
@@ -158,8 +170,40 @@ public abstract class HdfsSplittableDataAccessor extends BasePlugin implements A
         }
     }
 
+    /**
+     * Returns the HDFS read statistics of the current split when it is read
+     * with a {@link ChunkRecordReader}: the total bytes read, and the bytes
+     * read locally, with short-circuit reads and with zero copy reads.
+     */
+    @Override
+    public Map<String, Long> getReadStatistics() {
+        Object currentReader = reader;
+        if (!(currentReader instanceof ChunkRecordReader)) {
+            return Collections.emptyMap();
+        }
+        try {
+            ReadStatistics statistics = ((ChunkRecordReader) currentReader).getReadStatistics();
+            Map<String, Long> result = new LinkedHashMap<>();
+            result.put("totalBytesRead", statistics.getTotalBytesRead());
+            result.put("totalLocalBytesRead", statistics.getTotalLocalBytesRead());
+            result.put("totalShortCircuitBytesRead", statistics.getTotalShortCircuitBytesRead());
+            result.put("totalZeroCopyBytesRead", statistics.getTotalZeroCopyBytesRead());
+            return result;
+        } catch (IncompatibleInputStreamException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Reads are always thread safe: every record reader creates its own
+     * codec and decompressor instances for its split, and the bzip2 decoder
+     * keeps all its state in the stream. Writes depend on the codec.
+     */
     @Override
     public boolean isThreadSafe() {
+        if (context.getRequestType() == RequestContext.RequestType.READ_BRIDGE) {
+            return true;
+        }
         return HdfsUtilities.isThreadSafe(
                 configuration,
                 context.getDataSource(),
@@ -23,12 +23,15 @@ package org.greenplum.pxf.plugins.hdfs;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.LineRecordReader;
 import org.apache.hadoop.mapred.TextInputFormat;
+import org.greenplum.pxf.api.DetachableRowAccessor;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
@@ -40,7 +43,7 @@ import java.net.URI;
 /**
  * A PXF Accessor for reading delimited plain text records.
  */
-public class LineBreakAccessor extends HdfsSplittableDataAccessor {
+public class LineBreakAccessor extends HdfsSplittableDataAccessor implements DetachableRowAccessor {
     private DataOutputStream dos;
     private FSDataOutputStream fsdos;
     private FileSystem fs;
@@ -77,6 +80,31 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor {
         return new LineRecordReader(jobConf, (FileSplit) split);
     }
 
+    /**
+     * Copies the key and the line, which the record reader overwrites with
+     * the next record. A chunk keeps its bytes, as the chunk reader allocates
+     * new ones for every record.
+     *
+     * @param row the row last read
+     * @return a copy of the row
+     */
+    @Override
+    public OneRow detach(OneRow row) {
+        Object key = row.getKey();
+        if (key instanceof LongWritable) {
+            key = new LongWritable(((LongWritable) key).get());
+        }
+        Object data = row.getData();
+        if (data instanceof ChunkWritable) {
+            ChunkWritable chunk = new ChunkWritable();
+            chunk.box = ((ChunkWritable) data).box;
+            data = chunk;
+        } else if (data instanceof Text) {
+            data = new Text((Text) data);
+        }
+        return new OneRow(key, data);
+    }
+
     /**
      * Opens file for write.
      */
@@ -126,18 +154,22 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor {
      */
     @Override
     public void closeForWrite() throws IOException {
-        if ((dos != null) && (fsdos != null)) {
-            LOG.debug("Closing writing stream for path {}", file);
-            dos.flush();
-            /*
-             * From release 0.21.0 sync() is deprecated in favor of hflush(),
-             * which only guarantees that new readers will see all data written
-             * to that point, and hsync(), which makes a stronger guarantee that
-             * the operating system has flushed the data to disk (like POSIX
-             * fsync), although data may still be in the disk cache.
-             */
-            fsdos.hsync();
-            dos.close();
+        try {
+            if ((dos != null) && (fsdos != null)) {
+                LOG.debug("Closing writing stream for path {}", file);
+                dos.flush();
+                /*
+                 * From release 0.21.0 sync() is deprecated in favor of hflush(),
+                 * which only guarantees that new readers will see all data written
+                 * to that point, and hsync(), which makes a stronger guarantee that
+                 * the operating system has flushed the data to disk (like POSIX
+                 * fsync), although data may still be in the disk cache.
+                 */
+                fsdos.hsync();
+                dos.close();
+            }
+        } finally {
+            HdfsUtilities.invalidateListings(configuration, context);
         }
     }
 }
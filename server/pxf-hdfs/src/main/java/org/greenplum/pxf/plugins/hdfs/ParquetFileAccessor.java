@@ -46,15 +46,14 @@ import org.apache.parquet.schema.OriginalType;
 import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 import org.apache.parquet.schema.Type;
+import org.greenplum.pxf.api.DetachableRowAccessor;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.UnsupportedTypeException;
-import org.greenplum.pxf.api.filter.FilterParser;
-import org.greenplum.pxf.api.filter.Node;
+import org.greenplum.pxf.api.filter.FilterCache;
 import org.greenplum.pxf.api.filter.Operator;
 import org.greenplum.pxf.api.filter.TreeTraverser;
 import org.greenplum.pxf.api.filter.TreeVisitor;
 import org.greenplum.pxf.api.io.DataType;
-import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.hdfs.parquet.ParquetRecordFilterBuilder;
@@ -78,7 +77,7 @@ import static org.apache.parquet.hadoop.api.ReadSupport.PARQUET_READ_SCHEMA;
  * Parquet file accessor.
  * Unit of operation is record.
  */
-public class ParquetFileAccessor extends BasePlugin implements Accessor {
+public class ParquetFileAccessor extends BasePlugin implements DetachableRowAccessor {
 
     private static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
     private static final int DEFAULT_FILE_SIZE = 128 * 1024 * 1024;
@@ -115,6 +114,7 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     );
 
     private static final TreeTraverser TRAVERSER = new TreeTraverser();
+    private static final FilterCache FILTER_CACHE = FilterCache.getInstance();
 
     private ParquetReader<Group> fileReader;
     private CompressionCodecName codecName;
@@ -183,6 +183,17 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
         return null;
     }
 
+    /**
+     * Returns the row itself, the reader builds a new group for every record.
+     *
+     * @param row the row last read
+     * @return the row
+     */
+    @Override
+    public OneRow detach(OneRow row) {
+        return row;
+    }
+
     /**
      * Closes the resource for read.
      *
@@ -284,9 +295,13 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     @Override
     public void closeForWrite() throws IOException {
 
-        if (parquetWriter != null) {
-            parquetWriter.close();
-            totalRowsWritten += rowsWritten;
+        try {
+            if (parquetWriter != null) {
+                parquetWriter.close();
+                totalRowsWritten += rowsWritten;
+            }
+        } finally {
+            HdfsUtilities.invalidateListings(configuration, context);
         }
         LOG.debug("{}-{}: writer closed, wrote a TOTAL of {} rows to {} on server {}",
                 context.getTransactionId(),
@@ -309,19 +324,19 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
             return FilterCompat.NOOP;
         }
 
-        ParquetRecordFilterBuilder filterBuilder = new ParquetRecordFilterBuilder(
-                context.getTupleDescription(), originalFieldsMap);
-        TreeVisitor pruner = new SupportedParquetPrimitiveTypePruner(
-                context.getTupleDescription(), originalFieldsMap, SUPPORTED_OPERATORS);
-
         try {
-            // Parse the filter string into a expression tree Node
-            Node root = new FilterParser().parse(filterString);
-            // Prune the parsed tree with valid supported operators and then
-            // traverse the pruned tree with the ParquetRecordFilterBuilder to
-            // produce a record filter for parquet
-            TRAVERSER.traverse(root, pruner, filterBuilder);
-            return filterBuilder.getRecordFilter();
+            // the filter is the same for all files of the query with the same schema
+            return FILTER_CACHE.get(ParquetFileAccessor.class, context, originalFieldsMap, root -> {
+                ParquetRecordFilterBuilder filterBuilder = new ParquetRecordFilterBuilder(
+                        context.getTupleDescription(), originalFieldsMap);
+                TreeVisitor pruner = new SupportedParquetPrimitiveTypePruner(
+                        context.getTupleDescription(), originalFieldsMap, SUPPORTED_OPERATORS);
+                // Prune the parsed tree with valid supported operators and then
+                // traverse the pruned tree with the ParquetRecordFilterBuilder to
+                // produce a record filter for parquet
+                TRAVERSER.traverse(root, pruner, filterBuilder);
+                return filterBuilder.getRecordFilter();
+            });
         } catch (Exception e) {
             LOG.error(String.format("%s-%d: %s--%s Unable to generate Parquet Record Filter for filter",
                     context.getTransactionId(),
@@ -393,14 +408,20 @@ public class ParquetFileAccessor extends BasePlugin implements Accessor {
     }
 
     /**
-     * Generates a read schema when there is column projection
+     * Generates a read schema when there is column projection. Columns
+     * missing from the file that are partitions in the path of the file,
+     * e.g. dt for /events/dt=2020-01-01/part-0.parquet, are filled in by
+     * the resolver and are not read.
      *
      * @param originalFields a map of field names to types
      * @param originalSchema the original read schema
      */
     private MessageType buildReadSchema(Map<String, Type> originalFields, MessageType originalSchema) {
+        Map<String, String> partitionValues = HdfsUtilities.getPartitionValues(file);
         List<Type> projectedFields = context.getTupleDescription().stream()
                 .filter(ColumnDescriptor::isProjected)
+                .filter(c -> originalFields.containsKey(c.columnName()) ||
+                        !partitionValues.containsKey(c.columnName().toLowerCase()))
                 .map(c -> {
                     Type t = originalFields.get(c.columnName());
                     if (t == null) {
@@ -22,6 +22,7 @@ package org.greenplum.pxf.plugins.hdfs;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.SimpleGroupFactory;
@@ -36,10 +37,12 @@ import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.hdfs.parquet.ParquetTypeConverter;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import static org.apache.parquet.schema.Type.Repetition.REPEATED;
@@ -48,6 +51,7 @@ public class ParquetResolver extends BasePlugin implements Resolver {
 
     private MessageType schema;
     private SimpleGroupFactory groupFactory;
+    private OneField[] partitionFields;
     private ObjectMapper mapper = new ObjectMapper();
 
     // used to distinguish string pattern between type "timestamp" ("2019-03-14 14:10:28")
@@ -57,9 +61,13 @@ public class ParquetResolver extends BasePlugin implements Resolver {
     @Override
     public List<OneField> getFields(OneRow row) {
         validateSchema();
+        if (partitionFields == null) {
+            partitionFields = getPartitionFields();
+        }
         Group group = (Group) row.getData();
         List<OneField> output = new LinkedList<>();
         int columnIndex = 0;
+        int position = 0;
 
         // schema is the readSchema, if there is column projection
         // the schema will be a subset of tuple descriptions
@@ -67,6 +75,8 @@ public class ParquetResolver extends BasePlugin implements Resolver {
             OneField oneField;
             if (!columnDescriptor.isProjected()) {
                 oneField = new OneField(columnDescriptor.columnTypeCode(), null);
+            } else if (partitionFields[position] != null) {
+                oneField = partitionFields[position];
             } else if (schema.getType(columnIndex).isPrimitive()) {
                 oneField = resolvePrimitive(group, columnIndex, schema.getType(columnIndex), 0);
                 columnIndex++;
@@ -74,6 +84,7 @@ public class ParquetResolver extends BasePlugin implements Resolver {
                 throw new UnsupportedOperationException("Parquet complex type support is not yet available.");
             }
             output.add(oneField);
+            position++;
         }
         return output;
     }
@@ -190,6 +201,29 @@ public class ParquetResolver extends BasePlugin implements Resolver {
         }
     }
 
+    /*
+     * Returns the fields of the projected columns missing from the file that
+     * are partitions in the path of the file, by position in the tuple
+     * description. The accessor does not read these columns.
+     */
+    private OneField[] getPartitionFields() {
+        List<ColumnDescriptor> columnDescriptors = context.getTupleDescription();
+        OneField[] fields = new OneField[columnDescriptors.size()];
+        if (StringUtils.isBlank(context.getDataSource())) {
+            return fields;
+        }
+        Map<String, String> partitionValues = HdfsUtilities.getPartitionValues(new Path(context.getDataSource()));
+        for (int i = 0; i < columnDescriptors.size(); i++) {
+            ColumnDescriptor columnDescriptor = columnDescriptors.get(i);
+            String name = columnDescriptor.columnName().toLowerCase();
+            if (columnDescriptor.isProjected() && !schema.containsField(columnDescriptor.columnName()) &&
+                    partitionValues.containsKey(name)) {
+                fields[i] = HdfsUtilities.getPartitionField(columnDescriptor, partitionValues.get(name));
+            }
+        }
+        return fields;
+    }
+
     private OneField resolvePrimitive(Group group, int columnIndex, Type type, int level) {
 
         OneField field = new OneField();
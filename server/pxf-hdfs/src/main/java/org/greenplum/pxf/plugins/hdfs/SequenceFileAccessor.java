@@ -38,6 +38,7 @@ import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.BaseConfigurationFactory;
 import org.greenplum.pxf.api.model.ConfigurationFactory;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.IOException;
 import java.util.EnumSet;
@@ -193,17 +194,21 @@ public class SequenceFileAccessor extends HdfsSplittableDataAccessor {
 
     @Override
     public void closeForWrite() throws Exception {
-        if (writer != null) {
-            writer.sync();
-            /*
-             * From release 0.21.0 sync() is deprecated in favor of hflush(),
-             * which only guarantees that new readers will see all data written
-             * to that point, and hsync(), which makes a stronger guarantee that
-             * the operating system has flushed the data to disk (like POSIX
-             * fsync), although data may still be in the disk cache.
-             */
-            writer.hsync();
-            writer.close();
+        try {
+            if (writer != null) {
+                writer.sync();
+                /*
+                 * From release 0.21.0 sync() is deprecated in favor of hflush(),
+                 * which only guarantees that new readers will see all data written
+                 * to that point, and hsync(), which makes a stronger guarantee that
+                 * the operating system has flushed the data to disk (like POSIX
+                 * fsync), although data may still be in the disk cache.
+                 */
+                writer.hsync();
+                writer.close();
+            }
+        } finally {
+            HdfsUtilities.invalidateListings(configuration, context);
         }
     }
 
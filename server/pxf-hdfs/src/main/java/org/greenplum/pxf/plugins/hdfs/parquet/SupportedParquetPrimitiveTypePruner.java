@@ -70,6 +70,7 @@ public class SupportedParquetPrimitiveTypePruner extends SupportedOperatorPruner
         ColumnDescriptor columnDescriptor = columnDescriptors.get(columnIndexOperand.index());
         String filterColumnName = columnDescriptor.columnName();
         Type type = fields.get(filterColumnName);
-        return type.asPrimitiveType().getPrimitiveTypeName();
+        // partition columns are not in the file, their filters are applied by the fragmenter
+        return type == null ? null : type.asPrimitiveType().getPrimitiveTypeName();
     }
 }
@@ -28,18 +28,29 @@ import org.apache.hadoop.mapred.FileSplit;
 import org.apache.parquet.hadoop.codec.CompressionCodecNotSupportedException;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.UnsupportedTypeException;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.FragmentMetadata;
+import org.greenplum.pxf.api.utilities.ListingCache;
 import org.greenplum.pxf.api.utilities.Utilities;
 import org.greenplum.pxf.plugins.hdfs.CodecFactory;
+import org.greenplum.pxf.plugins.hdfs.HcfsType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * HdfsUtilities class exposes helper methods for PXF classes.
@@ -49,6 +60,14 @@ public class HdfsUtilities {
     private static Logger LOG = LoggerFactory.getLogger(HdfsUtilities.class);
     private static CodecFactory codecFactory = CodecFactory.getInstance();
 
+    // "PXFC", marks the user data of fragments combining several splits
+    private static final int COMBINED_SPLITS_MAGIC = 0x50584643;
+
+    /**
+     * The directory name value of the partition of null values, as written by Hive
+     */
+    public static final String DEFAULT_PARTITION_NAME = "__HIVE_DEFAULT_PARTITION__";
+
     /**
      * Checks if requests should be handled in a single thread or not.
      *
@@ -118,6 +137,76 @@ public class HdfsUtilities {
                 metadata.getStart(), metadata.getEnd(), (String[]) null);
     }
 
+    /**
+     * Serializes the splits of a fragment combining several splits, to be
+     * sent as the user data of the fragment. The user data is sent back in
+     * a header of every read request, so the paths are written relative to
+     * their longest common prefix.
+     *
+     * @param splits the splits of the fragment
+     * @return byte serialization of the splits
+     * @throws IOException if I/O errors occur while writing to the underlying
+     *                     stream
+     */
+    public static byte[] prepareCombinedFragmentUserData(List<FileSplit> splits)
+            throws IOException {
+
+        String prefix = splits.get(0).getPath().toString();
+        for (FileSplit split : splits) {
+            String path = split.getPath().toString();
+            int length = 0;
+            while (length < prefix.length() && length < path.length() &&
+                    prefix.charAt(length) == path.charAt(length)) {
+                length++;
+            }
+            prefix = prefix.substring(0, length);
+        }
+
+        ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
+        DataOutputStream dataStream = new DataOutputStream(byteArrayStream);
+        dataStream.writeInt(COMBINED_SPLITS_MAGIC);
+        dataStream.writeUTF(prefix);
+        dataStream.writeInt(splits.size());
+        for (FileSplit split : splits) {
+            dataStream.writeUTF(split.getPath().toString().substring(prefix.length()));
+            dataStream.writeLong(split.getStart());
+            dataStream.writeLong(split.getLength());
+        }
+        dataStream.flush();
+        return byteArrayStream.toByteArray();
+    }
+
+    /**
+     * Parses the user data of a fragment combining several splits.
+     *
+     * @param userData the user data of the fragment, may be null
+     * @return the splits of the fragment, or null if the fragment does not
+     * combine splits
+     */
+    public static List<FileSplit> parseCombinedFileSplits(byte[] userData) {
+        if (userData == null || userData.length < 4) {
+            return null;
+        }
+        try (DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(userData))) {
+            if (dataStream.readInt() != COMBINED_SPLITS_MAGIC) {
+                return null;
+            }
+            String prefix = dataStream.readUTF();
+            int count = dataStream.readInt();
+            List<FileSplit> splits = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Path path = new Path(prefix + dataStream.readUTF());
+                long start = dataStream.readLong();
+                long length = dataStream.readLong();
+                splits.add(new FileSplit(path, start, length, (String[]) null));
+            }
+            LOG.debug("Parsed {} combined splits with prefix {}", count, prefix);
+            return splits;
+        } catch (IOException e) {
+            throw new RuntimeException("Exception while reading expected combined fragment user data", e);
+        }
+    }
+
     /**
      * Validates that the destination file does not exist and creates parent directory, if missing.
      *
@@ -140,6 +229,18 @@ public class HdfsUtilities {
         }
     }
 
+    /**
+     * Discards the cached listings of the data path of the request, which no
+     * longer list all the files once a file was written to the path.
+     *
+     * @param configuration the configuration of the server
+     * @param context       the request context
+     */
+    public static void invalidateListings(Configuration configuration, RequestContext context) {
+        String dataUri = HcfsType.getHcfsType(configuration, context).getDataUri(configuration, context);
+        ListingCache.getInstance().invalidateContaining(context.getServerName(), new Path(dataUri).toString());
+    }
+
     /**
      * Returns string serialization of list of fields. Fields of binary type
      * (BYTEA) are converted to octal representation to make sure they will be
@@ -167,6 +268,134 @@ public class HdfsUtilities {
         return buff.toString();
     }
 
+    /**
+     * Returns the partition values of a path in the layout written by Hive
+     * and Spark, e.g. /events/dt=2020-01-01/region=eu/part-0.parquet has
+     * the values 2020-01-01 for dt and eu for region. The names are lower
+     * cased, the values are unescaped and the value of the default
+     * partition is null. A name appearing twice gets its innermost value.
+     *
+     * @param path the path of a file or directory
+     * @return the partition values by partition name, in path order
+     */
+    public static Map<String, String> getPartitionValues(Path path) {
+        Map<String, String> values = new LinkedHashMap<>();
+        String uriPath = path.toUri().getPath();
+        if (uriPath == null || uriPath.indexOf('=') < 0) {
+            return values;
+        }
+        for (String segment : uriPath.split("/")) {
+            int equals = segment.indexOf('=');
+            if (equals <= 0) {
+                continue;
+            }
+            String name = unescapePathName(segment.substring(0, equals)).toLowerCase();
+            String value = unescapePathName(segment.substring(equals + 1));
+            values.remove(name);
+            values.put(name, DEFAULT_PARTITION_NAME.equals(value) ? null : value);
+        }
+        return values;
+    }
+
+    /**
+     * Converts a partition value taken from a path to a field of the type
+     * of the column.
+     *
+     * @param column the column of the partition
+     * @param value  the partition value, null for the default partition
+     * @return the field holding the value
+     */
+    public static OneField getPartitionField(ColumnDescriptor column, String value) {
+        DataType type = column.getDataType();
+        Object converted;
+        try {
+            switch (type) {
+                case BOOLEAN:
+                    converted = value == null ? null : parseBoolean(value);
+                    if (value != null && converted == null) {
+                        // reported as an invalid value below
+                        throw new NumberFormatException();
+                    }
+                    break;
+                case SMALLINT:
+                    converted = value == null ? null : Short.parseShort(value);
+                    break;
+                case INTEGER:
+                    converted = value == null ? null : Integer.parseInt(value);
+                    break;
+                case BIGINT:
+                    converted = value == null ? null : Long.parseLong(value);
+                    break;
+                case REAL:
+                    converted = value == null ? null : Float.parseFloat(value);
+                    break;
+                case FLOAT8:
+                    converted = value == null ? null : Double.parseDouble(value);
+                    break;
+                case BYTEA:
+                    converted = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                    break;
+                case NUMERIC:
+                case DATE:
+                case TIMESTAMP:
+                case TEXT:
+                case VARCHAR:
+                case BPCHAR:
+                    converted = value;
+                    break;
+                default:
+                    throw new UnsupportedTypeException(String.format(
+                            "Partition column %s has unsupported type %s", column.columnName(), column.columnTypeName()));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Partition value %s of column %s is not a valid %s", value, column.columnName(), column.columnTypeName()), e);
+        }
+        return new OneField(type.getOID(), converted);
+    }
+
+    /**
+     * Parses a boolean partition value, written as true or false by Hive and
+     * as t or f by Greenplum, ignoring case.
+     *
+     * @param value the partition value
+     * @return the boolean, or null if the value is not a boolean
+     */
+    static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value) || "t".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value) || "f".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /*
+     * Reverts the %XX escaping of special characters Hive applies to
+     * partition names and values
+     */
+    private static String unescapePathName(String name) {
+        if (name.indexOf('%') < 0) {
+            return name;
+        }
+        StringBuilder result = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '%' && i + 2 < name.length()) {
+                int high = Character.digit(name.charAt(i + 1), 16);
+                int low = Character.digit(name.charAt(i + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    result.append((char) (high * 16 + low));
+                    i += 2;
+                    continue;
+                }
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
     /**
      * Serializes fragment metadata into a ByteArrayOutputStream
      *
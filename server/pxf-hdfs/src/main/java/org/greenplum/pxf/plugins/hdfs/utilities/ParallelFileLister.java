@@ -0,0 +1,354 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.mapred.InvalidInputException;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lists the files of input paths, which may be wildcard patterns, the way
+ * Hadoop's FileInputFormat does, but with the directories listed in
+ * parallel. Every directory is listed by its own task on an executor shared
+ * by all requests, and the number of tasks running at once for a listing is
+ * bounded. Each listed file is handed to a {@link FileProcessor} within the
+ * task, so that the work done per file, like computing splits, overlaps
+ * with the listing of other directories.
+ * <p>
+ * Recursive listings of directories on object stores, which have no real
+ * directories, are made with a single flat listing of the prefix instead,
+ * unless there is a pruner.
+ * <p>
+ * Directories and files rejected by the pruner, e.g. partition directories
+ * not matching the filter of the query, are skipped without being listed.
+ * Unlike the filter, the pruner also applies to the paths matched by the
+ * input paths, and an input path whose matches are all pruned has no
+ * files rather than being an invalid input.
+ * <p>
+ * The tasks run as the user of the caller. The size of the shared executor
+ * is set with the pxf.service.fragmenter.listing.pool.size system property.
+ */
+public class ParallelFileLister {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelFileLister.class);
+
+    static final String PROPERTY_KEY_POOL_SIZE = "pxf.service.fragmenter.listing.pool.size";
+    private static final int DEFAULT_POOL_SIZE = 64;
+
+    private static final Set<String> OBJECT_STORE_SCHEMES = new HashSet<>(Arrays.asList(
+            "s3", "s3a", "s3n", "gs", "wasb", "wasbs", "abfs", "abfss", "adl"));
+
+    private static final ExecutorService executor = createExecutor(
+            Integer.getInteger(PROPERTY_KEY_POOL_SIZE, DEFAULT_POOL_SIZE));
+
+    private final Configuration configuration;
+    private final PathFilter filter;
+    private final PathFilter pruner;
+    private final boolean recursive;
+    private final int threads;
+
+    private int fileCount;
+    private int directoryCount;
+    private int prunedCount;
+
+    /**
+     * Processes a listed file.
+     *
+     * @param <T> type of the results
+     */
+    @FunctionalInterface
+    public interface FileProcessor<T> {
+        /**
+         * @param fs   the filesystem of the file
+         * @param file the file, or a directory when listing non-recursively
+         * @return the results for the file
+         * @throws IOException if the file could not be processed
+         */
+        List<T> process(FileSystem fs, FileStatus file) throws IOException;
+    }
+
+    /**
+     * Constructs a ParallelFileLister
+     *
+     * @param configuration the configuration used to get the filesystems
+     * @param filter        the filter files and directories must pass
+     * @param recursive     whether the subdirectories are listed
+     * @param threads       the maximum number of directories listed at once
+     */
+    public ParallelFileLister(Configuration configuration, PathFilter filter, boolean recursive, int threads) {
+        this(configuration, filter, null, recursive, threads);
+    }
+
+    /**
+     * Constructs a ParallelFileLister skipping the paths rejected by a pruner
+     *
+     * @param configuration the configuration used to get the filesystems
+     * @param filter        the filter files and directories must pass
+     * @param pruner        the filter of the files and directories to skip,
+     *                      or null
+     * @param recursive     whether the subdirectories are listed
+     * @param threads       the maximum number of directories listed at once
+     */
+    public ParallelFileLister(Configuration configuration, PathFilter filter, PathFilter pruner, boolean recursive, int threads) {
+        this.configuration = configuration;
+        this.filter = filter;
+        this.pruner = pruner;
+        this.recursive = recursive;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Lists the input paths and processes every listed file. Without
+     * recursion the entries of the listed directories, subdirectories
+     * included, are processed. The results are ordered by the path of the
+     * file they were produced for.
+     *
+     * @param paths     the input paths
+     * @param processor the processor of the listed files
+     * @param <T>       type of the results
+     * @return the results of all the files
+     * @throws IOException if a path does not exist, or listing or
+     *                     processing failed
+     */
+    public <T> List<T> list(Path[] paths, FileProcessor<T> processor) throws IOException {
+        Deque<Task> pending = new ArrayDeque<>();
+        List<IOException> errors = new ArrayList<>();
+        for (Path path : paths) {
+            FileSystem fs = path.getFileSystem(configuration);
+            FileStatus[] matches = fs.globStatus(path, filter);
+            if (matches == null) {
+                errors.add(new IOException("Input path does not exist: " + path));
+            } else if (matches.length == 0) {
+                errors.add(new IOException("Input Pattern " + path + " matches 0 files"));
+            } else {
+                for (FileStatus match : matches) {
+                    if (isPruned(match.getPath())) {
+                        prunedCount++;
+                    } else {
+                        pending.add(new Task(fs, match));
+                    }
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidInputException(errors);
+        }
+
+        UserGroupInformation user = UserGroupInformation.getCurrentUser();
+        CompletionService<Listing<T>> completionService = new ExecutorCompletionService<>(executor);
+        Set<Future<Listing<T>>> running = new HashSet<>();
+        Map<String, List<T>> results = new TreeMap<>();
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                while (running.size() < threads && !pending.isEmpty()) {
+                    Task task = pending.poll();
+                    running.add(completionService.submit(() -> user.doAs(
+                            (PrivilegedExceptionAction<Listing<T>>) () -> list(task, processor))));
+                }
+                Future<Listing<T>> done = completionService.take();
+                running.remove(done);
+                Listing<T> listing = done.get();
+                results.putAll(listing.results);
+                pending.addAll(listing.subdirectories);
+                fileCount += listing.results.size();
+                directoryCount += listing.directories;
+                prunedCount += listing.pruned;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while listing " + Arrays.toString(paths));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<Listing<T>> future : running) {
+                future.cancel(true);
+            }
+        }
+
+        List<T> result = new ArrayList<>();
+        for (List<T> fileResults : results.values()) {
+            result.addAll(fileResults);
+        }
+        LOG.debug("Listed {} files in {} directories of {}, pruned {} paths",
+                fileCount, directoryCount, Arrays.toString(paths), prunedCount);
+        return result;
+    }
+
+    /**
+     * @return the number of files listed by the last listing
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return the number of directories listed by the last listing
+     */
+    public int getDirectoryCount() {
+        return directoryCount;
+    }
+
+    /**
+     * @return the number of files and directories skipped by the pruner
+     */
+    public int getPrunedCount() {
+        return prunedCount;
+    }
+
+    /*
+     * Lists one directory, or processes one file matched by an input path
+     */
+    private <T> Listing<T> list(Task task, FileProcessor<T> processor) throws IOException {
+        Listing<T> listing = new Listing<>();
+        FileSystem fs = task.fs;
+        FileStatus status = task.status;
+        if (!status.isDirectory()) {
+            listing.add(status, processor.process(fs, status));
+            return listing;
+        }
+
+        listing.directories++;
+        Path directory = status.getPath();
+        // with a pruner, listing one directory at a time avoids listing the pruned ones
+        if (recursive && pruner == null && isObjectStore(fs)) {
+            RemoteIterator<LocatedFileStatus> files = fs.listFiles(directory, true);
+            while (files.hasNext()) {
+                LocatedFileStatus file = files.next();
+                if (acceptAll(directory, file.getPath())) {
+                    listing.add(file, processor.process(fs, file));
+                }
+            }
+            return listing;
+        }
+
+        RemoteIterator<LocatedFileStatus> entries = fs.listLocatedStatus(directory);
+        while (entries.hasNext()) {
+            LocatedFileStatus entry = entries.next();
+            if (!filter.accept(entry.getPath())) {
+                continue;
+            }
+            if (isPruned(entry.getPath())) {
+                listing.pruned++;
+                continue;
+            }
+            if (recursive && entry.isDirectory()) {
+                listing.subdirectories.add(new Task(fs, entry));
+            } else {
+                listing.add(entry, processor.process(fs, entry));
+            }
+        }
+        return listing;
+    }
+
+    /*
+     * A file of a flat listing is accepted if all the directories between
+     * the listed directory and the file are accepted, as they would be when
+     * listing one directory at a time
+     */
+    private boolean acceptAll(Path directory, Path file) {
+        String root = directory.toUri().getPath();
+        for (Path path = file; path != null && !path.toUri().getPath().equals(root); path = path.getParent()) {
+            if (!filter.accept(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPruned(Path path) {
+        return pruner != null && !pruner.accept(path);
+    }
+
+    private static boolean isObjectStore(FileSystem fs) {
+        String scheme = fs.getUri().getScheme();
+        return scheme != null && OBJECT_STORE_SCHEMES.contains(scheme.toLowerCase());
+    }
+
+    private static ExecutorService createExecutor(int size) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "pxf-lister-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static class Task {
+        private final FileSystem fs;
+        private final FileStatus status;
+
+        Task(FileSystem fs, FileStatus status) {
+            this.fs = fs;
+            this.status = status;
+        }
+    }
+
+    private static class Listing<T> {
+        private final Map<String, List<T>> results = new TreeMap<>();
+        private final List<Task> subdirectories = new ArrayList<>();
+        private int directories;
+        private int pruned;
+
+        void add(FileStatus file, List<T> fileResults) {
+            results.put(file.getPath().toString(), fileResults == null ? Collections.<T>emptyList() : fileResults);
+        }
+    }
+}
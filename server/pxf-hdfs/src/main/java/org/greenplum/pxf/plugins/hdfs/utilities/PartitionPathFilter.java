@@ -0,0 +1,308 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.greenplum.pxf.api.filter.CollectionOperandNode;
+import org.greenplum.pxf.api.filter.ColumnIndexOperandNode;
+import org.greenplum.pxf.api.filter.Node;
+import org.greenplum.pxf.api.filter.Operator;
+import org.greenplum.pxf.api.filter.OperatorNode;
+import org.greenplum.pxf.api.filter.ScalarOperandNode;
+import org.greenplum.pxf.api.filter.TreeTraverser;
+import org.greenplum.pxf.api.filter.TreeVisitor;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rejects the directories and files of a Hive style partitioned layout,
+ * e.g. /events/dt=2020-01-01/region=eu, that cannot hold rows matching the
+ * filter of the request. The filter is evaluated against the partition
+ * values of the path, see {@link HdfsUtilities#getPartitionValues(Path)},
+ * for the columns named like a partition. Comparisons the partition values
+ * cannot decide, like the ones on other columns, are unknown, and a path is
+ * only rejected when the filter is false whatever their outcome.
+ * <p>
+ * Integers, numerics, dates, timestamps and booleans are compared by value.
+ * Text is only compared for equality, as its ordering depends on the
+ * collation of the database, and floating point values are not compared.
+ */
+public class PartitionPathFilter implements PathFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionPathFilter.class);
+    private static final TreeTraverser TRAVERSER = new TreeTraverser();
+
+    private final Node root;
+    private final List<ColumnDescriptor> columnDescriptors;
+    private final Set<String> columnNames = new HashSet<>();
+
+    /**
+     * Constructs a PartitionPathFilter
+     *
+     * @param root              the parsed filter, which is only read
+     * @param columnDescriptors the columns of the table
+     */
+    public PartitionPathFilter(Node root, List<ColumnDescriptor> columnDescriptors) {
+        this.root = root;
+        this.columnDescriptors = columnDescriptors;
+        for (ColumnDescriptor columnDescriptor : columnDescriptors) {
+            columnNames.add(columnDescriptor.columnName().toLowerCase());
+        }
+    }
+
+    @Override
+    public boolean accept(Path path) {
+        Map<String, String> partitionValues = HdfsUtilities.getPartitionValues(path);
+        if (root == null || !hasPartitionColumn(partitionValues)) {
+            return true;
+        }
+        Evaluator evaluator = new Evaluator(partitionValues);
+        TRAVERSER.traverse(root, evaluator);
+        if (evaluator.getResult() == Truth.FALSE) {
+            LOG.debug("Pruned {}, its partition values {} do not match the filter", path, partitionValues);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean hasPartitionColumn(Map<String, String> partitionValues) {
+        for (String name : partitionValues.keySet()) {
+            if (columnNames.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Three-valued outcome of a part of the filter
+     */
+    private enum Truth {
+        TRUE, FALSE, UNKNOWN;
+
+        static Truth of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        Truth and(Truth other) {
+            if (this == FALSE || other == FALSE) return FALSE;
+            return this == TRUE && other == TRUE ? TRUE : UNKNOWN;
+        }
+
+        Truth or(Truth other) {
+            if (this == TRUE || other == TRUE) return TRUE;
+            return this == FALSE && other == FALSE ? FALSE : UNKNOWN;
+        }
+
+        Truth not() {
+            return this == UNKNOWN ? UNKNOWN : of(this == FALSE);
+        }
+    }
+
+    /**
+     * Evaluates the filter bottom-up, keeping the outcome of every operator
+     * on a stack until its parent operator is evaluated
+     */
+    private class Evaluator implements TreeVisitor {
+
+        private final Map<String, String> partitionValues;
+        private final Deque<Truth> outcomes = new ArrayDeque<>();
+
+        Evaluator(Map<String, String> partitionValues) {
+            this.partitionValues = partitionValues;
+        }
+
+        @Override
+        public Node before(Node node, final int level) {
+            return node;
+        }
+
+        @Override
+        public Node visit(Node node, final int level) {
+            return node;
+        }
+
+        @Override
+        public Node after(Node node, final int level) {
+            if (node instanceof OperatorNode) {
+                OperatorNode operatorNode = (OperatorNode) node;
+                switch (operatorNode.getOperator()) {
+                    case AND: {
+                        Truth right = pop(operatorNode.getRight());
+                        outcomes.push(pop(operatorNode.getLeft()).and(right));
+                        break;
+                    }
+                    case OR: {
+                        Truth right = pop(operatorNode.getRight());
+                        outcomes.push(pop(operatorNode.getLeft()).or(right));
+                        break;
+                    }
+                    case NOT: {
+                        Node operand = operatorNode.getLeft() != null ? operatorNode.getLeft() : operatorNode.getRight();
+                        outcomes.push(pop(operand).not());
+                        break;
+                    }
+                    default:
+                        outcomes.push(evaluate(operatorNode));
+                }
+            }
+            return node;
+        }
+
+        Truth getResult() {
+            return outcomes.size() == 1 ? outcomes.peek() : Truth.UNKNOWN;
+        }
+
+        /*
+         * Operands that are not operators, like a boolean column, are unknown
+         */
+        private Truth pop(Node operand) {
+            return operand instanceof OperatorNode && !outcomes.isEmpty() ? outcomes.pop() : Truth.UNKNOWN;
+        }
+
+        private Truth evaluate(OperatorNode operatorNode) {
+            Node left = operatorNode.getLeft();
+            if (!(left instanceof ColumnIndexOperandNode)) {
+                return Truth.UNKNOWN;
+            }
+            int index = ((ColumnIndexOperandNode) left).index();
+            if (index < 0 || index >= columnDescriptors.size()) {
+                return Truth.UNKNOWN;
+            }
+            ColumnDescriptor column = columnDescriptors.get(index);
+            String name = column.columnName().toLowerCase();
+            if (!partitionValues.containsKey(name)) {
+                return Truth.UNKNOWN;
+            }
+            String value = partitionValues.get(name);
+            Operator operator = operatorNode.getOperator();
+
+            switch (operator) {
+                case IS_NULL:
+                    return Truth.of(value == null);
+                case IS_NOT_NULL:
+                    return Truth.of(value != null);
+                case IN:
+                    if (value == null || !(operatorNode.getRight() instanceof CollectionOperandNode)) {
+                        return Truth.UNKNOWN;
+                    }
+                    Truth result = Truth.FALSE;
+                    for (String constant : ((CollectionOperandNode) operatorNode.getRight()).getData()) {
+                        result = result.or(compare(column.getDataType(), Operator.EQUALS, value, constant));
+                    }
+                    return result;
+                case EQUALS:
+                case NOT_EQUALS:
+                case LESS_THAN:
+                case LESS_THAN_OR_EQUAL:
+                case GREATER_THAN:
+                case GREATER_THAN_OR_EQUAL:
+                    if (value == null || !(operatorNode.getRight() instanceof ScalarOperandNode)) {
+                        return Truth.UNKNOWN;
+                    }
+                    String constant = ((ScalarOperandNode) operatorNode.getRight()).getValue();
+                    return compare(column.getDataType(), operator, value, constant);
+                default:
+                    return Truth.UNKNOWN;
+            }
+        }
+    }
+
+    /*
+     * Compares a partition value with a constant of the filter
+     */
+    private static Truth compare(DataType dataType, Operator operator, String value, String constant) {
+        if (constant == null) {
+            return Truth.UNKNOWN;
+        }
+        int comparison;
+        try {
+            switch (dataType) {
+                case SMALLINT:
+                case INTEGER:
+                case BIGINT:
+                case NUMERIC:
+                    comparison = new BigDecimal(value).compareTo(new BigDecimal(constant));
+                    break;
+                case DATE:
+                    comparison = Date.valueOf(value).compareTo(Date.valueOf(constant));
+                    break;
+                case TIMESTAMP:
+                    comparison = Timestamp.valueOf(value).compareTo(Timestamp.valueOf(constant));
+                    break;
+                case BOOLEAN:
+                    Boolean booleanValue = HdfsUtilities.parseBoolean(value);
+                    Boolean booleanConstant = HdfsUtilities.parseBoolean(constant);
+                    if (booleanValue == null || booleanConstant == null) {
+                        return Truth.UNKNOWN;
+                    }
+                    comparison = booleanValue.compareTo(booleanConstant);
+                    break;
+                case BPCHAR:
+                    value = StringUtils.stripEnd(value, " ");
+                    constant = StringUtils.stripEnd(constant, " ");
+                    // fall through
+                case TEXT:
+                case VARCHAR:
+                    if (operator != Operator.EQUALS && operator != Operator.NOT_EQUALS) {
+                        return Truth.UNKNOWN;
+                    }
+                    comparison = value.equals(constant) ? 0 : 1;
+                    break;
+                default:
+                    return Truth.UNKNOWN;
+            }
+        } catch (IllegalArgumentException e) {
+            // the value or the constant is not a valid value of the column type
+            return Truth.UNKNOWN;
+        }
+
+        switch (operator) {
+            case EQUALS:
+                return Truth.of(comparison == 0);
+            case NOT_EQUALS:
+                return Truth.of(comparison != 0);
+            case LESS_THAN:
+                return Truth.of(comparison < 0);
+            case LESS_THAN_OR_EQUAL:
+                return Truth.of(comparison <= 0);
+            case GREATER_THAN:
+                return Truth.of(comparison > 0);
+            case GREATER_THAN_OR_EQUAL:
+                return Truth.of(comparison >= 0);
+            default:
+                return Truth.UNKNOWN;
+        }
+    }
+}
@@ -19,19 +19,29 @@ package org.greenplum.pxf.plugins.hdfs.utilities;
  * under the License.
  */
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.io.compress.SplittableCompressionCodec;
 import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RecordReader;
 import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapreduce.security.TokenCache;
+import org.apache.hadoop.net.NetworkTopology;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * PxfInputFormat is not intended to read a specific format, hence it implements
@@ -39,9 +49,24 @@ import java.io.IOException;
  * FileInputFormat.getSplits from one point in PXF and get the splits which are
  * valid for the actual InputFormats, since all of them we use inherit
  * FileInputFormat but do not override getSplits.
+ * <p>
+ * The input paths are listed with a {@link ParallelFileLister}, listing up to
+ * pxf.fragmenter.listing.threads directories of a request at once (16 by
+ * default), and the splits of every file are computed as soon as it is
+ * listed. Setting the property to 1 falls back to the single threaded
+ * listing of FileInputFormat, unless partition directories are pruned.
+ * <p>
+ * The directories rejected by the partition filter, if one is set, are
+ * neither listed nor returned.
  */
 public class PxfInputFormat extends FileInputFormat {
 
+    static final String LISTING_THREADS_PROPERTY = "pxf.fragmenter.listing.threads";
+    private static final int DEFAULT_LISTING_THREADS = 16;
+    private static final double SPLIT_SLOP = 1.1;   // 10% slop, as in FileInputFormat
+
+    private PathFilter partitionFilter;
+
     @Override
     public RecordReader getRecordReader(InputSplit split,
                                         JobConf conf,
@@ -51,7 +76,40 @@ public class PxfInputFormat extends FileInputFormat {
 
     @Override
     public FileStatus[] listStatus(JobConf job) throws IOException {
-        return super.listStatus(job);
+        int threads = getListingThreads(job);
+        if (threads <= 1 && partitionFilter == null) {
+            return super.listStatus(job);
+        }
+        List<FileStatus> files = newLister(job, threads)
+                .list(getListedPaths(job), (fs, file) -> Collections.singletonList(file));
+        return files.toArray(new FileStatus[0]);
+    }
+
+    /**
+     * Returns the same splits as FileInputFormat, computing the splits of
+     * the files while the directories are listed. Only the splits for the
+     * single split hint used by PXF are computed this way.
+     *
+     * @param job       the job configuration
+     * @param numSplits the number of splits hint
+     * @return the splits of the input paths
+     * @throws IOException if the input paths could not be listed
+     */
+    @Override
+    public InputSplit[] getSplits(JobConf job, int numSplits) throws IOException {
+        int threads = getListingThreads(job);
+        if ((threads <= 1 && partitionFilter == null) || numSplits != 1) {
+            return super.getSplits(job, numSplits);
+        }
+
+        // with a single split hint, the goal size never limits the split size
+        final long minSize = Math.max(job.getLong(org.apache.hadoop.mapreduce.lib.input.
+                FileInputFormat.SPLIT_MINSIZE, 1), 1);
+        ParallelFileLister lister = newLister(job, threads);
+        List<FileSplit> splits = lister.list(getListedPaths(job),
+                (fs, file) -> computeSplits(fs, file, minSize));
+        job.setLong(NUM_INPUT_FILES, lister.getFileCount());
+        return splits.toArray(new InputSplit[0]);
     }
 
     /**
@@ -69,4 +127,86 @@ public class PxfInputFormat extends FileInputFormat {
 
         return null == codec || codec instanceof SplittableCompressionCodec;
     }
+
+    /**
+     * Sets the filter of the partition directories to skip.
+     *
+     * @param partitionFilter the filter, or null not to skip any directory
+     */
+    public void setPartitionFilter(PathFilter partitionFilter) {
+        this.partitionFilter = partitionFilter;
+    }
+
+    /**
+     * Returns the maximum number of directories listed at once for a request.
+     *
+     * @param configuration the configuration of the server
+     * @return the number of listing threads
+     */
+    public static int getListingThreads(Configuration configuration) {
+        return configuration.getInt(LISTING_THREADS_PROPERTY, DEFAULT_LISTING_THREADS);
+    }
+
+    private ParallelFileLister newLister(JobConf job, int threads) {
+        final PathFilter userFilter = getInputPathFilter(job);
+        PathFilter filter = path -> {
+            String name = path.getName();
+            return !name.startsWith("_") && !name.startsWith(".") &&
+                    (userFilter == null || userFilter.accept(path));
+        };
+        return new ParallelFileLister(job, filter, partitionFilter, job.getBoolean(INPUT_DIR_RECURSIVE, false), threads);
+    }
+
+    private Path[] getListedPaths(JobConf job) throws IOException {
+        Path[] dirs = getInputPaths(job);
+        if (dirs.length == 0) {
+            throw new IOException("No input paths specified in job");
+        }
+        // get tokens for all the required FileSystems
+        TokenCache.obtainTokensForNamenodes(job.getCredentials(), dirs, job);
+        return dirs;
+    }
+
+    /*
+     * Computes the splits of one file as FileInputFormat.getSplits does
+     */
+    private List<FileSplit> computeSplits(FileSystem fs, FileStatus file, long minSize) throws IOException {
+        Path path = file.getPath();
+        if (file.isDirectory()) {
+            throw new IOException("Not a file: " + path);
+        }
+        long length = file.getLen();
+        List<FileSplit> splits = new ArrayList<>();
+        if (length == 0) {
+            // create empty hosts array for zero length files
+            splits.add(makeSplit(path, 0, length, new String[0]));
+            return splits;
+        }
+
+        BlockLocation[] blkLocations = (file instanceof LocatedFileStatus) ?
+                ((LocatedFileStatus) file).getBlockLocations() :
+                fs.getFileBlockLocations(file, 0, length);
+        NetworkTopology clusterMap = new NetworkTopology();
+        if (isSplitable(fs, path)) {
+            long splitSize = computeSplitSize(Long.MAX_VALUE, minSize, file.getBlockSize());
+            long bytesRemaining = length;
+            while (((double) bytesRemaining) / splitSize > SPLIT_SLOP) {
+                String[][] splitHosts = getSplitHostsAndCachedHosts(blkLocations,
+                        length - bytesRemaining, splitSize, clusterMap);
+                splits.add(makeSplit(path, length - bytesRemaining, splitSize,
+                        splitHosts[0], splitHosts[1]));
+                bytesRemaining -= splitSize;
+            }
+            if (bytesRemaining != 0) {
+                String[][] splitHosts = getSplitHostsAndCachedHosts(blkLocations,
+                        length - bytesRemaining, bytesRemaining, clusterMap);
+                splits.add(makeSplit(path, length - bytesRemaining, bytesRemaining,
+                        splitHosts[0], splitHosts[1]));
+            }
+        } else {
+            String[][] splitHosts = getSplitHostsAndCachedHosts(blkLocations, 0, length, clusterMap);
+            splits.add(makeSplit(path, 0, length, splitHosts[0], splitHosts[1]));
+        }
+        return splits;
+    }
 }
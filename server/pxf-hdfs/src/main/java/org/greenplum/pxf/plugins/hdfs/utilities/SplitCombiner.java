@@ -0,0 +1,128 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs small splits into groups, each read as a single fragment, similar to
+ * Hadoop's CombineFileInputFormat. Splits of at least the target size are
+ * left alone. Smaller splits are first packed with the splits stored on the
+ * same host, in the order they are listed, until a group reaches the target
+ * size or the maximum number of splits. The remaining splits of all hosts
+ * are then packed together.
+ */
+public class SplitCombiner {
+
+    private final long targetSize;
+    private final int maxSplits;
+
+    /**
+     * Constructs a SplitCombiner
+     *
+     * @param targetSize the size in bytes a group of splits is filled up to
+     * @param maxSplits  the maximum number of splits in a group
+     */
+    public SplitCombiner(long targetSize, int maxSplits) {
+        this.targetSize = targetSize;
+        this.maxSplits = maxSplits;
+    }
+
+    /**
+     * Packs the splits into groups.
+     *
+     * @param splits the splits, all of them must be {@link FileSplit}s
+     * @return the groups of splits
+     * @throws IOException if the locations of a split could not be read
+     */
+    public List<List<FileSplit>> combine(List<InputSplit> splits) throws IOException {
+        List<List<FileSplit>> groups = new ArrayList<>();
+        Map<String, List<FileSplit>> splitsByHost = new LinkedHashMap<>();
+        for (InputSplit split : splits) {
+            FileSplit fileSplit = (FileSplit) split;
+            if (fileSplit.getLength() >= targetSize) {
+                groups.add(Collections.singletonList(fileSplit));
+                continue;
+            }
+            String[] hosts = fileSplit.getLocations();
+            String host = (hosts == null || hosts.length == 0) ? "" : hosts[0];
+            splitsByHost.computeIfAbsent(host, k -> new ArrayList<>()).add(fileSplit);
+        }
+
+        List<FileSplit> remaining = new ArrayList<>();
+        for (List<FileSplit> hostSplits : splitsByHost.values()) {
+            remaining.addAll(pack(hostSplits, groups));
+        }
+        List<FileSplit> last = pack(remaining, groups);
+        if (!last.isEmpty()) {
+            groups.add(last);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the hosts storing all the splits of a group, or the hosts of
+     * the first split if no host stores all of them.
+     *
+     * @param group the group of splits
+     * @return the hosts of the group
+     * @throws IOException if the locations of a split could not be read
+     */
+    public static String[] getCommonHosts(List<FileSplit> group) throws IOException {
+        String[] firstHosts = group.get(0).getLocations();
+        if (firstHosts == null) {
+            return null;
+        }
+        List<String> hosts = new ArrayList<>(Arrays.asList(firstHosts));
+        for (int i = 1; i < group.size() && !hosts.isEmpty(); i++) {
+            String[] splitHosts = group.get(i).getLocations();
+            hosts.retainAll(splitHosts == null ? Collections.<String>emptyList() : Arrays.asList(splitHosts));
+        }
+        return hosts.isEmpty() ? firstHosts : hosts.toArray(new String[0]);
+    }
+
+    /*
+     * Adds the full groups to the result and returns the splits that did
+     * not fill a group
+     */
+    private List<FileSplit> pack(List<FileSplit> splits, List<List<FileSplit>> groups) {
+        List<FileSplit> group = new ArrayList<>();
+        long size = 0;
+        for (FileSplit split : splits) {
+            group.add(split);
+            size += split.getLength();
+            if (size >= targetSize || group.size() >= maxSplits) {
+                groups.add(group);
+                group = new ArrayList<>();
+                size = 0;
+            }
+        }
+        return group;
+    }
+}
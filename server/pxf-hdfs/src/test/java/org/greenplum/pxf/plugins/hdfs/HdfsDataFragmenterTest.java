@@ -1,17 +1,33 @@
 package org.greenplum.pxf.plugins.hdfs;
 
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.Fragment;
 import org.greenplum.pxf.api.model.Fragmenter;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.ListingCache;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class HdfsDataFragmenterTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void testFragmenterReturnsListOfFiles() throws Exception {
         String path = this.getClass().getClassLoader().getResource("csv/").getPath();
@@ -49,4 +65,201 @@ public class HdfsDataFragmenterTest {
         // empty.csv gets ignored
         assertEquals(3, fragmentList.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFragmenterDoesNotCacheListingsByDefault() throws Exception {
+        File dir = tempFolder.newFolder("uncached");
+        writeFile(new File(dir, "a.csv"));
+        ListingCache.getInstance().invalidateAll();
+        long misses = ListingCache.getInstance().getStats().get("misses");
+
+        assertEquals(1, getFragments(dir.getPath()).size());
+        assertEquals(1, getFragments(dir.getPath()).size());
+        assertEquals(misses, (long) ListingCache.getInstance().getStats().get("misses"));
+        assertEquals(0L, (long) ListingCache.getInstance().getStats().get("entries"));
+    }
+
+    @Test
+    public void testFragmenterListsDirectoryAgainWhenModified() throws Exception {
+        File dir = tempFolder.newFolder("listing");
+        writeFile(new File(dir, "a.csv"));
+        ListingCache.getInstance().invalidateAll();
+
+        assertEquals(1, getFragments(newCachingContext(dir.getPath())).size());
+        long hits = ListingCache.getInstance().getStats().get("hits");
+
+        // unchanged directory, the cached splits are used
+        assertEquals(1, getFragments(newCachingContext(dir.getPath())).size());
+        assertEquals(hits + 1, (long) ListingCache.getInstance().getStats().get("hits"));
+
+        // a new file changes the modification time of the directory
+        writeFile(new File(dir, "b.csv"));
+        assertTrue(dir.setLastModified(dir.lastModified() + 10000));
+        assertEquals(2, getFragments(newCachingContext(dir.getPath())).size());
+    }
+
+    @Test
+    public void testWriteDiscardsCachedListing() throws Exception {
+        File dir = tempFolder.newFolder("written");
+        writeFile(new File(dir, "a.csv"));
+        ListingCache.getInstance().invalidateAll();
+        assertEquals(1, getFragments(newCachingContext(dir.getPath())).size());
+        long modified = dir.lastModified();
+
+        RequestContext context = newCachingContext(dir.getPath());
+        context.setTransactionId("XID-1");
+        context.setSegmentId(0);
+        LineBreakAccessor accessor = new LineBreakAccessor();
+        accessor.initialize(context);
+        assertTrue(accessor.openForWrite());
+        assertTrue(accessor.writeNextObject(new OneRow(null, "4,5,6\n".getBytes(StandardCharsets.UTF_8))));
+        accessor.closeForWrite();
+        // the written file is listed even when the directory looks unchanged
+        assertTrue(dir.setLastModified(modified));
+
+        assertEquals(2, getFragments(newCachingContext(dir.getPath())).size());
+    }
+
+    @Test
+    public void testFragmenterPrunesPartitionDirectories() throws Exception {
+        File dir = tempFolder.newFolder("events");
+        for (String day : new String[]{"2020-01-01", "2020-01-02", "2020-01-03"}) {
+            File partition = new File(dir, "dt=" + day);
+            assertTrue(partition.mkdir());
+            writeFile(new File(partition, "a.csv"));
+        }
+        String path = dir.getPath() + "/*";
+
+        // dt >= '2020-01-02' AND id = 5
+        List<Fragment> fragments = getFragments(path, "a0c1082s10d2020-01-02o4a1c23s1d5o5l0");
+        assertEquals(2, fragments.size());
+        assertTrue(fragments.get(0).getSourceName().contains("/dt=2020-01-02/"));
+        assertTrue(fragments.get(1).getSourceName().contains("/dt=2020-01-03/"));
+
+        // dt = '2020-01-02' OR id = 5 cannot prune
+        assertEquals(3, getFragments(path, "a0c1082s10d2020-01-02o5a1c23s1d5o5l1").size());
+
+        // no partition matches dt = '2021-01-01'
+        assertEquals(0, getFragments(path, "a0c1082s10d2021-01-01o5").size());
+    }
+
+    private List<Fragment> getFragments(String path) throws Exception {
+        return getFragments(path, null);
+    }
+
+    private List<Fragment> getFragments(String path, String filter) throws Exception {
+        return getFragments(newContext(path, filter));
+    }
+
+    private List<Fragment> getFragments(RequestContext context) throws Exception {
+        Fragmenter fragmenter = new HdfsDataFragmenter();
+        fragmenter.initialize(context);
+        return fragmenter.getFragments();
+    }
+
+    private RequestContext newCachingContext(String path) {
+        RequestContext context = newContext(path, null);
+        context.setAdditionalConfigProps(
+                Collections.singletonMap(HdfsDataFragmenter.LISTING_CACHE_ENABLED_PROPERTY, "true"));
+        return context;
+    }
+
+    private RequestContext newContext(String path, String filter) {
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setProfileScheme("localfile");
+        context.setDataSource(path);
+        context.setFilterString(filter);
+        context.getTupleDescription().add(new ColumnDescriptor("dt", DataType.DATE.getOID(), 0, "date", null));
+        context.getTupleDescription().add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 1, "int4", null));
+        return context;
+    }
+
+    private void writeFile(File file) throws Exception {
+        Files.write(file.toPath(), "1,2,3\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFragmenterCombinesSmallFiles() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setProfileScheme("localfile");
+        context.setDataSource(path);
+        context.setAccessor(LineBreakAccessor.class.getName());
+        context.addOption("COMBINE_SIZE", "1m");
+
+        Fragmenter fragmenter = new HdfsDataFragmenter();
+        fragmenter.initialize(context);
+
+        List<Fragment> fragmentList = fragmenter.getFragments();
+        assertEquals(1, fragmentList.size());
+
+        // the combined fragment is read file after file
+        Fragment fragment = fragmentList.get(0);
+        RequestContext readContext = new RequestContext();
+        readContext.setConfig("default");
+        readContext.setUser("test-user");
+        readContext.setProfileScheme("localfile");
+        readContext.setRequestType(RequestContext.RequestType.READ_BRIDGE);
+        readContext.setDataSource(fragment.getSourceName());
+        readContext.setFragmentMetadata(fragment.getMetadata());
+        readContext.setFragmentUserData(fragment.getUserData());
+
+        Accessor accessor = new LineBreakAccessor();
+        accessor.initialize(readContext);
+        assertTrue(accessor.openForRead());
+        List<String> lines = new ArrayList<>();
+        OneRow row;
+        while ((row = accessor.readNextObject()) != null) {
+            lines.add(row.getData().toString());
+        }
+        accessor.closeForRead();
+
+        List<String> expected = new ArrayList<>();
+        for (String name : new String[]{"quoted.csv", "simple.csv", "singleline.csv"}) {
+            expected.addAll(Files.readAllLines(new File(path, name).toPath(), StandardCharsets.UTF_8));
+        }
+        Collections.sort(lines);
+        Collections.sort(expected);
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    public void testFragmenterDoesNotCombineForOtherAccessors() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setProfileScheme("localfile");
+        context.setDataSource(path);
+        context.setAccessor(QuotedLineBreakAccessor.class.getName());
+        context.addOption("COMBINE_SIZE", "1m");
+
+        Fragmenter fragmenter = new HdfsDataFragmenter();
+        fragmenter.initialize(context);
+
+        assertEquals(3, fragmenter.getFragments().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFragmenterInvalidCombineSize() throws Exception {
+        String path = this.getClass().getClassLoader().getResource("csv/").getPath();
+
+        RequestContext context = new RequestContext();
+        context.setConfig("default");
+        context.setUser("test-user");
+        context.setProfileScheme("localfile");
+        context.setDataSource(path);
+        context.setAccessor(LineBreakAccessor.class.getName());
+        context.addOption("COMBINE_SIZE", "lots");
+
+        Fragmenter fragmenter = new HdfsDataFragmenter();
+        fragmenter.initialize(context);
+        fragmenter.getFragments();
+    }
+}
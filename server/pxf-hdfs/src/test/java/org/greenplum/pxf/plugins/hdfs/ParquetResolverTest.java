@@ -216,6 +216,31 @@ public class ParquetResolverTest {
         assertTrue(fields.isEmpty());
     }
 
+    @Test
+    public void testGetFields_PartitionColumns() {
+        schema = new MessageType("test",
+                new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.INT32, "id"));
+        context.setMetadata(schema);
+        context.setDataSource("/events/dt=2020-01-01/region=eu/count=__HIVE_DEFAULT_PARTITION__/part-0.parquet");
+        List<ColumnDescriptor> columnDescriptors = new ArrayList<>();
+        columnDescriptors.add(new ColumnDescriptor("dt", DataType.DATE.getOID(), 0, "date", null));
+        columnDescriptors.add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 1, "int4", null));
+        columnDescriptors.add(new ColumnDescriptor("region", DataType.TEXT.getOID(), 2, "text", null));
+        columnDescriptors.add(new ColumnDescriptor("count", DataType.BIGINT.getOID(), 3, "int8", null));
+        context.setTupleDescription(columnDescriptors);
+        resolver.initialize(context);
+
+        Group group = new SimpleGroup(schema);
+        group.add(0, 7);
+        List<OneField> fields = resolver.getFields(new OneRow(group));
+
+        assertEquals(4, fields.size());
+        assertField(fields, 0, "2020-01-01", DataType.DATE);
+        assertField(fields, 1, 7, DataType.INTEGER);
+        assertField(fields, 2, "eu", DataType.TEXT);
+        assertField(fields, 3, null, DataType.BIGINT);
+    }
+
     @Test
     public void testGetFields_Primitive() throws IOException {
         schema = getParquetSchemaForPrimitiveTypes(Type.Repetition.OPTIONAL, true);
@@ -30,7 +30,9 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -125,6 +127,17 @@ public class SequenceFileAccessorTest {
         prepareTest("org.apache.hadoop.io.compress.BZip2Codec", "NONE");
     }
 
+    @Test
+    public void bzip2ThreadSafety() throws Exception {
+        context.setRequestType(RequestContext.RequestType.WRITE_BRIDGE);
+        prepareTest("org.apache.hadoop.io.compress.BZip2Codec", null);
+        assertFalse(accessor.isThreadSafe());
+
+        // every record reader gets its own codec instances
+        context.setRequestType(RequestContext.RequestType.READ_BRIDGE);
+        assertTrue(accessor.isThreadSafe());
+    }
+
     /*
      * After each test is done, close the accessor if it was created
      */
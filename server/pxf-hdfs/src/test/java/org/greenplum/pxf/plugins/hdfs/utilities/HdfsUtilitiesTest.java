@@ -20,20 +20,29 @@ package org.greenplum.pxf.plugins.hdfs.utilities;
  */
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.FileSplit;
 import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.hdfs.CodecFactory;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class HdfsUtilitiesTest {
 
@@ -111,4 +120,84 @@ public class HdfsUtilitiesTest {
         assertEquals(fileSplit.getLength(), 100);
         assertEquals(fileSplit.getPath().toString(), "/abc/path/to/data/source");
     }
+
+    @Test
+    public void testCombinedFragmentUserDataRoundTrip() throws Exception {
+        List<FileSplit> splits = Arrays.asList(
+                new FileSplit(new Path("s3a://bucket/landing/2020/a.csv"), 0, 10, new String[]{"h1"}),
+                new FileSplit(new Path("s3a://bucket/landing/2020/b.csv"), 0, 20, new String[]{"h2"}),
+                new FileSplit(new Path("s3a://bucket/landing/2021/c.csv"), 5, 30, new String[]{"h1"}));
+
+        byte[] userData = HdfsUtilities.prepareCombinedFragmentUserData(splits);
+        List<FileSplit> parsed = HdfsUtilities.parseCombinedFileSplits(userData);
+
+        assertEquals(3, parsed.size());
+        for (int i = 0; i < splits.size(); i++) {
+            assertEquals(splits.get(i).getPath(), parsed.get(i).getPath());
+            assertEquals(splits.get(i).getStart(), parsed.get(i).getStart());
+            assertEquals(splits.get(i).getLength(), parsed.get(i).getLength());
+        }
+    }
+
+    @Test
+    public void testGetPartitionValues() {
+        Map<String, String> values = HdfsUtilities.getPartitionValues(
+                new Path("s3a://bucket/events/DT=2020-01-01/region=a%3Db/hour=__HIVE_DEFAULT_PARTITION__/part-0.parquet"));
+
+        assertEquals(Arrays.asList("dt", "region", "hour"), new ArrayList<>(values.keySet()));
+        assertEquals("2020-01-01", values.get("dt"));
+        assertEquals("a=b", values.get("region"));
+        assertNull(values.get("hour"));
+        assertTrue(values.containsKey("hour"));
+
+        assertTrue(HdfsUtilities.getPartitionValues(new Path("/events/2020/=x/part-0.csv")).isEmpty());
+    }
+
+    @Test
+    public void testGetPartitionField() {
+        OneField field = HdfsUtilities.getPartitionField(
+                new ColumnDescriptor("hour", DataType.INTEGER.getOID(), 0, "int4", null), "7");
+        assertEquals(DataType.INTEGER.getOID(), field.type);
+        assertEquals(7, field.val);
+
+        field = HdfsUtilities.getPartitionField(
+                new ColumnDescriptor("dt", DataType.DATE.getOID(), 0, "date", null), "2020-01-01");
+        assertEquals(DataType.DATE.getOID(), field.type);
+        assertEquals("2020-01-01", field.val);
+
+        field = HdfsUtilities.getPartitionField(
+                new ColumnDescriptor("hour", DataType.BIGINT.getOID(), 0, "int8", null), null);
+        assertEquals(DataType.BIGINT.getOID(), field.type);
+        assertNull(field.val);
+    }
+
+    @Test
+    public void testGetPartitionFieldOfBooleanAndBytea() {
+        ColumnDescriptor flag = new ColumnDescriptor("flag", DataType.BOOLEAN.getOID(), 0, "bool", null);
+        assertEquals(true, HdfsUtilities.getPartitionField(flag, "true").val);
+        assertEquals(true, HdfsUtilities.getPartitionField(flag, "t").val);
+        assertEquals(false, HdfsUtilities.getPartitionField(flag, "F").val);
+
+        OneField field = HdfsUtilities.getPartitionField(
+                new ColumnDescriptor("tag", DataType.BYTEA.getOID(), 0, "bytea", null), "caf\u00e9");
+        assertArrayEquals("caf\u00e9".getBytes(StandardCharsets.UTF_8), (byte[]) field.val);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPartitionFieldOfInvalidBoolean() {
+        HdfsUtilities.getPartitionField(
+                new ColumnDescriptor("flag", DataType.BOOLEAN.getOID(), 0, "bool", null), "yes");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPartitionFieldOfInvalidValue() {
+        HdfsUtilities.getPartitionField(
+                new ColumnDescriptor("hour", DataType.INTEGER.getOID(), 0, "int4", null), "x");
+    }
+
+    @Test
+    public void testParseCombinedFileSplitsOfOtherUserData() {
+        assertNull(HdfsUtilities.parseCombinedFileSplits(null));
+        assertNull(HdfsUtilities.parseCombinedFileSplits("org.apache.hadoop.mapred.TextInputFormat!HUDD!".getBytes()));
+    }
 }
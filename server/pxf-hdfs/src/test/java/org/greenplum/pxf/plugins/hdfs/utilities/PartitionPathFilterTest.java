@@ -0,0 +1,144 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import org.apache.hadoop.fs.Path;
+import org.greenplum.pxf.api.filter.FilterParser;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionPathFilterTest {
+
+    private static final Path JAN_1_EU = new Path("hdfs://namenode:8020/events/dt=2020-01-01/region=eu");
+    private static final Path JAN_2_US = new Path("hdfs://namenode:8020/events/dt=2020-01-02/region=us");
+
+    private List<ColumnDescriptor> columnDescriptors;
+
+    @Before
+    public void setup() {
+        columnDescriptors = new ArrayList<>();
+        columnDescriptors.add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null));
+        columnDescriptors.add(new ColumnDescriptor("dt", DataType.DATE.getOID(), 1, "date", null));
+        columnDescriptors.add(new ColumnDescriptor("Region", DataType.TEXT.getOID(), 2, "text", null));
+        columnDescriptors.add(new ColumnDescriptor("hour", DataType.SMALLINT.getOID(), 3, "int2", null));
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        // dt = '2020-01-01'
+        PartitionPathFilter filter = filter("a1c1082s10d2020-01-01o5");
+
+        assertTrue(filter.accept(JAN_1_EU));
+        assertFalse(filter.accept(JAN_2_US));
+        // the files of a rejected directory are rejected as well
+        assertFalse(filter.accept(new Path(JAN_2_US, "part-0.parquet")));
+        // paths above the partitions, and other paths, are accepted
+        assertTrue(filter.accept(new Path("hdfs://namenode:8020/events")));
+        assertTrue(filter.accept(new Path("hdfs://namenode:8020/other/file.csv")));
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        // dt > '2020-01-01' AND dt <= '2020-01-31'
+        PartitionPathFilter filter = filter("a1c1082s10d2020-01-01o2a1c1082s10d2020-01-31o3l0");
+
+        assertFalse(filter.accept(JAN_1_EU));
+        assertTrue(filter.accept(JAN_2_US));
+        assertFalse(filter.accept(new Path("/events/dt=2020-02-01")));
+    }
+
+    @Test
+    public void testNumbersAreComparedByValue() throws Exception {
+        // hour < 10
+        PartitionPathFilter filter = filter("a3c23s2d10o1");
+
+        assertTrue(filter.accept(new Path("/events/hour=9")));
+        assertTrue(filter.accept(new Path("/events/hour=09")));
+        assertFalse(filter.accept(new Path("/events/hour=10")));
+        assertFalse(filter.accept(new Path("/events/hour=100")));
+        // not a number, unknown
+        assertTrue(filter.accept(new Path("/events/hour=x")));
+    }
+
+    @Test
+    public void testTextIsOnlyComparedForEquality() throws Exception {
+        // region = 'eu', the partition name is matched ignoring case
+        PartitionPathFilter filter = filter("a2c25s2deuo5");
+        assertTrue(filter.accept(JAN_1_EU));
+        assertFalse(filter.accept(JAN_2_US));
+
+        // region > 'eu' depends on the collation
+        filter = filter("a2c25s2deuo2");
+        assertTrue(filter.accept(JAN_1_EU));
+        assertTrue(filter.accept(JAN_2_US));
+    }
+
+    @Test
+    public void testFiltersOnOtherColumnsAreUnknown() throws Exception {
+        // dt = '2020-01-01' AND id = 5
+        PartitionPathFilter filter = filter("a1c1082s10d2020-01-01o5a0c23s1d5o5l0");
+        assertTrue(filter.accept(JAN_1_EU));
+        assertFalse(filter.accept(JAN_2_US));
+
+        // dt = '2020-01-01' OR id = 5
+        filter = filter("a1c1082s10d2020-01-01o5a0c23s1d5o5l1");
+        assertTrue(filter.accept(JAN_1_EU));
+        assertTrue(filter.accept(JAN_2_US));
+
+        // NOT (dt = '2020-01-01' AND id = 5)
+        filter = filter("a1c1082s10d2020-01-01o5a0c23s1d5o5l0l2");
+        assertTrue(filter.accept(JAN_1_EU));
+        assertTrue(filter.accept(JAN_2_US));
+    }
+
+    @Test
+    public void testNot() throws Exception {
+        // NOT (region = 'eu')
+        PartitionPathFilter filter = filter("a2c25s2deuo5l2");
+
+        assertFalse(filter.accept(JAN_1_EU));
+        assertTrue(filter.accept(JAN_2_US));
+    }
+
+    @Test
+    public void testIn() throws Exception {
+        // region IN ('eu', 'apac')
+        PartitionPathFilter filter = filter("a2m1009s2deus4dapaco10");
+
+        assertTrue(filter.accept(JAN_1_EU));
+        assertFalse(filter.accept(JAN_2_US));
+    }
+
+    @Test
+    public void testDefaultPartitionIsNull() throws Exception {
+        Path defaultPartition = new Path("/events/region=__HIVE_DEFAULT_PARTITION__");
+
+        // region IS NULL
+        PartitionPathFilter filter = filter("a2o8");
+        assertTrue(filter.accept(defaultPartition));
+        assertFalse(filter.accept(JAN_1_EU));
+
+        // region = 'eu' is never true for nulls, but not pruned
+        filter = filter("a2c25s2deuo5");
+        assertTrue(filter.accept(defaultPartition));
+    }
+
+    @Test
+    public void testEscapedValues() throws Exception {
+        // region = 'a/b'
+        PartitionPathFilter filter = filter("a2c25s3da/bo5");
+
+        assertTrue(filter.accept(new Path("/events/region=a%2Fb")));
+        assertFalse(filter.accept(new Path("/events/region=a%2Fc")));
+    }
+
+    private PartitionPathFilter filter(String filterString) throws Exception {
+        return new PartitionPathFilter(new FilterParser().parse(filterString), columnDescriptors);
+    }
+}
@@ -1,21 +1,38 @@
 package org.greenplum.pxf.plugins.hdfs.utilities;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class PxfInputFormatTest {
 
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void testGetRecordReader() throws IOException {
         thrown.expect(UnsupportedOperationException.class);
@@ -44,4 +61,139 @@ public class PxfInputFormatTest {
         boolean result = new PxfInputFormat().isSplitable(fs, path);
         assertEquals(description, result, expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParallelSplitsMatchFileInputFormat() throws IOException {
+        File dir = createTree();
+
+        List<String> expected = getSplits(dir.getPath(), 1, true);
+        List<String> actual = getSplits(dir.getPath(), 4, true);
+
+        assertEquals(expected, actual);
+        // a.txt is split in blocks, hidden files and directories are skipped
+        assertEquals(Arrays.asList("a.txt:0:1024", "a.txt:1024:1024", "a.txt:2048:952",
+                "b.txt:0:10", "c.txt:0:10", "empty.txt:0:0"), actual);
+    }
+
+    @Test
+    public void testParallelSplitsOfWildcardPath() throws IOException {
+        File dir = createTree();
+
+        List<String> expected = getSplits(dir.getPath() + "/*.txt", 1, false);
+        List<String> actual = getSplits(dir.getPath() + "/*.txt", 4, false);
+
+        assertEquals(expected, actual);
+        assertEquals(5, actual.size());
+    }
+
+    @Test
+    public void testParallelListStatusMatchesFileInputFormat() throws IOException {
+        File dir = createTree();
+
+        assertEquals(listStatus(dir.getPath(), 1), listStatus(dir.getPath(), 4));
+    }
+
+    @Test
+    public void testParallelSplitsOfDirectoryWithSubdirectory() throws IOException {
+        File dir = createTree();
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("Not a file");
+        getSplits(dir.getPath(), 4, false);
+    }
+
+    @Test
+    public void testParallelSplitsOfPatternMatchingNothing() throws IOException {
+        File dir = createTree();
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage("matches 0 files");
+        getSplits(dir.getPath() + "/*.csv", 4, false);
+    }
+
+    @Test
+    public void testPartitionFilterSkipsDirectories() throws IOException {
+        File dir = tempFolder.newFolder("events");
+        for (String day : new String[]{"2020-01-01", "2020-01-02"}) {
+            File partition = new File(dir, "dt=" + day);
+            assertTrue(partition.mkdir());
+            writeFile(new File(partition, "a.txt"), 10);
+        }
+        List<Path> filtered = Collections.synchronizedList(new ArrayList<>());
+        PxfInputFormat pxfInputFormat = new PxfInputFormat();
+        pxfInputFormat.setPartitionFilter(path -> {
+            filtered.add(path);
+            return !path.getName().equals("dt=2020-01-01");
+        });
+
+        // a single listing thread still prunes
+        InputSplit[] splits = pxfInputFormat.getSplits(jobConf(dir.getPath(), 1, true), 1);
+
+        assertEquals(1, splits.length);
+        assertEquals("dt=2020-01-02", ((FileSplit) splits[0]).getPath().getParent().getName());
+        // the pruned directory was not listed
+        for (Path path : filtered) {
+            assertFalse(path.toString().contains("dt=2020-01-01/"));
+        }
+
+        // an input pattern whose matches are all pruned has no splits
+        pxfInputFormat.setPartitionFilter(path -> false);
+        assertEquals(0, pxfInputFormat.getSplits(jobConf(dir.getPath() + "/dt=*", 4, true), 1).length);
+    }
+
+    /*
+     * dir/a.txt (3000 bytes), dir/b.txt, dir/empty.txt, dir/_SUCCESS,
+     * dir/.hidden, dir/sub/c.txt and dir/_temporary/d.txt
+     */
+    private File createTree() throws IOException {
+        File dir = tempFolder.newFolder("tree");
+        writeFile(new File(dir, "a.txt"), 3000);
+        writeFile(new File(dir, "b.txt"), 10);
+        writeFile(new File(dir, "empty.txt"), 0);
+        writeFile(new File(dir, "_SUCCESS"), 10);
+        writeFile(new File(dir, ".hidden"), 10);
+        File sub = new File(dir, "sub");
+        assertTrue(sub.mkdir());
+        writeFile(new File(sub, "c.txt"), 10);
+        File temporary = new File(dir, "_temporary");
+        assertTrue(temporary.mkdir());
+        writeFile(new File(temporary, "d.txt"), 10);
+        return dir;
+    }
+
+    private void writeFile(File file, int length) throws IOException {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) 'x');
+        Files.write(file.toPath(), data);
+    }
+
+    private JobConf jobConf(String path, int threads, boolean recursive) {
+        JobConf jobConf = new JobConf();
+        // a cached filesystem would keep the block size it was created with
+        jobConf.setBoolean("fs.file.impl.disable.cache", true);
+        jobConf.setLong("fs.local.block.size", 1024);
+        jobConf.setInt(PxfInputFormat.LISTING_THREADS_PROPERTY, threads);
+        jobConf.setBoolean(FileInputFormat.INPUT_DIR_RECURSIVE, recursive);
+        FileInputFormat.setInputPaths(jobConf, new Path(path));
+        return jobConf;
+    }
+
+    private List<String> getSplits(String path, int threads, boolean recursive) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (InputSplit split : new PxfInputFormat().getSplits(jobConf(path, threads, recursive), 1)) {
+            FileSplit fileSplit = (FileSplit) split;
+            result.add(fileSplit.getPath().getName() + ":" + fileSplit.getStart() + ":" + fileSplit.getLength());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private List<String> listStatus(String path, int threads) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (FileStatus status : new PxfInputFormat().listStatus(jobConf(path, threads, true))) {
+            result.add(status.getPath().toString());
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
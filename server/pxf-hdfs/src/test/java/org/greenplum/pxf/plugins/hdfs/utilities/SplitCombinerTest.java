@@ -0,0 +1,89 @@
+package org.greenplum.pxf.plugins.hdfs.utilities;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SplitCombinerTest {
+
+    @Test
+    public void testLargeSplitsAreNotCombined() throws Exception {
+        List<InputSplit> splits = new ArrayList<>();
+        splits.add(split("big", 100, "h1"));
+        splits.add(split("small", 10, "h1"));
+
+        List<List<FileSplit>> groups = new SplitCombiner(100, 1000).combine(splits);
+
+        assertEquals(2, groups.size());
+        assertEquals(Arrays.asList(splits.get(0)), groups.get(0));
+        assertEquals(Arrays.asList(splits.get(1)), groups.get(1));
+    }
+
+    @Test
+    public void testSmallSplitsArePackedPerHost() throws Exception {
+        List<InputSplit> splits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            splits.add(split("a" + i, 50, "h1"));
+            splits.add(split("b" + i, 50, "h2"));
+        }
+
+        List<List<FileSplit>> groups = new SplitCombiner(100, 1000).combine(splits);
+
+        assertEquals(4, groups.size());
+        for (List<FileSplit> group : groups) {
+            assertEquals(2, group.size());
+            assertArrayEquals(group.get(0).getLocations(), SplitCombiner.getCommonHosts(group));
+        }
+    }
+
+    @Test
+    public void testRemainingSplitsOfAllHostsArePackedTogether() throws Exception {
+        List<InputSplit> splits = new ArrayList<>();
+        splits.add(split("a", 30, "h1"));
+        splits.add(split("b", 30, "h2"));
+        splits.add(split("c", 30, "h3"));
+
+        List<List<FileSplit>> groups = new SplitCombiner(100, 1000).combine(splits);
+
+        assertEquals(1, groups.size());
+        assertEquals(3, groups.get(0).size());
+        // no host stores all the splits, the hosts of the first one are used
+        assertArrayEquals(new String[]{"h1"}, SplitCombiner.getCommonHosts(groups.get(0)));
+    }
+
+    @Test
+    public void testGroupsAreLimitedInNumberOfSplits() throws Exception {
+        List<InputSplit> splits = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            splits.add(split("f" + i, 1, "h1"));
+        }
+
+        List<List<FileSplit>> groups = new SplitCombiner(1000, 3).combine(splits);
+
+        assertEquals(3, groups.size());
+        assertEquals(3, groups.get(0).size());
+        assertEquals(3, groups.get(1).size());
+        assertEquals(1, groups.get(2).size());
+    }
+
+    @Test
+    public void testCommonHosts() throws Exception {
+        List<FileSplit> group = Arrays.asList(
+                new FileSplit(new Path("/a"), 0, 1, new String[]{"h1", "h2", "h3"}),
+                new FileSplit(new Path("/b"), 0, 1, new String[]{"h3", "h2"}));
+
+        assertArrayEquals(new String[]{"h2", "h3"}, SplitCombiner.getCommonHosts(group));
+    }
+
+    private FileSplit split(String name, long length, String host) {
+        return new FileSplit(new Path("/data/" + name), 0, length, new String[]{host});
+    }
+}
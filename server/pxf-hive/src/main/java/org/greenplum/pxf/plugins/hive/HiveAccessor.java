@@ -28,7 +28,7 @@ import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.Reporter;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.filter.ColumnIndexOperandNode;
-import org.greenplum.pxf.api.filter.FilterParser;
+import org.greenplum.pxf.api.filter.FilterCache;
 import org.greenplum.pxf.api.filter.Node;
 import org.greenplum.pxf.api.filter.OperandNode;
 import org.greenplum.pxf.api.filter.Operator;
@@ -227,7 +227,8 @@ public class HiveAccessor extends HdfsSplittableDataAccessor {
         }
 
         String filterStr = context.getFilterString();
-        Node root = new FilterParser().parse(filterStr);
+        // the parsed tree is shared by all fragments of the query, it is only read
+        Node root = FilterCache.getInstance().getParsedTree(context);
         boolean returnData = isFiltered(partitions, root);
 
         if (LOG.isDebugEnabled()) {
@@ -0,0 +1,361 @@
+package org.greenplum.pxf.plugins.hive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.MetaStoreUtils;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool of {@link IMetaStoreClient}s, so that requests to the same Hive
+ * MetaStore as the same login user reuse open connections instead of
+ * connecting for every request. Clients are pooled by a key given by the
+ * caller, e.g. the server, the MetaStore URIs and the login user.
+ * <p>
+ * A borrowed client is returned to the pool by closing it. At most
+ * pxf.service.hive.client.pool.size clients are open for a key, a request
+ * waits for a client to be returned for pxf.service.hive.client.pool.wait.ms
+ * milliseconds before failing. A size of zero disables pooling, clients are
+ * then created for every request and closed by the caller.
+ * <p>
+ * Clients idle for more than pxf.service.hive.client.pool.idle.ms
+ * milliseconds are closed. Clients idle for more than
+ * pxf.service.hive.client.pool.validation.ms milliseconds are checked with
+ * a cheap MetaStore call before being reused. A call that fails with a
+ * transport error is retried once on a new connection, which is safe as PXF
+ * only reads from the MetaStore.
+ */
+class HiveClientPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HiveClientPool.class);
+
+    static final String PROPERTY_KEY_POOL_SIZE = "pxf.service.hive.client.pool.size";
+    static final String PROPERTY_KEY_MAX_WAIT = "pxf.service.hive.client.pool.wait.ms";
+    static final String PROPERTY_KEY_MAX_IDLE = "pxf.service.hive.client.pool.idle.ms";
+    static final String PROPERTY_KEY_VALIDATION_INTERVAL = "pxf.service.hive.client.pool.validation.ms";
+
+    private static final int DEFAULT_POOL_SIZE = 8;
+    private static final long DEFAULT_MAX_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DEFAULT_MAX_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final int poolSize;
+    private final long maxWaitMillis;
+    private final long maxIdleNanos;
+    private final long validationIntervalNanos;
+    private final Ticker ticker;
+    private final ConcurrentMap<String, KeyedPool> pools = new ConcurrentHashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    HiveClientPool() {
+        this(Integer.getInteger(PROPERTY_KEY_POOL_SIZE, DEFAULT_POOL_SIZE),
+                Long.getLong(PROPERTY_KEY_MAX_WAIT, DEFAULT_MAX_WAIT_MILLIS),
+                Long.getLong(PROPERTY_KEY_MAX_IDLE, DEFAULT_MAX_IDLE_MILLIS),
+                Long.getLong(PROPERTY_KEY_VALIDATION_INTERVAL, DEFAULT_VALIDATION_INTERVAL_MILLIS),
+                Ticker.systemTicker());
+    }
+
+    HiveClientPool(int poolSize, long maxWaitMillis, long maxIdleMillis,
+                   long validationIntervalMillis, Ticker ticker) {
+        this.poolSize = poolSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleMillis);
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns an idle client of the key, or a new client created with the
+     * connector when there is none. The client must be closed by the caller
+     * to return it to the pool.
+     *
+     * @param key       the key of the pool
+     * @param connector creates a new client
+     * @return the borrowed client
+     */
+    IMetaStoreClient borrow(String key, Supplier<IMetaStoreClient> connector) {
+        if (poolSize <= 0) {
+            created.incrementAndGet();
+            return connector.get();
+        }
+        evictIdle();
+
+        KeyedPool pool = pools.computeIfAbsent(key, k -> new KeyedPool(poolSize));
+        try {
+            if (!pool.permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new RuntimeException(String.format(
+                        "Timed out after %d ms waiting for one of the %d Hive MetaStore clients of %s",
+                        maxWaitMillis, poolSize, key));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a Hive MetaStore client", e);
+        }
+
+        try {
+            IMetaStoreClient client = takeIdle(pool);
+            if (client == null) {
+                client = connector.get();
+                created.incrementAndGet();
+                LOG.debug("Connected a new Hive MetaStore client for {}", key);
+            } else {
+                reused.incrementAndGet();
+            }
+            LOG.debug("Hive MetaStore client pool statistics {}", getStats());
+            return (IMetaStoreClient) Proxy.newProxyInstance(IMetaStoreClient.class.getClassLoader(),
+                    new Class<?>[]{IMetaStoreClient.class}, new PooledClient(key, pool, client, connector));
+        } catch (RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of created, reused, invalid and evicted clients, of
+     * reconnects after transport errors, of timeouts waiting for a client and
+     * the number of borrowed and idle clients.
+     *
+     * @return the statistics of the pool
+     */
+    Map<String, Long> getStats() {
+        long active = 0;
+        long idle = 0;
+        for (KeyedPool pool : pools.values()) {
+            active += poolSize - pool.permits.availablePermits();
+            synchronized (pool) {
+                idle += pool.idle.size();
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("created", created.get());
+        result.put("reused", reused.get());
+        result.put("validationFailures", validationFailures.get());
+        result.put("reconnects", reconnects.get());
+        result.put("evictions", evictions.get());
+        result.put("timeouts", timeouts.get());
+        result.put("active", active);
+        result.put("idle", idle);
+        return result;
+    }
+
+    /**
+     * Closes the clients of all pools idle for longer than the maximum idle
+     * time.
+     */
+    void evictIdle() {
+        long now = ticker.read();
+        List<IMetaStoreClient> expired = new ArrayList<>();
+        for (KeyedPool pool : pools.values()) {
+            synchronized (pool) {
+                // the least recently used clients are at the end
+                while (!pool.idle.isEmpty() && now - pool.idle.peekLast().since > maxIdleNanos) {
+                    expired.add(pool.idle.pollLast().client);
+                }
+            }
+        }
+        for (IMetaStoreClient client : expired) {
+            evictions.incrementAndGet();
+            close(client);
+        }
+    }
+
+    /*
+     * Returns the most recently used idle client that is still valid
+     */
+    private IMetaStoreClient takeIdle(KeyedPool pool) {
+        while (true) {
+            IdleClient idle;
+            synchronized (pool) {
+                idle = pool.idle.pollFirst();
+            }
+            if (idle == null) {
+                return null;
+            }
+            long idleNanos = ticker.read() - idle.since;
+            if (idleNanos > maxIdleNanos) {
+                evictions.incrementAndGet();
+                close(idle.client);
+            } else if (idleNanos >= validationIntervalNanos && !isValid(idle.client)) {
+                validationFailures.incrementAndGet();
+                close(idle.client);
+            } else {
+                return idle.client;
+            }
+        }
+    }
+
+    private boolean isValid(IMetaStoreClient client) {
+        try {
+            client.getDatabases(MetaStoreUtils.DEFAULT_DATABASE_NAME);
+            return true;
+        } catch (Exception e) {
+            LOG.debug("Discarding Hive MetaStore client that failed validation: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(KeyedPool pool, IMetaStoreClient client, boolean broken) {
+        try {
+            if (broken) {
+                close(client);
+            } else {
+                synchronized (pool) {
+                    pool.idle.addFirst(new IdleClient(client, ticker.read()));
+                }
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    private static void close(IMetaStoreClient client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            LOG.debug("Failed closing Hive MetaStore client: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isTransportError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TTransportException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The open clients of a key
+     */
+    private static class KeyedPool {
+        private final Semaphore permits;
+        // most recently used first
+        private final Deque<IdleClient> idle = new ArrayDeque<>();
+
+        KeyedPool(int size) {
+            permits = new Semaphore(size, true);
+        }
+    }
+
+    private static class IdleClient {
+        private final IMetaStoreClient client;
+        private final long since;
+
+        IdleClient(IMetaStoreClient client, long since) {
+            this.client = client;
+            this.since = since;
+        }
+    }
+
+    /**
+     * Forwards the calls of a borrowed client, reconnecting on transport
+     * errors, and returns the client to the pool when it is closed
+     */
+    private class PooledClient implements InvocationHandler {
+
+        private final String key;
+        private final KeyedPool pool;
+        private final Supplier<IMetaStoreClient> connector;
+        private IMetaStoreClient client;
+        private boolean broken;
+        private boolean released;
+
+        PooledClient(String key, KeyedPool pool, IMetaStoreClient client, Supplier<IMetaStoreClient> connector) {
+            this.key = key;
+            this.pool = pool;
+            this.client = client;
+            this.connector = connector;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "PooledHiveClient[" + key + "]";
+                }
+            }
+            if ("close".equals(method.getName()) && method.getParameterTypes().length == 0) {
+                if (!released) {
+                    released = true;
+                    release(pool, client, broken);
+                }
+                return null;
+            }
+            if (released) {
+                throw new IllegalStateException("The Hive MetaStore client was already returned to the pool");
+            }
+
+            try {
+                return method.invoke(client, args);
+            } catch (InvocationTargetException e) {
+                if (!isTransportError(e.getCause())) {
+                    throw e.getCause();
+                }
+                LOG.info("Reconnecting Hive MetaStore client for {} after transport error: {}",
+                        key, e.getCause().getMessage());
+            }
+
+            close(client);
+            broken = true;
+            client = connector.get();
+            reconnects.incrementAndGet();
+            broken = false;
+            try {
+                return method.invoke(client, args);
+            } catch (InvocationTargetException e) {
+                broken = isTransportError(e.getCause());
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -52,13 +52,19 @@ public class HiveClientWrapper {
     private static final String STR_TEXT_FILE_INPUT_FORMAT = "org.apache.hadoop.mapred.TextInputFormat";
     private static final String STR_ORC_FILE_INPUT_FORMAT = "org.apache.hadoop.hive.ql.io.orc.OrcInputFormat";
     private final HiveClientFactory hiveClientFactory;
+    private final HiveClientPool clientPool;
 
     private HiveClientWrapper() {
         this(HiveClientFactory.getInstance());
     }
 
     HiveClientWrapper(HiveClientFactory hiveClientFactory) {
+        this(hiveClientFactory, new HiveClientPool());
+    }
+
+    HiveClientWrapper(HiveClientFactory hiveClientFactory, HiveClientPool clientPool) {
         this.hiveClientFactory = hiveClientFactory;
+        this.clientPool = clientPool;
     }
 
     /**
@@ -71,16 +77,37 @@ public class HiveClientWrapper {
     }
 
     /**
-     * Initializes the IMetaStoreClient
-     * Uses classpath configuration files to locate the MetaStore
+     * Returns an IMetaStoreClient connected to the MetaStore of the server.
+     * Uses classpath configuration files to locate the MetaStore. Clients
+     * are pooled by server, MetaStore URIs and login user, the caller must
+     * close the client to return it to the pool.
      *
      * @return initialized client
      */
     public IMetaStoreClient initHiveClient(RequestContext context, Configuration configuration) {
-        HiveConf hiveConf = getHiveConf(configuration);
+        UserGroupInformation loginUser = null;
         try {
             if (Utilities.isSecurityEnabled(configuration)) {
-                UserGroupInformation loginUser = SecureLogin.getInstance().getLoginUser(context, configuration);
+                loginUser = SecureLogin.getInstance().getLoginUser(context, configuration);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed connecting to Hive MetaStore service: " + e.getMessage(), e);
+        }
+
+        String key = String.format("%s:%s:%s", context.getServerName(),
+                configuration.get(HiveConf.ConfVars.METASTOREURIS.varname, ""),
+                loginUser == null ? "" : loginUser.getUserName());
+        final UserGroupInformation user = loginUser;
+        return clientPool.borrow(key, () -> connect(configuration, user));
+    }
+
+    /*
+     * Opens a new connection to the MetaStore, as the login user when security is enabled
+     */
+    private IMetaStoreClient connect(Configuration configuration, UserGroupInformation loginUser) {
+        HiveConf hiveConf = getHiveConf(configuration);
+        try {
+            if (loginUser != null) {
                 LOG.debug("initialize HiveMetaStoreClient as login user '{}'", loginUser.getUserName());
                 // wrap in doAs for Kerberos to propagate kerberos tokens from login Subject
                 return loginUser.
@@ -19,6 +19,7 @@ package org.greenplum.pxf.plugins.hive;
  * under the License.
  */
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.JavaUtils;
@@ -35,6 +36,7 @@ import org.apache.hadoop.mapred.InputFormat;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.TextInputFormat;
+import org.apache.hadoop.security.UserGroupInformation;
 import org.greenplum.pxf.api.filter.FilterParser;
 import org.greenplum.pxf.api.filter.Node;
 import org.greenplum.pxf.api.filter.Operator;
@@ -49,10 +51,15 @@ import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.plugins.hdfs.HdfsDataFragmenter;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
+import org.greenplum.pxf.plugins.hdfs.utilities.PxfInputFormat;
 import org.greenplum.pxf.plugins.hive.utilities.ProfileFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.UndeclaredThrowableException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -60,6 +67,13 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Fragmenter class for HIVE tables. <br>
@@ -73,10 +87,17 @@ import java.util.TreeSet;
  * <li>userData:
  * file_input_format_name_DELIM_serde_name_DELIM_serialization_properties</li>
  * </ol>
+ * The splits of up to pxf.fragmenter.listing.threads partitions (16 by
+ * default) are computed at once for a request, on a pool shared by all
+ * requests whose size is set with the pxf.service.fragmenter.hive.pool.size
+ * system property. The fragments are returned in the order of the
+ * partitions, and the fragments of a partition share its user data.
+ * <p>
+ * Partition listings are cached across queries, see
+ * {@link HiveMetadataCache}.
  */
 public class HiveDataFragmenter extends HdfsDataFragmenter {
     private static final Logger LOG = LoggerFactory.getLogger(HiveDataFragmenter.class);
-    private static final short ALL_PARTS = -1;
 
     public static final String HIVE_1_PART_DELIM = "!H1PD!";
     public static final String HIVE_PARTITIONS_DELIM = "!HPAD!";
@@ -96,8 +117,14 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
 
     private static final TreeTraverser TRAVERSER = new TreeTraverser();
 
+    private static final String PROPERTY_KEY_POOL_SIZE = "pxf.service.fragmenter.hive.pool.size";
+    private static final int POOL_SIZE = Integer.getInteger(PROPERTY_KEY_POOL_SIZE, 64);
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(POOL_SIZE, 1),
+            new ThreadFactoryBuilder().setNameFormat("pxf-hive-splits-%d").setDaemon(true).build());
+
     private IMetaStoreClient client;
     private HiveClientWrapper hiveClientWrapper;
+    private HiveMetadataCache metadataCache;
 
     private boolean filterInFragmenter = false;
 
@@ -120,13 +147,17 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
     public void initialize(RequestContext context) {
         super.initialize(context);
         client = hiveClientWrapper.initHiveClient(this.context, configuration);
+        metadataCache = new HiveMetadataCache(this.context, configuration);
     }
 
     @Override
     public List<Fragment> getFragments() throws Exception {
-        Metadata.Item tblDesc = hiveClientWrapper.extractTableFromName(context.getDataSource());
-
-        fetchTableMetaData(tblDesc);
+        try {
+            Metadata.Item tblDesc = hiveClientWrapper.extractTableFromName(context.getDataSource());
+            fetchTableMetaData(tblDesc);
+        } finally {
+            releaseClient();
+        }
 
         return fragments;
     }
@@ -213,8 +244,7 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             // API call to Hive MetaStore, will return a List of all the
             // partitions for this table, that matches the partition filters
             // Defined in filterStringForHive.
-            partitions = client.listPartitionsByFilter(tblDesc.getPath(),
-                    tblDesc.getName(), filterStringForHive, ALL_PARTS);
+            partitions = metadataCache.listPartitions(client, tblDesc, tbl, filterStringForHive);
 
             // No matched partitions for the filter, no fragments to return.
             if (partitions == null || partitions.isEmpty()) {
@@ -230,10 +260,12 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
         } else {
             // API call to Hive MetaStore, will return a List of all the
             // partitions for this table (no filtering)
-            partitions = client.listPartitions(tblDesc.getPath(),
-                    tblDesc.getName(), ALL_PARTS);
+            partitions = metadataCache.listPartitions(client, tblDesc, tbl, "");
         }
 
+        // the MetaStore is not needed to compute the splits
+        releaseClient();
+
         StorageDescriptor descTable = tbl.getSd();
         Properties props;
 
@@ -242,6 +274,7 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             fetchMetaDataForSimpleTable(descTable, props, hasComplexTypes);
         } else {
             List<FieldSchema> partitionKeys = tbl.getPartitionKeys();
+            List<HiveTablePartition> tablePartitions = new ArrayList<>(partitions.size());
 
             for (Partition partition : partitions) {
                 StorageDescriptor descPartition = partition.getSd();
@@ -249,9 +282,21 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
                         null,
                         tblDesc.getPath(), tblDesc.getName(),
                         partitionKeys);
-                fetchMetaDataForPartitionedTable(descPartition, props,
-                        partition, partitionKeys, tblDesc.getName(), hasComplexTypes);
+                tablePartitions.add(new HiveTablePartition(descPartition, props,
+                        partition, partitionKeys, tblDesc.getName()));
             }
+            fetchMetaData(tablePartitions, hasComplexTypes);
+        }
+    }
+
+    /*
+     * Returns the MetaStore client to the pool, clients are shared by the
+     * requests to the same MetaStore
+     */
+    private void releaseClient() {
+        if (client != null) {
+            client.close();
+            client = null;
         }
     }
 
@@ -277,22 +322,75 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
                 tableName), hasComplexTypes);
     }
 
-    private void fetchMetaDataForPartitionedTable(StorageDescriptor stdsc,
-                                                  Properties props,
-                                                  Partition partition,
-                                                  List<FieldSchema> partitionKeys,
-                                                  String tableName,
-                                                  boolean hasComplexTypes)
+    /* Fills a table partition */
+    private void fetchMetaData(HiveTablePartition tablePartition, boolean hasComplexTypes)
             throws Exception {
-        fetchMetaData(new HiveTablePartition(stdsc, props, partition,
-                partitionKeys, tableName), hasComplexTypes);
+        fragments.addAll(computeFragments(tablePartition, hasComplexTypes));
     }
 
-    /* Fills a table partition */
-    private void fetchMetaData(HiveTablePartition tablePartition, boolean hasComplexTypes)
+    /*
+     * Fills the table partitions, computing the fragments of several
+     * partitions at once
+     */
+    private void fetchMetaData(List<HiveTablePartition> tablePartitions, boolean hasComplexTypes)
+            throws Exception {
+        int threads = Math.min(PxfInputFormat.getListingThreads(configuration), tablePartitions.size());
+        if (threads <= 1) {
+            for (HiveTablePartition tablePartition : tablePartitions) {
+                fetchMetaData(tablePartition, hasComplexTypes);
+            }
+            return;
+        }
+
+        long start = System.nanoTime();
+        UserGroupInformation user = UserGroupInformation.getCurrentUser();
+        CompletionService<List<Fragment>> completionService = new ExecutorCompletionService<>(EXECUTOR);
+        Map<Future<List<Fragment>>, Integer> running = new HashMap<>();
+        List<List<Fragment>> results = new ArrayList<>(Collections.nCopies(tablePartitions.size(), null));
+        int next = 0;
+        try {
+            while (next < tablePartitions.size() || !running.isEmpty()) {
+                while (running.size() < threads && next < tablePartitions.size()) {
+                    HiveTablePartition tablePartition = tablePartitions.get(next);
+                    running.put(completionService.submit(() -> user.doAs(
+                            (PrivilegedExceptionAction<List<Fragment>>) () ->
+                                    computeFragments(tablePartition, hasComplexTypes))), next++);
+                }
+                Future<List<Fragment>> done = completionService.take();
+                results.set(running.remove(done), done.get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UndeclaredThrowableException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } finally {
+            for (Future<List<Fragment>> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        for (List<Fragment> partitionFragments : results) {
+            fragments.addAll(partitionFragments);
+        }
+        LOG.info("Computed {} fragments of {} partitions in {} ms using up to {} threads",
+                fragments.size(), tablePartitions.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), threads);
+    }
+
+    /*
+     * Computes the fragments of a table partition, the partition gets its
+     * own copy of the job configuration holding its input path
+     */
+    private List<Fragment> computeFragments(HiveTablePartition tablePartition, boolean hasComplexTypes)
             throws Exception {
+        JobConf partitionConf = new JobConf(jobConf);
         InputFormat<?, ?> fformat = makeInputFormat(
-                tablePartition.storageDesc.getInputFormat(), jobConf);
+                tablePartition.storageDesc.getInputFormat(), partitionConf);
         String profile = null;
         String userProfile = context.getProfile();
         if (userProfile != null) {
@@ -307,27 +405,32 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
             fragmenterForProfile = context.getFragmenter();
         }
 
-        FileInputFormat.setInputPaths(jobConf, new Path(
+        FileInputFormat.setInputPaths(partitionConf, new Path(
                 tablePartition.storageDesc.getLocation()));
 
         InputSplit[] splits;
         try {
-            splits = fformat.getSplits(jobConf, 1);
+            splits = fformat.getSplits(partitionConf, 1);
         } catch (org.apache.hadoop.mapred.InvalidInputException e) {
             LOG.debug("getSplits failed on " + e.getMessage());
-            return;
+            return Collections.emptyList();
         }
 
+        List<Fragment> partitionFragments = new ArrayList<>(splits.length);
+        if (splits.length == 0) {
+            return partitionFragments;
+        }
+        // the user data only depends on the partition
+        byte[] userData = hiveClientWrapper.makeUserData(fragmenterForProfile, tablePartition, filterInFragmenter);
         for (InputSplit split : splits) {
             FileSplit fsp = (FileSplit) split;
             String[] hosts = fsp.getLocations();
             String filepath = fsp.getPath().toString();
 
             byte[] locationInfo = HdfsUtilities.prepareFragmentMetadata(fsp);
-            Fragment fragment = new Fragment(filepath, hosts, locationInfo,
-                    hiveClientWrapper.makeUserData(fragmenterForProfile, tablePartition, filterInFragmenter), profile);
-            fragments.add(fragment);
+            partitionFragments.add(new Fragment(filepath, hosts, locationInfo, userData, profile));
         }
+        return partitionFragments;
     }
 
     /**
@@ -335,8 +438,14 @@ public class HiveDataFragmenter extends HdfsDataFragmenter {
      */
     @Override
     public FragmentStats getFragmentStats() throws Exception {
-        Metadata.Item tblDesc = hiveClientWrapper.extractTableFromName(context.getDataSource());
-        Table tbl = hiveClientWrapper.getHiveTable(client, tblDesc);
+        Metadata.Item tblDesc;
+        Table tbl;
+        try {
+            tblDesc = hiveClientWrapper.extractTableFromName(context.getDataSource());
+            tbl = hiveClientWrapper.getHiveTable(client, tblDesc);
+        } finally {
+            releaseClient();
+        }
         Metadata metadata = new Metadata(tblDesc);
         hiveClientWrapper.getSchema(tbl, metadata);
 
@@ -0,0 +1,174 @@
+package org.greenplum.pxf.plugins.hive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.hive_metastoreConstants;
+import org.apache.thrift.TException;
+import org.greenplum.pxf.api.model.Metadata;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ListingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Hive partition listings read from the MetaStore in the
+ * {@link ListingCache}, so that queries on the same table do not fetch them
+ * again. Entries are keyed by the server, the user, the table and the
+ * partition filter. Tables are always fetched by the caller, so that the
+ * schema and the serde of the query match the partitions.
+ * <p>
+ * Partition listings are reused for the number of seconds given by the
+ * pxf.fragmenter.hive.metadata.cache.ttl property of the server, 60 by
+ * default, as long as the transient_lastDdlTime of the table and the number
+ * of partitions matching the filter are unchanged. The number of partitions
+ * is counted for every listing, bypassing the cache, with a cheap call. The
+ * cache can be turned off for a server by setting
+ * pxf.fragmenter.hive.metadata.cache.enabled to false.
+ * <p>
+ * Partitions hold a copy of the columns and parameters of the table, they
+ * are weighed by their number of columns and parameters in the cache.
+ * Cached partitions are shared by the queries and must not be modified.
+ */
+class HiveMetadataCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HiveMetadataCache.class);
+
+    static final String CACHE_ENABLED_PROPERTY = "pxf.fragmenter.hive.metadata.cache.enabled";
+    static final String CACHE_TTL_PROPERTY = "pxf.fragmenter.hive.metadata.cache.ttl";
+    private static final long DEFAULT_CACHE_TTL_SECONDS = 60;
+    private static final short ALL_PARTS = -1;
+
+    private final RequestContext context;
+    private final ListingCache cache;
+    private final boolean enabled;
+    private final long ttlMillis;
+
+    HiveMetadataCache(RequestContext context, Configuration configuration) {
+        this(context, configuration, ListingCache.getInstance());
+    }
+
+    HiveMetadataCache(RequestContext context, Configuration configuration, ListingCache cache) {
+        this.context = context;
+        this.cache = cache;
+        this.enabled = configuration.getBoolean(CACHE_ENABLED_PROPERTY, true);
+        this.ttlMillis = configuration.getTimeDuration(CACHE_TTL_PROPERTY,
+                DEFAULT_CACHE_TTL_SECONDS, TimeUnit.SECONDS) * 1000;
+    }
+
+    /**
+     * Returns the partitions of the table matching the filter, from the
+     * cache when they were listed recently and the table and its number of
+     * partitions are unchanged.
+     *
+     * @param client   the MetaStore client
+     * @param itemName the database and name of the table
+     * @param table    the table, as just fetched from the MetaStore
+     * @param filter   the partition filter for the MetaStore, empty for all
+     *                 the partitions
+     * @return the partitions, which must not be modified
+     * @throws Exception if the partitions could not be listed
+     */
+    List<Partition> listPartitions(IMetaStoreClient client, Metadata.Item itemName, Table table, String filter)
+            throws Exception {
+        if (!enabled) {
+            return fetchPartitions(client, itemName, filter);
+        }
+        String path = String.format("hive:///%s/%s", itemName.getPath(), itemName.getName()).toLowerCase();
+        try {
+            return cache.get("hive-partitions:" + filter, context.getServerName(), context.getUser(), path,
+                    getPartitionsVersion(client, itemName, table, filter), ttlMillis, () -> {
+                        try {
+                            return fetchPartitions(client, itemName, filter);
+                        } catch (TException e) {
+                            throw new MetaStoreException(e);
+                        }
+                    }, HiveMetadataCache::weigh);
+        } catch (MetaStoreException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private List<Partition> fetchPartitions(IMetaStoreClient client, Metadata.Item itemName, String filter) throws TException {
+        return StringUtils.isBlank(filter) ?
+                client.listPartitions(itemName.getPath(), itemName.getName(), ALL_PARTS) :
+                client.listPartitionsByFilter(itemName.getPath(), itemName.getName(), filter, ALL_PARTS);
+    }
+
+    /*
+     * Approximates the memory of a partition in listed files, a partition
+     * holds the columns and the parameters of its storage descriptor
+     */
+    private static int weigh(Partition partition) {
+        int weight = 1 + partition.getParametersSize() + partition.getValuesSize();
+        StorageDescriptor sd = partition.getSd();
+        if (sd != null) {
+            weight += sd.getColsSize() + sd.getParametersSize();
+            if (sd.getSerdeInfo() != null) {
+                weight += sd.getSerdeInfo().getParametersSize();
+            }
+        }
+        return weight;
+    }
+
+    /*
+     * Returns a version of the partitions that changes when the table is
+     * altered or partitions are added or dropped, or unknown when the number
+     * of partitions cannot be counted, e.g. by older MetaStores
+     */
+    private long getPartitionsVersion(IMetaStoreClient client, Metadata.Item itemName, Table table, String filter) {
+        int count;
+        try {
+            count = client.getNumPartitionsByFilter(itemName.getPath(), itemName.getName(), filter);
+        } catch (Exception e) {
+            LOG.debug("Failed counting the partitions of {}, cached partitions are only expired by time: {}",
+                    itemName, e.getMessage());
+            return ListingCache.UNKNOWN_MODIFICATION_TIME;
+        }
+
+        long lastDdlTime = 0;
+        Map<String, String> parameters = table.getParameters();
+        if (parameters != null && parameters.get(hive_metastoreConstants.DDL_TIME) != null) {
+            try {
+                lastDdlTime = Long.parseLong(parameters.get(hive_metastoreConstants.DDL_TIME));
+            } catch (NumberFormatException e) {
+                LOG.debug("Ignoring invalid {} of {}", hive_metastoreConstants.DDL_TIME, itemName);
+            }
+        }
+        // the time is in seconds, and both halves are positive
+        return (lastDdlTime & 0x7fffffffL) << 32 | (count & 0xffffffffL);
+    }
+
+    private static class MetaStoreException extends IOException {
+        MetaStoreException(Exception cause) {
+            super(cause);
+        }
+    }
+}
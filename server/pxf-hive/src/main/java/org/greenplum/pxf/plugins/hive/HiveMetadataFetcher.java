@@ -55,6 +55,7 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
     private IMetaStoreClient client;
     private JobConf jobConf;
     private HiveClientWrapper hiveClientWrapper;
+    private HiveMetadataCache metadataCache;
 
     public HiveMetadataFetcher(RequestContext context) {
         this(context, BaseConfigurationFactory.getInstance(), HiveClientWrapper.getInstance());
@@ -67,6 +68,7 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
 
         // init hive metastore client connection.
         client = hiveClientWrapper.initHiveClient(context, configuration);
+        metadataCache = new HiveMetadataCache(context, configuration);
         jobConf = new JobConf(configuration);
     }
 
@@ -83,6 +85,15 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
      */
     @Override
     public List<Metadata> getMetadata(String pattern) throws Exception {
+        try {
+            return fetchMetadata(pattern);
+        } finally {
+            // return the client to the pool, clients are shared by the requests to the same MetaStore
+            client.close();
+        }
+    }
+
+    private List<Metadata> fetchMetadata(String pattern) throws Exception {
 
         boolean ignoreErrors = false;
         List<Metadata.Item> tblsDesc = hiveClientWrapper.extractTablesFromPattern(client, pattern);
@@ -105,7 +116,7 @@ public class HiveMetadataFetcher extends BasePlugin implements MetadataFetcher {
                 hiveClientWrapper.getSchema(tbl, metadata);
                 boolean hasComplexTypes = hiveClientWrapper.hasComplexTypes(metadata);
                 metadataList.add(metadata);
-                List<Partition> tablePartitions = client.listPartitionsByFilter(tblDesc.getPath(), tblDesc.getName(), "", (short) -1);
+                List<Partition> tablePartitions = metadataCache.listPartitions(client, tblDesc, tbl, "");
                 Set<OutputFormat> formats = new HashSet<>();
                 //If table has partitions - find out all formats
                 for (Partition tablePartition : tablePartitions) {
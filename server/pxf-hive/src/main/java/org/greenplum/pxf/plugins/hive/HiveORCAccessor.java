@@ -30,8 +30,7 @@ import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.mapred.JobConf;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.StatsAccessor;
-import org.greenplum.pxf.api.filter.FilterParser;
-import org.greenplum.pxf.api.filter.Node;
+import org.greenplum.pxf.api.filter.FilterCache;
 import org.greenplum.pxf.api.filter.Operator;
 import org.greenplum.pxf.api.filter.SupportedOperatorPruner;
 import org.greenplum.pxf.api.filter.TreeTraverser;
@@ -42,8 +41,11 @@ import org.greenplum.pxf.api.utilities.EnumAggregationType;
 import org.greenplum.pxf.api.utilities.Utilities;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.apache.hadoop.hive.serde2.ColumnProjectionUtils.READ_ALL_COLUMNS;
 import static org.apache.hadoop.hive.serde2.ColumnProjectionUtils.READ_COLUMN_IDS_CONF_STR;
@@ -77,6 +79,7 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
             );
     private static final TreeVisitor PRUNER = new SupportedOperatorPruner(SUPPORTED_OPERATORS);
     private static final TreeTraverser TRAVERSER = new TreeTraverser();
+    private static final FilterCache FILTER_CACHE = FilterCache.getInstance();
 
     Reader orcReader;
 
@@ -144,20 +147,23 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
             return;
         }
 
-        /* Predicate push-down configuration */
-        String filterStr = context.getFilterString();
-
-        HiveORCSearchArgumentBuilder searchArgumentBuilder = new HiveORCSearchArgumentBuilder(context.getTupleDescription(), configuration);
-
-        // Parse the filter string into a expression tree Node
-        Node root = new FilterParser().parse(filterStr);
-        // Prune the parsed tree with valid supported operators and then
-        // traverse the pruned tree with the searchArgumentBuilder to produce a SearchArgument for ORC
-        TRAVERSER.traverse(root, PRUNER, searchArgumentBuilder);
-
-        SearchArgument.Builder filterBuilder = searchArgumentBuilder.getFilterBuilder();
-        SearchArgument searchArgument = filterBuilder.build();
-        jobConf.set(ConvertAstToSearchArg.SARG_PUSHDOWN, toKryo(searchArgument));
+        // the serialized SearchArgument is the same for all fragments of the query,
+        // it also depends on the per-user configuration given to the builder, which
+        // is made from the server, the user and the configuration options of the request
+        Map<String, String> additionalConfigProps = context.getAdditionalConfigProps();
+        List<Object> configurationKey = Arrays.asList(context.getConfig(), context.getServerName(), context.getUser(),
+                additionalConfigProps == null ? null : new HashMap<>(additionalConfigProps));
+        String serializedSearchArgument = FILTER_CACHE.get(HiveORCAccessor.class, context, configurationKey, root -> {
+            HiveORCSearchArgumentBuilder searchArgumentBuilder = new HiveORCSearchArgumentBuilder(context.getTupleDescription(), configuration);
+            // Prune the parsed tree with valid supported operators and then
+            // traverse the pruned tree with the searchArgumentBuilder to produce a SearchArgument for ORC
+            TRAVERSER.traverse(root, PRUNER, searchArgumentBuilder);
+
+            SearchArgument.Builder filterBuilder = searchArgumentBuilder.getFilterBuilder();
+            SearchArgument searchArgument = filterBuilder.build();
+            return toKryo(searchArgument);
+        });
+        jobConf.set(ConvertAstToSearchArg.SARG_PUSHDOWN, serializedSearchArgument);
     }
 
     /**
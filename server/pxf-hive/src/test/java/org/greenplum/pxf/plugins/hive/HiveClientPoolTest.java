@@ -0,0 +1,191 @@
+package org.greenplum.pxf.plugins.hive;
+
+import com.google.common.base.Ticker;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HiveClientPoolTest {
+
+    private FakeTicker ticker;
+    private HiveClientPool pool;
+    private Deque<IMetaStoreClient> clients;
+    private Supplier<IMetaStoreClient> connector;
+
+    @Before
+    public void setup() {
+        ticker = new FakeTicker();
+        pool = new HiveClientPool(2, 10, 60000, 1000, ticker);
+        clients = new ArrayDeque<>();
+        connector = () -> clients.removeFirst();
+    }
+
+    @Test
+    public void testReturnedClientsAreReused() throws Exception {
+        IMetaStoreClient delegate = newClient();
+
+        IMetaStoreClient client = pool.borrow("default", connector);
+        client.getAllDatabases();
+        client.close();
+        client = pool.borrow("default", connector);
+        client.getAllDatabases();
+        client.close();
+
+        verify(delegate, never()).close();
+        assertEquals(1, (long) pool.getStats().get("created"));
+        assertEquals(1, (long) pool.getStats().get("reused"));
+        assertEquals(0, (long) pool.getStats().get("active"));
+        assertEquals(1, (long) pool.getStats().get("idle"));
+    }
+
+    @Test
+    public void testPoolIsBoundedPerKey() {
+        newClient();
+        newClient();
+        newClient();
+
+        pool.borrow("default", connector);
+        pool.borrow("default", connector);
+        try {
+            pool.borrow("default", connector);
+            fail("expected the pool to be exhausted");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Timed out after 10 ms waiting for one of the 2 Hive MetaStore clients"));
+        }
+        // clients of other servers are pooled separately
+        pool.borrow("other", connector).close();
+
+        assertEquals(1, (long) pool.getStats().get("timeouts"));
+        assertEquals(2, (long) pool.getStats().get("active"));
+    }
+
+    @Test
+    public void testIdleClientsAreEvicted() {
+        IMetaStoreClient delegate = newClient();
+        newClient();
+
+        pool.borrow("default", connector).close();
+        ticker.advance(61, TimeUnit.SECONDS);
+        pool.borrow("default", connector).close();
+
+        verify(delegate).close();
+        assertEquals(2, (long) pool.getStats().get("created"));
+        assertEquals(1, (long) pool.getStats().get("evictions"));
+    }
+
+    @Test
+    public void testInvalidClientsAreDiscarded() throws Exception {
+        IMetaStoreClient delegate = newClient();
+        newClient();
+        when(delegate.getDatabases("default")).thenThrow(new MetaException("connection reset"));
+
+        pool.borrow("default", connector).close();
+        // not validated when recently used
+        ticker.advance(500, TimeUnit.MILLISECONDS);
+        pool.borrow("default", connector).close();
+        verify(delegate, never()).close();
+
+        ticker.advance(2, TimeUnit.SECONDS);
+        pool.borrow("default", connector).close();
+
+        verify(delegate).close();
+        assertEquals(2, (long) pool.getStats().get("created"));
+        assertEquals(1, (long) pool.getStats().get("validationFailures"));
+    }
+
+    @Test
+    public void testReconnectsOnTransportError() throws Exception {
+        IMetaStoreClient broken = newClient();
+        IMetaStoreClient delegate = newClient();
+        Table table = new Table();
+        when(broken.getTable("default", "sales")).thenThrow(new TTransportException("broken pipe"));
+        when(delegate.getTable("default", "sales")).thenReturn(table);
+
+        IMetaStoreClient client = pool.borrow("default", connector);
+        assertSame(table, client.getTable("default", "sales"));
+        client.close();
+
+        verify(broken).close();
+        verify(delegate, never()).close();
+        assertEquals(1, (long) pool.getStats().get("reconnects"));
+        assertEquals(1, (long) pool.getStats().get("idle"));
+    }
+
+    @Test
+    public void testOtherErrorsAreNotRetried() throws Exception {
+        IMetaStoreClient delegate = newClient();
+        when(delegate.getTable("default", "sales")).thenThrow(new MetaException("no such table"));
+
+        IMetaStoreClient client = pool.borrow("default", connector);
+        try {
+            client.getTable("default", "sales");
+            fail("expected the error of the MetaStore");
+        } catch (MetaException e) {
+            assertEquals("no such table", e.getMessage());
+        }
+        client.close();
+
+        assertEquals(0, (long) pool.getStats().get("reconnects"));
+        assertEquals(1, (long) pool.getStats().get("idle"));
+    }
+
+    @Test
+    public void testClosedClientCannotBeUsed() throws Exception {
+        newClient();
+
+        IMetaStoreClient client = pool.borrow("default", connector);
+        client.close();
+        client.close();
+        try {
+            client.getAllDatabases();
+            fail("expected the client to be closed");
+        } catch (IllegalStateException e) {
+            assertEquals("The Hive MetaStore client was already returned to the pool", e.getMessage());
+        }
+        assertEquals(1, (long) pool.getStats().get("idle"));
+    }
+
+    @Test
+    public void testPoolingCanBeDisabled() {
+        IMetaStoreClient delegate = newClient();
+        pool = new HiveClientPool(0, 10, 60000, 1000, ticker);
+
+        assertSame(delegate, pool.borrow("default", connector));
+    }
+
+    private IMetaStoreClient newClient() {
+        IMetaStoreClient client = mock(IMetaStoreClient.class);
+        clients.addLast(client);
+        return client;
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+}
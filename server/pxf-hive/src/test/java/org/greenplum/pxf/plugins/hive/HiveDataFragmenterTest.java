@@ -19,15 +19,42 @@ package org.greenplum.pxf.plugins.hive;
  * under the License.
  */
 
+import com.google.common.base.Ticker;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
 import org.greenplum.pxf.api.model.ConfigurationFactory;
+import org.greenplum.pxf.api.model.Fragment;
+import org.greenplum.pxf.api.model.Metadata;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ListingCache;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class HiveDataFragmenterTest {
@@ -35,6 +62,9 @@ public class HiveDataFragmenterTest {
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private RequestContext context;
     private Configuration configuration;
     private ConfigurationFactory configurationFactory;
@@ -57,6 +87,7 @@ public class HiveDataFragmenterTest {
         when(configurationFactory
                 .initConfiguration("default", "default", "dummy", context.getAdditionalConfigProps()))
                 .thenReturn(configuration);
+        ListingCache.getInstance().invalidateAll();
     }
 
     @Test
@@ -69,4 +100,93 @@ public class HiveDataFragmenterTest {
         HiveDataFragmenter fragmenter = new HiveDataFragmenter(configurationFactory, hiveClientWrapper);
         fragmenter.initialize(context);
     }
+
+    @Test
+    public void testFragmentsOfPartitionsAreInPartitionOrder() throws Exception {
+        File tableDir = tempFolder.newFolder("table");
+        List<Partition> partitions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            File partitionDir = new File(tableDir, "part=" + i);
+            assertTrue(partitionDir.mkdir());
+            Files.write(new File(partitionDir, "a.txt").toPath(), "1\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(new File(partitionDir, "b.txt").toPath(), "2\n".getBytes(StandardCharsets.UTF_8));
+            Partition partition = new Partition();
+            partition.setValues(Collections.singletonList(String.valueOf(i)));
+            partition.setSd(storageDescriptor(partitionDir.toURI().toString()));
+            partitions.add(partition);
+        }
+        Table table = new Table();
+        table.setDbName("default");
+        table.setTableName("events");
+        table.setSd(storageDescriptor(tableDir.toURI().toString()));
+        table.setPartitionKeys(Collections.singletonList(new FieldSchema("part", "int", null)));
+        table.setParameters(new HashMap<>());
+
+        IMetaStoreClient client = mock(IMetaStoreClient.class);
+        Metadata.Item tableItem = new Metadata.Item("default", "events");
+        when(hiveClientWrapper.initHiveClient(context, configuration)).thenReturn(client);
+        when(hiveClientWrapper.extractTableFromName("default.events")).thenReturn(tableItem);
+        when(hiveClientWrapper.getHiveTable(client, tableItem)).thenReturn(table);
+        when(client.listPartitions("default", "events", (short) -1)).thenReturn(partitions);
+        when(hiveClientWrapper.makeUserData(anyString(), any(HiveTablePartition.class), anyBoolean()))
+                .thenAnswer(invocation -> ((HiveTablePartition) invocation.getArguments()[1])
+                        .partition.getValues().get(0).getBytes(StandardCharsets.UTF_8));
+
+        context.setDataSource("default.events");
+        context.setFragmenter(HiveDataFragmenter.class.getName());
+        HiveDataFragmenter fragmenter = new HiveDataFragmenter(configurationFactory, hiveClientWrapper);
+        fragmenter.initialize(context);
+        List<Fragment> fragments = fragmenter.getFragments();
+
+        assertEquals(40, fragments.size());
+        for (int i = 0; i < fragments.size(); i++) {
+            String partitionValue = String.valueOf(i / 2);
+            assertTrue(fragments.get(i).getSourceName().contains("/part=" + partitionValue + "/"));
+            assertEquals(partitionValue, new String(fragments.get(i).getUserData(), StandardCharsets.UTF_8));
+        }
+        // the fragments of a partition share its user data
+        verify(hiveClientWrapper, times(20)).makeUserData(anyString(), any(HiveTablePartition.class), anyBoolean());
+    }
+
+    @Test
+    public void testClientIsReturnedToPoolWhenTableNameIsInvalid() throws Exception {
+        HiveClientPool pool = new HiveClientPool(1, 10, 60000, 1000, Ticker.systemTicker());
+        IMetaStoreClient delegate = mock(IMetaStoreClient.class);
+        when(hiveClientWrapper.initHiveClient(context, configuration))
+                .thenAnswer(invocation -> pool.borrow("default", () -> delegate));
+        when(hiveClientWrapper.extractTableFromName("a.b.c"))
+                .thenThrow(new IllegalArgumentException("\"a.b.c\" is not a valid Hive table name"));
+        context.setDataSource("a.b.c");
+
+        HiveDataFragmenter fragmenter = new HiveDataFragmenter(configurationFactory, hiveClientWrapper);
+        fragmenter.initialize(context);
+        try {
+            fragmenter.getFragments();
+            fail("expected the table name to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, (long) pool.getStats().get("active"));
+
+        fragmenter = new HiveDataFragmenter(configurationFactory, hiveClientWrapper);
+        fragmenter.initialize(context);
+        try {
+            fragmenter.getFragmentStats();
+            fail("expected the table name to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, (long) pool.getStats().get("active"));
+        assertEquals(0, (long) pool.getStats().get("timeouts"));
+    }
+
+    private StorageDescriptor storageDescriptor(String location) {
+        SerDeInfo serDeInfo = new SerDeInfo();
+        serDeInfo.setSerializationLib("org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe");
+        serDeInfo.setParameters(new HashMap<>());
+        StorageDescriptor storageDescriptor = new StorageDescriptor();
+        storageDescriptor.setLocation(location);
+        storageDescriptor.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+        storageDescriptor.setCols(Collections.singletonList(new FieldSchema("id", "int", null)));
+        storageDescriptor.setSerdeInfo(serDeInfo);
+        return storageDescriptor;
+    }
 }
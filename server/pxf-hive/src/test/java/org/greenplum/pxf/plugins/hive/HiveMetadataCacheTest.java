@@ -0,0 +1,152 @@
+package org.greenplum.pxf.plugins.hive;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.thrift.TApplicationException;
+import org.greenplum.pxf.api.model.Metadata;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ListingCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HiveMetadataCacheTest {
+
+    private RequestContext context;
+    private Configuration configuration;
+    private IMetaStoreClient client;
+    private Metadata.Item tableItem;
+    private Table table;
+
+    @Before
+    public void setup() {
+        context = new RequestContext();
+        context.setServerName("default");
+        context.setUser("dummy");
+        configuration = new Configuration();
+
+        client = mock(IMetaStoreClient.class);
+        tableItem = new Metadata.Item("sales", "orders");
+        table = new Table();
+        table.setTableName("orders");
+        table.setParameters(Collections.singletonMap("transient_lastDdlTime", "1600000000"));
+
+        ListingCache.getInstance().invalidateAll();
+    }
+
+    @Test
+    public void testPartitionsAreCachedWhileTheirNumberIsUnchanged() throws Exception {
+        List<Partition> partitions = Arrays.asList(new Partition(), new Partition());
+        when(client.listPartitions("sales", "orders", (short) -1)).thenReturn(partitions);
+        when(client.getNumPartitionsByFilter("sales", "orders", "")).thenReturn(2, 2, 3);
+        HiveMetadataCache cache = new HiveMetadataCache(context, configuration);
+
+        assertEquals(partitions, cache.listPartitions(client, tableItem, table, ""));
+        assertEquals(partitions, cache.listPartitions(client, tableItem, table, ""));
+        verify(client, times(1)).listPartitions("sales", "orders", (short) -1);
+
+        // a partition was added
+        cache.listPartitions(client, tableItem, table, "");
+        verify(client, times(2)).listPartitions("sales", "orders", (short) -1);
+    }
+
+    @Test
+    public void testPartitionsAreCachedPerUser() throws Exception {
+        when(client.listPartitions("sales", "orders", (short) -1)).thenReturn(Collections.singletonList(new Partition()));
+        when(client.getNumPartitionsByFilter("sales", "orders", "")).thenReturn(1);
+
+        new HiveMetadataCache(context, configuration).listPartitions(client, tableItem, table, "");
+        context.setUser("other");
+        new HiveMetadataCache(context, configuration).listPartitions(client, tableItem, table, "");
+
+        verify(client, times(2)).listPartitions("sales", "orders", (short) -1);
+    }
+
+    @Test
+    public void testPartitionsAreListedAgainWhenTheTableChanges() throws Exception {
+        when(client.listPartitionsByFilter("sales", "orders", "region = \"eu\"", (short) -1))
+                .thenReturn(Collections.singletonList(new Partition()));
+        when(client.getNumPartitionsByFilter("sales", "orders", "region = \"eu\"")).thenReturn(1);
+        HiveMetadataCache cache = new HiveMetadataCache(context, configuration);
+
+        cache.listPartitions(client, tableItem, table, "region = \"eu\"");
+        cache.listPartitions(client, tableItem, table, "region = \"eu\"");
+        verify(client, times(1)).listPartitionsByFilter("sales", "orders", "region = \"eu\"", (short) -1);
+
+        // the table was altered since the partitions were listed
+        Table altered = table.deepCopy();
+        altered.setParameters(Collections.singletonMap("transient_lastDdlTime", "1600000100"));
+        cache.listPartitions(client, tableItem, altered, "region = \"eu\"");
+        verify(client, times(2)).listPartitionsByFilter("sales", "orders", "region = \"eu\"", (short) -1);
+    }
+
+    @Test
+    public void testPartitionsAreCachedByTimeWhenTheyCannotBeCounted() throws Exception {
+        when(client.getNumPartitionsByFilter("sales", "orders", "")).thenThrow(new TApplicationException("Invalid method name"));
+        HiveMetadataCache cache = new HiveMetadataCache(context, configuration);
+
+        cache.listPartitions(client, tableItem, table, "");
+        cache.listPartitions(client, tableItem, table, "");
+
+        verify(client, times(1)).listPartitions("sales", "orders", (short) -1);
+    }
+
+    @Test
+    public void testPartitionsAreWeighedByTheirColumnsAndParameters() throws Exception {
+        StorageDescriptor sd = new StorageDescriptor();
+        sd.setCols(Arrays.asList(new FieldSchema("id", "int", null), new FieldSchema("name", "string", null),
+                new FieldSchema("amount", "double", null)));
+        Partition partition = new Partition();
+        partition.setValues(Collections.singletonList("eu"));
+        partition.setSd(sd);
+        when(client.listPartitions("sales", "orders", (short) -1)).thenReturn(Arrays.asList(partition, partition));
+        when(client.getNumPartitionsByFilter("sales", "orders", "")).thenReturn(2);
+
+        new HiveMetadataCache(context, configuration).listPartitions(client, tableItem, table, "");
+
+        // every partition weighs as much as 5 listed files, plus 1 for the entry
+        assertEquals(11L, (long) ListingCache.getInstance().getStats().get("weight"));
+    }
+
+    @Test
+    public void testMetaStoreErrorsAreThrownAsIs() throws Exception {
+        when(client.getNumPartitionsByFilter("sales", "orders", "")).thenReturn(1);
+        when(client.listPartitions("sales", "orders", (short) -1)).thenThrow(new NoSuchObjectException("sales.orders table not found"));
+        HiveMetadataCache cache = new HiveMetadataCache(context, configuration);
+
+        try {
+            cache.listPartitions(client, tableItem, table, "");
+            fail("expected the table not to be found");
+        } catch (NoSuchObjectException e) {
+            assertEquals("sales.orders table not found", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCacheCanBeTurnedOff() throws Exception {
+        configuration.setBoolean(HiveMetadataCache.CACHE_ENABLED_PROPERTY, false);
+        when(client.getNumPartitionsByFilter("sales", "orders", "")).thenThrow(new MetaException("not expected"));
+        HiveMetadataCache cache = new HiveMetadataCache(context, configuration);
+
+        cache.listPartitions(client, tableItem, table, "");
+        cache.listPartitions(client, tableItem, table, "");
+
+        verify(client, times(2)).listPartitions("sales", "orders", (short) -1);
+    }
+}
@@ -29,6 +29,7 @@ import org.greenplum.pxf.api.model.ConfigurationFactory;
 import org.greenplum.pxf.api.model.Metadata;
 import org.greenplum.pxf.api.model.PluginConf;
 import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.ListingCache;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -90,6 +91,7 @@ public class HiveMetadataFetcherTest {
         fakeHiveClientWrapper = new HiveClientWrapper(mockClientFactory);
 
         when(mockClientFactory.initHiveClient(any())).thenReturn(mockHiveClient);
+        ListingCache.getInstance().invalidateAll();
     }
 
     @Test
@@ -21,8 +21,7 @@ import org.apache.commons.lang.SerializationUtils;
  * under the License.
  */
 
-import org.greenplum.pxf.api.filter.FilterParser;
-import org.greenplum.pxf.api.filter.Node;
+import org.greenplum.pxf.api.filter.FilterCache;
 import org.greenplum.pxf.api.filter.Operator;
 import org.greenplum.pxf.api.filter.SupportedOperatorPruner;
 import org.greenplum.pxf.api.filter.TreeTraverser;
@@ -34,6 +33,7 @@ import org.greenplum.pxf.plugins.jdbc.partitioning.JdbcFragmentMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -71,6 +71,7 @@ public class SQLQueryBuilder {
             );
     private static final TreeVisitor PRUNER = new SupportedOperatorPruner(SUPPORTED_OPERATORS);
     private static final TreeTraverser TRAVERSER = new TreeTraverser();
+    private static final FilterCache FILTER_CACHE = FilterCache.getInstance();
 
     protected final RequestContext context;
 
@@ -291,16 +292,17 @@ public class SQLQueryBuilder {
     private void buildWhereSQL(StringBuilder query) {
         if (!context.hasFilter()) return;
 
-        JdbcPredicateBuilder jdbcPredicateBuilder = getPredicateBuilder();
-
         try {
-            // Parse the filter string into a expression tree Node
-            Node root = new FilterParser().parse(context.getFilterString());
-            // Prune the parsed tree with the provided pruner and then
-            // traverse the tree with the JDBC predicate builder to produce a predicate
-            TRAVERSER.traverse(root, getPruner(), jdbcPredicateBuilder);
+            // the predicate is the same for all fragments of the query
+            String predicate = FILTER_CACHE.get(getClass(), context, Arrays.asList(dbProduct, quoteString), root -> {
+                JdbcPredicateBuilder jdbcPredicateBuilder = getPredicateBuilder();
+                // Prune the parsed tree with the provided pruner and then
+                // traverse the tree with the JDBC predicate builder to produce a predicate
+                TRAVERSER.traverse(root, getPruner(), jdbcPredicateBuilder);
+                return jdbcPredicateBuilder.toString();
+            });
             // No exceptions were thrown, change the provided query
-            query.append(jdbcPredicateBuilder.toString());
+            query.append(predicate);
         } catch (Exception e) {
             LOG.debug("WHERE clause is omitted: " + e.toString());
             // Silence the exception and do not insert constraints
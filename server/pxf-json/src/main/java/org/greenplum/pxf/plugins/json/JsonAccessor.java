@@ -23,10 +23,13 @@ import static org.apache.commons.lang.StringUtils.isEmpty;
 
 import java.io.IOException;
 
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.LineRecordReader;
+import org.greenplum.pxf.api.DetachableRowAccessor;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.plugins.hdfs.HdfsSplittableDataAccessor;
@@ -40,7 +43,7 @@ import org.greenplum.pxf.plugins.hdfs.HdfsSplittableDataAccessor;
  * When provided the <b>IDENTIFIER</b> indicates the member name used to determine the encapsulating json object to
  * return.
  */
-public class JsonAccessor extends HdfsSplittableDataAccessor {
+public class JsonAccessor extends HdfsSplittableDataAccessor implements DetachableRowAccessor {
 
     public static final String IDENTIFIER_PARAM = "IDENTIFIER";
     public static final String RECORD_MAX_LENGTH_PARAM = "MAXLENGTH";
@@ -88,6 +91,26 @@ public class JsonAccessor extends HdfsSplittableDataAccessor {
         }
     }
 
+    /**
+     * Copies the key and the JSON text, which the record reader overwrites
+     * with the next record.
+     *
+     * @param row the row last read
+     * @return a copy of the row
+     */
+    @Override
+    public OneRow detach(OneRow row) {
+        Object key = row.getKey();
+        if (key instanceof LongWritable) {
+            key = new LongWritable(((LongWritable) key).get());
+        }
+        Object data = row.getData();
+        if (data instanceof Text) {
+            data = new Text((Text) data);
+        }
+        return new OneRow(key, data);
+    }
+
     /**
      * Opens the resource for write.
      *
@@ -30,6 +30,7 @@ import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.model.BasePlugin;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.model.ReusablePlugin;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 
 import java.io.IOException;
@@ -42,7 +43,7 @@ import java.util.List;
  * decode this data into a JsonNode and walk the tree for each column. It supports normal value mapping via projections
  * and JSON array indexing.
  */
-public class JsonResolver extends BasePlugin implements Resolver {
+public class JsonResolver extends BasePlugin implements Resolver, ReusablePlugin {
 
     private static final Log LOG = LogFactory.getLog(JsonResolver.class);
 
@@ -64,6 +65,20 @@ public class JsonResolver extends BasePlugin implements Resolver {
         }
     }
 
+    /**
+     * Keeps the JSON parser and the column metadata, which only depend on
+     * the columns of the table.
+     *
+     * @param requestContext data provided in the new request
+     * @return true
+     */
+    @Override
+    public boolean reset(RequestContext requestContext) {
+        super.initialize(requestContext);
+        oneFieldList.clear();
+        return true;
+    }
+
     @Override
     public List<OneField> getFields(OneRow row) throws Exception {
         oneFieldList.clear();
@@ -22,21 +22,20 @@ package org.greenplum.pxf.service;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.greenplum.pxf.api.GPDBWritableMapper;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.io.DataType;
-import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.io.GPDBWritableDeserializer;
 import org.greenplum.pxf.api.io.Text;
 import org.greenplum.pxf.api.model.OutputFormat;
 import org.greenplum.pxf.api.model.RequestContext;
 
 import java.io.DataInput;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 public class BridgeInputBuilder {
     private RequestContext protocolData;
+    private final GPDBWritableDeserializer deserializer = new GPDBWritableDeserializer();
     private static final Log LOG = LogFactory.getLog(BridgeInputBuilder.class);
 
     public BridgeInputBuilder(RequestContext protocolData) {
@@ -50,20 +49,9 @@ public class BridgeInputBuilder {
             return Collections.singletonList(new OneField(DataType.BYTEA.getOID(), txt.getBytes()));
         }
 
-        GPDBWritable gpdbWritable = new GPDBWritable();
-        gpdbWritable.readFields(inputStream);
-
-        if (gpdbWritable.isEmpty()) {
+        List<OneField> record = deserializer.readRecord(inputStream);
+        if (record == null) {
             LOG.debug("Reached end of stream");
-            return null;
-        }
-
-        GPDBWritableMapper mapper = new GPDBWritableMapper(gpdbWritable);
-        int[] colTypes = gpdbWritable.getColType();
-        List<OneField> record = new LinkedList<>();
-        for (int i = 0; i < colTypes.length; i++) {
-            mapper.setDataType(colTypes[i]);
-            record.add(new OneField(colTypes[i], mapper.getData(i)));
         }
 
         return record;
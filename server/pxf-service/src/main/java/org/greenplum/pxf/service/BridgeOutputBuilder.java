@@ -19,16 +19,16 @@ package org.greenplum.pxf.service;
  * under the License.
  */
 
-import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.greenplum.pxf.api.BadRecordException;
-import org.greenplum.pxf.api.GreenplumDateTime;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.io.BufferWritable;
+import org.greenplum.pxf.api.io.CsvRecordEncoder;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.io.GPDBWritableSerializer;
 import org.greenplum.pxf.api.io.Text;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.GreenplumCSV;
@@ -38,12 +38,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Array;
-import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static org.greenplum.pxf.api.io.DataType.TEXT;
 
@@ -67,9 +64,11 @@ public class BridgeOutputBuilder {
     private GPDBWritable errorRecord = null;
     private int[] schema;
     private String[] colNames;
+    private GPDBWritableSerializer serializer;
     private boolean samplingEnabled;
     private boolean isPartialLine = false;
     private GreenplumCSV greenplumCSV;
+    private CsvRecordEncoder csvEncoder;
 
     /**
      * Constructs a BridgeOutputBuilder.
@@ -173,21 +172,26 @@ public class BridgeOutputBuilder {
 
     /**
      * Creates the GPDBWritable object. The object is created one time and is
-     * refilled from recFields for each record sent
+     * refilled from recFields for each record sent. The schema and the
+     * serializer are computed once and shared by all the records.
      *
      * @return empty GPDBWritable object with set columns
      */
     GPDBWritable makeGPDBWritableOutput() {
-        int num_actual_fields = context.getColumns();
-        schema = new int[num_actual_fields];
-        colNames = new String[num_actual_fields];
-
-        for (int i = 0; i < num_actual_fields; i++) {
-            schema[i] = context.getColumn(i).columnTypeCode();
-            colNames[i] = context.getColumn(i).columnName();
+        if (schema == null) {
+            int num_actual_fields = context.getColumns();
+            schema = new int[num_actual_fields];
+            colNames = new String[num_actual_fields];
+
+            for (int i = 0; i < num_actual_fields; i++) {
+                schema[i] = context.getColumn(i).columnTypeCode();
+                colNames[i] = context.getColumn(i).columnName();
+            }
+            serializer = new GPDBWritableSerializer(schema);
         }
 
         output = new GPDBWritable(schema);
+        ((GPDBWritable) output).setSerializer(serializer);
 
         return (GPDBWritable) output;
     }
@@ -300,10 +304,13 @@ public class BridgeOutputBuilder {
                 output = new BufferWritable((byte[]) val);
             }
         } else {
-            String textRec = (recFields.size() == 1 && val instanceof String) ?
-                    val + greenplumCSV.getNewline() :
-                    fieldListToCSVString(recFields);
-            output = new Text(textRec);
+            if (csvEncoder == null) {
+                csvEncoder = new CsvRecordEncoder(greenplumCSV);
+            }
+            byte[] textRec = (recFields.size() == 1 && val instanceof String) ?
+                    csvEncoder.encodeLine((String) val) :
+                    csvEncoder.encode(recFields);
+            output = new BufferWritable(textRec);
         }
 
         outputList.add(output);
@@ -422,29 +429,4 @@ public class BridgeOutputBuilder {
             throw new BadRecordException(e);
         }
     }
-
-    /**
-     * Serialize a list of OneFields to a CSV line
-     *
-     * @param fields list of fields
-     * @return a serialized CSV line
-     */
-    private String fieldListToCSVString(List<OneField> fields) {
-        return fields.stream()
-                .map(field -> {
-                    if (field.val == null)
-                        return greenplumCSV.getValueOfNull();
-                    else if (field.type == DataType.BYTEA.getOID())
-                        return "\\x" + Hex.encodeHexString((byte[]) field.val);
-                    else if (field.type == DataType.NUMERIC.getOID() || !DataType.isTextForm(field.type))
-                        return Objects.toString(field.val, null);
-                    else if (field.type == DataType.TIMESTAMP.getOID())
-                        return ((Timestamp) field.val).toLocalDateTime().format(GreenplumDateTime.DATETIME_FORMATTER);
-                    else if (field.type == DataType.DATE.getOID())
-                        return field.val.toString();
-                    else
-                        return greenplumCSV.toCsvField((String) field.val, true, true, true);
-                })
-                .collect(Collectors.joining(String.valueOf(greenplumCSV.getDelimiter()), "", greenplumCSV.getNewline()));
-    }
 }
@@ -0,0 +1,171 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.Striped;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Provides mutual exclusion for requests served by plugins that are not
+ * thread safe. Instead of a single lock for the whole service, locks are
+ * taken by key, so only requests that share the same key wait for each
+ * other. Keys are mapped to a fixed number of lock stripes, set with the
+ * pxf.service.lock.stripes system property, which bounds the memory used
+ * regardless of the number of distinct keys.
+ * <p>
+ * The service keeps track of how long requests waited for their lock, these
+ * statistics are reported by the Metrics resource.
+ */
+public class KeyedLockService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyedLockService.class);
+
+    private static final String PROPERTY_KEY_LOCK_STRIPES = "pxf.service.lock.stripes";
+    private static final int DEFAULT_STRIPES = 64;
+    private static final long SLOW_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final KeyedLockService instance = new KeyedLockService(
+            Integer.getInteger(PROPERTY_KEY_LOCK_STRIPES, DEFAULT_STRIPES), Ticker.systemTicker());
+
+    private final Striped<Lock> locks;
+    private final Ticker ticker;
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong contendedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    KeyedLockService(int stripes, Ticker ticker) {
+        this.locks = Striped.lock(stripes > 0 ? stripes : DEFAULT_STRIPES);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns a singleton instance of the service.
+     *
+     * @return a singleton instance of the service
+     */
+    public static KeyedLockService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the lock key for a request. Plugins that are not thread safe
+     * usually share state between their instances, so requests are
+     * serialized per pair of accessor and resolver classes.
+     *
+     * @param context request context
+     * @return the lock key of the request
+     */
+    public static String keyFor(RequestContext context) {
+        return context.getAccessor() + "|" + context.getResolver();
+    }
+
+    /**
+     * Acquires the lock of the given key, waiting if needed.
+     *
+     * @param key the lock key
+     * @return the acquired lock, to be released by the caller with {@link Lock#unlock()}
+     */
+    public Lock lock(String key) {
+        Lock lock = locks.get(key);
+        acquireCount.incrementAndGet();
+        if (lock.tryLock()) {
+            return lock;
+        }
+
+        long start = ticker.read();
+        lock.lock();
+        long waitNanos = ticker.read() - start;
+        contendedCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        while (waitNanos > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+            // retry until the maximum is updated or a longer wait was recorded
+        }
+        if (waitNanos >= SLOW_WAIT_NANOS) {
+            LOG.info("Waited {} ms for lock {}", TimeUnit.NANOSECONDS.toMillis(waitNanos), key);
+        } else {
+            LOG.debug("Waited {} ms for lock {}", TimeUnit.NANOSECONDS.toMillis(waitNanos), key);
+        }
+        return lock;
+    }
+
+    /**
+     * @return the number of times a lock was acquired
+     */
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * @return the number of times a lock was held by another request when requested
+     */
+    public long getContendedCount() {
+        return contendedCount.get();
+    }
+
+    /**
+     * @return the total time spent waiting for locks, in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    /**
+     * @return the longest time spent waiting for a lock, in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Returns the number of acquired and contended locks and the total and
+     * longest wait for a lock in milliseconds.
+     *
+     * @return the statistics of the locks
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("acquired", getAcquireCount());
+        result.put("contended", getContendedCount());
+        result.put("totalWaitMillis", TimeUnit.NANOSECONDS.toMillis(getTotalWaitNanos()));
+        result.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(getMaxWaitNanos()));
+        return result;
+    }
+
+    /**
+     * Discards the statistics collected so far.
+     */
+    public void resetStats() {
+        acquireCount.set(0);
+        contendedCount.set(0);
+        totalWaitNanos.set(0);
+        maxWaitNanos.set(0);
+    }
+}
@@ -1,13 +1,17 @@
 package org.greenplum.pxf.service.bridge;
 
+import org.greenplum.pxf.api.ReadStatisticsProvider;
 import org.greenplum.pxf.api.model.Accessor;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.model.Resolver;
 import org.greenplum.pxf.api.utilities.AccessorFactory;
 import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 /**
  * Abstract class representing the bridge that provides to subclasses logger and accessor and
  * resolver instances obtained from the factories.
@@ -18,6 +22,12 @@ public abstract class BaseBridge implements Bridge {
 
     protected Accessor accessor;
     protected Resolver resolver;
+    protected RequestMetrics metrics = RequestMetrics.DISABLED;
+
+    private final RequestContext context;
+    private final AccessorFactory accessorFactory;
+    private final ResolverFactory resolverFactory;
+    private boolean pluginsReleasable = true;
 
     /**
      * Creates a new instance for a given request context. Uses default singleton instances of
@@ -36,10 +46,55 @@ public abstract class BaseBridge implements Bridge {
      * @param resolverFactory resolver factory
      */
     BaseBridge(RequestContext context, AccessorFactory accessorFactory, ResolverFactory resolverFactory) {
+        this.context = context;
+        this.accessorFactory = accessorFactory;
+        this.resolverFactory = resolverFactory;
         this.accessor = accessorFactory.getPlugin(context);
         this.resolver = resolverFactory.getPlugin(context);
     }
 
+    @Override
+    public void setMetrics(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Adds the read statistics of the accessor, if it reports any, to the
+     * metrics of the request. Must be called before the accessor is closed.
+     */
+    protected void recordReadStatistics() {
+        if (metrics.isEnabled() && accessor instanceof ReadStatisticsProvider) {
+            Map<String, Long> statistics = ((ReadStatisticsProvider) accessor).getReadStatistics();
+            metrics.addReadStatistics(statistics);
+            Long bytesRead = statistics.get("totalBytesRead");
+            if (bytesRead != null) {
+                metrics.addBytesIn(bytesRead);
+            }
+        }
+    }
+
+    /**
+     * Gives the accessor and the resolver back to their factories so that
+     * they can be reused by another request. Must only be called once the
+     * accessor was closed successfully and no thread uses the plugins anymore.
+     */
+    protected void releasePlugins() {
+        if (!pluginsReleasable) {
+            return;
+        }
+        pluginsReleasable = false;
+        accessorFactory.releasePlugin(context, accessor);
+        resolverFactory.releasePlugin(context, resolver);
+    }
+
+    /**
+     * Prevents the plugins from being reused, when they might still be in
+     * use by a thread the bridge could not stop.
+     */
+    void discardPlugins() {
+        pluginsReleasable = false;
+    }
+
     @Override
     public boolean isThreadSafe() {
         boolean result = accessor.isThreadSafe() && resolver.isThreadSafe();
@@ -21,6 +21,7 @@ package org.greenplum.pxf.service.bridge;
 
 
 import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 
 import java.io.DataInputStream;
 
@@ -45,4 +46,13 @@ public interface Bridge {
     boolean isThreadSafe();
 
     void endIteration() throws Exception;
+
+    /**
+     * Sets the metrics of the request, in which the bridge records the time
+     * spent in every stage. Bridges that do not record metrics ignore them.
+     *
+     * @param metrics the metrics of the request
+     */
+    default void setMetrics(RequestMetrics metrics) {
+    }
 }
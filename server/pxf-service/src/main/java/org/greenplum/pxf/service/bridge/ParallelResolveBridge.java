@@ -0,0 +1,322 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.DetachableRowAccessor;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.service.metrics.Stage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bridge that resolves the records of a fragment in parallel. The accessor
+ * is read on the request thread and the rows are handed in small batches to
+ * a worker pool shared by all requests, where they are resolved into fields.
+ * The fields are then turned into output records on the request thread by
+ * the {@link org.greenplum.pxf.service.BridgeOutputBuilder}, in the order the
+ * rows were read, or in the order their batches were resolved when the
+ * RESOLVER_ORDERED option is false.
+ * <p>
+ * The RESOLVER_THREADS option sets the number of batches resolved at the
+ * same time for the request, capped by the size of the shared pool set with
+ * the pxf.service.resolver.pool.size system property. Every batch in flight
+ * is resolved by its own resolver instance, as resolvers keep state between
+ * rows even when they report being thread safe, and the fields of a row are
+ * copied, as resolvers may reuse the list they return. Resolvers that are
+ * not thread safe are never used by more than one thread at a time.
+ * <p>
+ * Only accessors implementing {@link DetachableRowAccessor} are supported,
+ * the row is detached from the accessor before it leaves the request thread,
+ * as accessors reading with a Hadoop RecordReader reuse the key and value
+ * objects. Plugins that are not thread safe according to the request are
+ * read with the {@link ReadBridge}.
+ */
+public class ParallelResolveBridge extends ReadBridge {
+
+    static final String RESOLVER_THREADS_OPTION = "RESOLVER_THREADS";
+    static final String RESOLVER_ORDERED_OPTION = "RESOLVER_ORDERED";
+    static final int ROWS_PER_TASK = 64;
+
+    private static final String PROPERTY_KEY_POOL_SIZE = "pxf.service.resolver.pool.size";
+    private static final int POOL_SIZE = Integer.getInteger(PROPERTY_KEY_POOL_SIZE,
+            Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(POOL_SIZE, 1),
+            new ThreadFactoryBuilder().setNameFormat("pxf-resolver-%d").setDaemon(true).build());
+
+    private final int parallelism;
+    private final boolean ordered;
+    private final ExecutorService executor;
+    private final BlockingQueue<Resolver> idleResolvers;
+    private final Deque<Future<ResolvedRows>> pending = new ArrayDeque<>();
+    private final CompletionService<ResolvedRows> completionService;
+    private int inFlight;
+    private ResolvedRows current;
+    private int currentIndex;
+    private boolean endOfData;
+    private Exception readError;
+
+    public ParallelResolveBridge(RequestContext context) {
+        this(context, AccessorFactory.getInstance(), ResolverFactory.getInstance(), EXECUTOR, POOL_SIZE);
+    }
+
+    ParallelResolveBridge(RequestContext context, AccessorFactory accessorFactory, ResolverFactory resolverFactory,
+                          ExecutorService executor, int poolSize) {
+        super(context, accessorFactory, resolverFactory);
+        if (!(accessor instanceof DetachableRowAccessor)) {
+            throw new IllegalArgumentException(String.format("Accessor %s does not implement %s",
+                    accessor.getClass().getName(), DetachableRowAccessor.class.getSimpleName()));
+        }
+        // instances of a resolver that is not thread safe may share state
+        this.parallelism = resolver.isThreadSafe() ? Math.max(1, Math.min(getParallelism(context), poolSize)) : 1;
+        this.ordered = !StringUtils.equalsIgnoreCase(context.getOption(RESOLVER_ORDERED_OPTION), "false");
+        this.executor = executor;
+        this.completionService = ordered ? null : new ExecutorCompletionService<>(executor);
+
+        // never more tasks in flight than resolvers, so a task never waits for one
+        idleResolvers = new ArrayBlockingQueue<>(parallelism);
+        idleResolvers.add(resolver);
+        for (int i = 1; i < parallelism; i++) {
+            idleResolvers.add(resolverFactory.getPlugin(context));
+        }
+        LOG.debug("Resolving with {} resolver(s), {} output", parallelism, ordered ? "ordered" : "unordered");
+    }
+
+    /**
+     * Determines whether the rows of the request can be resolved in parallel,
+     * which requires more than one resolver thread, plugins that are thread
+     * safe according to the request and an accessor detaching its rows.
+     *
+     * @param context request context
+     * @return true if the rows can be resolved in parallel
+     */
+    static boolean isSupported(RequestContext context) {
+        return getParallelism(context) > 1 && context.isThreadSafe() &&
+                Utilities.implementsInterface(context.getAccessor(), DetachableRowAccessor.class);
+    }
+
+    /**
+     * @param context request context
+     * @return the parallelism requested with the RESOLVER_THREADS option
+     */
+    static int getParallelism(RequestContext context) {
+        return context.getOption(RESOLVER_THREADS_OPTION, 1, true);
+    }
+
+    /**
+     * Returns the next record, keeping up to the configured number of row
+     * batches being resolved ahead of the caller.
+     */
+    @Override
+    public Writable getNext() throws Exception {
+        if (!outputQueue.isEmpty()) {
+            return outputQueue.pop();
+        }
+
+        while (true) {
+            if (current == null || currentIndex == current.size()) {
+                current = null;
+                submit();
+                if (inFlight == 0) {
+                    if (readError != null) {
+                        Exception error = readError;
+                        readError = null;
+                        endOfData = false;
+                        return errorOutput(error, null);
+                    }
+                    Writable output = outputBuilder.getPartialLine();
+                    if (output != null) {
+                        LOG.warn("A partial record in the end of the fragment");
+                    }
+                    return output;
+                }
+                current = nextResolved();
+                currentIndex = 0;
+                continue;
+            }
+
+            int index = currentIndex++;
+            Object result = current.results[index];
+            if (result instanceof Exception) {
+                return errorOutput((Exception) result, current.rows.get(index));
+            }
+            @SuppressWarnings("unchecked")
+            List<OneField> fields = (List<OneField>) result;
+            long start = metrics.start();
+            outputQueue = outputBuilder.makeOutput(fields);
+            metrics.stop(Stage.SERIALIZE, start);
+            if (!outputQueue.isEmpty()) {
+                return outputQueue.pop();
+            }
+        }
+    }
+
+    /**
+     * Cancels the batches still being resolved and closes the accessor.
+     */
+    @Override
+    public void endIteration() throws Exception {
+        if (!pending.isEmpty()) {
+            // cancelled batches may still be using the resolvers
+            discardPlugins();
+        }
+        for (Future<ResolvedRows> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        super.endIteration();
+    }
+
+    /*
+     * Reads rows from the accessor and submits them to the pool until the
+     * maximum number of batches is in flight or the data ends. A failure of
+     * the accessor ends the data until the rows read before it were returned.
+     */
+    private void submit() throws Exception {
+        while (inFlight < parallelism && !endOfData) {
+            List<OneRow> rows = new ArrayList<>(ROWS_PER_TASK);
+            try {
+                while (rows.size() < ROWS_PER_TASK) {
+                    long start = metrics.start();
+                    OneRow row = accessor.readNextObject();
+                    metrics.stop(Stage.ACCESSOR_READ, start);
+                    if (row == null) {
+                        endOfData = true;
+                        break;
+                    }
+                    rows.add(((DetachableRowAccessor) accessor).detach(row));
+                }
+            } catch (Exception e) {
+                endOfData = true;
+                readError = e;
+            }
+            if (!rows.isEmpty()) {
+                Callable<ResolvedRows> task = new ResolveTask(rows);
+                if (ordered) {
+                    pending.add(executor.submit(task));
+                } else {
+                    pending.add(completionService.submit(task));
+                }
+                inFlight++;
+            }
+        }
+    }
+
+    private ResolvedRows nextResolved() throws Exception {
+        Future<ResolvedRows> future = ordered ? pending.peekFirst() : completionService.take();
+        ResolvedRows resolved;
+        try {
+            resolved = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : e;
+        }
+        pending.remove(future);
+        inFlight--;
+        return resolved;
+    }
+
+    /*
+     * Handles a failure the same way ReadBridge does, data errors become an
+     * error record for GPDB, any other failure ends the request.
+     */
+    private Writable errorOutput(Exception ex, OneRow onerow) throws Exception {
+        if (ex instanceof IOException && isDataException((IOException) ex)) {
+            return outputBuilder.getErrorOutput(ex);
+        }
+        if (ex instanceof BadRecordException) {
+            String rowInfo = (onerow != null) ? onerow.toString() : "[record was not created]";
+            LOG.debug("BadRecordException {}: {}", (ex.getCause() != null) ? ex.getCause() : ex, rowInfo);
+            return outputBuilder.getErrorOutput(ex);
+        }
+        throw ex;
+    }
+
+    /**
+     * Rows read from the accessor with, for each row, either its fields or
+     * the exception thrown while resolving it.
+     */
+    private static class ResolvedRows {
+
+        final List<OneRow> rows;
+        final Object[] results;
+
+        ResolvedRows(List<OneRow> rows) {
+            this.rows = rows;
+            this.results = new Object[rows.size()];
+        }
+
+        int size() {
+            return results.length;
+        }
+    }
+
+    private class ResolveTask implements Callable<ResolvedRows> {
+
+        private final List<OneRow> rows;
+
+        ResolveTask(List<OneRow> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public ResolvedRows call() throws Exception {
+            Resolver worker = idleResolvers.take();
+            ResolvedRows resolved = new ResolvedRows(rows);
+            long start = metrics.start();
+            try {
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        // the resolver may reuse the list for the next row
+                        resolved.results[i] = new ArrayList<>(worker.getFields(rows.get(i)));
+                    } catch (IOException | BadRecordException e) {
+                        resolved.results[i] = e;
+                    }
+                }
+            } finally {
+                metrics.stop(Stage.RESOLVE, start);
+                idleResolvers.add(worker);
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bridge that reads ahead of the network writer. A producer thread drives
+ * the wrapped read bridge, that is the accessor and the resolver, and
+ * serializes the records into chunks of bytes that are handed over to the
+ * request thread through a bounded queue. The request thread only drains the
+ * chunks to the wire, so storage reads and network writes overlap.
+ * <p>
+ * The producer runs as the user of the request, so the storage is read with
+ * the same credentials as on the request thread.
+ * <p>
+ * When the queue is full the producer blocks, which bounds the memory used
+ * by a request to about (queue size + 1) * chunk size. Ending the iteration,
+ * which also happens when the client aborts the connection, cancels the
+ * producer and waits for it to stop before the wrapped bridge is closed, so
+ * the accessor is never used by two threads at a time.
+ * <p>
+ * The factory only pipelines bridges whose accessor and resolver are thread
+ * safe, as the request lock of other plugins does not cover the producer.
+ * <p>
+ * The pipeline is enabled with the PIPELINE request option or the
+ * pxf.service.read.pipeline.enabled system property.
+ */
+public class PipelinedReadBridge implements Bridge {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelinedReadBridge.class);
+
+    static final String PIPELINE_OPTION = "PIPELINE";
+    static final String PIPELINE_QUEUE_SIZE_OPTION = "PIPELINE_QUEUE_SIZE";
+
+    private static final String PROPERTY_KEY_PIPELINE_ENABLED = "pxf.service.read.pipeline.enabled";
+    private static final String PROPERTY_KEY_QUEUE_SIZE = "pxf.service.read.pipeline.queue.size";
+    private static final String PROPERTY_KEY_CHUNK_SIZE = "pxf.service.read.pipeline.chunk.size";
+    private static final int DEFAULT_QUEUE_SIZE = 4;
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final long CANCEL_TIMEOUT_MS = 30000;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-read-pipeline-%d").setDaemon(true).build());
+
+    // marks the end of the data in the queue
+    private static final Chunk END = new Chunk(new byte[0], 0);
+
+    private final Bridge delegate;
+    private final BlockingQueue<Chunk> queue;
+    private final int chunkSize;
+    private final Ticker ticker;
+    private final ExecutorService executor;
+    private final long cancelTimeoutMillis;
+    private final CountDownLatch producerFinished = new CountDownLatch(1);
+    private final AtomicBoolean producerStarted = new AtomicBoolean();
+
+    private volatile boolean cancelled;
+    private volatile Exception producerError;
+    private Future<?> producer;
+    private boolean done;
+
+    // per stage timing, the producer fields are only read after the producer finished
+    private long recordCount;
+    private long chunkCount;
+    private long readNanos;
+    private long serializeNanos;
+    private long producerBlockedNanos;
+    private long writerWaitNanos;
+
+    /**
+     * Wraps the given read bridge.
+     *
+     * @param delegate the bridge producing the records
+     * @param context  request context
+     */
+    public PipelinedReadBridge(Bridge delegate, RequestContext context) {
+        this(delegate, getQueueSize(context), Integer.getInteger(PROPERTY_KEY_CHUNK_SIZE, DEFAULT_CHUNK_SIZE),
+                Ticker.systemTicker(), EXECUTOR);
+    }
+
+    PipelinedReadBridge(Bridge delegate, int queueSize, int chunkSize, Ticker ticker, ExecutorService executor) {
+        this(delegate, queueSize, chunkSize, ticker, executor, CANCEL_TIMEOUT_MS);
+    }
+
+    PipelinedReadBridge(Bridge delegate, int queueSize, int chunkSize, Ticker ticker, ExecutorService executor,
+                        long cancelTimeoutMillis) {
+        this.delegate = delegate;
+        this.cancelTimeoutMillis = cancelTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.chunkSize = chunkSize;
+        this.ticker = ticker;
+        this.executor = executor;
+    }
+
+    /**
+     * Determines whether the read pipeline is requested, the PIPELINE option
+     * has precedence over the system property.
+     *
+     * @param context request context
+     * @return true if reads should be pipelined
+     */
+    public static boolean isEnabled(RequestContext context) {
+        String value = context.getOption(PIPELINE_OPTION);
+        if (value == null) {
+            value = System.getProperty(PROPERTY_KEY_PIPELINE_ENABLED, "false");
+        }
+        return StringUtils.equalsIgnoreCase(value, "true");
+    }
+
+    private static int getQueueSize(RequestContext context) {
+        int queueSize = context.getOption(PIPELINE_QUEUE_SIZE_OPTION,
+                Integer.getInteger(PROPERTY_KEY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE), true);
+        return queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE;
+    }
+
+    /**
+     * Opens the wrapped bridge on the request thread and starts the producer,
+     * which runs as the user of the request.
+     */
+    @Override
+    public boolean beginIteration() throws Exception {
+        if (!delegate.beginIteration()) {
+            producerFinished.countDown();
+            return false;
+        }
+        UserGroupInformation user = UserGroupInformation.getCurrentUser();
+        producer = executor.submit(() -> produceAs(user));
+        return true;
+    }
+
+    /**
+     * Returns the next chunk of serialized records, waiting for the producer
+     * if none is available yet. Errors of the producer are rethrown here,
+     * after all the chunks produced before the error were returned.
+     */
+    @Override
+    public Writable getNext() throws Exception {
+        if (done) {
+            return null;
+        }
+        Chunk chunk = queue.poll();
+        if (chunk == null) {
+            long start = ticker.read();
+            chunk = queue.take();
+            writerWaitNanos += ticker.read() - start;
+        }
+        if (chunk == END) {
+            done = true;
+            if (producerError != null) {
+                throw producerError;
+            }
+            return null;
+        }
+        return chunk;
+    }
+
+    @Override
+    public boolean setNext(DataInputStream inputStream) {
+        throw new UnsupportedOperationException("setNext is not implemented");
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
+    /**
+     * Passes the metrics to the wrapped bridge, which records its stages
+     * from the producer thread.
+     */
+    @Override
+    public void setMetrics(RequestMetrics metrics) {
+        delegate.setMetrics(metrics);
+    }
+
+    /**
+     * Stops the producer if it is still running and closes the wrapped bridge.
+     * The wrapped bridge is only closed once the producer stopped, as the
+     * accessor may still be in use, so this waits for as long as it takes.
+     */
+    @Override
+    public void endIteration() throws Exception {
+        try {
+            if (producer != null && !producerFinished.await(0, TimeUnit.MILLISECONDS)) {
+                LOG.debug("Cancelling read pipeline before the end of the data");
+                cancelled = true;
+                if (producerStarted.compareAndSet(false, true)) {
+                    // the producer never ran and will not run anymore
+                    producerFinished.countDown();
+                }
+                producer.cancel(true);
+                // release a producer blocked on a full queue
+                queue.clear();
+                awaitProducer();
+            }
+            LOG.debug("Read pipeline finished: {} records in {} chunks, read {} ms, serialize {} ms, " +
+                            "producer blocked {} ms, writer waited {} ms",
+                    recordCount, chunkCount, millis(readNanos), millis(serializeNanos),
+                    millis(producerBlockedNanos), millis(writerWaitNanos));
+        } finally {
+            delegate.endIteration();
+        }
+    }
+
+    /*
+     * Waits until the cancelled producer stopped, warning while it does not,
+     * interrupts of the request thread are deferred until the producer stopped
+     */
+    private void awaitProducer() {
+        boolean interrupted = false;
+        long waitedMillis = 0;
+        while (true) {
+            try {
+                if (producerFinished.await(cancelTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                waitedMillis += cancelTimeoutMillis;
+                LOG.warn("Read pipeline producer did not stop in {} ms, still waiting for it", waitedMillis);
+                // release a producer blocked on a queue refilled before it saw the cancellation
+                queue.clear();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    long getProducerBlockedNanos() {
+        return producerBlockedNanos;
+    }
+
+    long getWriterWaitNanos() {
+        return writerWaitNanos;
+    }
+
+    /*
+     * Runs the producer as the user of the request
+     */
+    private void produceAs(UserGroupInformation user) {
+        if (!producerStarted.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            user.doAs((PrivilegedExceptionAction<Void>) () -> {
+                produce();
+                return null;
+            });
+        } catch (Exception e) {
+            // produce handles its own errors
+            LOG.error("Read pipeline producer failed", e);
+        } finally {
+            producerFinished.countDown();
+        }
+    }
+
+    /*
+     * Producer loop, reads and serializes the records until the end of the
+     * data, an error or a cancellation. Unless the pipeline was cancelled,
+     * the remaining bytes and the end marker are always queued.
+     */
+    private void produce() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunkSize + chunkSize / 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            while (!cancelled) {
+                long start = ticker.read();
+                Writable record = delegate.getNext();
+                long read = ticker.read();
+                readNanos += read - start;
+                if (record == null) {
+                    break;
+                }
+                record.write(out);
+                recordCount++;
+                serializeNanos += ticker.read() - read;
+                if (bytes.size() >= chunkSize) {
+                    hand(new Chunk(bytes.toByteArray(), bytes.size()));
+                    bytes.reset();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!cancelled) {
+                producerError = e;
+            }
+        } finally {
+            try {
+                if (!cancelled) {
+                    // the records serialized before an error are still sent
+                    if (bytes.size() > 0) {
+                        hand(new Chunk(bytes.toByteArray(), bytes.size()));
+                    }
+                    hand(END);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                producerFinished.countDown();
+            }
+        }
+    }
+
+    private void hand(Chunk chunk) throws InterruptedException {
+        if (!queue.offer(chunk)) {
+            long start = ticker.read();
+            while (!cancelled && !queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                // the writer is slower than the reader, wait for it
+            }
+            producerBlockedNanos += ticker.read() - start;
+        }
+        if (chunk != END) {
+            chunkCount++;
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * A chunk of records already serialized in the output format.
+     */
+    private static class Chunk implements Writable {
+
+        private final byte[] bytes;
+        private final int length;
+
+        Chunk(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.write(bytes, 0, length);
+        }
+
+        @Override
+        public void readFields(DataInput in) {
+            throw new UnsupportedOperationException("Chunk is only used for output");
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.greenplum.pxf.service.metrics.Stage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write bridge that writes to the storage on a separate thread. The request
+ * thread decodes the incoming records and resolves them, then hands the rows
+ * to a writer thread through a bounded queue, so receiving from the network,
+ * resolving and writing to the storage overlap. When the queue is full the
+ * request thread waits, which stops reading from the network.
+ * <p>
+ * Some resolvers return the same object for every row, which cannot be
+ * queued. The first two rows are written on the request thread, and the
+ * writer is only started when they do not share their data object.
+ * Otherwise the request is written synchronously, like with
+ * {@link WriteBridge}.
+ * <p>
+ * The writer runs as the user of the request. The accessor is opened and
+ * closed on the request thread, and is only closed after the writer wrote all
+ * the queued rows. A failure of the writer fails the next call to
+ * {@link #setNext(DataInputStream)}, or {@link #endIteration()} if no more
+ * records arrive.
+ * <p>
+ * A writer that writes no row for pxf.service.write.pipeline.timeout.ms
+ * milliseconds, 5 minutes by default, while rows are waiting fails the
+ * request and is cancelled. If it does not stop, it closes the accessor
+ * itself once it stops, so the accessor is never used by two threads.
+ * <p>
+ * The pipeline is enabled with the WRITE_PIPELINE request option or the
+ * pxf.service.write.pipeline.enabled system property.
+ */
+public class PipelinedWriteBridge extends WriteBridge {
+
+    static final String WRITE_PIPELINE_OPTION = "WRITE_PIPELINE";
+
+    private static final String PROPERTY_KEY_PIPELINE_ENABLED = "pxf.service.write.pipeline.enabled";
+    private static final String PROPERTY_KEY_QUEUE_SIZE = "pxf.service.write.pipeline.queue.size";
+    private static final String PROPERTY_KEY_WRITER_TIMEOUT = "pxf.service.write.pipeline.timeout.ms";
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+    private static final long DEFAULT_WRITER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long CANCEL_TIMEOUT_MS = 30000;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-write-pipeline-%d").setDaemon(true).build());
+
+    // marks the end of the rows in the queue
+    private static final OneRow END = new OneRow();
+
+    private final BlockingQueue<OneRow> queue;
+    private final ExecutorService executor;
+    private final long writerTimeoutNanos;
+    private final long cancelTimeoutMillis;
+    private final CountDownLatch writerFinished = new CountDownLatch(1);
+    private volatile Exception writerError;
+    private volatile long rowsWritten;
+    private Future<?> writer;
+    private boolean writerStarted;
+    private boolean writerStuck;
+    private long lastRowsWritten = -1;
+    private long lastProgressNanos;
+    // guarded by this, whether the writer stopped and whether it closes the accessor
+    private boolean writerStopped;
+    private boolean closeOnStop;
+    private boolean errorReported;
+    private int rowsWrittenDirectly;
+    private Object firstRowData;
+
+    public PipelinedWriteBridge(RequestContext context) {
+        this(context, AccessorFactory.getInstance(), ResolverFactory.getInstance(), EXECUTOR,
+                Long.getLong(PROPERTY_KEY_WRITER_TIMEOUT, DEFAULT_WRITER_TIMEOUT_MS), CANCEL_TIMEOUT_MS);
+    }
+
+    PipelinedWriteBridge(RequestContext context, AccessorFactory accessorFactory, ResolverFactory resolverFactory,
+                         ExecutorService executor, long writerTimeoutMillis, long cancelTimeoutMillis) {
+        super(context, accessorFactory, resolverFactory);
+        int queueSize = Integer.getInteger(PROPERTY_KEY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.queue = new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE);
+        this.executor = executor;
+        this.writerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writerTimeoutMillis);
+        this.cancelTimeoutMillis = cancelTimeoutMillis;
+    }
+
+    /**
+     * Determines whether the write pipeline is requested, the WRITE_PIPELINE
+     * option has precedence over the system property.
+     *
+     * @param context request context
+     * @return true if writes should be pipelined
+     */
+    public static boolean isEnabled(RequestContext context) {
+        String value = context.getOption(WRITE_PIPELINE_OPTION);
+        if (value == null) {
+            value = System.getProperty(PROPERTY_KEY_PIPELINE_ENABLED, "false");
+        }
+        return StringUtils.equalsIgnoreCase(value, "true");
+    }
+
+    /*
+     * Read data from stream, convert it using Resolver into OneRow object, and
+     * queue it for the writer.
+     */
+    @Override
+    public boolean setNext(DataInputStream inputStream) throws Exception {
+        checkWriter();
+
+        long start = metrics.start();
+        List<OneField> record = inputBuilder.makeInput(inputStream);
+        metrics.stop(Stage.NETWORK_READ, start);
+        if (record == null) {
+            return false;
+        }
+
+        start = metrics.start();
+        OneRow onerow = resolver.setFields(record);
+        metrics.stop(Stage.RESOLVE, start);
+        if (onerow == null) {
+            return false;
+        }
+        if (!writerStarted && !startWriter(onerow)) {
+            writeRow(onerow);
+            return true;
+        }
+
+        // resolvers may reuse the row itself, only its data must be new
+        queue(new OneRow(onerow.getKey(), onerow.getData()));
+        return true;
+    }
+
+    /**
+     * Waits for the writer to write the queued rows, then closes the accessor.
+     * A writer that stopped making progress is cancelled and fails the request.
+     */
+    @Override
+    public void endIteration() throws Exception {
+        boolean close = true;
+        try {
+            if (writerStarted && !writerStuck) {
+                try {
+                    queue(END);
+                    while (!writerFinished.await(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                        checkProgress();
+                    }
+                } catch (WriterStuckException e) {
+                    // reported below, once the accessor is closed
+                }
+            }
+            if (writerStuck) {
+                close = cancelWriter();
+            }
+        } finally {
+            if (close) {
+                super.endIteration();
+            }
+        }
+        if (writerStuck) {
+            throw new WriterStuckException(TimeUnit.NANOSECONDS.toMillis(writerTimeoutNanos));
+        }
+        checkWriter();
+    }
+
+    /*
+     * Queues the row, waiting while the queue is full unless the writer
+     * failed or stopped making progress
+     */
+    private void queue(OneRow onerow) throws Exception {
+        while (!queue.offer(onerow, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            // the storage is slower than the network, stop if the writer failed
+            checkWriter();
+            if (writerError != null) {
+                // the failure was already reported, the writer does not take rows anymore
+                return;
+            }
+            checkProgress();
+        }
+    }
+
+    /*
+     * Fails when the writer wrote no row during the writer timeout
+     */
+    private void checkProgress() throws WriterStuckException {
+        long rows = rowsWritten;
+        long now = System.nanoTime();
+        if (rows != lastRowsWritten) {
+            lastRowsWritten = rows;
+            lastProgressNanos = now;
+        } else if (now - lastProgressNanos > writerTimeoutNanos) {
+            writerStuck = true;
+            throw new WriterStuckException(TimeUnit.NANOSECONDS.toMillis(writerTimeoutNanos));
+        }
+    }
+
+    /*
+     * Cancels a stuck writer, and returns whether the accessor can be closed
+     * on the request thread. Otherwise the writer closes it once it stops.
+     */
+    private boolean cancelWriter() throws InterruptedException {
+        LOG.warn("Write pipeline wrote no rows in {} ms, cancelling the writer",
+                TimeUnit.NANOSECONDS.toMillis(writerTimeoutNanos));
+        writer.cancel(true);
+        queue.clear();
+        if (writerFinished.await(cancelTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        LOG.warn("Write pipeline writer did not stop in {} ms, it will close the accessor when it stops",
+                cancelTimeoutMillis);
+        synchronized (this) {
+            closeOnStop = !writerStopped;
+            return writerStopped;
+        }
+    }
+
+    /*
+     * Decides whether the given row can be queued, and starts the writer
+     * if so. The writer runs as the user of the request.
+     */
+    private boolean startWriter(OneRow onerow) throws IOException {
+        if (rowsWrittenDirectly == 0) {
+            firstRowData = onerow.getData();
+        } else if (rowsWrittenDirectly == 1) {
+            boolean reused = firstRowData != null && firstRowData == onerow.getData();
+            firstRowData = null;
+            if (!reused) {
+                UserGroupInformation user = UserGroupInformation.getCurrentUser();
+                writer = executor.submit(() -> writeAs(user));
+                writerStarted = true;
+                return true;
+            }
+            LOG.debug("Resolver reuses its rows, writing without pipeline");
+        }
+        if (rowsWrittenDirectly < 2) {
+            rowsWrittenDirectly++;
+        }
+        return false;
+    }
+
+    /*
+     * Runs the writer as the user of the request, and closes the accessor
+     * when the request stopped waiting for the writer
+     */
+    private void writeAs(UserGroupInformation user) {
+        try {
+            user.doAs((PrivilegedExceptionAction<Void>) () -> {
+                write();
+                return null;
+            });
+        } catch (Exception e) {
+            // write handles its own errors
+            LOG.error("Write pipeline writer failed", e);
+        } finally {
+            boolean close;
+            synchronized (this) {
+                writerStopped = true;
+                close = closeOnStop;
+            }
+            if (close) {
+                try {
+                    super.endIteration();
+                } catch (Exception e) {
+                    LOG.warn("Failed closing the accessor of a cancelled write pipeline", e);
+                }
+            }
+        }
+    }
+
+    private void write() {
+        try {
+            OneRow onerow;
+            while ((onerow = queue.take()) != END) {
+                writeRow(onerow);
+                rowsWritten++;
+            }
+        } catch (InterruptedException e) {
+            writerError = e;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            writerError = e;
+        } finally {
+            if (writerError != null) {
+                LOG.error("Failed to write to the storage: {}", writerError.getMessage());
+                // unblock the request thread, the queued rows are not written
+                queue.clear();
+            }
+            writerFinished.countDown();
+        }
+    }
+
+    private void writeRow(OneRow onerow) throws Exception {
+        long start = metrics.start();
+        boolean written = accessor.writeNextObject(onerow);
+        metrics.stop(Stage.ACCESSOR_WRITE, start);
+        if (!written) {
+            throw new BadRecordException();
+        }
+    }
+
+    private void checkWriter() throws Exception {
+        Exception error = writerError;
+        if (error != null && !errorReported) {
+            errorReported = true;
+            throw error;
+        }
+    }
+
+    /**
+     * Thrown when the writer made no progress during the writer timeout.
+     */
+    private static class WriterStuckException extends IOException {
+        WriterStuckException(long timeoutMillis) {
+            super(String.format("Write pipeline wrote no rows in %d ms", timeoutMillis));
+        }
+    }
+}
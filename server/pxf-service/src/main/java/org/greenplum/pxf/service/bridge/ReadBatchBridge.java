@@ -0,0 +1,128 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.BatchAccessor;
+import org.greenplum.pxf.api.BatchResolver;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnBatchWritable;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.greenplum.pxf.service.metrics.Stage;
+
+import java.io.IOException;
+
+/**
+ * Bridge that keeps the data in columnar form from the resolver up to the
+ * wire. The resolver fills a reusable {@link ColumnBatch} and every call to
+ * {@link #getNext()} returns a writable that serializes all the rows of the
+ * batch as GPDBWritable records, without boxing the values into
+ * {@link org.greenplum.pxf.api.OneField}s.
+ * <p>
+ * Used when the resolver implements {@link BatchResolver} and the output
+ * format is GPDBWritable. The batch size can be set with the BATCH_SIZE
+ * option.
+ */
+public class ReadBatchBridge extends ReadBridge {
+
+    static final String BATCH_SIZE_OPTION = "BATCH_SIZE";
+
+    private final ColumnBatch batch;
+    private final ColumnBatchWritable batchWritable;
+    private Writable pendingError;
+
+    public ReadBatchBridge(RequestContext context) {
+        this(context, AccessorFactory.getInstance(), ResolverFactory.getInstance());
+    }
+
+    ReadBatchBridge(RequestContext context, AccessorFactory accessorFactory, ResolverFactory resolverFactory) {
+        super(context, accessorFactory, resolverFactory);
+        int[] columnTypes = new int[context.getColumns()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = context.getColumn(i).columnTypeCode();
+        }
+        int batchSize = context.getOption(BATCH_SIZE_OPTION, ColumnBatch.DEFAULT_BATCH_SIZE, true);
+        batch = new ColumnBatch(columnTypes, batchSize > 0 ? batchSize : ColumnBatch.DEFAULT_BATCH_SIZE);
+        batchWritable = new ColumnBatchWritable(batch);
+    }
+
+    /**
+     * Fills the batch with the next records from the data source and returns
+     * a writable serializing all of them. If reading a record fails after
+     * some records were added to the batch, the batch is returned first and
+     * the error record is returned by the following call.
+     */
+    @Override
+    public Writable getNext() throws Exception {
+        if (pendingError != null) {
+            Writable error = pendingError;
+            pendingError = null;
+            return error;
+        }
+
+        BatchResolver batchResolver = (BatchResolver) resolver;
+        BatchAccessor batchAccessor = (accessor instanceof BatchAccessor) ? (BatchAccessor) accessor : null;
+        OneRow onerow = null;
+
+        batch.reset();
+        try {
+            while (!batch.isFull()) {
+                long start = metrics.start();
+                onerow = (batchAccessor != null) ?
+                        batchAccessor.readNextBatch(batch.remaining()) :
+                        accessor.readNextObject();
+                metrics.stop(Stage.ACCESSOR_READ, start);
+                if (onerow == null) {
+                    break;
+                }
+                start = metrics.start();
+                batchResolver.resolveBatch(onerow, batch);
+                metrics.stop(Stage.RESOLVE, start);
+            }
+        } catch (IOException ex) {
+            if (!isDataException(ex)) {
+                throw ex;
+            }
+            return errorAfterBatch(outputBuilder.getErrorOutput(ex));
+        } catch (BadRecordException ex) {
+            String rowInfo = (onerow != null) ? onerow.toString() : "[record was not created]";
+            LOG.debug("BadRecordException {}: {}", (ex.getCause() != null) ? ex.getCause() : ex, rowInfo);
+            return errorAfterBatch(outputBuilder.getErrorOutput(ex));
+        }
+
+        return batch.isEmpty() ? null : batchWritable;
+    }
+
+    /*
+     * Returns the records resolved so far, if any, and keeps the error
+     * record to be returned by the next call.
+     */
+    private Writable errorAfterBatch(Writable error) {
+        if (batch.isEmpty()) {
+            return error;
+        }
+        pendingError = error;
+        return batchWritable;
+    }
+}
@@ -20,12 +20,14 @@ package org.greenplum.pxf.service.bridge;
  */
 
 import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.AccessorFactory;
 import org.greenplum.pxf.api.utilities.ResolverFactory;
 import org.greenplum.pxf.service.BridgeOutputBuilder;
+import org.greenplum.pxf.service.metrics.Stage;
 
 import java.io.CharConversionException;
 import java.io.DataInputStream;
@@ -35,6 +37,7 @@ import java.io.UTFDataFormatException;
 import java.nio.charset.CharacterCodingException;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.zip.ZipException;
 
 /**
@@ -69,11 +72,23 @@ public class ReadBridge extends BaseBridge {
      */
     @Override
     public boolean beginIteration() throws Exception {
-        return accessor.openForRead();
+        long start = metrics.start();
+        try {
+            return accessor.openForRead();
+        } finally {
+            metrics.stop(Stage.OPEN, start);
+        }
     }
 
     protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
-        return outputBuilder.makeOutput(resolver.getFields(oneRow));
+        long start = metrics.start();
+        List<OneField> fields = resolver.getFields(oneRow);
+        metrics.stop(Stage.RESOLVE, start);
+
+        start = metrics.start();
+        Deque<Writable> output = outputBuilder.makeOutput(fields);
+        metrics.stop(Stage.SERIALIZE, start);
+        return output;
     }
 
     /**
@@ -91,7 +106,9 @@ public class ReadBridge extends BaseBridge {
 
         try {
             while (outputQueue.isEmpty()) {
+                long start = metrics.start();
                 onerow = accessor.readNextObject();
+                metrics.stop(Stage.ACCESSOR_READ, start);
                 if (onerow == null) {
                     output = outputBuilder.getPartialLine();
                     if (output != null) {
@@ -127,11 +144,16 @@ public class ReadBridge extends BaseBridge {
      * Close the underlying resource
      */
     public void endIteration() throws Exception {
+        recordReadStatistics();
+        long start = metrics.start();
         try {
             accessor.closeForRead();
+            releasePlugins();
         } catch (Exception e) {
             LOG.error("Failed to close bridge resources: {}", e.getMessage());
             throw e;
+        } finally {
+            metrics.stop(Stage.CLOSE, start);
         }
     }
 
@@ -26,6 +26,7 @@ import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.AccessorFactory;
 import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.greenplum.pxf.service.metrics.Stage;
 
 import java.util.Deque;
 import java.util.List;
@@ -43,8 +44,14 @@ public class ReadVectorizedBridge extends ReadBridge {
 
     @Override
     protected Deque<Writable> makeOutput(OneRow oneRow) throws Exception {
+        long start = metrics.start();
         List<List<OneField>> resolvedBatch = ((ReadVectorizedResolver) resolver).
                 getFieldsForBatch(oneRow);
-        return outputBuilder.makeVectorizedOutput(resolvedBatch);
+        metrics.stop(Stage.RESOLVE, start);
+
+        start = metrics.start();
+        Deque<Writable> output = outputBuilder.makeVectorizedOutput(resolvedBatch);
+        metrics.stop(Stage.SERIALIZE, start);
+        return output;
     }
 }
@@ -1,6 +1,8 @@
 package org.greenplum.pxf.service.bridge;
 
+import org.greenplum.pxf.api.BatchResolver;
 import org.greenplum.pxf.api.ReadVectorizedResolver;
+import org.greenplum.pxf.api.model.OutputFormat;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.Utilities;
 import org.slf4j.Logger;
@@ -28,19 +30,41 @@ public class SimpleBridgeFactory implements BridgeFactory {
             bridge = new ReadSamplingBridge(context);
         } else if (Utilities.aggregateOptimizationsSupported(context)) {
             bridge = new AggBridge(context);
+        } else if (useBatch(context)) {
+            bridge = new ReadBatchBridge(context);
         } else if (useVectorization(context)) {
             bridge = new ReadVectorizedBridge(context);
+        } else if (ParallelResolveBridge.isSupported(context)) {
+            bridge = new ParallelResolveBridge(context);
         } else {
             bridge = new ReadBridge(context);
         }
+        // the request lock of plugins that are not thread safe does not cover the producer
+        if (PipelinedReadBridge.isEnabled(context) && context.isThreadSafe() && bridge.isThreadSafe()) {
+            bridge = new PipelinedReadBridge(bridge, context);
+        }
         return bridge;
     }
 
     @Override
     public Bridge getWriteBridge(RequestContext context) {
+        if (PipelinedWriteBridge.isEnabled(context)) {
+            return new PipelinedWriteBridge(context);
+        }
         return new WriteBridge(context);
     }
 
+    /**
+     * Determines whether to keep the data in columnar batches up to the wire
+     *
+     * @param requestContext input protocol data
+     * @return true if the resolver supports batches and the output format is GPDBWritable
+     */
+    private boolean useBatch(RequestContext requestContext) {
+        return requestContext.getOutputFormat() == OutputFormat.GPDBWritable &&
+                Utilities.implementsInterface(requestContext.getResolver(), BatchResolver.class);
+    }
+
     /**
      * Determines whether use vectorization
      *
@@ -28,6 +28,7 @@ import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.AccessorFactory;
 import org.greenplum.pxf.api.utilities.ResolverFactory;
 import org.greenplum.pxf.service.BridgeInputBuilder;
+import org.greenplum.pxf.service.metrics.Stage;
 
 import java.io.DataInputStream;
 import java.util.List;
@@ -39,7 +40,7 @@ import java.util.List;
  */
 public class WriteBridge extends BaseBridge {
 
-    private final BridgeInputBuilder inputBuilder;
+    final BridgeInputBuilder inputBuilder;
 
     /*
      * C'tor - set the implementation of the bridge
@@ -56,7 +57,12 @@ public class WriteBridge extends BaseBridge {
 
     @Override
     public boolean beginIteration() throws Exception {
-        return accessor.openForWrite();
+        long start = metrics.start();
+        try {
+            return accessor.openForWrite();
+        } finally {
+            metrics.stop(Stage.OPEN, start);
+        }
     }
 
     /*
@@ -66,16 +72,24 @@ public class WriteBridge extends BaseBridge {
     @Override
     public boolean setNext(DataInputStream inputStream) throws Exception {
 
+        long start = metrics.start();
         List<OneField> record = inputBuilder.makeInput(inputStream);
+        metrics.stop(Stage.NETWORK_READ, start);
         if (record == null) {
             return false;
         }
 
+        start = metrics.start();
         OneRow onerow = resolver.setFields(record);
+        metrics.stop(Stage.RESOLVE, start);
         if (onerow == null) {
             return false;
         }
-        if (!accessor.writeNextObject(onerow)) {
+
+        start = metrics.start();
+        boolean written = accessor.writeNextObject(onerow);
+        metrics.stop(Stage.ACCESSOR_WRITE, start);
+        if (!written) {
             throw new BadRecordException();
         }
         return true;
@@ -85,11 +99,15 @@ public class WriteBridge extends BaseBridge {
      * Close the underlying resource
      */
     public void endIteration() throws Exception {
+        long start = metrics.start();
         try {
             accessor.closeForWrite();
+            releasePlugins();
         } catch (Exception e) {
             LOG.error("Failed to close bridge resources: {}", e.getMessage());
             throw e;
+        } finally {
+            metrics.stop(Stage.CLOSE, start);
         }
     }
 
@@ -0,0 +1,118 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of equally sized byte buffers shared by all the requests of
+ * the JVM. At most {@code maxIdle} buffers are kept in the pool, acquiring a
+ * buffer from an empty pool allocates a new one rather than waiting, so that
+ * the pool never limits the number of concurrent requests.
+ */
+public class BufferPool {
+
+    static final String PROPERTY_KEY_BUFFER_SIZE = "pxf.service.output.buffer.size";
+    static final String PROPERTY_KEY_POOL_SIZE = "pxf.service.output.buffer.pool.size";
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final int DEFAULT_POOL_SIZE = 64;
+
+    private static final BufferPool instance = new BufferPool(
+            Integer.getInteger(PROPERTY_KEY_BUFFER_SIZE, DEFAULT_BUFFER_SIZE),
+            Integer.getInteger(PROPERTY_KEY_POOL_SIZE, DEFAULT_POOL_SIZE));
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> idle;
+    private final AtomicLong allocations = new AtomicLong();
+
+    /**
+     * Creates a pool of buffers.
+     *
+     * @param bufferSize the size of every buffer in the pool
+     * @param maxIdle    the maximum number of buffers kept in the pool
+     */
+    BufferPool(int bufferSize, int maxIdle) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive, got " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+    }
+
+    /**
+     * Returns the singleton instance of the pool, configured with the
+     * pxf.service.output.buffer.size and pxf.service.output.buffer.pool.size
+     * system properties.
+     *
+     * @return the singleton instance of the pool
+     */
+    public static BufferPool getInstance() {
+        return instance;
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates a new one if the pool is empty.
+     *
+     * @return a buffer of {@link #getBufferSize()} bytes
+     */
+    public byte[] acquire() {
+        byte[] buffer = idle.poll();
+        if (buffer == null) {
+            allocations.incrementAndGet();
+            buffer = new byte[bufferSize];
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer is dropped if the pool is
+     * full or if it was not allocated by this pool.
+     *
+     * @param buffer the buffer to return
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            idle.offer(buffer);
+        }
+    }
+
+    /**
+     * @return the size of the buffers in the pool
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of buffers currently available in the pool
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return the total number of buffers allocated by the pool
+     */
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+}
@@ -0,0 +1,139 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream compressing the data written to it with a {@link WireCompression}
+ * and keeping the {@link CompressionStats} of the compression. Closing the
+ * stream finishes the compressed data but does not close the underlying
+ * stream, which is owned by the container.
+ */
+public class CompressingOutputStream extends FilterOutputStream {
+
+    private final WireCompression compression;
+    private final CompressionStats stats = new CompressionStats();
+    private boolean finished;
+
+    CompressingOutputStream(WireCompression compression, OutputStream target) throws IOException {
+        super(null);
+        this.compression = compression;
+        this.out = compression.newCompressor(new FilterOutputStream(target) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                stats.wireBytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                stats.wireBytes += len;
+            }
+
+            @Override
+            public void close() {
+                // the underlying stream is not closed
+            }
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        long start = startTiming();
+        out.write(b, off, len);
+        stopTiming(start);
+        stats.rawBytes += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = startTiming();
+        out.flush();
+        stopTiming(start);
+    }
+
+    /**
+     * Writes the remaining compressed data and flushes it.
+     *
+     * @throws IOException if writing failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long start = startTiming();
+        out.close();
+        stopTiming(start);
+    }
+
+    /**
+     * Releases the compressor without writing the remaining compressed data,
+     * when the response failed or the client went away. Does nothing once
+     * the stream is closed.
+     */
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (out instanceof WireCompression.GzipCompressor) {
+            ((WireCompression.GzipCompressor) out).end();
+        }
+    }
+
+    /*
+     * Only the CPU time of actual compression is measured, writing
+     * uncompressed data is not timed.
+     */
+    private long startTiming() {
+        return compression == WireCompression.IDENTITY ? 0 : CompressionStats.currentCpuTime();
+    }
+
+    private void stopTiming(long start) {
+        if (compression != WireCompression.IDENTITY) {
+            stats.cpuNanos += CompressionStats.currentCpuTime() - start;
+        }
+    }
+
+    /**
+     * @return the compression of this stream
+     */
+    public WireCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the statistics of the data written so far
+     */
+    public CompressionStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,121 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the {@link CompressionStats} of all requests per profile,
+ * direction and compression, so that the benefit of compressing the data of
+ * a profile can be judged over many requests. The statistics of every
+ * request are logged at debug level.
+ */
+public class CompressionMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressionMetrics.class);
+    private static final CompressionMetrics INSTANCE = new CompressionMetrics();
+
+    private final Map<String, Totals> totals = new ConcurrentHashMap<>();
+
+    /**
+     * Totals of the requests of one profile, direction and compression.
+     */
+    public static class Totals {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong rawBytes = new AtomicLong();
+        private final AtomicLong wireBytes = new AtomicLong();
+        private final AtomicLong cpuNanos = new AtomicLong();
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getRawBytes() {
+            return rawBytes.get();
+        }
+
+        public long getWireBytes() {
+            return wireBytes.get();
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos.get();
+        }
+
+        /**
+         * @return the overall raw size divided by the wire size
+         */
+        public double getRatio() {
+            long wire = wireBytes.get();
+            return wire == 0 ? 1.0 : (double) rawBytes.get() / wire;
+        }
+    }
+
+    CompressionMetrics() {
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    public static CompressionMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records the statistics of a finished request.
+     *
+     * @param profile     the profile of the request, may be null
+     * @param direction   read, write or fragments
+     * @param compression the compression used
+     * @param stats       the statistics of the request
+     */
+    public void record(String profile, String direction, WireCompression compression, CompressionStats stats) {
+        LOG.debug("{} {} with {}: {}", direction, profile, compression.getEncoding(), stats);
+        String key = (profile == null ? "" : profile.toLowerCase()) + "|" + direction + "|" + compression.getEncoding();
+        Totals t = totals.computeIfAbsent(key, k -> new Totals());
+        t.requests.incrementAndGet();
+        t.rawBytes.addAndGet(stats.getRawBytes());
+        t.wireBytes.addAndGet(stats.getWireBytes());
+        t.cpuNanos.addAndGet(stats.getCpuNanos());
+    }
+
+    /**
+     * Returns the totals, keyed by profile, direction and compression
+     * separated by '|', in the order of the keys.
+     *
+     * @return the totals
+     */
+    public Map<String, Totals> getTotals() {
+        return new TreeMap<>(totals);
+    }
+
+    /**
+     * Discards the totals collected so far.
+     */
+    public void reset() {
+        totals.clear();
+    }
+}
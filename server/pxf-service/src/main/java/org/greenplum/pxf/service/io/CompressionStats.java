@@ -0,0 +1,81 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Sizes and CPU time of the compression of one request. The raw size is the
+ * size of the uncompressed data, the wire size the size of the data sent
+ * over the network.
+ */
+public class CompressionStats {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    long rawBytes;
+    long wireBytes;
+    long cpuNanos;
+
+    /**
+     * @return the number of uncompressed bytes
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * @return the number of bytes sent over the network
+     */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    /**
+     * @return the CPU time spent compressing or decompressing, in nanoseconds
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * @return the raw size divided by the wire size, 1 when nothing was transferred
+     */
+    public double getRatio() {
+        return wireBytes == 0 ? 1.0 : (double) rawBytes / wireBytes;
+    }
+
+    /*
+     * The CPU time of the current thread, so that time spent waiting for
+     * the network is not counted. Falls back to the wall clock on JVMs that
+     * cannot measure it.
+     */
+    static long currentCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ?
+                THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d raw bytes, %d wire bytes, ratio %.2f, %d ms CPU",
+                rawBytes, wireBytes, getRatio(), cpuNanos / 1000000);
+    }
+}
@@ -0,0 +1,107 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream decompressing the data read from the underlying stream with a
+ * {@link WireCompression} and keeping the {@link CompressionStats} of the
+ * decompression.
+ */
+public class DecompressingInputStream extends FilterInputStream {
+
+    private final WireCompression compression;
+    private final CompressionStats stats = new CompressionStats();
+
+    DecompressingInputStream(WireCompression compression, InputStream source) throws IOException {
+        super(null);
+        this.compression = compression;
+        this.in = compression.newDecompressor(new FilterInputStream(source) {
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b >= 0) {
+                    stats.wireBytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n > 0) {
+                    stats.wireBytes += n;
+                }
+                return n;
+            }
+        });
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n;
+        if (compression == WireCompression.IDENTITY) {
+            n = in.read(b, off, len);
+        } else {
+            long start = CompressionStats.currentCpuTime();
+            n = in.read(b, off, len);
+            stats.cpuNanos += CompressionStats.currentCpuTime() - start;
+        }
+        if (n > 0) {
+            stats.rawBytes += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        stats.rawBytes += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return the compression of this stream
+     */
+    public WireCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the statistics of the data read so far
+     */
+    public CompressionStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,113 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when data buffered for a response is pushed out to the client.
+ * With the BYTES policy the response is flushed every time the given amount
+ * of bytes has been handed over to the container, with the LATENCY policy
+ * no buffered data is held back longer than the given time, also when the
+ * stream goes idle between records.
+ */
+public class FlushPolicy {
+
+    static final String PROPERTY_KEY_FLUSH_POLICY = "pxf.service.output.flush.policy";
+    static final String PROPERTY_KEY_FLUSH_BYTES = "pxf.service.output.flush.bytes";
+    static final String PROPERTY_KEY_FLUSH_LATENCY = "pxf.service.output.flush.latency.ms";
+    static final int DEFAULT_FLUSH_BYTES = 256 * 1024;
+    static final long DEFAULT_FLUSH_LATENCY_MS = 100;
+
+    /**
+     * The kind of threshold that triggers a flush.
+     */
+    public enum Mode {
+        BYTES,
+        LATENCY
+    }
+
+    private final Mode mode;
+    private final long flushBytes;
+    private final long flushLatencyNanos;
+
+    /**
+     * Creates a flush policy.
+     *
+     * @param mode         the kind of threshold that triggers a flush
+     * @param flushBytes   the number of bytes after which to flush, for the BYTES mode
+     * @param flushLatency the maximum time in milliseconds between flushes, for the LATENCY mode
+     */
+    public FlushPolicy(Mode mode, long flushBytes, long flushLatency) {
+        this.mode = mode;
+        this.flushBytes = flushBytes;
+        this.flushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(flushLatency);
+    }
+
+    /**
+     * Returns the flush policy configured with the pxf.service.output.flush.policy,
+     * pxf.service.output.flush.bytes and pxf.service.output.flush.latency.ms
+     * system properties.
+     *
+     * @return the configured flush policy
+     */
+    public static FlushPolicy fromSystemProperties() {
+        String mode = System.getProperty(PROPERTY_KEY_FLUSH_POLICY, Mode.BYTES.name());
+        try {
+            return new FlushPolicy(
+                    Mode.valueOf(mode.trim().toUpperCase()),
+                    Long.getLong(PROPERTY_KEY_FLUSH_BYTES, DEFAULT_FLUSH_BYTES),
+                    Long.getLong(PROPERTY_KEY_FLUSH_LATENCY, DEFAULT_FLUSH_LATENCY_MS));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Property %s has incorrect value %s : must be one of bytes, latency", PROPERTY_KEY_FLUSH_POLICY, mode), e);
+        }
+    }
+
+    /**
+     * @return the kind of threshold that triggers a flush
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the maximum time in milliseconds between flushes, for the LATENCY mode
+     */
+    public long getFlushLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(flushLatencyNanos);
+    }
+
+    /**
+     * Determines whether the response has to be flushed.
+     *
+     * @param bytesSinceFlush bytes handed over to the container since the last flush
+     * @param nanosSinceFlush nanoseconds elapsed since the last flush
+     * @return true if the response has to be flushed
+     */
+    public boolean shouldFlush(long bytesSinceFlush, long nanosSinceFlush) {
+        if (bytesSinceFlush == 0) {
+            return false;
+        }
+        return (mode == Mode.BYTES) ?
+                bytesSinceFlush >= flushBytes :
+                nanosSinceFlush >= flushLatencyNanos;
+    }
+}
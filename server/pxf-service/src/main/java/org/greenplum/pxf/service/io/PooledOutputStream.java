@@ -0,0 +1,198 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stage of a streaming response. Records are accumulated in a large
+ * buffer taken from a {@link BufferPool} and handed over to the container
+ * in buffer sized chunks, instead of one small write per field. The
+ * response is flushed as dictated by a {@link FlushPolicy}. With the LATENCY
+ * policy the writer also calls {@link #flushIfIdle()} before waiting for the
+ * next record, so data is not held back while the bridge reads a slow source.
+ * The stream has no thread of its own, all writes happen on the thread of
+ * the request.
+ * <p>
+ * Closing the stream pushes out the remaining data and returns the buffer
+ * to the pool, but does not close the underlying stream, which is owned by
+ * the container. If the response failed, {@link #release()} returns the
+ * buffer without writing anything more.
+ */
+public class PooledOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final BufferPool pool;
+    private final FlushPolicy flushPolicy;
+    private final Ticker ticker;
+    private final boolean checkLatency;
+    private byte[] buffer;
+    private int count;
+    private long bytesWritten;
+    private long bytesSinceFlush;
+    private long lastFlushNanos;
+    private long flushCount;
+
+    /**
+     * Creates a stream writing to the given output with a buffer from the
+     * default pool and the configured flush policy.
+     *
+     * @param out the output stream of the response
+     */
+    public PooledOutputStream(OutputStream out) {
+        this(out, BufferPool.getInstance(), FlushPolicy.fromSystemProperties(), Ticker.systemTicker());
+    }
+
+    PooledOutputStream(OutputStream out, BufferPool pool, FlushPolicy flushPolicy, Ticker ticker) {
+        this.out = out;
+        this.pool = pool;
+        this.flushPolicy = flushPolicy;
+        this.ticker = ticker;
+        this.checkLatency = flushPolicy.getMode() == FlushPolicy.Mode.LATENCY;
+        this.buffer = pool.acquire();
+        this.lastFlushNanos = ticker.read();
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.length - count) {
+            drain();
+            if (len >= buffer.length) {
+                // no point in copying a chunk larger than the buffer
+                out.write(b, off, len);
+                written(len);
+                return;
+            }
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+        if (checkLatency && flushPolicy.shouldFlush(bytesSinceFlush + count, ticker.read() - lastFlushNanos)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered data and flushes the underlying stream.
+     *
+     * @throws IOException if writing failed
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            bytesWritten += count;
+            count = 0;
+        }
+        out.flush();
+        flushCount++;
+        bytesSinceFlush = 0;
+        lastFlushNanos = ticker.read();
+    }
+
+    /**
+     * Writes the buffered data, flushes the underlying stream and returns
+     * the buffer to the pool. The underlying stream is not closed.
+     *
+     * @throws IOException if writing failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns the buffer to the pool, discarding any buffered data.
+     */
+    public synchronized void release() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * @return the number of bytes handed over to the underlying stream
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return the number of times the underlying stream was flushed
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Flushes the data held back longer than the latency of the LATENCY
+     * policy. Does nothing with the other policies, or when there is no data
+     * waiting to be flushed.
+     *
+     * @throws IOException if writing failed
+     */
+    public synchronized void flushIfIdle() throws IOException {
+        if (checkLatency && buffer != null &&
+                flushPolicy.shouldFlush(bytesSinceFlush + count, ticker.read() - lastFlushNanos)) {
+            flush();
+        }
+    }
+
+    /*
+     * Hands the buffered data over to the underlying stream, and flushes it
+     * if the policy says so.
+     */
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            written(count);
+            count = 0;
+        }
+    }
+
+    private void written(int len) throws IOException {
+        bytesWritten += len;
+        bytesSinceFlush += len;
+        if (flushPolicy.shouldFlush(bytesSinceFlush, ticker.read() - lastFlushNanos)) {
+            out.flush();
+            flushCount++;
+            bytesSinceFlush = 0;
+            lastFlushNanos = ticker.read();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to the data exchanged with Greenplum segments. For
+ * reads the segment lists the encodings it can decode in the
+ * X-GP-ACCEPT-ENCODING header, and PXF answers with the encoding it chose in
+ * the X-GP-CONTENT-ENCODING response header. For writes the segment sends
+ * the encoding of the request body in the X-GP-CONTENT-ENCODING header.
+ * Without these headers the data is not compressed.
+ * <p>
+ * Compression of read responses can be turned off with the
+ * pxf.service.wire.compression.enabled system property, and the deflate
+ * level is set with pxf.service.wire.compression.level (1, the fastest, by
+ * default).
+ */
+public enum WireCompression {
+
+    IDENTITY("identity"),
+    GZIP("gzip");
+
+    public static final String ACCEPT_ENCODING_HEADER = "X-GP-ACCEPT-ENCODING";
+    public static final String CONTENT_ENCODING_HEADER = "X-GP-CONTENT-ENCODING";
+
+    static final String PROPERTY_KEY_ENABLED = "pxf.service.wire.compression.enabled";
+    static final String PROPERTY_KEY_LEVEL = "pxf.service.wire.compression.level";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String encoding;
+
+    WireCompression(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return the name of the encoding used in the headers
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Chooses the compression of a read response: the first supported
+     * encoding of the comma separated list accepted by the client, or
+     * identity if there is none or compression is disabled.
+     *
+     * @param acceptedEncodings the value of the X-GP-ACCEPT-ENCODING header, may be null
+     * @return the compression to use
+     */
+    public static WireCompression negotiate(String acceptedEncodings) {
+        if (StringUtils.isBlank(acceptedEncodings) ||
+                !Boolean.parseBoolean(System.getProperty(PROPERTY_KEY_ENABLED, "true"))) {
+            return IDENTITY;
+        }
+        for (String accepted : acceptedEncodings.split(",")) {
+            WireCompression compression = find(accepted.trim());
+            if (compression != null) {
+                return compression;
+            }
+        }
+        return IDENTITY;
+    }
+
+    /**
+     * Returns the compression of a request body.
+     *
+     * @param contentEncoding the value of the X-GP-CONTENT-ENCODING header, may be null
+     * @return the compression of the body
+     * @throws IllegalArgumentException if the encoding is not supported
+     */
+    public static WireCompression forContentEncoding(String contentEncoding) {
+        if (StringUtils.isBlank(contentEncoding)) {
+            return IDENTITY;
+        }
+        WireCompression compression = find(contentEncoding.trim());
+        if (compression == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Unsupported %s '%s'", CONTENT_ENCODING_HEADER, contentEncoding));
+        }
+        return compression;
+    }
+
+    /**
+     * Wraps a stream that compresses the data written to it into the given stream.
+     *
+     * @param out the stream receiving the compressed data
+     * @return the compressing stream
+     * @throws IOException if the compression header could not be written
+     */
+    public CompressingOutputStream compress(OutputStream out) throws IOException {
+        return new CompressingOutputStream(this, out);
+    }
+
+    /**
+     * Wraps a stream that decompresses the data read from the given stream.
+     *
+     * @param in the stream of compressed data
+     * @return the decompressing stream
+     * @throws IOException if the compression header could not be read
+     */
+    public DecompressingInputStream decompress(InputStream in) throws IOException {
+        return new DecompressingInputStream(this, in);
+    }
+
+    /*
+     * Creates the stream that does the actual compression. Output is flushed
+     * with SYNC_FLUSH so that the flush policy of the response still applies.
+     */
+    OutputStream newCompressor(OutputStream out) throws IOException {
+        if (this == IDENTITY) {
+            return out;
+        }
+        return new GzipCompressor(out, Integer.getInteger(PROPERTY_KEY_LEVEL, Deflater.BEST_SPEED));
+    }
+
+    InputStream newDecompressor(InputStream in) throws IOException {
+        return (this == IDENTITY) ? in : new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    /**
+     * Gzip stream whose deflater, which holds native memory, is released
+     * even when writing the end of the data fails.
+     */
+    static class GzipCompressor extends GZIPOutputStream {
+
+        GzipCompressor(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE, true);
+            def.setLevel(level);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+
+        /**
+         * Releases the deflater without writing the remaining data.
+         */
+        void end() {
+            def.end();
+        }
+    }
+
+    private static WireCompression find(String encoding) {
+        for (WireCompression compression : values()) {
+            if (compression.encoding.equalsIgnoreCase(encoding)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+}
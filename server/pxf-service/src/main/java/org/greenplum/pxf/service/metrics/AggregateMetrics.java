@@ -0,0 +1,91 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of all the requests of one profile, server and user: latency
+ * histograms of the request duration and of every stage, and totals of
+ * records, bytes and read statistics.
+ */
+class AggregateMetrics {
+
+    private final String profile;
+    private final String server;
+    private final String user;
+    private final LatencyHistogram duration = new LatencyHistogram();
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final Map<String, AtomicLong> readStatistics = new ConcurrentHashMap<>();
+
+    AggregateMetrics(String profile, String server, String user) {
+        this.profile = profile;
+        this.server = server;
+        this.user = user;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /*
+     * Adds a finished request. Only the stages the request went through are
+     * recorded in the stage histograms.
+     */
+    void add(RequestMetrics request) {
+        requests.incrementAndGet();
+        duration.record(request.getDurationNanos());
+        for (Stage stage : Stage.values()) {
+            long nanos = request.getStageNanos(stage);
+            if (nanos > 0) {
+                stages.get(stage).record(nanos);
+            }
+        }
+        records.addAndGet(request.getRecords());
+        bytesIn.addAndGet(request.getBytesIn());
+        bytesOut.addAndGet(request.getBytesOut());
+        allocatedBytes.addAndGet(request.getAllocatedBytes());
+        for (Map.Entry<String, Long> entry : request.getReadStatistics().entrySet()) {
+            readStatistics.computeIfAbsent(entry.getKey(), k -> new AtomicLong()).addAndGet(entry.getValue());
+        }
+    }
+
+    MetricsSnapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> stageSnapshots = new LinkedHashMap<>();
+        for (Map.Entry<Stage, LatencyHistogram> entry : stages.entrySet()) {
+            stageSnapshots.put(entry.getKey().name(), entry.getValue().snapshot());
+        }
+        Map<String, Long> statistics = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : readStatistics.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().get());
+        }
+        return new MetricsSnapshot(profile, server, user, requests.get(), records.get(), bytesIn.get(),
+                bytesOut.get(), allocatedBytes.get(), duration.snapshot(), stageSnapshots, statistics);
+    }
+}
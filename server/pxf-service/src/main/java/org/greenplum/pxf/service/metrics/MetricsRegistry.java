@@ -0,0 +1,146 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import org.apache.commons.lang.StringUtils;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the {@link RequestMetrics} of the read and write requests and
+ * aggregates them per profile, server and user. The aggregates are exposed
+ * by the metrics REST resource and over JMX.
+ * <p>
+ * Collection of the metrics within requests can be turned off with the
+ * pxf.service.metrics.enabled system property, the number and duration of
+ * requests are still recorded.
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    static final String PROPERTY_KEY_METRICS_ENABLED = "pxf.service.metrics.enabled";
+    static final String OBJECT_NAME = "org.greenplum.pxf:type=Metrics";
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry(
+            Boolean.parseBoolean(System.getProperty(PROPERTY_KEY_METRICS_ENABLED, "true")),
+            Ticker.systemTicker());
+
+    static {
+        INSTANCE.registerMBean();
+    }
+
+    private final boolean enabled;
+    private final Ticker ticker;
+    private final Map<String, AggregateMetrics> aggregates = new ConcurrentHashMap<>();
+    private final AtomicLong activeRequests = new AtomicLong();
+
+    MetricsRegistry(boolean enabled, Ticker ticker) {
+        this.enabled = enabled;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts collecting the metrics of a request. Must be called on the
+     * thread that serves the request, which must also call
+     * {@link #finish(RequestMetrics)}.
+     *
+     * @param context the request context
+     * @return the metrics of the request
+     */
+    public RequestMetrics start(RequestContext context) {
+        RequestMetrics metrics = new RequestMetrics(context.getProfile(), context.getServerName(),
+                context.getUser(), enabled, ticker);
+        metrics.begin();
+        activeRequests.incrementAndGet();
+        return metrics;
+    }
+
+    /**
+     * Adds the metrics of a finished request to the aggregates of its
+     * profile, server and user.
+     *
+     * @param metrics the metrics returned by {@link #start(RequestContext)}
+     */
+    public void finish(RequestMetrics metrics) {
+        metrics.end();
+        activeRequests.decrementAndGet();
+        String key = StringUtils.defaultString(metrics.getProfile()) + "|" +
+                StringUtils.defaultString(metrics.getServer()) + "|" +
+                StringUtils.defaultString(metrics.getUser());
+        aggregates.computeIfAbsent(key, k -> new AggregateMetrics(
+                metrics.getProfile(), metrics.getServer(), metrics.getUser())).add(metrics);
+        LOG.debug("Request of {} finished in {} ms, {} records", key,
+                metrics.getDurationNanos() / 1000000, metrics.getRecords());
+    }
+
+    @Override
+    public List<MetricsSnapshot> getMetrics() {
+        // sorted by profile, server and user
+        Map<String, AggregateMetrics> sorted = new TreeMap<>(aggregates);
+        List<MetricsSnapshot> result = new ArrayList<>(sorted.size());
+        for (AggregateMetrics aggregate : sorted.values()) {
+            result.add(aggregate.snapshot());
+        }
+        return result;
+    }
+
+    @Override
+    public long getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    @Override
+    public void reset() {
+        aggregates.clear();
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOG.warn("Unable to register the metrics MBean {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+}
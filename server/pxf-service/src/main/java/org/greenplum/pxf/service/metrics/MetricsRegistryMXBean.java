@@ -0,0 +1,44 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+/**
+ * JMX interface of the {@link MetricsRegistry}, registered as
+ * org.greenplum.pxf:type=Metrics.
+ */
+public interface MetricsRegistryMXBean {
+
+    /**
+     * @return the metrics of every profile, server and user that served requests
+     */
+    List<MetricsSnapshot> getMetrics();
+
+    /**
+     * @return the number of requests being served
+     */
+    long getActiveRequests();
+
+    /**
+     * Discards all the metrics collected so far.
+     */
+    void reset();
+}
@@ -0,0 +1,113 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+/**
+ * The metrics of the requests of one profile, server and user, as reported
+ * by the metrics REST resource and over JMX.
+ */
+public class MetricsSnapshot {
+
+    private final String profile;
+    private final String server;
+    private final String user;
+    private final long requests;
+    private final long records;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long allocatedBytes;
+    private final LatencyHistogram.Snapshot duration;
+    private final Map<String, LatencyHistogram.Snapshot> stages;
+    private final Map<String, Long> readStatistics;
+
+    MetricsSnapshot(String profile, String server, String user, long requests, long records,
+                    long bytesIn, long bytesOut, long allocatedBytes, LatencyHistogram.Snapshot duration,
+                    Map<String, LatencyHistogram.Snapshot> stages, Map<String, Long> readStatistics) {
+        this.profile = profile;
+        this.server = server;
+        this.user = user;
+        this.requests = requests;
+        this.records = records;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.allocatedBytes = allocatedBytes;
+        this.duration = duration;
+        this.stages = stages;
+        this.readStatistics = readStatistics;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * @return the bytes allocated by the threads serving the requests
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the histogram of the request durations
+     */
+    public LatencyHistogram.Snapshot getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the histograms of the time spent per request in every stage, by stage name
+     */
+    public Map<String, LatencyHistogram.Snapshot> getStages() {
+        return stages;
+    }
+
+    /**
+     * @return the totals of the read statistics reported by the accessors
+     */
+    public Map<String, Long> getReadStatistics() {
+        return readStatistics;
+    }
+}
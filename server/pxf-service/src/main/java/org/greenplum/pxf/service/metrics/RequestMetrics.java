@@ -0,0 +1,213 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of a single read or write request: the time spent in every
+ * {@link Stage}, the number of records, the bytes read and written, the
+ * bytes allocated by the thread serving the request and the read statistics
+ * reported by the accessor. Stages may be timed from several threads, for
+ * example by pipelined bridges.
+ * <p>
+ * A stage is timed with
+ * <pre>
+ *     long start = metrics.start();
+ *     ...
+ *     metrics.stop(Stage.RESOLVE, start);
+ * </pre>
+ * which costs nothing when metrics are disabled.
+ */
+public class RequestMetrics {
+
+    /**
+     * Metrics that record nothing, for bridges used outside of a request.
+     */
+    public static final RequestMetrics DISABLED = new RequestMetrics(null, null, null, false, Ticker.systemTicker());
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final String profile;
+    private final String server;
+    private final String user;
+    private final boolean enabled;
+    private final Ticker ticker;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final Map<String, Long> readStatistics = new ConcurrentHashMap<>();
+
+    private long startNanos;
+    private long durationNanos;
+    private long threadId;
+    private long startAllocatedBytes;
+    private long allocatedBytes;
+
+    RequestMetrics(String profile, String server, String user, boolean enabled, Ticker ticker) {
+        this.profile = profile;
+        this.server = server;
+        this.user = user;
+        this.enabled = enabled;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @return the start time of a stage, to be passed to {@link #stop(Stage, long)}
+     */
+    public long start() {
+        return enabled ? ticker.read() : 0;
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to a stage.
+     *
+     * @param stage the stage
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(Stage stage, long start) {
+        if (enabled) {
+            stageNanos.addAndGet(stage.ordinal(), ticker.read() - start);
+        }
+    }
+
+    public void addRecords(long count) {
+        if (enabled) {
+            records.addAndGet(count);
+        }
+    }
+
+    public void addBytesIn(long count) {
+        if (enabled) {
+            bytesIn.addAndGet(count);
+        }
+    }
+
+    public void addBytesOut(long count) {
+        if (enabled) {
+            bytesOut.addAndGet(count);
+        }
+    }
+
+    /**
+     * Adds the read statistics reported by an accessor.
+     *
+     * @param statistics the statistics by name
+     */
+    public void addReadStatistics(Map<String, Long> statistics) {
+        if (enabled && statistics != null) {
+            for (Map.Entry<String, Long> entry : statistics.entrySet()) {
+                readStatistics.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+    }
+
+    /*
+     * Called on the thread that serves the request when it starts, so that
+     * the memory it allocates can be measured.
+     */
+    void begin() {
+        startNanos = ticker.read();
+        threadId = Thread.currentThread().getId();
+        startAllocatedBytes = currentAllocatedBytes(threadId);
+    }
+
+    /*
+     * Called on the same thread as begin() once the request is done.
+     */
+    void end() {
+        durationNanos = ticker.read() - startNanos;
+        if (startAllocatedBytes >= 0) {
+            long current = currentAllocatedBytes(threadId);
+            allocatedBytes = current >= 0 ? current - startAllocatedBytes : 0;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * @param stage the stage
+     * @return the time spent in the stage in nanoseconds
+     */
+    public long getStageNanos(Stage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    public long getRecords() {
+        return records.get();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public Map<String, Long> getReadStatistics() {
+        return Collections.unmodifiableMap(readStatistics);
+    }
+
+    /*
+     * Returns the bytes allocated by the thread so far, or -1 if the JVM
+     * cannot measure it.
+     */
+    private static long currentAllocatedBytes(long threadId) {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return threadMXBean.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+}
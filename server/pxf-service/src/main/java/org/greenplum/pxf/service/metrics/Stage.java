@@ -0,0 +1,42 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * The stages of a request that are timed by {@link RequestMetrics}.
+ */
+public enum Stage {
+    /** Opening the accessor for reading or writing */
+    OPEN,
+    /** Reading rows from the accessor */
+    ACCESSOR_READ,
+    /** Converting rows to fields (reads) or fields to rows (writes) with the resolver */
+    RESOLVE,
+    /** Converting fields to the output format of Greenplum */
+    SERIALIZE,
+    /** Encoding the records and writing them to the Greenplum segment */
+    NETWORK_WRITE,
+    /** Reading and decoding the records sent by the Greenplum segment */
+    NETWORK_READ,
+    /** Writing rows with the accessor */
+    ACCESSOR_WRITE,
+    /** Closing the accessor */
+    CLOSE
+}
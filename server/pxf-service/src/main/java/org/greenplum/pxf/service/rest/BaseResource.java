@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.core.HttpHeaders;
+import java.util.List;
 
 /**
  * Base abstract implementation of the resource class, provides logger and request parser
@@ -39,4 +40,16 @@ public abstract class BaseResource {
     protected RequestContext parseRequest(HttpHeaders headers) {
         return parser.parseRequest(headers, requestType);
     }
+
+    /**
+     * Returns the first value of a request header
+     *
+     * @param headers the HTTP headers of incoming request
+     * @param name    the name of the header
+     * @return the header value, or null if the header is not present
+     */
+    protected String getHeaderValue(HttpHeaders headers, String name) {
+        List<String> values = headers.getRequestHeader(name);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
 }
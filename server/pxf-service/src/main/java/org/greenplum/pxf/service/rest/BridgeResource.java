@@ -23,10 +23,18 @@ import org.apache.catalina.connector.ClientAbortException;
 import org.greenplum.pxf.api.io.Writable;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.service.HttpRequestParser;
+import org.greenplum.pxf.service.KeyedLockService;
 import org.greenplum.pxf.service.RequestParser;
 import org.greenplum.pxf.service.bridge.Bridge;
 import org.greenplum.pxf.service.bridge.BridgeFactory;
 import org.greenplum.pxf.service.bridge.SimpleBridgeFactory;
+import org.greenplum.pxf.service.io.CompressingOutputStream;
+import org.greenplum.pxf.service.io.CompressionMetrics;
+import org.greenplum.pxf.service.io.PooledOutputStream;
+import org.greenplum.pxf.service.io.WireCompression;
+import org.greenplum.pxf.service.metrics.MetricsRegistry;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
+import org.greenplum.pxf.service.metrics.Stage;
 
 import javax.servlet.ServletContext;
 import javax.ws.rs.GET;
@@ -41,7 +49,7 @@ import javax.ws.rs.core.StreamingOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Lock;
 
 /*
  * This class handles the subpath /<version>/Bridge/ of this
@@ -53,15 +61,15 @@ public class BridgeResource extends BaseResource {
     private BridgeFactory bridgeFactory;
 
     /**
-     * Lock is needed here in the case of a non-thread-safe plugin. Using
+     * Locks are needed here in the case of a non-thread-safe plugin. Using
      * synchronized methods is not enough because the bridge work is called by
      * jetty ({@link StreamingOutput}), after we are getting out of this class's
      * context.
      * <p/>
-     * BRIDGE_LOCK is accessed through lock() and unlock() functions, based on
+     * Locks are taken per plugin through lock() and unlock() functions, based on
      * the isThreadSafe parameter that is determined by the bridge.
      */
-    private static final ReentrantLock BRIDGE_LOCK = new ReentrantLock();
+    private final KeyedLockService lockService = KeyedLockService.getInstance();
 
     /**
      * Creates an instance of the resource with the default singletons of RequestParser and BridgeFactory.
@@ -83,6 +91,8 @@ public class BridgeResource extends BaseResource {
     /**
      * Handles read data request. Parses the request, creates a bridge instance and iterates over its
      * records, printing it out to the outgoing stream. Outputs GPDBWritable or Text formats.
+     * The stream is compressed with the first encoding of the X-GP-ACCEPT-ENCODING header
+     * supported by PXF, which is returned in the X-GP-CONTENT-ENCODING header.
      *
      * Parameters come via HTTP headers.
      *
@@ -102,7 +112,10 @@ public class BridgeResource extends BaseResource {
         boolean isThreadSafe = context.isThreadSafe() && bridge.isThreadSafe();
         LOG.debug("Request for {} will be handled {} synchronization", context.getDataSource(), (isThreadSafe ? "without" : "with"));
 
-        return readResponse(bridge, context, isThreadSafe);
+        WireCompression compression = WireCompression.negotiate(
+                getHeaderValue(headers, WireCompression.ACCEPT_ENCODING_HEADER));
+
+        return readResponse(bridge, context, isThreadSafe, compression);
     }
 
     /**
@@ -110,11 +123,15 @@ public class BridgeResource extends BaseResource {
      * @param bridge bridge to use to read data
      * @param context request context
      * @param threadSafe whether streaming can proceed in parallel
+     * @param compression compression of the response
      * @return response object to be used by the container
      */
-    private Response readResponse(final Bridge bridge, RequestContext context, final boolean threadSafe) {
+    private Response readResponse(final Bridge bridge, final RequestContext context, final boolean threadSafe,
+                                  final WireCompression compression) {
         final int fragment = context.getDataFragment();
         final String dataDir = context.getDataSource();
+        final String profile = context.getProfile();
+        final String lockKey = KeyedLockService.keyFor(context);
 
         // Creating an internal streaming class which will iterate
         // the records and put them on the output stream
@@ -123,23 +140,42 @@ public class BridgeResource extends BaseResource {
             public void write(final OutputStream out) throws IOException,
                     WebApplicationException {
                 long recordCount = 0;
+                PooledOutputStream pooledOut = null;
+                CompressingOutputStream compressedOut = null;
+                Lock lock = null;
+                RequestMetrics metrics = MetricsRegistry.getInstance().start(context);
+                bridge.setMetrics(metrics);
 
                 if (!threadSafe) {
-                    lock(dataDir);
+                    lock = lock(lockKey, dataDir);
                 }
                 try {
                     if (!bridge.beginIteration()) {
                         return;
                     }
                     Writable record;
-                    DataOutputStream dos = new DataOutputStream(out);
+                    compressedOut = compression.compress(out);
+                    pooledOut = new PooledOutputStream(compressedOut);
+                    DataOutputStream dos = new DataOutputStream(pooledOut);
 
                     LOG.debug("Starting streaming fragment {} of resource {}", fragment, dataDir);
-                    while ((record = bridge.getNext()) != null) {
+                    while (true) {
+                        // do not hold back records while the bridge waits for the next one
+                        pooledOut.flushIfIdle();
+                        if ((record = bridge.getNext()) == null) {
+                            break;
+                        }
+                        long start = metrics.start();
                         record.write(dos);
+                        metrics.stop(Stage.NETWORK_WRITE, start);
                         ++recordCount;
                     }
-                    LOG.debug("Finished streaming fragment {} of resource {}, {} records.", fragment, dataDir, recordCount);
+                    long start = metrics.start();
+                    pooledOut.close();
+                    compressedOut.close();
+                    metrics.stop(Stage.NETWORK_WRITE, start);
+                    LOG.debug("Finished streaming fragment {} of resource {}, {} records, {} bytes, {} flushes.",
+                            fragment, dataDir, recordCount, pooledOut.getBytesWritten(), pooledOut.getFlushCount());
                 } catch (ClientAbortException e) {
                     // Occurs whenever client (GPDB) decides to end the connection
                     if (LOG.isDebugEnabled()) {
@@ -152,40 +188,59 @@ public class BridgeResource extends BaseResource {
                     throw new IOException(e.getMessage(), e);
                 } finally {
                     LOG.debug("Stopped streaming fragment {} of resource {}, {} records.", fragment, dataDir, recordCount);
+                    if (pooledOut != null) {
+                        pooledOut.release();
+                    }
+                    if (compressedOut != null) {
+                        // releases the compressor of failed or aborted responses
+                        compressedOut.abort();
+                        CompressionMetrics.getInstance().record(profile, "read", compression, compressedOut.getStats());
+                    }
                     try {
                         bridge.endIteration();
                     } catch (Exception e) {
                         // ignore ... any significant errors should already have been handled
                     }
-                    if (!threadSafe) {
-                        unlock(dataDir);
+                    if (lock != null) {
+                        unlock(lock, dataDir);
+                    }
+                    metrics.addRecords(recordCount);
+                    if (compressedOut != null) {
+                        metrics.addBytesOut(compressedOut.getStats().getWireBytes());
                     }
+                    MetricsRegistry.getInstance().finish(metrics);
                 }
             }
         };
 
-        return Response.ok(streaming, MediaType.APPLICATION_OCTET_STREAM).build();
+        return Response.ok(streaming, MediaType.APPLICATION_OCTET_STREAM)
+                .header(WireCompression.CONTENT_ENCODING_HEADER, compression.getEncoding())
+                .build();
     }
 
     /**
-     * Locks BRIDGE_LOCK
+     * Locks the lock of the given key
      *
+     * @param key  lock key of the request
      * @param path path for the request, used for logging.
+     * @return the acquired lock
      */
-    private void lock(String path) {
-        LOG.trace("Locking BridgeResource for {}", path);
-        BRIDGE_LOCK.lock();
-        LOG.trace("Locked BridgeResource for {}", path);
+    private Lock lock(String key, String path) {
+        LOG.trace("Locking BridgeResource on {} for {}", key, path);
+        Lock lock = lockService.lock(key);
+        LOG.trace("Locked BridgeResource on {} for {}", key, path);
+        return lock;
     }
 
     /**
-     * Unlocks BRIDGE_LOCK
+     * Unlocks the given lock
      *
+     * @param lock lock acquired by {@link #lock(String, String)}
      * @param path path for the request, used for logging.
      */
-    private void unlock(String path) {
+    private void unlock(Lock lock, String path) {
         LOG.trace("Unlocking BridgeResource for {}", path);
-        BRIDGE_LOCK.unlock();
+        lock.unlock();
         LOG.trace("Unlocked BridgeResource for {}", path);
     }
 }
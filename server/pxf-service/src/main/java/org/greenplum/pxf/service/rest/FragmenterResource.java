@@ -33,10 +33,14 @@ import org.greenplum.pxf.api.utilities.Utilities;
 import org.greenplum.pxf.service.HttpRequestParser;
 import org.greenplum.pxf.service.RequestParser;
 import org.greenplum.pxf.service.SessionId;
+import org.greenplum.pxf.service.io.CompressingOutputStream;
+import org.greenplum.pxf.service.io.CompressionMetrics;
+import org.greenplum.pxf.service.io.WireCompression;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
 
 import javax.servlet.ServletContext;
 import javax.ws.rs.GET;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
@@ -44,6 +48,9 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -91,6 +98,8 @@ public class FragmenterResource extends BaseResource {
     /**
      * The function is called when
      * {@code http://host:port/pxf/{version}/Fragmenter/getFragments} is used.
+     * The response is compressed with the first supported encoding of the
+     * X-GP-ACCEPT-ENCODING header, if any.
      *
      * @param servletContext Servlet context contains attributes required by
      *                       SecuredHDFS
@@ -144,7 +153,15 @@ public class FragmenterResource extends BaseResource {
         }
 
         FragmentsResponse fragmentsResponse = FragmentsResponseFormatter.formatResponse(fragments, path);
-        return Response.ok(fragmentsResponse, MediaType.APPLICATION_JSON_TYPE).build();
+        WireCompression compression = WireCompression.negotiate(
+                getHeaderValue(headers, WireCompression.ACCEPT_ENCODING_HEADER));
+        if (compression == WireCompression.IDENTITY) {
+            return Response.ok(fragmentsResponse, MediaType.APPLICATION_JSON_TYPE).build();
+        }
+        return Response.ok(compressedResponse(fragmentsResponse, compression, context.getProfile()),
+                MediaType.APPLICATION_JSON_TYPE)
+                .header(WireCompression.CONTENT_ENCODING_HEADER, compression.getEncoding())
+                .build();
     }
 
     /**
@@ -181,6 +198,27 @@ public class FragmenterResource extends BaseResource {
         return Response.ok(response, MediaType.APPLICATION_JSON_TYPE).build();
     }
 
+    /*
+     * Wraps the fragments response into a stream compressing it
+     */
+    private StreamingOutput compressedResponse(final FragmentsResponse fragmentsResponse,
+                                               final WireCompression compression,
+                                               final String profile) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException, WebApplicationException {
+                CompressingOutputStream compressedOut = compression.compress(out);
+                try {
+                    fragmentsResponse.write(compressedOut);
+                    compressedOut.close();
+                } finally {
+                    compressedOut.abort();
+                    CompressionMetrics.getInstance().record(profile, "fragments", compression, compressedOut.getStats());
+                }
+            }
+        };
+    }
+
     private List<Fragment> getFragments(RequestContext context) throws Exception {
         /* Create a fragmenter instance with API level parameters */
         List<Fragment> fragments = AnalyzeUtils.getSampleFragments(fragmenterFactory.getPlugin(context).getFragments(), context);
@@ -0,0 +1,87 @@
+package org.greenplum.pxf.service.rest;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greenplum.pxf.api.utilities.ListingCache;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Collections;
+
+/**
+ * Class exposing the {@link ListingCache} of file listings and splits.
+ * <p>
+ * The expected format of a path is
+ * {@code http://<host>:<port>/pxf/<version>/ListingCache}. GET returns the
+ * hit and miss counts and the size of the cache in JSON. DELETE discards the
+ * cached listings, optionally only those of a server and of the paths
+ * starting with a given path, e.g.
+ * {@code curl -X DELETE "http://localhost:5888/pxf/{version}/ListingCache?server=default&path=/warehouse/sales"}
+ */
+@Path("/" + Version.PXF_PROTOCOL_VERSION + "/ListingCache/")
+public class ListingCacheResource {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ListingCache cache;
+
+    public ListingCacheResource() {
+        this(ListingCache.getInstance());
+    }
+
+    ListingCacheResource(ListingCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return response with the statistics in JSON
+     * @throws Exception if the statistics could not be serialized
+     */
+    @GET
+    @Produces("application/json")
+    public Response getStats() throws Exception {
+        return Response.ok(MAPPER.writeValueAsString(cache.getStats()), MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Discards cached listings.
+     *
+     * @param server the name of the server, all servers if not given
+     * @param path   the path prefix, all paths if not given
+     * @return response with the number of discarded listings in JSON
+     * @throws Exception if the response could not be serialized
+     */
+    @DELETE
+    @Produces("application/json")
+    public Response invalidate(@QueryParam("server") String server,
+                               @QueryParam("path") String path) throws Exception {
+        int count = cache.invalidate(server, path);
+        return Response.ok(MAPPER.writeValueAsString(Collections.singletonMap("invalidated", count)),
+                MediaType.APPLICATION_JSON_TYPE).build();
+    }
+}
@@ -0,0 +1,98 @@
+package org.greenplum.pxf.service.rest;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.greenplum.pxf.service.KeyedLockService;
+import org.greenplum.pxf.service.io.CompressionMetrics;
+import org.greenplum.pxf.service.metrics.MetricsRegistry;
+import org.greenplum.pxf.service.metrics.MetricsSnapshot;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class exposing the request metrics collected by the {@link MetricsRegistry},
+ * the wire compression totals of the {@link CompressionMetrics} and the lock
+ * contention of the {@link KeyedLockService}.
+ * <p>
+ * The expected format of a path is
+ * {@code http://<host>:<port>/pxf/<version>/Metrics}. GET returns the number
+ * of requests being served, the metrics of every profile, server and user,
+ * the compression totals of every profile, direction and encoding and the
+ * lock statistics in JSON, DELETE discards the metrics collected so far.
+ */
+@Path("/" + Version.PXF_PROTOCOL_VERSION + "/Metrics/")
+public class MetricsResource {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final MetricsRegistry registry;
+    private final CompressionMetrics compressionMetrics;
+    private final KeyedLockService lockService;
+
+    public MetricsResource() {
+        this(MetricsRegistry.getInstance(), CompressionMetrics.getInstance(), KeyedLockService.getInstance());
+    }
+
+    MetricsResource(MetricsRegistry registry, CompressionMetrics compressionMetrics, KeyedLockService lockService) {
+        this.registry = registry;
+        this.compressionMetrics = compressionMetrics;
+        this.lockService = lockService;
+    }
+
+    /**
+     * Returns the metrics of the requests served so far.
+     *
+     * @return response with the metrics in JSON
+     * @throws Exception if the metrics could not be serialized
+     */
+    @GET
+    @Produces("application/json")
+    public Response getMetrics() throws Exception {
+        List<MetricsSnapshot> metrics = registry.getMetrics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("activeRequests", registry.getActiveRequests());
+        result.put("metrics", metrics);
+        result.put("compression", compressionMetrics.getTotals());
+        result.put("locks", lockService.getStats());
+        return Response.ok(MAPPER.writeValueAsString(result), MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Discards the metrics collected so far.
+     *
+     * @return empty response
+     */
+    @DELETE
+    public Response reset() {
+        registry.reset();
+        compressionMetrics.reset();
+        lockService.resetStats();
+        return Response.noContent().build();
+    }
+}
@@ -23,10 +23,16 @@ import org.apache.catalina.connector.ClientAbortException;
 import org.greenplum.pxf.api.model.RequestContext;
 import org.greenplum.pxf.api.utilities.Utilities;
 import org.greenplum.pxf.service.HttpRequestParser;
+import org.greenplum.pxf.service.KeyedLockService;
 import org.greenplum.pxf.service.RequestParser;
 import org.greenplum.pxf.service.bridge.Bridge;
 import org.greenplum.pxf.service.bridge.BridgeFactory;
 import org.greenplum.pxf.service.bridge.SimpleBridgeFactory;
+import org.greenplum.pxf.service.io.CompressionMetrics;
+import org.greenplum.pxf.service.io.DecompressingInputStream;
+import org.greenplum.pxf.service.io.WireCompression;
+import org.greenplum.pxf.service.metrics.MetricsRegistry;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 
 import javax.servlet.ServletContext;
 import javax.ws.rs.Consumes;
@@ -37,8 +43,10 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.InputStream;
+import java.util.concurrent.locks.Lock;
 
 import static org.greenplum.pxf.api.model.RequestContext.RequestType;
 
@@ -85,6 +93,9 @@ import static org.greenplum.pxf.api.model.RequestContext.RequestType;
 @Path("/" + Version.PXF_PROTOCOL_VERSION + "/Writable/")
 public class WritableResource extends BaseResource {
 
+    private static final String PROPERTY_KEY_INPUT_BUFFER_SIZE = "pxf.service.input.buffer.size";
+    private static final int INPUT_BUFFER_SIZE = Integer.getInteger(PROPERTY_KEY_INPUT_BUFFER_SIZE, 64 * 1024);
+
     private BridgeFactory bridgeFactory;
 
     /**
@@ -112,7 +123,8 @@ public class WritableResource extends BaseResource {
 	 * @param servletContext Servlet context contains attributes required by SecuredHDFS
 	 * @param headers Holds HTTP headers from request
 	 * @param path Holds URI path option used in this request
-	 * @param inputStream stream of bytes to write from Gpdb
+	 * @param inputStream stream of bytes to write from Gpdb, compressed as given
+	 *                    by the X-GP-CONTENT-ENCODING header
      * @return ok response if the operation finished successfully
      * @throws Exception in case of wrong request parameters, failure to
      *             initialize bridge or to write data
@@ -126,29 +138,41 @@ public class WritableResource extends BaseResource {
                            InputStream inputStream) throws Exception {
 
         RequestContext context = parseRequest(headers);
+        WireCompression compression = WireCompression.forContentEncoding(
+                getHeaderValue(headers, WireCompression.CONTENT_ENCODING_HEADER));
         Bridge bridge = bridgeFactory.getWriteBridge(context);
+        DecompressingInputStream in = compression.decompress(inputStream);
 
         // THREAD-SAFE parameter has precedence
         boolean isThreadSafe = context.isThreadSafe() && bridge.isThreadSafe();
         LOG.debug("Request for {} will be handled {} synchronization", context.getDataSource(), (isThreadSafe ? "without" : "with"));
 
-        return isThreadSafe ?
-                writeResponse(bridge, path, inputStream) :
-                synchronizedWriteResponse(bridge, path, inputStream);
+        RequestMetrics metrics = MetricsRegistry.getInstance().start(context);
+        bridge.setMetrics(metrics);
+        try {
+            return isThreadSafe ?
+                    writeResponse(bridge, metrics, path, in) :
+                    synchronizedWriteResponse(bridge, metrics, KeyedLockService.keyFor(context), path, in);
+        } finally {
+            CompressionMetrics.getInstance().record(context.getProfile(), "write", compression, in.getStats());
+            metrics.addBytesIn(in.getStats().getWireBytes());
+            MetricsRegistry.getInstance().finish(metrics);
+        }
     }
 
-    private Response synchronizedWriteResponse(Bridge bridge, String path, InputStream inputStream)
-            throws Exception {
+    private Response synchronizedWriteResponse(Bridge bridge, RequestMetrics metrics, String lockKey,
+                                               String path, InputStream inputStream) throws Exception {
 
-        // non tread-safe access will be synchronized on the class level
-        Response result;
-        synchronized (WritableResource.class) {
-            result = writeResponse(bridge, path, inputStream);
+        // non tread-safe access will be synchronized per plugin
+        Lock lock = KeyedLockService.getInstance().lock(lockKey);
+        try {
+            return writeResponse(bridge, metrics, path, inputStream);
+        } finally {
+            lock.unlock();
         }
-        return result;
     }
 
-    private Response writeResponse(Bridge bridge, String path, InputStream inputStream)
+    private Response writeResponse(Bridge bridge, RequestMetrics metrics, String path, InputStream inputStream)
             throws Exception {
         // Open the output file
         bridge.beginIteration();
@@ -157,7 +181,8 @@ public class WritableResource extends BaseResource {
 
         // dataStream will close automatically in the end of the try.
         // inputStream is closed by dataStream.close().
-        try (DataInputStream dataStream = new DataInputStream(inputStream)) {
+        // records are small, reading them from a buffer saves a call to the container per field
+        try (DataInputStream dataStream = new DataInputStream(new BufferedInputStream(inputStream, INPUT_BUFFER_SIZE))) {
             while (bridge.setNext(dataStream)) {
                 ++totalWritten;
             }
@@ -172,6 +197,7 @@ public class WritableResource extends BaseResource {
             ex = e;
             throw ex;
         } finally {
+            metrics.addRecords(totalWritten);
             try {
                 bridge.endIteration();
             } catch (Exception e) {
@@ -0,0 +1,120 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.model.RequestContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedLockServiceTest {
+
+    private KeyedLockService lockService;
+    private FakeTicker ticker;
+
+    @Before
+    public void setup() {
+        ticker = new FakeTicker();
+        lockService = new KeyedLockService(1024, ticker);
+    }
+
+    @Test
+    public void testKeyForPlugins() {
+        RequestContext context = new RequestContext();
+        context.setAccessor("org.greenplum.pxf.plugins.hdfs.LineBreakAccessor");
+        context.setResolver("org.greenplum.pxf.plugins.hdfs.StringPassResolver");
+        String key = KeyedLockService.keyFor(context);
+
+        context.setDataSource("/some/other/path");
+        assertEquals(key, KeyedLockService.keyFor(context));
+
+        context.setResolver("org.greenplum.pxf.plugins.hdfs.AvroResolver");
+        assertNotEquals(key, KeyedLockService.keyFor(context));
+    }
+
+    @Test
+    public void testUncontendedLock() {
+        Lock lock = lockService.lock("a");
+        lock.unlock();
+
+        assertEquals(1, lockService.getAcquireCount());
+        assertEquals(0, lockService.getContendedCount());
+        assertEquals(0, lockService.getTotalWaitNanos());
+    }
+
+    @Test
+    public void testSameKeyWaits() throws Exception {
+        Lock lock = lockService.lock("a");
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            Lock other = lockService.lock("a");
+            acquired.countDown();
+            other.unlock();
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        ticker.advanceTime(250);
+        lock.unlock();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+
+        assertEquals(2, lockService.getAcquireCount());
+        assertEquals(1, lockService.getContendedCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), lockService.getTotalWaitNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), lockService.getMaxWaitNanos());
+
+        Map<String, Long> stats = lockService.getStats();
+        assertEquals(2L, (long) stats.get("acquired"));
+        assertEquals(1L, (long) stats.get("contended"));
+        assertEquals(250L, (long) stats.get("totalWaitMillis"));
+        assertEquals(250L, (long) stats.get("maxWaitMillis"));
+
+        lockService.resetStats();
+        assertEquals(0L, (long) lockService.getStats().get("acquired"));
+        assertEquals(0L, (long) lockService.getStats().get("maxWaitMillis"));
+    }
+
+    @Test
+    public void testDifferentKeysDoNotWait() throws Exception {
+        Lock lock = lockService.lock("a");
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            Lock otherLock = lockService.lock("b");
+            acquired.countDown();
+            otherLock.unlock();
+        });
+        other.start();
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        lock.unlock();
+        other.join();
+        assertEquals(0, lockService.getContendedCount());
+    }
+}
@@ -0,0 +1,371 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.io.ArrayWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.DetachableRowAccessor;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.greenplum.pxf.plugins.json.JsonResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelResolveBridgeTest {
+
+    private static final int ROWS = 1000;
+
+    private ExecutorService executor;
+    private RequestContext context;
+    private AtomicInteger resolversCreated;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(8);
+        context = new RequestContext();
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        context.getTupleDescription().add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null));
+        context.addOption(ParallelResolveBridge.RESOLVER_THREADS_OPTION, "4");
+        resolversCreated = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrderIsPreserved() throws Exception {
+        List<Object> values = readAll(newBridge(-1, true));
+
+        assertEquals(ROWS, values.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, values.get(i));
+        }
+        assertEquals(4, resolversCreated.get());
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        context.addOption(ParallelResolveBridge.RESOLVER_ORDERED_OPTION, "false");
+        List<Object> values = readAll(newBridge(-1, true));
+
+        assertEquals(ROWS, values.size());
+        List<Integer> sorted = new ArrayList<>();
+        for (Object value : values) {
+            sorted.add((Integer) value);
+        }
+        Collections.sort(sorted);
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, (int) sorted.get(i));
+        }
+    }
+
+    @Test
+    public void testBadRecordKeepsItsPosition() throws Exception {
+        List<Object> values = readAll(newBridge(500, true));
+
+        assertEquals(ROWS, values.size());
+        assertTrue(((String) values.get(500)).startsWith("bad record 500"));
+        assertEquals(499, values.get(499));
+        assertEquals(501, values.get(501));
+    }
+
+    @Test
+    public void testThreadSafeResolverIsNotShared() throws Exception {
+        readAll(newBridge(-1, true));
+        assertEquals(4, resolversCreated.get());
+    }
+
+    @Test
+    public void testResolverThatIsNotThreadSafeIsNotShared() throws Exception {
+        List<Object> values = readAll(newBridge(-1, false));
+
+        assertEquals(ROWS, values.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, values.get(i));
+        }
+        assertEquals(1, resolversCreated.get());
+    }
+
+    @Test
+    public void testRowsWithoutNoArgConstructor() throws Exception {
+        AccessorFactory accessorFactory = new AccessorFactory() {
+            @Override
+            public Accessor getPlugin(RequestContext requestContext) {
+                return new ArrayAccessor();
+            }
+        };
+        ResolverFactory resolverFactory = new ResolverFactory() {
+            @Override
+            public Resolver getPlugin(RequestContext requestContext) {
+                resolversCreated.incrementAndGet();
+                return new ArrayResolver();
+            }
+        };
+        List<Object> values = readAll(new ParallelResolveBridge(context, accessorFactory, resolverFactory, executor, 8));
+
+        assertEquals(ROWS, values.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, values.get(i));
+        }
+        assertEquals(4, resolversCreated.get());
+    }
+
+    @Test
+    public void testIsSupported() {
+        context.setAccessor(CountingAccessor.class.getName());
+        assertTrue(ParallelResolveBridge.isSupported(context));
+
+        // the Hive accessors reuse rows that cannot be copied generically
+        context.setAccessor(ReusingArrayAccessor.class.getName());
+        assertFalse(ParallelResolveBridge.isSupported(context));
+
+        context.setAccessor(CountingAccessor.class.getName());
+        context.setThreadSafe(false);
+        assertFalse(ParallelResolveBridge.isSupported(context));
+
+        context.setThreadSafe(true);
+        context.addOption(ParallelResolveBridge.RESOLVER_THREADS_OPTION, "1");
+        assertFalse(ParallelResolveBridge.isSupported(context));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAccessorReusingRowsIsRejected() {
+        AccessorFactory accessorFactory = new AccessorFactory() {
+            @Override
+            public Accessor getPlugin(RequestContext requestContext) {
+                return new ReusingArrayAccessor();
+            }
+        };
+        ResolverFactory resolverFactory = new ResolverFactory() {
+            @Override
+            public Resolver getPlugin(RequestContext requestContext) {
+                return new ArrayResolver();
+            }
+        };
+        new ParallelResolveBridge(context, accessorFactory, resolverFactory, executor, 8);
+    }
+
+    @Test
+    public void testResolverReusingItsFieldList() throws Exception {
+        context.setConfig("default");
+        context.setUser("test-user");
+        AccessorFactory accessorFactory = new AccessorFactory() {
+            @Override
+            public Accessor getPlugin(RequestContext requestContext) {
+                return new JsonAccessor();
+            }
+        };
+        ResolverFactory resolverFactory = new ResolverFactory() {
+            @Override
+            public Resolver getPlugin(RequestContext requestContext) {
+                resolversCreated.incrementAndGet();
+                // returns the same list, cleared, for every row
+                JsonResolver resolver = new JsonResolver();
+                resolver.initialize(requestContext);
+                return resolver;
+            }
+        };
+        List<Object> values = readAll(new ParallelResolveBridge(context, accessorFactory, resolverFactory, executor, 8));
+
+        assertEquals(ROWS, values.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, values.get(i));
+        }
+        assertEquals(4, resolversCreated.get());
+    }
+
+    @Test
+    public void testParallelismIsCappedByPool() {
+        context.addOption(ParallelResolveBridge.RESOLVER_THREADS_OPTION, "64");
+        newBridge(-1, true);
+        assertEquals(8, resolversCreated.get());
+    }
+
+    private ParallelResolveBridge newBridge(final int badRow, final boolean threadSafe) {
+        AccessorFactory accessorFactory = new AccessorFactory() {
+            @Override
+            public Accessor getPlugin(RequestContext requestContext) {
+                return new CountingAccessor();
+            }
+        };
+        ResolverFactory resolverFactory = new ResolverFactory() {
+            @Override
+            public Resolver getPlugin(RequestContext requestContext) {
+                resolversCreated.incrementAndGet();
+                return new SlowResolver(badRow, threadSafe);
+            }
+        };
+        return new ParallelResolveBridge(context, accessorFactory, resolverFactory, executor, 8);
+    }
+
+    private List<Object> readAll(ParallelResolveBridge bridge) throws Exception {
+        List<Object> values = new ArrayList<>();
+        bridge.beginIteration();
+        Writable record;
+        while ((record = bridge.getNext()) != null) {
+            values.add(((GPDBWritable) record).getObject(0));
+        }
+        bridge.endIteration();
+        return values;
+    }
+
+    public static class CountingAccessor extends TestAccessor implements DetachableRowAccessor {
+
+        private int next;
+
+        @Override
+        public OneRow detach(OneRow row) {
+            return row;
+        }
+
+        @Override
+        public boolean openForRead() {
+            return true;
+        }
+
+        @Override
+        public OneRow readNextObject() {
+            return next < ROWS ? new OneRow(null, next++) : null;
+        }
+    }
+
+    private static class JsonAccessor extends TestAccessor implements DetachableRowAccessor {
+
+        private int next;
+
+        @Override
+        public OneRow detach(OneRow row) {
+            return new OneRow(null, new Text((Text) row.getData()));
+        }
+
+        @Override
+        public boolean openForRead() {
+            return true;
+        }
+
+        @Override
+        public OneRow readNextObject() {
+            return next < ROWS ? new OneRow(null, new Text("{\"id\": " + next++ + "}")) : null;
+        }
+    }
+
+    /**
+     * Reads rows the way the Hive Parquet record reader does, reusing an
+     * ArrayWritable that has no no-arg constructor and cannot be cloned.
+     */
+    public static class ReusingArrayAccessor extends TestAccessor {
+
+        private final IntWritable value = new IntWritable();
+        private final ArrayWritable array = new ArrayWritable(IntWritable.class, new IntWritable[]{value});
+        private int next;
+
+        @Override
+        public boolean openForRead() {
+            return true;
+        }
+
+        @Override
+        public OneRow readNextObject() {
+            if (next == ROWS) {
+                return null;
+            }
+            value.set(next++);
+            return new OneRow(null, array);
+        }
+    }
+
+    private static class ArrayAccessor extends ReusingArrayAccessor implements DetachableRowAccessor {
+
+        @Override
+        public OneRow detach(OneRow row) {
+            int value = ((IntWritable) ((ArrayWritable) row.getData()).get()[0]).get();
+            return new OneRow(null, new ArrayWritable(IntWritable.class, new IntWritable[]{new IntWritable(value)}));
+        }
+    }
+
+    private static class ArrayResolver extends TestResolver {
+
+        @Override
+        public List<OneField> getFields(OneRow row) {
+            int value = ((IntWritable) ((ArrayWritable) row.getData()).get()[0]).get();
+            return Collections.singletonList(new OneField(DataType.INTEGER.getOID(), value));
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+
+    private static class SlowResolver extends TestResolver {
+
+        private final int badRow;
+        private final boolean threadSafe;
+
+        SlowResolver(int badRow, boolean threadSafe) {
+            this.badRow = badRow;
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public List<OneField> getFields(OneRow row) throws Exception {
+            int value = (Integer) row.getData();
+            if (value == badRow) {
+                throw new BadRecordException("bad record " + value);
+            }
+            if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                Thread.sleep(1);
+            }
+            return Collections.singletonList(new OneField(DataType.INTEGER.getOID(), value));
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+    }
+}
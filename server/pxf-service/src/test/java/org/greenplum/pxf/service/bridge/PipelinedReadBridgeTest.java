@@ -0,0 +1,294 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.google.common.base.Ticker;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.io.Writable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinedReadBridgeTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRecordsAreStreamedInOrder() throws Exception {
+        RecordBridge delegate = new RecordBridge(100, -1);
+        PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 2, 64, Ticker.systemTicker(), executor);
+
+        assertTrue(bridge.beginIteration());
+        byte[] output = drain(bridge);
+        bridge.endIteration();
+
+        assertArrayEquals(expected(100), output);
+        assertEquals(100, bridge.getRecordCount());
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void testRecordsBeforeErrorAreReturned() throws Exception {
+        RecordBridge delegate = new RecordBridge(100, 30);
+        PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 2, 64, Ticker.systemTicker(), executor);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        bridge.beginIteration();
+        try {
+            Writable chunk;
+            while ((chunk = bridge.getNext()) != null) {
+                chunk.write(out);
+            }
+            fail("expected the producer error to be rethrown");
+        } catch (EOFException e) {
+            assertEquals("bad record", e.getMessage());
+        }
+        assertNull(bridge.getNext());
+        bridge.endIteration();
+
+        assertArrayEquals(expected(30), bytes.toByteArray());
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void testProducerIsBoundedByQueue() throws Exception {
+        RecordBridge delegate = new RecordBridge(Integer.MAX_VALUE, -1);
+        PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 1, 8, Ticker.systemTicker(), executor);
+
+        bridge.beginIteration();
+        Thread.sleep(200);
+        // one chunk in the queue, one waiting to be queued and one being serialized
+        assertTrue(delegate.produced.get() <= 3 * 2);
+
+        bridge.getNext();
+        bridge.endIteration();
+        assertTrue(delegate.closed);
+        assertTrue(bridge.getProducerBlockedNanos() > 0);
+    }
+
+    @Test
+    public void testNoProducerWhenBeginFails() throws Exception {
+        RecordBridge delegate = new RecordBridge(10, -1);
+        delegate.begin = false;
+        PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 1, 8, Ticker.systemTicker(), executor);
+
+        assertEquals(false, bridge.beginIteration());
+        bridge.endIteration();
+        assertEquals(0, delegate.produced.get());
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void testProducerRunsAsRequestUser() throws Exception {
+        RecordBridge delegate = new RecordBridge(10, -1);
+        PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 2, 8, Ticker.systemTicker(), executor);
+
+        UserGroupInformation.createRemoteUser("alice").doAs((PrivilegedExceptionAction<Boolean>) bridge::beginIteration);
+        assertArrayEquals(expected(10), drain(bridge));
+        bridge.endIteration();
+
+        assertEquals("alice", delegate.user);
+    }
+
+    @Test
+    public void testBridgeIsClosedOnlyOnceTheProducerStopped() throws Exception {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean readEnded = new AtomicBoolean();
+        final AtomicBoolean closedWhileReading = new AtomicBoolean();
+        RecordBridge delegate = new RecordBridge(Integer.MAX_VALUE, -1) {
+            @Override
+            public Writable getNext() throws Exception {
+                reading.countDown();
+                // a read that ignores the interruption
+                while (true) {
+                    try {
+                        release.await();
+                        readEnded.set(true);
+                        return null;
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }
+
+            @Override
+            public void endIteration() {
+                closedWhileReading.set(!readEnded.get());
+                super.endIteration();
+            }
+        };
+        PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 2, 8, Ticker.systemTicker(), executor, 50);
+
+        bridge.beginIteration();
+        reading.await();
+        Thread request = new Thread(() -> {
+            try {
+                bridge.endIteration();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        request.start();
+        // the request keeps waiting past the cancel timeout while the accessor is in use
+        request.join(300);
+        assertTrue(request.isAlive());
+        assertFalse(delegate.closed);
+
+        release.countDown();
+        request.join(5000);
+        assertFalse(request.isAlive());
+        assertTrue(delegate.closed);
+        assertFalse(closedWhileReading.get());
+    }
+
+    @Test
+    public void testProducerThatNeverStartedDoesNotBlockTheEnd() throws Exception {
+        ExecutorService idle = Executors.newSingleThreadExecutor();
+        final CountDownLatch blocker = new CountDownLatch(1);
+        try {
+            // keep the only thread busy so the producer stays queued
+            idle.submit(() -> {
+                blocker.await();
+                return null;
+            });
+            RecordBridge delegate = new RecordBridge(10, -1);
+            PipelinedReadBridge bridge = new PipelinedReadBridge(delegate, 2, 8, Ticker.systemTicker(), idle, 50);
+
+            bridge.beginIteration();
+            bridge.endIteration();
+            assertTrue(delegate.closed);
+        } finally {
+            blocker.countDown();
+            idle.shutdown();
+        }
+    }
+
+    private byte[] drain(PipelinedReadBridge bridge) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Writable chunk;
+        while ((chunk = bridge.getNext()) != null) {
+            chunk.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] expected(int records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < records; i++) {
+            out.writeInt(i);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Bridge producing 4 byte records holding their index.
+     */
+    private static class RecordBridge implements Bridge {
+
+        private final int records;
+        private final int failAt;
+        private final AtomicInteger produced = new AtomicInteger();
+        private boolean begin = true;
+        private volatile boolean closed;
+        private volatile String user;
+
+        RecordBridge(int records, int failAt) {
+            this.records = records;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean beginIteration() {
+            return begin;
+        }
+
+        @Override
+        public Writable getNext() throws Exception {
+            final int index = produced.get();
+            if (index == failAt) {
+                throw new EOFException("bad record");
+            }
+            if (index == records) {
+                return null;
+            }
+            produced.incrementAndGet();
+            user = UserGroupInformation.getCurrentUser().getUserName();
+            return new Writable() {
+                @Override
+                public void write(DataOutput out) throws IOException {
+                    out.writeInt(index);
+                }
+
+                @Override
+                public void readFields(DataInput in) {
+                }
+            };
+        }
+
+        @Override
+        public boolean setNext(DataInputStream inputStream) {
+            return false;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+
+        @Override
+        public void endIteration() {
+            closed = true;
+        }
+    }
+}
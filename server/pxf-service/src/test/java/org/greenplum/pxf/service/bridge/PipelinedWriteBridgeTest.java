@@ -0,0 +1,278 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinedWriteBridgeTest {
+
+    private static final int ROWS = 1000;
+
+    private ExecutorService executor;
+    private RequestContext context;
+    private RecordingAccessor accessor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        context = new RequestContext();
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        accessor = new RecordingAccessor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRowsAreWrittenInOrderByWriter() throws Exception {
+        PipelinedWriteBridge bridge = newBridge(false);
+        writeAll(bridge, input(ROWS));
+
+        assertEquals(ROWS, accessor.values.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, accessor.values.get(i));
+        }
+        assertTrue(accessor.closed);
+        assertEquals(ROWS, accessor.valuesAtClose);
+        // the first two rows are written directly
+        assertEquals(Thread.currentThread(), accessor.threads.get(0));
+        assertNotEquals(Thread.currentThread(), accessor.threads.get(ROWS - 1));
+    }
+
+    @Test
+    public void testReusedRowsAreWrittenDirectly() throws Exception {
+        PipelinedWriteBridge bridge = newBridge(true);
+        writeAll(bridge, input(ROWS));
+
+        assertEquals(ROWS, accessor.values.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, accessor.values.get(i));
+            assertEquals(Thread.currentThread(), accessor.threads.get(i));
+        }
+        assertTrue(accessor.closed);
+    }
+
+    @Test
+    public void testWriterFailureIsReported() throws Exception {
+        accessor.failAt = 100;
+        PipelinedWriteBridge bridge = newBridge(false);
+        DataInputStream in = input(ROWS);
+
+        bridge.beginIteration();
+        try {
+            while (bridge.setNext(in)) {
+                // keep sending until the writer failure shows up
+            }
+            bridge.endIteration();
+            fail("expected the writer failure to be reported");
+        } catch (BadRecordException e) {
+            bridge.endIteration();
+        }
+        assertEquals(100, accessor.values.size());
+        assertTrue(accessor.closed);
+    }
+
+    @Test
+    public void testWriterRunsAsRequestUser() throws Exception {
+        PipelinedWriteBridge bridge = newBridge(false);
+        UserGroupInformation.createRemoteUser("alice").doAs((PrivilegedExceptionAction<Void>) () -> {
+            writeAll(bridge, input(ROWS));
+            return null;
+        });
+
+        assertNotEquals(Thread.currentThread(), accessor.threads.get(ROWS - 1));
+        assertEquals(ROWS, accessor.users.size());
+        for (String user : accessor.users) {
+            assertEquals("alice", user);
+        }
+    }
+
+    @Test
+    public void testStuckWriterFailsTheRequest() throws Exception {
+        accessor.blockAt = 10;
+        PipelinedWriteBridge bridge = newBridge(false, 200, 50);
+        DataInputStream in = input(ROWS);
+
+        bridge.beginIteration();
+        try {
+            while (bridge.setNext(in)) {
+                // keep sending until the queue is full
+            }
+            fail("expected the stuck writer to be reported");
+        } catch (IOException e) {
+            assertEquals("Write pipeline wrote no rows in 200 ms", e.getMessage());
+        }
+        try {
+            bridge.endIteration();
+            fail("expected the stuck writer to be reported");
+        } catch (IOException e) {
+            assertEquals("Write pipeline wrote no rows in 200 ms", e.getMessage());
+        }
+        // the writer is still using the accessor
+        assertFalse(accessor.closed);
+
+        accessor.release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(accessor.closed);
+        assertEquals(10, accessor.values.size());
+    }
+
+    private PipelinedWriteBridge newBridge(final boolean reuseRows) {
+        return newBridge(reuseRows, 60000, 30000);
+    }
+
+    private PipelinedWriteBridge newBridge(final boolean reuseRows, long writerTimeoutMillis, long cancelTimeoutMillis) {
+        AccessorFactory accessorFactory = new AccessorFactory() {
+            @Override
+            public Accessor getPlugin(RequestContext requestContext) {
+                return accessor;
+            }
+        };
+        ResolverFactory resolverFactory = new ResolverFactory() {
+            @Override
+            public Resolver getPlugin(RequestContext requestContext) {
+                return new IntResolver(reuseRows);
+            }
+        };
+        return new PipelinedWriteBridge(context, accessorFactory, resolverFactory, executor,
+                writerTimeoutMillis, cancelTimeoutMillis);
+    }
+
+    private void writeAll(PipelinedWriteBridge bridge, DataInputStream in) throws Exception {
+        bridge.beginIteration();
+        while (bridge.setNext(in)) {
+            // write all the records
+        }
+        bridge.endIteration();
+    }
+
+    private DataInputStream input(int rows) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < rows; i++) {
+            GPDBWritable record = new GPDBWritable(new int[]{DataType.INTEGER.getOID()});
+            record.setInt(0, i);
+            record.write(out);
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static class RecordingAccessor extends TestAccessor {
+
+        private final List<Object> values = new CopyOnWriteArrayList<>();
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+        private final List<String> users = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private int failAt = -1;
+        private int blockAt = -1;
+        private volatile int valuesAtClose = -1;
+        private volatile boolean closed;
+
+        @Override
+        public boolean openForWrite() {
+            return true;
+        }
+
+        @Override
+        public boolean writeNextObject(OneRow onerow) throws IOException {
+            if (values.size() == failAt) {
+                return false;
+            }
+            if (values.size() == blockAt) {
+                // a storage that does not respond to interrupts
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // ignored
+                    }
+                }
+                throw new IOException("connection reset");
+            }
+            users.add(UserGroupInformation.getCurrentUser().getUserName());
+            Object data = onerow.getData();
+            values.add(data instanceof int[] ? ((int[]) data)[0] : data);
+            threads.add(Thread.currentThread());
+            return true;
+        }
+
+        @Override
+        public void closeForWrite() {
+            valuesAtClose = values.size();
+            closed = true;
+        }
+    }
+
+    private static class IntResolver extends TestResolver {
+
+        private final boolean reuseRows;
+        private final int[] holder = new int[1];
+
+        IntResolver(boolean reuseRows) {
+            this.reuseRows = reuseRows;
+        }
+
+        @Override
+        public OneRow setFields(List<OneField> record) {
+            int value = (Integer) record.get(0).val;
+            if (reuseRows) {
+                holder[0] = value;
+                return new OneRow(holder);
+            }
+            return new OneRow(value);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.greenplum.pxf.service.bridge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.BatchAccessor;
+import org.greenplum.pxf.api.BatchResolver;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.ColumnBatch;
+import org.greenplum.pxf.api.io.ColumnBatchWritable;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.io.GPDBWritable;
+import org.greenplum.pxf.api.io.Writable;
+import org.greenplum.pxf.api.model.Accessor;
+import org.greenplum.pxf.api.model.OutputFormat;
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.api.model.Resolver;
+import org.greenplum.pxf.api.utilities.AccessorFactory;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.ResolverFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadBatchBridgeTest {
+
+    private RequestContext context;
+    private IntAccessor accessor;
+    private IntResolver resolver;
+
+    @Before
+    public void setup() {
+        context = new RequestContext();
+        context.setOutputFormat(OutputFormat.GPDBWritable);
+        context.getTupleDescription().add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null));
+        context.addOption(ReadBatchBridge.BATCH_SIZE_OPTION, "4");
+        accessor = new IntAccessor(10);
+        resolver = new IntResolver();
+    }
+
+    @Test
+    public void testRecordsAreBatched() throws Exception {
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        assertEquals(Arrays.<Object>asList(0, 1, 2, 3), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList(4, 5, 6, 7), read(bridge.getNext()));
+        // the last batch is not full
+        assertEquals(Arrays.<Object>asList(8, 9), read(bridge.getNext()));
+        assertNull(bridge.getNext());
+        bridge.endIteration();
+    }
+
+    @Test
+    public void testEmptySource() throws Exception {
+        accessor = new IntAccessor(0);
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        assertNull(bridge.getNext());
+    }
+
+    @Test
+    public void testBatchAccessorFillsTheBatch() throws Exception {
+        accessor = new IntBatchAccessor(10);
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        assertEquals(Arrays.<Object>asList(0, 1, 2, 3), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList(4, 5, 6, 7), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList(8, 9), read(bridge.getNext()));
+        assertNull(bridge.getNext());
+        // never asked for more records than the batch can hold
+        assertEquals(Arrays.asList(4, 4, 4, 2, 4), ((IntBatchAccessor) accessor).requested);
+    }
+
+    @Test
+    public void testBadRecordIsReturnedAfterTheBatch() throws Exception {
+        resolver.badRow = 6;
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        assertEquals(Arrays.<Object>asList(0, 1, 2, 3), read(bridge.getNext()));
+        // the records resolved before the bad one come first
+        assertEquals(Arrays.<Object>asList(4, 5), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList("bad record 6"), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList(7, 8, 9), read(bridge.getNext()));
+        assertNull(bridge.getNext());
+    }
+
+    @Test
+    public void testBadRecordAtTheStartOfTheBatch() throws Exception {
+        resolver.badRow = 4;
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        assertEquals(Arrays.<Object>asList(0, 1, 2, 3), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList("bad record 4"), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList(5, 6, 7, 8), read(bridge.getNext()));
+    }
+
+    @Test
+    public void testDataExceptionIsReturnedAsErrorRecord() throws Exception {
+        accessor.failAt = 2;
+        accessor.failure = new EOFException("unexpected end of file");
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        assertEquals(Arrays.<Object>asList(0, 1), read(bridge.getNext()));
+        assertEquals(Arrays.<Object>asList("unexpected end of file"), read(bridge.getNext()));
+    }
+
+    @Test
+    public void testOtherIOExceptionIsThrown() throws Exception {
+        accessor.failAt = 2;
+        accessor.failure = new IOException("disk failure");
+        ReadBatchBridge bridge = newBridge();
+        assertTrue(bridge.beginIteration());
+
+        try {
+            bridge.getNext();
+            fail("expected the IOException to be thrown");
+        } catch (IOException e) {
+            assertEquals("disk failure", e.getMessage());
+        }
+    }
+
+    private ReadBatchBridge newBridge() {
+        AccessorFactory accessorFactory = new AccessorFactory() {
+            @Override
+            public Accessor getPlugin(RequestContext requestContext) {
+                return accessor;
+            }
+        };
+        ResolverFactory resolverFactory = new ResolverFactory() {
+            @Override
+            public Resolver getPlugin(RequestContext requestContext) {
+                return resolver;
+            }
+        };
+        return new ReadBatchBridge(context, accessorFactory, resolverFactory);
+    }
+
+    /*
+     * Returns the values of the records of a batch, or the message of an
+     * error record
+     */
+    private List<Object> read(Writable writable) throws Exception {
+        List<Object> values = new ArrayList<>();
+        if (!(writable instanceof ColumnBatchWritable)) {
+            // text values are stored with their terminating NUL
+            values.add(((GPDBWritable) writable).getString(0).trim());
+            return values;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writable.write(new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        while (in.available() > 0) {
+            GPDBWritable record = new GPDBWritable();
+            record.readFields(in);
+            values.add(record.getInt(0));
+        }
+        return values;
+    }
+
+    private static class IntAccessor extends TestAccessor {
+
+        private final int rows;
+        private int next;
+        private int failAt = -1;
+        private IOException failure;
+
+        IntAccessor(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean openForRead() {
+            return true;
+        }
+
+        @Override
+        public OneRow readNextObject() throws IOException {
+            if (next == failAt) {
+                next++;
+                throw failure;
+            }
+            return next < rows ? new OneRow(null, next++) : null;
+        }
+    }
+
+    private static class IntBatchAccessor extends IntAccessor implements BatchAccessor {
+
+        private final List<Integer> requested = new ArrayList<>();
+        private final int rows;
+        private int next;
+
+        IntBatchAccessor(int rows) {
+            super(rows);
+            this.rows = rows;
+        }
+
+        @Override
+        public OneRow readNextBatch(int maxRecords) {
+            requested.add(maxRecords);
+            if (next == rows) {
+                return null;
+            }
+            int[] values = new int[Math.min(maxRecords, rows - next)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = next++;
+            }
+            return new OneRow(null, values);
+        }
+    }
+
+    private static class IntResolver extends TestResolver implements BatchResolver {
+
+        private int badRow = -1;
+
+        @Override
+        public void resolveBatch(OneRow row, ColumnBatch batch) throws BadRecordException {
+            int[] values = (row.getData() instanceof int[]) ?
+                    (int[]) row.getData() : new int[]{(Integer) row.getData()};
+            for (int value : values) {
+                if (value == badRow) {
+                    throw new BadRecordException("bad record " + value);
+                }
+                batch.getColumn(0).setInt(batch.size(), value);
+                batch.setSize(batch.size() + 1);
+            }
+        }
+    }
+}
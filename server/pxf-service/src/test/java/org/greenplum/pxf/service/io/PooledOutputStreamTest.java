@@ -0,0 +1,171 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.service.FakeTicker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PooledOutputStreamTest {
+
+    private CountingOutputStream target;
+    private BufferPool pool;
+    private FakeTicker ticker;
+
+    @Before
+    public void setup() {
+        target = new CountingOutputStream();
+        pool = new BufferPool(16, 2);
+        ticker = new FakeTicker();
+    }
+
+    @Test
+    public void testSmallWritesAreBuffered() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, new FlushPolicy(FlushPolicy.Mode.BYTES, 1000, 0), ticker);
+        for (int i = 0; i < 40; i++) {
+            out.write(i);
+        }
+        // two full buffers handed over, the rest is still buffered
+        assertEquals(2, target.writes);
+        assertEquals(32, target.size());
+        assertEquals(0, target.flushes);
+
+        out.close();
+        assertEquals(3, target.writes);
+        assertEquals(1, target.flushes);
+        assertEquals(40, out.getBytesWritten());
+        assertEquals(1, out.getFlushCount());
+        byte[] expected = new byte[40];
+        for (int i = 0; i < 40; i++) {
+            expected[i] = (byte) i;
+        }
+        assertArrayEquals(expected, target.toByteArray());
+    }
+
+    @Test
+    public void testLargeWriteBypassesBuffer() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, new FlushPolicy(FlushPolicy.Mode.BYTES, 1000, 0), ticker);
+        out.write(new byte[]{1, 2, 3});
+        out.write(new byte[50]);
+        assertEquals(2, target.writes);
+        assertEquals(53, target.size());
+    }
+
+    @Test
+    public void testFlushAfterBytes() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, new FlushPolicy(FlushPolicy.Mode.BYTES, 32, 0), ticker);
+        out.write(new byte[10]);
+        out.write(new byte[10]);
+        assertEquals(0, target.flushes);
+        out.write(new byte[10]);
+        out.write(new byte[10]);
+        // 30 bytes handed over, not yet at the threshold
+        assertEquals(0, target.flushes);
+        out.write(new byte[10]);
+        assertEquals(1, target.flushes);
+    }
+
+    @Test
+    public void testFlushAfterLatency() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, new FlushPolicy(FlushPolicy.Mode.LATENCY, 0, 100), ticker);
+        out.write(new byte[4]);
+        assertEquals(0, target.size());
+
+        ticker.advanceTime(100);
+        out.write(new byte[4]);
+        assertEquals(8, target.size());
+        assertEquals(1, target.flushes);
+
+        out.write(new byte[4]);
+        assertEquals(8, target.size());
+    }
+
+    @Test
+    public void testIdleStreamIsFlushedAfterLatency() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, new FlushPolicy(FlushPolicy.Mode.LATENCY, 0, 100), ticker);
+        out.write(new byte[4]);
+        out.flushIfIdle();
+        assertEquals(0, target.size());
+
+        ticker.advanceTime(100);
+        out.flushIfIdle();
+        assertEquals(4, target.size());
+        assertEquals(1, target.flushes);
+
+        // nothing new to flush
+        ticker.advanceTime(100);
+        out.flushIfIdle();
+        assertEquals(1, target.flushes);
+    }
+
+    @Test
+    public void testIdleStreamIsNotFlushedWithBytesPolicy() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, new FlushPolicy(FlushPolicy.Mode.BYTES, 1000, 0), ticker);
+        out.write(new byte[4]);
+        ticker.advanceTime(1000);
+        out.flushIfIdle();
+        assertEquals(0, target.size());
+        assertEquals(0, target.flushes);
+    }
+
+    @Test
+    public void testBuffersAreReused() throws Exception {
+        new PooledOutputStream(target, pool, FlushPolicy.fromSystemProperties(), ticker).close();
+        PooledOutputStream out = new PooledOutputStream(target, pool, FlushPolicy.fromSystemProperties(), ticker);
+        out.release();
+        out.release();
+
+        assertEquals(1, pool.getAllocationCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testReleaseDiscardsData() throws Exception {
+        PooledOutputStream out = new PooledOutputStream(target, pool, FlushPolicy.fromSystemProperties(), ticker);
+        out.write(new byte[4]);
+        out.release();
+        out.close();
+
+        assertEquals(0, target.size());
+        assertEquals(0, target.flushes);
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        int writes;
+        int flushes;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WireCompressionTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(WireCompression.PROPERTY_KEY_ENABLED);
+    }
+
+    @Test
+    public void testNegotiate() {
+        assertEquals(WireCompression.IDENTITY, WireCompression.negotiate(null));
+        assertEquals(WireCompression.IDENTITY, WireCompression.negotiate(""));
+        assertEquals(WireCompression.IDENTITY, WireCompression.negotiate("zstd"));
+        assertEquals(WireCompression.GZIP, WireCompression.negotiate("zstd, GZIP,identity"));
+        assertEquals(WireCompression.IDENTITY, WireCompression.negotiate("identity,gzip"));
+
+        System.setProperty(WireCompression.PROPERTY_KEY_ENABLED, "false");
+        assertEquals(WireCompression.IDENTITY, WireCompression.negotiate("gzip"));
+    }
+
+    @Test
+    public void testContentEncoding() {
+        assertEquals(WireCompression.IDENTITY, WireCompression.forContentEncoding(null));
+        assertEquals(WireCompression.GZIP, WireCompression.forContentEncoding("gzip"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedContentEncoding() {
+        WireCompression.forContentEncoding("lz4");
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws Exception {
+        byte[] data = repetitiveText();
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        CompressingOutputStream out = WireCompression.GZIP.compress(wire);
+        out.write(data, 0, data.length);
+        out.close();
+
+        CompressionStats stats = out.getStats();
+        assertEquals(data.length, stats.getRawBytes());
+        assertEquals(wire.size(), stats.getWireBytes());
+        assertTrue(stats.getRatio() > 5);
+
+        DecompressingInputStream in = WireCompression.GZIP.decompress(new ByteArrayInputStream(wire.toByteArray()));
+        assertArrayEquals(data, readAll(in));
+        assertEquals(data.length, in.getStats().getRawBytes());
+        assertEquals(wire.size(), in.getStats().getWireBytes());
+    }
+
+    @Test
+    public void testFlushMakesDataDecodable() throws Exception {
+        byte[] data = "some rows\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        CompressingOutputStream out = WireCompression.GZIP.compress(wire);
+        out.write(data, 0, data.length);
+        out.flush();
+
+        // the trailer is not written yet, but the flushed data can be decoded
+        InputStream in = new GZIPInputStream(new ByteArrayInputStream(wire.toByteArray()));
+        byte[] result = new byte[data.length];
+        int n = 0;
+        while (n < result.length) {
+            n += in.read(result, n, result.length - n);
+        }
+        assertArrayEquals(data, result);
+    }
+
+    @Test
+    public void testIdentity() throws Exception {
+        byte[] data = repetitiveText();
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        CompressingOutputStream out = WireCompression.IDENTITY.compress(wire);
+        out.write(data, 0, data.length);
+        out.close();
+
+        assertArrayEquals(data, wire.toByteArray());
+        assertEquals(1.0, out.getStats().getRatio(), 0.0);
+        assertEquals(0, out.getStats().getCpuNanos());
+    }
+
+    @Test
+    public void testCloseDoesNotCloseTarget() throws Exception {
+        final boolean[] closed = {false};
+        ByteArrayOutputStream wire = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+        CompressingOutputStream out = WireCompression.GZIP.compress(wire);
+        out.write(1);
+        out.close();
+        out.close();
+
+        assertEquals(false, closed[0]);
+        assertArrayEquals(new byte[]{1}, readAll(WireCompression.GZIP.decompress(
+                new ByteArrayInputStream(wire.toByteArray()))));
+    }
+
+    @Test
+    public void testAbortReleasesCompressor() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        CompressingOutputStream out = WireCompression.GZIP.compress(wire);
+        out.write(1);
+        int written = wire.size();
+        out.abort();
+        out.close();
+
+        // the end of the data is not written once aborted
+        assertEquals(written, wire.size());
+    }
+
+    @Test
+    public void testCompressorIsReleasedWhenClosingFails() throws Exception {
+        final boolean[] reset = {false};
+        OutputStream target = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (reset[0]) {
+                    throw new IOException("connection reset");
+                }
+            }
+        };
+        final Deflater[] deflater = new Deflater[1];
+        WireCompression.GzipCompressor compressor = new WireCompression.GzipCompressor(target, 1) {
+            {
+                deflater[0] = def;
+            }
+        };
+        reset[0] = true;
+        try {
+            compressor.close();
+            fail("expected the end of the data not to be written");
+        } catch (IOException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+        try {
+            deflater[0].getBytesRead();
+            fail("expected the deflater to be released");
+        } catch (NullPointerException e) {
+            assertEquals("Deflater has been closed", e.getMessage());
+        }
+    }
+
+    private byte[] repetitiveText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append(i % 100).append(",some repeated value,2020-01-01 00:00:00\n");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer, 0, buffer.length)) > 0) {
+            result.write(buffer, 0, n);
+        }
+        return result.toByteArray();
+    }
+}
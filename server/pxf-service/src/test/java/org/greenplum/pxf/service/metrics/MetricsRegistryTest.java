@@ -0,0 +1,152 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.model.RequestContext;
+import org.greenplum.pxf.service.FakeTicker;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    private static final long MILLIS = 1000000L;
+
+    private FakeTicker ticker;
+    private MetricsRegistry registry;
+    private RequestContext context;
+
+    @Before
+    public void setup() {
+        ticker = new FakeTicker();
+        registry = new MetricsRegistry(true, ticker);
+        context = new RequestContext();
+        context.setProfile("hdfs:text");
+        context.setServerName("default");
+        context.setUser("alice");
+    }
+
+    @Test
+    public void testStagesAreAggregated() {
+        RequestMetrics metrics = registry.start(context);
+        assertEquals(1, registry.getActiveRequests());
+
+        long start = metrics.start();
+        ticker.advanceTime(5);
+        metrics.stop(Stage.OPEN, start);
+        for (int i = 0; i < 3; i++) {
+            start = metrics.start();
+            ticker.advanceTime(2);
+            metrics.stop(Stage.ACCESSOR_READ, start);
+        }
+        metrics.addRecords(3);
+        metrics.addBytesOut(100);
+        metrics.addReadStatistics(Collections.singletonMap("totalBytesRead", 42L));
+        registry.finish(metrics);
+
+        assertEquals(0, registry.getActiveRequests());
+        List<MetricsSnapshot> snapshots = registry.getMetrics();
+        assertEquals(1, snapshots.size());
+        MetricsSnapshot snapshot = snapshots.get(0);
+        assertEquals("hdfs:text", snapshot.getProfile());
+        assertEquals("default", snapshot.getServer());
+        assertEquals("alice", snapshot.getUser());
+        assertEquals(1, snapshot.getRequests());
+        assertEquals(3, snapshot.getRecords());
+        assertEquals(100, snapshot.getBytesOut());
+        assertEquals(Long.valueOf(42), snapshot.getReadStatistics().get("totalBytesRead"));
+        assertEquals(11 * MILLIS, snapshot.getDuration().getTotalNanos());
+        assertEquals(5 * MILLIS, snapshot.getStages().get("OPEN").getTotalNanos());
+        assertEquals(6 * MILLIS, snapshot.getStages().get("ACCESSOR_READ").getTotalNanos());
+        assertEquals(0, snapshot.getStages().get("CLOSE").getCount());
+    }
+
+    @Test
+    public void testRequestsAreGroupedByProfileServerAndUser() {
+        registry.finish(registry.start(context));
+        registry.finish(registry.start(context));
+        context.setUser("bob");
+        registry.finish(registry.start(context));
+
+        List<MetricsSnapshot> snapshots = registry.getMetrics();
+        assertEquals(2, snapshots.size());
+        assertEquals("alice", snapshots.get(0).getUser());
+        assertEquals(2, snapshots.get(0).getRequests());
+        assertEquals("bob", snapshots.get(1).getUser());
+        assertEquals(1, snapshots.get(1).getRequests());
+
+        registry.reset();
+        assertTrue(registry.getMetrics().isEmpty());
+    }
+
+    @Test
+    public void testDisabledMetricsOnlyCountRequests() {
+        registry = new MetricsRegistry(false, ticker);
+        RequestMetrics metrics = registry.start(context);
+        long start = metrics.start();
+        ticker.advanceTime(5);
+        metrics.stop(Stage.RESOLVE, start);
+        metrics.addRecords(10);
+        registry.finish(metrics);
+
+        MetricsSnapshot snapshot = registry.getMetrics().get(0);
+        assertEquals(1, snapshot.getRequests());
+        assertEquals(0, snapshot.getRecords());
+        assertEquals(0, snapshot.getStages().get("RESOLVE").getCount());
+        assertEquals(5 * MILLIS, snapshot.getDuration().getTotalNanos());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1000000);
+        histogram.record(0);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(98 * 1000 + 1000000, snapshot.getTotalNanos());
+        assertEquals(1000000, snapshot.getMaxNanos());
+        // 1000 falls in the bucket [512, 1023], 1000000 in [524288, 1048575]
+        assertEquals(1023, snapshot.getP50Nanos());
+        assertEquals(1023, snapshot.getP90Nanos());
+        assertEquals(1023, snapshot.getP99Nanos());
+        histogram.record(1000000);
+        assertEquals(1048575, histogram.snapshot().getP99Nanos());
+    }
+
+    @Test
+    public void testMBeanIsRegistered() throws Exception {
+        MetricsRegistry.getInstance().finish(MetricsRegistry.getInstance().start(context));
+        Object metrics = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsRegistry.OBJECT_NAME), "Metrics");
+        assertTrue(metrics instanceof Object[]);
+        assertTrue(((Object[]) metrics).length > 0);
+    }
+}